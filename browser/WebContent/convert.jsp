@@ -93,12 +93,20 @@
     		    	Integer.parseInt(configId) :
     			converter.getDatabase().getConfigId(configName);
 
-	    String result = converter.getConfigString(id,format,
-						      modifierInstructions,
-						      asFragment);
-	    out.print(result);
+	    converter.writeConfig(id,format,
+				  modifierInstructions,
+				  asFragment,
+				  out);
 	    out.close();
 	} catch (Exception e) {
+	    // the configuration is streamed: drop what is still buffered and
+	    // flag the error, or mark the part already sent as incomplete
+	    if ( !response.isCommitted() ) {
+	        out.clearBuffer();
+	        response.setStatus( HttpServletResponse.SC_INTERNAL_SERVER_ERROR );
+	    }
+	    else
+	        out.print( "\nERROR: conversion failed, the configuration above is incomplete!\n" );
     	Throwable cause = e.getCause(); 
 	    out.print(e.getMessage()+"\n"); 
 	    if ( cause != null )
@@ -33,10 +33,17 @@
         if (params.configName != null)
             params.configId = converter.getDatabase().getConfigId( params.configName );
 
-        String result = converter.getConfigString( params.configId, params.format, modifierInstructions, params.asFragment);
-        out.print(result);
+        converter.writeConfig( params.configId, params.format, modifierInstructions, params.asFragment, out );
 
     } catch (Exception e) {
+        // the configuration is streamed: drop what is still buffered and
+        // flag the error, or mark the part already sent as incomplete
+        if (!response.isCommitted()) {
+            out.clearBuffer();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+        else
+            out.print("\nERROR: conversion failed, the configuration above is incomplete!\n");
         // print the error message
         out.print(e.getMessage()+"\n");
         // in the case of a chained exception, print also the underlying cause's error message
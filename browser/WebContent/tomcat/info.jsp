@@ -66,9 +66,12 @@
 	data.put( "totalMemory", getTotalMemory() );
 	data.put( "configRequests", getN() ); 
 	data.put( "db", new JSONObject( ConfCache.getCache().getDbRequests() ) );
+	data.put( "waitersPerLoad", new JSONObject( ConfCache.getCache().getWaitersPerLoad() ) );
+	data.put( "waitersPerKey", new JSONObject( ConfCache.getCache().getWaitersPerKey() ) );
 
 	JSONObject cache = new JSONObject();
 	cache.put( "inMemCache", getInMemCache() );
+	cache.put( "memCache", new JSONObject( ConfCache.getCache().getMemoryCache() ) );
 	DiskCache diskCache = ConfCache.getCache().getDiskCache();
 	if ( diskCache != null )
 	{
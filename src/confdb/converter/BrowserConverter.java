@@ -15,15 +15,23 @@ import confdb.converter.OfflineConverter;
 import confdb.data.*;
 import confdb.db.ConfDB;
 import confdb.db.ConfDBSetups;
+import confdb.db.DatabaseException;
 
 
 public class BrowserConverter extends OfflineConverter
 {
     static private HashMap<Integer, BrowserConverter> map = new HashMap<Integer, BrowserConverter>();
     static private String[] dbNames = null;
+    static private int connectionPoolSize = 4;
 
     private PreparedStatement psSelectHltKeyFromRunSummary = null;
 
+    static
+    {
+        // requests are rendered on all cores of the converter host
+        ConverterEngine.setDefaultParallelism( Runtime.getRuntime().availableProcessors() );
+    }
+
     private BrowserConverter(String dbType, String dbUrl,
                  String dbUser, String dbPwrd) throws ConverterException
     {
@@ -85,11 +93,23 @@ public class BrowserConverter extends OfflineConverter
         if ( converter == null )
         {
             converter = new BrowserConverter( dbs.type( dbIndex ), dbProperties.getDbURL(), dbProperties.getDbUser(), "convertme!" );
+            try {
+                // let requests for different configurations load concurrently
+                converter.getDatabase().setConnectionPool( connectionPoolSize );
+            } catch (DatabaseException e) {
+                System.err.println( "BrowserConverter: no connection pool, " + e.getMessage() );
+            }
             map.put( new Integer( dbIndex ), converter );
         }
         return converter;
     }
 
+    /** number of pooled connections of converters created next, 0 disables the pool */
+    static public void setConnectionPoolSize( int size )
+    {
+        connectionPoolSize = size;
+    }
+
     static public void deleteConverter( ConverterBase converter )
     {
         Set<Map.Entry<Integer, BrowserConverter>> entries = map.entrySet();
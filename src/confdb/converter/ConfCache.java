@@ -2,13 +2,17 @@ package confdb.converter;
 
 
 import java.io.IOException;
-import java.lang.ref.SoftReference;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import confdb.data.Configuration;
 import confdb.data.IConfiguration;
 import confdb.db.ConfDB;
 import confdb.db.DatabaseException;
@@ -16,24 +20,21 @@ import confdb.db.DatabaseException;
 public class ConfCache 
 {
 	static private ConfCache cache = null;
-    static private int fillUpToMB = 40;
-    static private int clearLessThanMB = 30;
     static private DiskCache diskCache = null;
 	
-    private HashMap<String, ConfWrapper> confCache = new HashMap<String, ConfWrapper>();
-    private int allRequests = 0;
+    private ConfigurationCache memoryCache = new ConfigurationCache( Runtime.getRuntime().maxMemory() / 4 );
+    private ConcurrentHashMap<String, Load> loads = new ConcurrentHashMap<String, Load>();
+    private Statistics waitersPerLoad = new Statistics();
+    private AtomicInteger allRequests = new AtomicInteger();
     private Statistics dbRequests = new Statistics();
-    private DbLock dbLock = new DbLock();
+    private Map<ConfDB, DatabaseGuard> guards = new WeakHashMap<ConfDB, DatabaseGuard>();
 
 
-    static public ConfCache getCache()
+    static public synchronized ConfCache getCache()
     {
     	if ( cache == null )
     	{
     		cache = new ConfCache();
-    		long max = Runtime.getRuntime().maxMemory() / 1024 / 1024;
-    		clearLessThanMB = Math.min( 30, (int)max / 4 );
-    		fillUpToMB = clearLessThanMB + 10;
     		try {
 				setPath( "/afs/cern.ch/project/jps/reps/cms-project-co", 485 );
 			} catch (Exception e) {
@@ -49,19 +50,23 @@ public class ConfCache
 	
     static public int getNumberCacheEntries() 
     {
-    	return getCache().confCache.size();
+    	return getCache().memoryCache.getSize();
     }
 
-    static public void clearCache()
+    /**
+     * kept for the memInfo page: configurations are no longer held by soft
+     * references, so none are dereferenced by the garbage collector
+     */
+    static public int checkSoftReferences()
     {
-        getCache().confCache = new HashMap<String, ConfWrapper>();
+    	return 0;
     }
-	
-    static public int checkSoftReferences() 
+
+    static public void clearCache()
     {
-    	return getCache().checkMySoftReferences();
+        getCache().memoryCache.clear();
     }
-    
+	
     static public void setPath( String p, int size  ) throws IOException, SecurityException
     {
     	if ( p == null || size <= 0 )
@@ -70,156 +75,120 @@ public class ConfCache
     		diskCache = new DiskCache( p, size, 10 );
     }
 
-    public IConfiguration getConfiguration( int key, ConfDB database ) throws DatabaseException
+    /** limit the estimated size of the configurations kept in memory */
+    static public void setMaxMemoryMB( int maxMB )
     {
-    	allRequests += 1;
-		IConfiguration configuration = getConfigFromCache(key, database);
+    	getCache().memoryCache.setMaxWeight( (long)maxMB * 1024 * 1024 );
+    }
+
+    public IConfiguration getConfiguration( final int key, final ConfDB database ) throws DatabaseException
+    {
+    	allRequests.incrementAndGet();
+    	final String cacheKey = getCacheKey( key, database );
+		IConfiguration configuration = memoryCache.get( cacheKey );
 		if ( configuration != null )
 			return configuration;
 		
-		synchronized( dbLock ) {
-			dbLock.configKey = getCacheKey(key, database);
-			configuration = getConfigFromCache(key, database);
-			if ( configuration == null )
+		// single flight: concurrent requests for the same key share one load
+		Load load = new Load( new Callable<IConfiguration>() {
+			public IConfiguration call() throws DatabaseException
 			{
-				long start = System.currentTimeMillis();
-
-				try {
-					configuration = database.loadConfigurationWithOrigId(key);
-				} catch (DatabaseException e) {
-					// wait, reconnect and try again
-					try {
-						database.disconnect();
-					} catch (Exception e1) {
-					}
-					try {
-						Thread.sleep( 2000 );
-					} catch (InterruptedException e1) {
-					}
-					database.connect();
-					configuration = database.loadConfigurationWithOrigId(key);
-				}
-				dbRequests.add( System.currentTimeMillis() - start );
-				put( key, configuration, database );
-				if ( diskCache != null )
-					writeToDisk( key, configuration, database );
+				return load( key, cacheKey, database );
+			}
+		});
+		Load inFlight = loads.putIfAbsent( cacheKey, load );
+		if ( inFlight != null )
+		{
+			inFlight.waiters.incrementAndGet();
+			return inFlight.get();
+		}
+		try {
+			load.task.run();
+			return load.get();
+		} finally {
+			loads.remove( cacheKey, load );
+			synchronized( waitersPerLoad ) {
+				waitersPerLoad.add( load.waiters.get() );
 			}
 		}
-		return configuration;
     }
 
-    private synchronized IConfiguration getConfigFromCache( int key, ConfDB database )
+    /** load a configuration from the disk cache or the database */
+    private IConfiguration load( int key, String cacheKey, ConfDB database ) throws DatabaseException
     {
-		IConfiguration configuration = null;
-		ConfWrapper conf = confCache.get( getCacheKey( key, database ) );
-		if ( conf != null )
+		IConfiguration configuration = memoryCache.getIfPresent( cacheKey );
+		if ( configuration != null )
+			return configuration;
+
+		configuration = loadFromDisk( cacheKey );
+		if ( configuration != null )
 		{
-			configuration = conf.getConfiguration();
-			if ( configuration != null )
-				return configuration;
-			confCache.remove( conf.getCacheKey() );
+			memoryCache.put( cacheKey, configuration );
+			return configuration;
 		}
-		
-		if ( diskCache != null )
+
+		long start = System.currentTimeMillis();
+
+		DatabaseGuard guard = getGuard( database );
+		int generation = -1;
+		guard.lock.readLock().lock();
+		try {
+			generation = guard.generation;
+			configuration = database.loadConfigurationWithOrigId(key);
+		} catch (DatabaseException e) {
+			configuration = null;
+		} finally {
+			guard.lock.readLock().unlock();
+		}
+		if ( configuration == null )
 		{
-			configuration = loadFromDisk(key, database);
-			if ( configuration != null )
-			{
-				put( key, configuration, database );
-				return configuration;
+			// wait, reconnect and try again
+			guard.reconnect( database, generation );
+			guard.lock.readLock().lock();
+			try {
+				configuration = database.loadConfigurationWithOrigId(key);
+			} finally {
+				guard.lock.readLock().unlock();
 			}
 		}
-		
-		return null;
-    }
-    
-    private void writeToDisk( int key, IConfiguration conf, ConfDB database )
-    {
-    	diskCache.writeToDisk( conf, getCacheKey(key, database) );
+		synchronized( dbRequests ) {
+			dbRequests.add( System.currentTimeMillis() - start );
+		}
+		memoryCache.put( cacheKey, configuration );
+		if ( diskCache != null && configuration instanceof Configuration )
+			diskCache.writeToDisk( (Configuration)configuration, cacheKey );
+		return configuration;
     }
-    
-    private IConfiguration loadFromDisk( int key, ConfDB database )
+
+    private IConfiguration loadFromDisk( String cacheKey )
     {
-    	return (IConfiguration)diskCache.loadFromDisk( getCacheKey(key, database) );
+    	if ( diskCache == null )
+    		return null;
+    	return diskCache.loadFromDisk( cacheKey );
     }
     
-    private void put( int key, IConfiguration conf, ConfDB database )
-    {
-    	Runtime runtime = Runtime.getRuntime();
-    	float freeMemory = 
-    		( runtime.maxMemory() - runtime.totalMemory() + runtime.freeMemory() ) / 1024 /1024;
-    	if ( freeMemory < fillUpToMB )
-	    {
-    		List<ConfWrapper> list = new ArrayList<ConfWrapper>( confCache.values() );
-    		if ( list.size() > 0 )
-    		{
-    		  Collections.sort(list);
-    		  String key1 = list.get(0).getCacheKey();
-        	  if ( freeMemory < clearLessThanMB  &&  list.size() > 1 )
-        		confCache.remove( list.get(1).getCacheKey() );
-    		  confCache.remove( key1 );
-    		}
-	    }
-    	confCache.put( getCacheKey( key,database ), new ConfWrapper( getCacheKey( key, database ), conf ) );
-    	if ( confCache.size() > 20 )
-    		checkSoftReferences();
-    }
+	private DatabaseGuard getGuard( ConfDB database )
+	{
+		synchronized( guards ) {
+			DatabaseGuard guard = guards.get( database );
+			if ( guard == null )
+			{
+				guard = new DatabaseGuard();
+				guards.put( database, guard );
+			}
+			return guard;
+		}
+	}
 
-    
 	private String getCacheKey( int key, ConfDB database )
 	{
 		return (database.dbUrl() + " " + database.getDbUser()).hashCode() + "." + key;
 	}
 	
-    private synchronized int checkMySoftReferences() 
-    {
-    	int dereferenced = 0;
-    	for ( Iterator<ConfWrapper> i = confCache.values().iterator(); i.hasNext(); )
-    	{
-    		if ( i.next().getConfiguration() == null )
-    		{
-    			dereferenced += 1;
-    			i.remove();
-    		}
-    	}
-    	return dereferenced;
-    }
-
-    private class ConfWrapper implements Comparable<ConfWrapper>
-    {
-    	private String cacheKey;
-    	private SoftReference<IConfiguration> configuration = null;
-    	private long timestamp;
-		
-    	ConfWrapper( String key, IConfiguration conf ) 
-    	{
-    		cacheKey = key;
-    		configuration = new SoftReference<IConfiguration>( conf );
-    		timestamp = System.currentTimeMillis();
-    	}
-
-    	IConfiguration getConfiguration() 
-    	{
-    		timestamp = System.currentTimeMillis();
-    		return configuration.get();
-    	}
-
-
-    	public int compareTo(ConfWrapper o) 
-    	{
-    		return (int)(timestamp - o.timestamp);
-    	}
-		
-    	public String getCacheKey()
-    	{
-    		return cacheKey;
-    	}
-    }
-
 
 
 	public int getAllRequests() {
-		return allRequests;
+		return allRequests.get();
 	}
 
 	public Statistics getDbRequests() {
@@ -230,12 +199,87 @@ public class ConfCache
 		return diskCache;
 	}
 
-	class DbLock {
-		String configKey = "";
+	public ConfigurationCache getMemoryCache() {
+		return memoryCache;
 	}
-	
-	
-}
 
+	/** number of requests which waited for another request's load, per load */
+	public Statistics getWaitersPerLoad() {
+		return waitersPerLoad;
+	}
 
+	/** keys currently loading and the number of requests waiting for them */
+	public Map<String, Integer> getWaitersPerKey() {
+		Map<String, Integer> waiters = new HashMap<String, Integer>();
+		for ( Map.Entry<String, Load> entry : loads.entrySet() )
+			waiters.put( entry.getKey(), entry.getValue().waiters.get() );
+		return waiters;
+	}
 
+	/**
+	 * serializes the reconnects of a database with the loads using it: a
+	 * reconnect waits for the loads in flight, the following loads wait for
+	 * the reconnect, and loads which failed on the same connection reconnect
+	 * only once
+	 */
+	static private class DatabaseGuard
+	{
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		volatile int generation = 0;
+
+		/** reconnect, unless done since the failed load started on 'failedGeneration' */
+		void reconnect( ConfDB database, int failedGeneration ) throws DatabaseException
+		{
+			lock.writeLock().lock();
+			try {
+				if ( generation != failedGeneration )
+					return;
+				try {
+					database.disconnect();
+				} catch (Exception e) {
+				}
+				try {
+					Thread.sleep( 2000 );
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				database.connect();
+				generation++;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/** a load shared by all concurrent requests for the same key */
+	static private class Load
+	{
+		final FutureTask<IConfiguration> task;
+		final AtomicInteger waiters = new AtomicInteger();
+
+		Load( Callable<IConfiguration> loader )
+		{
+			task = new FutureTask<IConfiguration>( loader );
+		}
+
+		IConfiguration get() throws DatabaseException
+		{
+			try {
+				return task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DatabaseException( "ConfCache: interrupted while waiting for configuration", e );
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if ( cause instanceof DatabaseException )
+					throw (DatabaseException)cause;
+				if ( cause instanceof RuntimeException )
+					throw (RuntimeException)cause;
+				if ( cause instanceof Error )
+					throw (Error)cause;
+				throw new DatabaseException( "ConfCache: loading configuration failed", cause );
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,344 @@
+package confdb.converter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import confdb.data.IConfiguration;
+import confdb.data.Instance;
+import confdb.data.OutputModule;
+import confdb.data.Parameter;
+import confdb.data.PSetParameter;
+import confdb.data.Path;
+import confdb.data.Sequence;
+
+/**
+ * ConfigurationCache
+ * ------------------
+ * concurrent cache of configurations, bounded by the total estimated size
+ * (weight) of the cached configurations. Lookups don't lock. When the cache
+ * is full, the least recently used entries are evicted to make room, but
+ * only if the new configuration was requested at least as often as each of
+ * them (TinyLFU admission); otherwise the new configuration is not cached.
+ * Ties are admitted, so that the cache still follows a changing working set
+ * of configurations with the same popularity.
+ */
+public class ConfigurationCache
+{
+    /** estimated size [bytes] of an instance, path, sequence, ... */
+    static private final long containerWeight = 512;
+
+    /** estimated size [bytes] of a parameter */
+    static private final long parameterWeight = 192;
+
+    /** estimated size [bytes] of a path / sequence entry */
+    static private final long referenceWeight = 64;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final FrequencySketch sketch = new FrequencySketch( 1024 );
+    private final Object writeLock = new Object();
+    private final AtomicLong clock = new AtomicLong();
+
+    private volatile long maxWeight;
+    private long weight = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+
+    public ConfigurationCache( long maxWeight )
+    {
+        this.maxWeight = maxWeight;
+    }
+
+    /** look up a configuration, counts as a request for the key */
+    public IConfiguration get( String key )
+    {
+        sketch.increment( key );
+        IConfiguration configuration = getIfPresent( key );
+        if ( configuration != null )
+            hits.incrementAndGet();
+        else
+            misses.incrementAndGet();
+        return configuration;
+    }
+
+    /** look up a configuration, without counting the request */
+    public IConfiguration getIfPresent( String key )
+    {
+        Entry entry = entries.get( key );
+        if ( entry == null )
+            return null;
+        entry.accessTime = clock.incrementAndGet();
+        return entry.configuration;
+    }
+
+    /** add a configuration, return false if it was not admitted */
+    public boolean put( String key, IConfiguration configuration )
+    {
+        Entry candidate = new Entry( key, configuration, estimateWeight( configuration ) );
+        synchronized ( writeLock )
+        {
+            Entry old = entries.remove( key );
+            if ( old != null )
+                weight -= old.weight;
+
+            long excess = weight + candidate.weight - maxWeight;
+            if ( excess > 0 )
+            {
+                List<Entry> victims = selectVictims( excess );
+                if ( victims == null || !admit( candidate, victims ) )
+                {
+                    rejections.incrementAndGet();
+                    return false;
+                }
+                for ( Entry victim : victims )
+                {
+                    entries.remove( victim.key );
+                    weight -= victim.weight;
+                    evictions.incrementAndGet();
+                }
+            }
+            candidate.accessTime = clock.incrementAndGet();
+            entries.put( key, candidate );
+            weight += candidate.weight;
+        }
+        return true;
+    }
+
+    /** remove all configurations */
+    public void clear()
+    {
+        synchronized ( writeLock )
+        {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    /** set the maximum total weight, evicting entries if necessary */
+    public void setMaxWeight( long maxWeight )
+    {
+        synchronized ( writeLock )
+        {
+            this.maxWeight = maxWeight;
+            if ( weight > maxWeight )
+            {
+                List<Entry> victims = selectVictims( weight - maxWeight );
+                if ( victims == null )
+                    victims = new ArrayList<Entry>( entries.values() );
+                for ( Entry victim : victims )
+                {
+                    entries.remove( victim.key );
+                    weight -= victim.weight;
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /** least recently used entries which free at least 'excess', null if impossible */
+    private List<Entry> selectVictims( long excess )
+    {
+        List<Entry> lru = new ArrayList<Entry>( entries.values() );
+        Collections.sort( lru, new Comparator<Entry>() {
+            public int compare( Entry e1, Entry e2 )
+            {
+                return Long.compare( e1.accessTime, e2.accessTime );
+            }
+        });
+        List<Entry> victims = new ArrayList<Entry>();
+        long freed = 0;
+        for ( Iterator<Entry> it = lru.iterator(); it.hasNext() && freed < excess; )
+        {
+            Entry victim = it.next();
+            victims.add( victim );
+            freed += victim.weight;
+        }
+        return ( freed < excess ) ? null : victims;
+    }
+
+    /** admit the candidate unless a victim is more popular */
+    private boolean admit( Entry candidate, List<Entry> victims )
+    {
+        int frequency = sketch.frequency( candidate.key );
+        for ( Entry victim : victims )
+        {
+            if ( sketch.frequency( victim.key ) > frequency )
+                return false;
+        }
+        return true;
+    }
+
+    /** estimated retained size [bytes] of a configuration */
+    static public long estimateWeight( IConfiguration configuration )
+    {
+        long containers = 1;
+        long parameters = 0;
+        long references = 0;
+
+        Iterator<PSetParameter> itPSet = configuration.psetIterator();
+        while ( itPSet.hasNext() )
+        {
+            parameters += 1;
+            parameters += count( itPSet.next().recursiveParameterIterator() );
+        }
+        List<Iterator<? extends Instance>> instances = new ArrayList<Iterator<? extends Instance>>();
+        instances.add( configuration.edsourceIterator() );
+        instances.add( configuration.essourceIterator() );
+        instances.add( configuration.esmoduleIterator() );
+        instances.add( configuration.serviceIterator() );
+        instances.add( configuration.moduleIterator() );
+        for ( Iterator<? extends Instance> it : instances )
+        {
+            while ( it.hasNext() )
+            {
+                containers += 1;
+                parameters += count( it.next().recursiveParameterIterator() );
+            }
+        }
+        Iterator<OutputModule> itO = configuration.outputIterator();
+        while ( itO.hasNext() )
+        {
+            containers += 1;
+            parameters += count( itO.next().recursiveParameterIterator() );
+        }
+        Iterator<Path> itP = configuration.pathIterator();
+        while ( itP.hasNext() )
+        {
+            containers += 1;
+            references += itP.next().entryCount();
+        }
+        Iterator<Sequence> itS = configuration.sequenceIterator();
+        while ( itS.hasNext() )
+        {
+            containers += 1;
+            references += itS.next().entryCount();
+        }
+        containers += configuration.contentCount() + configuration.streamCount() + configuration.datasetCount();
+
+        return containers * containerWeight + parameters * parameterWeight + references * referenceWeight;
+    }
+
+    static private long count( Iterator<Parameter> it )
+    {
+        long n = 0;
+        for ( ; it.hasNext(); it.next() )
+            n += 1;
+        return n;
+    }
+
+
+    public int getSize()
+    {
+        return entries.size();
+    }
+
+    public long getWeight()
+    {
+        synchronized ( writeLock )
+        {
+            return weight;
+        }
+    }
+
+    public long getMaxWeight()
+    {
+        return maxWeight;
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    public long getRejections()
+    {
+        return rejections.get();
+    }
+
+
+    static private class Entry
+    {
+        final String key;
+        final IConfiguration configuration;
+        final long weight;
+        volatile long accessTime = 0;
+
+        Entry( String key, IConfiguration configuration, long weight )
+        {
+            this.key = key;
+            this.configuration = configuration;
+            this.weight = weight;
+        }
+    }
+
+    /** count-min sketch of the request frequencies, aged by halving */
+    static private class FrequencySketch
+    {
+        static private final int depth = 4;
+        static private final int maxCount = 15;
+        static private final int[] seeds = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+        private final int[][] counts;
+        private final int mask;
+        private final int sampleSize;
+        private int increments = 0;
+
+        FrequencySketch( int width )
+        {
+            counts = new int[depth][width];
+            mask = width - 1;
+            sampleSize = 10 * width;
+        }
+
+        synchronized void increment( String key )
+        {
+            int hash = key.hashCode();
+            for ( int i = 0; i < depth; i++ )
+            {
+                int index = index( hash, i );
+                if ( counts[i][index] < maxCount )
+                    counts[i][index] += 1;
+            }
+            if ( ++increments >= sampleSize )
+            {
+                for ( int[] row : counts )
+                    for ( int j = 0; j < row.length; j++ )
+                        row[j] >>= 1;
+                increments /= 2;
+            }
+        }
+
+        synchronized int frequency( String key )
+        {
+            int hash = key.hashCode();
+            int frequency = maxCount;
+            for ( int i = 0; i < depth; i++ )
+                frequency = Math.min( frequency, counts[i][index( hash, i )] );
+            return frequency;
+        }
+
+        private int index( int hash, int i )
+        {
+            int h = hash * seeds[i];
+            h ^= h >>> 17;
+            return h & mask;
+        }
+    }
+}
@@ -0,0 +1,992 @@
+package confdb.converter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import confdb.data.*;
+
+/**
+ * ConfigurationSnapshot
+ * ---------------------
+ * versioned binary snapshot of a configuration used by the DiskCache:
+ *
+ *   int   magic            'CDBS'
+ *   short format version
+ *   byte  flags            1: payload is deflated
+ *   byte  payload[]        streamed, see below
+ *
+ * The payload holds the configuration info, the templates of the
+ * release and then one record per component (tag byte + fields), in
+ * the order the components have to be inserted again, closed by an
+ * end tag. Strings go through a string table built while streaming:
+ * the first occurrence is written inline, later ones as their index.
+ * Parameter values are written as primitives where the type allows it.
+ *
+ * Snapshots are written straight to the file and read through a memory
+ * mapped buffer. Files of another format version read as null, so the
+ * caller treats them as cache misses.
+ */
+public class ConfigurationSnapshot
+{
+    static private final int magic = 0x43444253;
+    static private final short formatVersion = 2;
+    static private final byte flagDeflated = 1;
+    static private final int headerSize = 4 + 2 + 1;
+
+    // component records
+    static private final byte recordEnd = 0;
+    static private final byte recordPSet = 1;
+    static private final byte recordEDSource = 2;
+    static private final byte recordESSource = 3;
+    static private final byte recordESModule = 4;
+    static private final byte recordService = 5;
+    static private final byte recordModule = 6;
+    static private final byte recordPath = 7;
+    static private final byte recordSequence = 8;
+    static private final byte recordContent = 9;
+    static private final byte recordStream = 10;
+    static private final byte recordEntries = 11;
+    static private final byte recordStreamPaths = 12;
+    static private final byte recordDataset = 13;
+    static private final byte recordCommand = 14;
+
+    // reference kinds
+    static private final byte entryModule = 0;
+    static private final byte entryOutput = 1;
+    static private final byte entryPath = 2;
+    static private final byte entrySequence = 3;
+
+    // forms of a parameter value
+    static private final byte valueUnset = 0;
+    static private final byte valuePrimitive = 1;
+    static private final byte valueText = 2;
+
+    // string table references
+    static private final int stringNull = -1;
+    static private final int stringInline = -2;
+
+    /** write a snapshot of 'config' to 'file', return the file size */
+    static public long write( Configuration config, File file, boolean compress ) throws IOException
+    {
+        FileOutputStream fos = new FileOutputStream( file );
+        Deflater deflater = null;
+        try {
+            DataOutputStream header = new DataOutputStream( fos );
+            header.writeInt( magic );
+            header.writeShort( formatVersion );
+            header.writeByte( compress ? flagDeflated : 0 );
+            header.flush();
+
+            OutputStream os = fos;
+            if ( compress )
+            {
+                deflater = new Deflater( Deflater.BEST_SPEED );
+                os = new DeflaterOutputStream( fos, deflater, 64 * 1024 );
+            }
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( os, 64 * 1024 ) );
+            new Encoder( out ).writeConfiguration( config );
+            out.flush();
+            if ( compress )
+                ( (DeflaterOutputStream)os ).finish();
+        } finally {
+            if ( deflater != null )
+                deflater.end();
+            fos.close();
+        }
+        return file.length();
+    }
+
+    /** read a snapshot from 'file', null if it is of another format version */
+    static public Configuration read( File file ) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile( file, "r" );
+        try {
+            FileChannel channel = raf.getChannel();
+            if ( channel.size() < headerSize )
+                return null;
+            MappedByteBuffer map = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            if ( map.getInt() != magic || map.getShort() != formatVersion )
+                return null;
+            byte flags = map.get();
+
+            InputStream is = new ByteBufferInputStream( map );
+            Inflater inflater = null;
+            if ( ( flags & flagDeflated ) != 0 )
+            {
+                inflater = new Inflater();
+                is = new InflaterInputStream( is, inflater, 64 * 1024 );
+            }
+            try {
+                return new Decoder( new DataInputStream( is ) ).readConfiguration();
+            } finally {
+                if ( inflater != null )
+                    inflater.end();
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+
+    /** writes the payload of a snapshot */
+    static private class Encoder
+    {
+        private DataOutputStream out;
+        private HashMap<String, Integer> strings = new HashMap<String, Integer>();
+
+        Encoder( DataOutputStream out )
+        {
+            this.out = out;
+        }
+
+        void writeConfiguration( Configuration config ) throws IOException
+        {
+            writeConfigInfo( config.configInfo() );
+            writeRelease( config.release() );
+            out.writeInt( config.psets().databaseId() );
+
+            ArrayList<ParameterContainer> pending = new ArrayList<ParameterContainer>();
+            Iterator<ModuleInstance> itM = config.moduleIterator();
+            while ( itM.hasNext() )
+                pending.add( itM.next() );
+            ParameterContainer.loadParameters( pending );
+
+            Iterator<PSetParameter> itPSet = config.psetIterator();
+            while ( itPSet.hasNext() )
+            {
+                out.writeByte( recordPSet );
+                writeParameter( itPSet.next() );
+            }
+            Iterator<EDSourceInstance> itEDS = config.edsourceIterator();
+            while ( itEDS.hasNext() )
+                writeInstance( recordEDSource, itEDS.next() );
+            Iterator<ESSourceInstance> itESS = config.essourceIterator();
+            while ( itESS.hasNext() )
+            {
+                ESSourceInstance essource = itESS.next();
+                writeInstance( recordESSource, essource );
+                out.writeBoolean( essource.isPreferred() );
+            }
+            Iterator<ESModuleInstance> itESM = config.esmoduleIterator();
+            while ( itESM.hasNext() )
+            {
+                ESModuleInstance esmodule = itESM.next();
+                writeInstance( recordESModule, esmodule );
+                out.writeBoolean( esmodule.isPreferred() );
+            }
+            Iterator<ServiceInstance> itSvc = config.serviceIterator();
+            while ( itSvc.hasNext() )
+                writeInstance( recordService, itSvc.next() );
+            itM = config.moduleIterator();
+            while ( itM.hasNext() )
+                writeInstance( recordModule, itM.next() );
+
+            Iterator<Path> itP = config.pathIterator();
+            while ( itP.hasNext() )
+            {
+                Path path = itP.next();
+                out.writeByte( recordPath );
+                writeString( path.name() );
+                writeString( path.getDescription() );
+                writeString( path.getContacts() );
+                out.writeBoolean( path.isSetAsEndPath() );
+                out.writeInt( path.databaseId() );
+            }
+            Iterator<Sequence> itS = config.sequenceIterator();
+            while ( itS.hasNext() )
+            {
+                Sequence sequence = itS.next();
+                out.writeByte( recordSequence );
+                writeString( sequence.name() );
+                out.writeInt( sequence.databaseId() );
+            }
+
+            Iterator<EventContent> itC = config.contentIterator();
+            while ( itC.hasNext() )
+            {
+                EventContent content = itC.next();
+                out.writeByte( recordContent );
+                writeString( content.name() );
+                out.writeInt( content.databaseId() );
+                Iterator<Stream> itStream = content.streamIterator();
+                while ( itStream.hasNext() )
+                {
+                    Stream stream = itStream.next();
+                    out.writeByte( recordStream );
+                    writeString( content.name() );
+                    writeString( stream.name() );
+                    out.writeDouble( stream.fractionToDisk() );
+                    out.writeInt( stream.databaseId() );
+                    // SelectEvents and outputCommands follow from the paths and commands
+                    OutputModule output = stream.outputModule();
+                    out.writeInt( output.parameterCount() - 2 );
+                    for ( int i = 2; i < output.parameterCount(); i++ )
+                        writeParameter( output.parameter( i ) );
+                }
+            }
+
+            itS = config.sequenceIterator();
+            while ( itS.hasNext() )
+                writeEntries( itS.next() );
+            itP = config.pathIterator();
+            while ( itP.hasNext() )
+                writeEntries( itP.next() );
+
+            itC = config.contentIterator();
+            while ( itC.hasNext() )
+            {
+                EventContent content = itC.next();
+                Iterator<Stream> itStream = content.streamIterator();
+                while ( itStream.hasNext() )
+                {
+                    Stream stream = itStream.next();
+                    out.writeByte( recordStreamPaths );
+                    writeString( content.name() );
+                    writeString( stream.name() );
+                    writePathNames( stream.pathCount(), stream.pathIterator() );
+                    Iterator<PrimaryDataset> itD = stream.datasetIterator();
+                    while ( itD.hasNext() )
+                    {
+                        PrimaryDataset dataset = itD.next();
+                        out.writeByte( recordDataset );
+                        writeString( content.name() );
+                        writeString( stream.name() );
+                        writeString( dataset.name() );
+                        out.writeInt( dataset.databaseId() );
+                        writePathNames( dataset.pathCount(), dataset.pathIterator() );
+                    }
+                }
+                Iterator<OutputCommand> itOC = content.commandIterator();
+                while ( itOC.hasNext() )
+                    writeCommand( content, itOC.next() );
+            }
+            out.writeByte( recordEnd );
+        }
+
+        private void writeConfigInfo( ConfigInfo info ) throws IOException
+        {
+            writeString( info.name() );
+            writeString( info.releaseTag() );
+
+            ArrayList<Directory> dirs = new ArrayList<Directory>();
+            for ( Directory dir = info.parentDir(); dir != null; dir = dir.parentDir() )
+                dirs.add( 0, dir );
+            out.writeInt( dirs.size() );
+            for ( Directory dir : dirs )
+            {
+                out.writeInt( dir.dbId() );
+                writeString( dir.name() );
+                writeString( dir.created() );
+            }
+
+            int versionIndex = -1;
+            out.writeInt( info.versionCount() );
+            for ( int i = 0; i < info.versionCount(); i++ )
+            {
+                ConfigVersion version = info.version( i );
+                if ( version.dbId() == info.dbId() )
+                    versionIndex = i;
+                out.writeInt( version.dbId() );
+                out.writeInt( version.version() );
+                writeString( version.created() );
+                writeString( version.creator() );
+                writeString( version.releaseTag() );
+                writeString( version.processName() );
+                writeString( version.comment() );
+            }
+            out.writeInt( versionIndex );
+        }
+
+        private void writeRelease( SoftwareRelease release ) throws IOException
+        {
+            writeString( release.releaseTag() );
+            out.writeInt( release.templateCount() );
+            Iterator<SoftwareSubsystem> itSub = release.subsystemIterator();
+            while ( itSub.hasNext() )
+            {
+                SoftwareSubsystem subsystem = itSub.next();
+                Iterator<SoftwarePackage> itPkg = subsystem.packageIterator();
+                while ( itPkg.hasNext() )
+                {
+                    SoftwarePackage pkg = itPkg.next();
+                    Iterator<Template> itT = pkg.templateIterator();
+                    while ( itT.hasNext() )
+                    {
+                        Template template = itT.next();
+                        writeString( subsystem.name() );
+                        writeString( pkg.name() );
+                        writeString( template.type() );
+                        writeString( template.name() );
+                        writeString( template.cvsTag() );
+                        out.writeInt( template.databaseId() );
+                        writeParameters( template );
+                    }
+                }
+            }
+        }
+
+        private void writeInstance( byte record, Instance instance ) throws IOException
+        {
+            out.writeByte( record );
+            writeString( instance.template().name() );
+            writeString( instance.name() );
+            out.writeInt( instance.databaseId() );
+            writeParameters( instance );
+        }
+
+        private void writeEntries( ReferenceContainer container ) throws IOException
+        {
+            out.writeByte( recordEntries );
+            out.writeBoolean( container instanceof Path );
+            writeString( container.name() );
+            out.writeInt( container.entryCount() );
+            Iterator<Reference> itR = container.entryIterator();
+            while ( itR.hasNext() )
+            {
+                Reference reference = itR.next();
+                if ( reference instanceof ModuleReference )
+                    out.writeByte( entryModule );
+                else if ( reference instanceof OutputModuleReference )
+                    out.writeByte( entryOutput );
+                else if ( reference instanceof PathReference )
+                    out.writeByte( entryPath );
+                else
+                    out.writeByte( entrySequence );
+                writeString( reference.name() );
+                out.writeByte( reference.getOperator().ordinal() );
+            }
+        }
+
+        private void writePathNames( int count, Iterator<Path> itP ) throws IOException
+        {
+            out.writeInt( count );
+            while ( itP.hasNext() )
+                writeString( itP.next().name() );
+        }
+
+        private void writeCommand( EventContent content, OutputCommand command ) throws IOException
+        {
+            out.writeByte( recordCommand );
+            writeString( content.name() );
+            out.writeBoolean( command.isDrop() );
+            Path parentPath = command.parentPath();
+            if ( parentPath == null )
+                writeString( null );
+            else
+            {
+                writeString( parentPath.name() );
+                // index of the reference among those of the path, -1 if it is gone
+                int index = -1;
+                int i = 0;
+                Iterator<Reference> itR = parentPath.recursiveReferenceIterator();
+                while ( itR.hasNext() && index < 0 )
+                {
+                    if ( itR.next() == command.parentReference() )
+                        index = i;
+                    i++;
+                }
+                out.writeInt( index );
+            }
+            writeString( command.className() );
+            writeString( command.moduleName() );
+            writeString( command.extraName() );
+            writeString( command.processName() );
+        }
+
+        private void writeParameters( ParameterContainer container ) throws IOException
+        {
+            out.writeInt( container.parameterCount() );
+            Iterator<Parameter> itP = container.parameterIterator();
+            while ( itP.hasNext() )
+                writeParameter( itP.next() );
+        }
+
+        private void writeParameter( Parameter p ) throws IOException
+        {
+            writeString( p.name() );
+            writeString( p.type() );
+            out.writeBoolean( p.isTracked() );
+
+            if ( p instanceof PSetParameter )
+            {
+                PSetParameter pset = (PSetParameter)p;
+                out.writeInt( pset.parameterCount() );
+                for ( int i = 0; i < pset.parameterCount(); i++ )
+                    writeParameter( pset.parameter( i ) );
+            }
+            else if ( p instanceof VPSetParameter )
+            {
+                VPSetParameter vpset = (VPSetParameter)p;
+                out.writeInt( vpset.parameterSetCount() );
+                for ( int i = 0; i < vpset.parameterSetCount(); i++ )
+                    writeParameter( vpset.parameterSet( i ) );
+            }
+            else if ( p instanceof VStringParameter )
+            {
+                VStringParameter vstring = (VStringParameter)p;
+                out.writeInt( vstring.vectorSize() );
+                for ( int i = 0; i < vstring.vectorSize(); i++ )
+                    writeString( (String)vstring.value( i ) );
+            }
+            else if ( !p.isValueSet() && p instanceof ScalarParameter )
+                out.writeByte( valueUnset );
+            else if ( isPrimitive( p ) )
+            {
+                out.writeByte( valuePrimitive );
+                writePrimitive( p );
+            }
+            else
+            {
+                out.writeByte( valueText );
+                writeString( p.valueAsString() );
+            }
+        }
+
+        /** numbers in hex notation and non-numeric types are kept as text */
+        private boolean isPrimitive( Parameter p )
+        {
+            if ( p instanceof BoolParameter || p instanceof DoubleParameter || p instanceof VDoubleParameter )
+                return true;
+            if ( p instanceof Int32Parameter )
+                return !( (Int32Parameter)p ).isHex();
+            if ( p instanceof UInt32Parameter )
+                return !( (UInt32Parameter)p ).isHex();
+            if ( p instanceof Int64Parameter )
+                return !( (Int64Parameter)p ).isHex();
+            if ( p instanceof UInt64Parameter )
+                return !( (UInt64Parameter)p ).isHex();
+            if ( p instanceof VInt32Parameter )
+            {
+                VInt32Parameter v = (VInt32Parameter)p;
+                for ( int i = 0; i < v.vectorSize(); i++ )
+                    if ( v.isHex( i ) )
+                        return false;
+                return true;
+            }
+            if ( p instanceof VUInt32Parameter )
+            {
+                VUInt32Parameter v = (VUInt32Parameter)p;
+                for ( int i = 0; i < v.vectorSize(); i++ )
+                    if ( v.isHex( i ) )
+                        return false;
+                return true;
+            }
+            if ( p instanceof VInt64Parameter )
+            {
+                VInt64Parameter v = (VInt64Parameter)p;
+                for ( int i = 0; i < v.vectorSize(); i++ )
+                    if ( v.isHex( i ) )
+                        return false;
+                return true;
+            }
+            if ( p instanceof VUInt64Parameter )
+            {
+                VUInt64Parameter v = (VUInt64Parameter)p;
+                for ( int i = 0; i < v.vectorSize(); i++ )
+                    if ( v.isHex( i ) )
+                        return false;
+                return true;
+            }
+            return false;
+        }
+
+        private void writePrimitive( Parameter p ) throws IOException
+        {
+            if ( p instanceof BoolParameter )
+                out.writeBoolean( ( (Boolean)( (BoolParameter)p ).value() ).booleanValue() );
+            else if ( p instanceof DoubleParameter )
+                out.writeDouble( ( (Double)( (DoubleParameter)p ).value() ).doubleValue() );
+            else if ( p instanceof Int32Parameter )
+                out.writeInt( ( (Integer)( (Int32Parameter)p ).value() ).intValue() );
+            else if ( p instanceof UInt32Parameter || p instanceof Int64Parameter )
+                out.writeLong( ( (Long)( (ScalarParameter)p ).value() ).longValue() );
+            else if ( p instanceof UInt64Parameter )
+                out.writeLong( ( (BigInteger)( (UInt64Parameter)p ).value() ).longValue() );
+            else
+            {
+                VectorParameter v = (VectorParameter)p;
+                out.writeInt( v.vectorSize() );
+                for ( int i = 0; i < v.vectorSize(); i++ )
+                {
+                    Object value = v.value( i );
+                    if ( p instanceof VDoubleParameter )
+                        out.writeDouble( ( (Double)value ).doubleValue() );
+                    else if ( p instanceof VInt32Parameter )
+                        out.writeInt( ( (Integer)value ).intValue() );
+                    else
+                        out.writeLong( ( (Number)value ).longValue() );
+                }
+            }
+        }
+
+        private void writeString( String s ) throws IOException
+        {
+            if ( s == null )
+            {
+                out.writeInt( stringNull );
+                return;
+            }
+            Integer index = strings.get( s );
+            if ( index != null )
+            {
+                out.writeInt( index.intValue() );
+                return;
+            }
+            strings.put( s, Integer.valueOf( strings.size() ) );
+            byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+            out.writeInt( stringInline );
+            out.writeInt( bytes.length );
+            out.write( bytes );
+        }
+    }
+
+
+    /** rebuilds a configuration from the payload of a snapshot */
+    static private class Decoder
+    {
+        private DataInputStream in;
+        private ArrayList<String> strings = new ArrayList<String>();
+        private Configuration config = null;
+
+        /** database ids, set once all components are in place */
+        private ArrayList<DatabaseEntry> entries = new ArrayList<DatabaseEntry>();
+        private ArrayList<Integer> entryIds = new ArrayList<Integer>();
+
+        Decoder( DataInputStream in )
+        {
+            this.in = in;
+        }
+
+        Configuration readConfiguration() throws IOException
+        {
+            ConfigInfo info = readConfigInfo();
+            SoftwareRelease release = readRelease();
+            config = new Configuration( info, release );
+            int psetsId = in.readInt();
+
+            byte record;
+            while ( ( record = in.readByte() ) != recordEnd )
+            {
+                switch ( record )
+                {
+                case recordPSet:
+                    config.insertPSet( (PSetParameter)readParameter() );
+                    break;
+                case recordEDSource:
+                case recordService:
+                case recordModule:
+                    readInstance( record );
+                    break;
+                case recordESSource:
+                    ( (ESSourceInstance)readInstance( record ) ).setPreferred( in.readBoolean() );
+                    break;
+                case recordESModule:
+                    ( (ESModuleInstance)readInstance( record ) ).setPreferred( in.readBoolean() );
+                    break;
+                case recordPath:
+                {
+                    Path path = config.insertPath( config.pathCount(), readString() );
+                    path.setDescription( readString() );
+                    path.setContacts( readString() );
+                    path.setAsEndPath( in.readBoolean() );
+                    setDatabaseId( path, in.readInt() );
+                    break;
+                }
+                case recordSequence:
+                    setDatabaseId( config.insertSequence( config.sequenceCount(), readString() ), in.readInt() );
+                    break;
+                case recordContent:
+                    setDatabaseId( config.insertContent( readString() ), in.readInt() );
+                    break;
+                case recordStream:
+                {
+                    EventContent content = content( readString() );
+                    Stream stream = content.insertStream( readString() );
+                    if ( stream == null )
+                        throw new StreamCorruptedException( "duplicate stream in " + content.name() );
+                    stream.setFractionToDisk( in.readDouble() );
+                    setDatabaseId( stream, in.readInt() );
+                    OutputModule output = stream.outputModule();
+                    int count = in.readInt();
+                    for ( int i = 0; i < count; i++ )
+                        output.addParameter( readParameter() );
+                    break;
+                }
+                case recordEntries:
+                    readEntries();
+                    break;
+                case recordStreamPaths:
+                {
+                    Stream stream = stream( readString(), readString() );
+                    int count = in.readInt();
+                    for ( int i = 0; i < count; i++ )
+                        stream.insertPath( path( readString() ) );
+                    break;
+                }
+                case recordDataset:
+                {
+                    Stream stream = stream( readString(), readString() );
+                    PrimaryDataset dataset = stream.insertDataset( readString() );
+                    setDatabaseId( dataset, in.readInt() );
+                    int count = in.readInt();
+                    for ( int i = 0; i < count; i++ )
+                        dataset.insertPath( path( readString() ) );
+                    break;
+                }
+                case recordCommand:
+                    readCommand();
+                    break;
+                default:
+                    throw new StreamCorruptedException( "unknown record " + record );
+                }
+            }
+
+            for ( int i = 0; i < entries.size(); i++ )
+                entries.get( i ).setDatabaseId( entryIds.get( i ).intValue() );
+            config.psets().setDatabaseId( psetsId );
+            config.setHasChanged( false );
+            return config;
+        }
+
+        private ConfigInfo readConfigInfo() throws IOException
+        {
+            String name = readString();
+            String releaseTag = readString();
+
+            Directory parentDir = null;
+            int dirCount = in.readInt();
+            for ( int i = 0; i < dirCount; i++ )
+                parentDir = new Directory( in.readInt(), readString(), readString(), parentDir );
+
+            ConfigInfo info = new ConfigInfo( name, parentDir, releaseTag );
+            int versionCount = in.readInt();
+            for ( int i = 0; i < versionCount; i++ )
+                info.addVersion( in.readInt(), in.readInt(), readString(), readString(), readString(),
+                                 readString(), readString() );
+            int versionIndex = in.readInt();
+            if ( versionIndex >= 0 )
+                info.setVersionIndex( versionIndex );
+            info.setReleaseTag( releaseTag );
+            return info;
+        }
+
+        private SoftwareRelease readRelease() throws IOException
+        {
+            SoftwareRelease release = new SoftwareRelease();
+            release.clear( readString() );
+
+            LinkedHashMap<String, SoftwareSubsystem> subsystems = new LinkedHashMap<String, SoftwareSubsystem>();
+            HashMap<String, SoftwarePackage> packages = new HashMap<String, SoftwarePackage>();
+            int templateCount = in.readInt();
+            for ( int i = 0; i < templateCount; i++ )
+            {
+                String subsystemName = readString();
+                String packageName = readString();
+                SoftwareSubsystem subsystem = subsystems.get( subsystemName );
+                if ( subsystem == null )
+                {
+                    subsystem = new SoftwareSubsystem( subsystemName );
+                    subsystems.put( subsystemName, subsystem );
+                }
+                SoftwarePackage pkg = packages.get( subsystemName + "/" + packageName );
+                if ( pkg == null )
+                {
+                    pkg = new SoftwarePackage( packageName );
+                    pkg.setSubsystem( subsystem );
+                    subsystem.addPackage( pkg );
+                    packages.put( subsystemName + "/" + packageName, pkg );
+                }
+
+                Template template = TemplateFactory.create( readString(), readString(), readString(), null );
+                if ( template == null )
+                    throw new StreamCorruptedException( "unknown template type" );
+                int dbId = in.readInt();
+                int count = in.readInt();
+                for ( int j = 0; j < count; j++ )
+                    template.addParameter( readParameter() );
+                template.setDatabaseId( dbId );
+                pkg.addTemplate( template );
+            }
+            for ( SoftwareSubsystem subsystem : subsystems.values() )
+                release.addSubsystem( subsystem );
+            release.sortSubsystems();
+            release.sortTemplates();
+            return release;
+        }
+
+        private Instance readInstance( byte record ) throws IOException
+        {
+            String templateName = readString();
+            String name = readString();
+            Instance instance = null;
+            if ( record == recordEDSource )
+                instance = config.insertEDSource( templateName );
+            else if ( record == recordESSource )
+                instance = config.insertESSource( config.essourceCount(), templateName, name );
+            else if ( record == recordESModule )
+                instance = config.insertESModule( config.esmoduleCount(), templateName, name );
+            else if ( record == recordService )
+                instance = config.insertService( config.serviceCount(), templateName );
+            else
+                instance = config.insertModule( templateName, name );
+            if ( instance == null )
+                throw new StreamCorruptedException( "can't instantiate " + templateName + " " + name );
+            setDatabaseId( instance, in.readInt() );
+            instance.clear();
+            int count = in.readInt();
+            for ( int i = 0; i < count; i++ )
+                instance.addParameter( readParameter() );
+            return instance;
+        }
+
+        private void readEntries() throws IOException
+        {
+            boolean isPath = in.readBoolean();
+            String name = readString();
+            ReferenceContainer container = isPath ? path( name ) : (ReferenceContainer)config.sequence( name );
+            if ( container == null )
+                throw new StreamCorruptedException( "unknown container " + name );
+            int count = in.readInt();
+            for ( int i = 0; i < count; i++ )
+            {
+                byte kind = in.readByte();
+                String entryName = readString();
+                Operator operator = Operator.getOperator( in.readByte() );
+                Reference reference = null;
+                if ( kind == entryModule )
+                {
+                    ModuleInstance module = config.module( entryName );
+                    if ( module != null )
+                        reference = config.insertModuleReference( container, i, module );
+                }
+                else if ( kind == entryOutput )
+                {
+                    OutputModule output = config.output( entryName );
+                    if ( output != null )
+                        reference = config.insertOutputModuleReference( container, i, output );
+                }
+                else if ( kind == entryPath )
+                    reference = config.insertPathReference( container, i, path( entryName ) );
+                else
+                {
+                    Sequence sequence = config.sequence( entryName );
+                    if ( sequence != null )
+                        reference = config.insertSequenceReference( container, i, sequence );
+                }
+                if ( reference == null )
+                    throw new StreamCorruptedException( "unknown entry " + entryName + " in " + name );
+                reference.setOperator( operator );
+            }
+        }
+
+        private void readCommand() throws IOException
+        {
+            EventContent content = content( readString() );
+            boolean isDrop = in.readBoolean();
+            String pathName = readString();
+            OutputCommand command = new OutputCommand();
+            if ( pathName != null )
+            {
+                Path parentPath = path( pathName );
+                int index = in.readInt();
+                Iterator<Reference> itR = parentPath.recursiveReferenceIterator();
+                for ( int i = 0; itR.hasNext(); i++ )
+                {
+                    Reference reference = itR.next();
+                    if ( i == index )
+                    {
+                        command = new OutputCommand( parentPath, reference );
+                        break;
+                    }
+                }
+            }
+            if ( isDrop )
+                command.setDrop();
+            command.setClassName( readString() );
+            command.setModuleName( readString() );
+            command.setExtraName( readString() );
+            command.setProcessName( readString() );
+            content.insertCommand( command );
+        }
+
+        private Parameter readParameter() throws IOException
+        {
+            String name = readString();
+            String type = readString();
+            boolean isTracked = in.readBoolean();
+
+            if ( type.equals( "PSet" ) )
+            {
+                PSetParameter pset = new PSetParameter( name, "", isTracked );
+                int count = in.readInt();
+                for ( int i = 0; i < count; i++ )
+                    pset.addParameter( readParameter() );
+                return pset;
+            }
+            if ( type.equals( "VPSet" ) )
+            {
+                VPSetParameter vpset = new VPSetParameter( name, "", isTracked );
+                int count = in.readInt();
+                for ( int i = 0; i < count; i++ )
+                    vpset.addParameterSet( (PSetParameter)readParameter() );
+                return vpset;
+            }
+            if ( type.equals( "vstring" ) )
+            {
+                int count = in.readInt();
+                ArrayList<String> values = new ArrayList<String>( count );
+                for ( int i = 0; i < count; i++ )
+                    values.add( readString() );
+                return new VStringParameter( name, values, isTracked );
+            }
+
+            byte form = in.readByte();
+            if ( form == valueUnset )
+                return ParameterFactory.create( type, name, "", isTracked );
+            if ( form == valueText )
+                return ParameterFactory.create( type, name, readString(), isTracked );
+
+            if ( type.equals( "bool" ) )
+                return new BoolParameter( name, Boolean.valueOf( in.readBoolean() ), isTracked );
+            if ( type.equals( "double" ) )
+                return new DoubleParameter( name, Double.valueOf( in.readDouble() ), isTracked );
+            if ( type.equals( "int32" ) )
+                return new Int32Parameter( name, Integer.valueOf( in.readInt() ), isTracked );
+            if ( type.equals( "uint32" ) )
+                return new UInt32Parameter( name, Long.valueOf( in.readLong() ), isTracked );
+            if ( type.equals( "int64" ) )
+                return new Int64Parameter( name, Long.valueOf( in.readLong() ), isTracked );
+            if ( type.equals( "uint64" ) )
+            {
+                long bits = in.readLong();
+                BigInteger value = BigInteger.valueOf( bits );
+                if ( bits < 0 )
+                    value = value.add( BigInteger.ONE.shiftLeft( 64 ) );
+                return new UInt64Parameter( name, value, isTracked );
+            }
+
+            int count = in.readInt();
+            if ( type.equals( "vdouble" ) )
+            {
+                ArrayList<Double> values = new ArrayList<Double>( count );
+                for ( int i = 0; i < count; i++ )
+                    values.add( Double.valueOf( in.readDouble() ) );
+                return new VDoubleParameter( name, values, isTracked );
+            }
+            if ( type.equals( "vint32" ) )
+            {
+                ArrayList<Integer> values = new ArrayList<Integer>( count );
+                for ( int i = 0; i < count; i++ )
+                    values.add( Integer.valueOf( in.readInt() ) );
+                return new VInt32Parameter( name, values, isTracked );
+            }
+            ArrayList<Long> values = new ArrayList<Long>( count );
+            for ( int i = 0; i < count; i++ )
+                values.add( Long.valueOf( in.readLong() ) );
+            if ( type.equals( "vuint32" ) )
+                return new VUInt32Parameter( name, values, isTracked );
+            if ( type.equals( "vint64" ) )
+                return new VInt64Parameter( name, values, isTracked );
+            if ( type.equals( "vuint64" ) )
+                return new VUInt64Parameter( name, values, isTracked );
+            throw new StreamCorruptedException( "unknown parameter type " + type );
+        }
+
+        private String readString() throws IOException
+        {
+            int index = in.readInt();
+            if ( index == stringNull )
+                return null;
+            if ( index != stringInline )
+                return strings.get( index );
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully( bytes );
+            String s = new String( bytes, StandardCharsets.UTF_8 );
+            strings.add( s );
+            return s;
+        }
+
+        private void setDatabaseId( DatabaseEntry entry, int databaseId )
+        {
+            entries.add( entry );
+            entryIds.add( Integer.valueOf( databaseId ) );
+        }
+
+        private EventContent content( String name ) throws IOException
+        {
+            EventContent content = config.content( name );
+            if ( content == null )
+                throw new StreamCorruptedException( "unknown event content " + name );
+            return content;
+        }
+
+        private Stream stream( String contentName, String name ) throws IOException
+        {
+            Stream stream = content( contentName ).stream( name );
+            if ( stream == null )
+                throw new StreamCorruptedException( "unknown stream " + name );
+            return stream;
+        }
+
+        private Path path( String name ) throws IOException
+        {
+            Path path = config.path( name );
+            if ( path == null )
+                throw new StreamCorruptedException( "unknown path " + name );
+            return path;
+        }
+    }
+
+    /** input stream reading the remaining bytes of a buffer */
+    static private class ByteBufferInputStream extends InputStream
+    {
+        private ByteBuffer buffer;
+
+        ByteBufferInputStream( ByteBuffer buffer )
+        {
+            this.buffer = buffer;
+        }
+
+        public int read()
+        {
+            return buffer.hasRemaining() ? ( buffer.get() & 0xff ) : -1;
+        }
+
+        public int read( byte[] b, int off, int len )
+        {
+            if ( len == 0 )
+                return 0;
+            if ( !buffer.hasRemaining() )
+                return -1;
+            len = Math.min( len, buffer.remaining() );
+            buffer.get( b, off, len );
+            return len;
+        }
+
+        public int available()
+        {
+            return buffer.remaining();
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package confdb.converter;
 
+import java.io.IOException;
+
 import confdb.converter.IConfigurationWriter.WriteProcess;
 import confdb.data.IConfiguration;
+import confdb.db.ConfDB;
 
 public class ConverterEngine {
 	private String format = "?";
@@ -18,6 +21,9 @@ public class ConverterEngine {
 	private ISequenceWriter sequenceWriter = null;
 
 	private int maxLineLength = 250;
+	private int parallelism = defaultParallelism;
+
+	static private int defaultParallelism = 1;
 
 	static final private String newline = "\n";
 
@@ -29,9 +35,17 @@ public class ConverterEngine {
 	}
 
 	public String convert(IConfiguration configuration) throws ConverterException {
+		ConfDB.loadDeferredParameters(configuration);
 		return configurationWriter.toString(configuration, WriteProcess.YES);
 	}
 
+	/** write the configuration to 'out' while it is converted */
+	public void convert(IConfiguration configuration, Appendable out) throws ConverterException, IOException {
+		// one query per chunk of modules rather than one per module rendered
+		ConfDB.loadDeferredParameters(configuration);
+		configurationWriter.write(configuration, WriteProcess.YES, out);
+	}
+
 	public String getNewline() {
 		return newline;
 	}
@@ -135,6 +149,20 @@ public class ConverterEngine {
 		this.maxLineLength = maxLineLength;
 	}
 
+	/** number of threads rendering the instances of a configuration, 1: sequential */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/** parallelism of engines created from now on */
+	static public void setDefaultParallelism(int parallelism) {
+		defaultParallelism = parallelism;
+	}
+
 	public String getFormat() {
 		return format;
 	}
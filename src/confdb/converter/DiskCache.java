@@ -1,97 +1,181 @@
 package confdb.converter;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import confdb.data.Configuration;
 
 
 public class DiskCache 
 {
+    static private final String startFile = ".start";
+    static private final String indexFile = ".index";
+    static private final String tmpSuffix = ".tmp";
+
     protected String dir = "";
     protected long maxSpace = 45 * 1024 * 1024;
     protected long inUse = 0;
     protected int maxSizeMB = 5;
+    protected boolean compress = true;
     
     private Statistics deserialize = new Statistics();
     private Statistics serialize = new Statistics();
 
     private ArrayList<ExceptionBufferEntry> exceptions = new ArrayList<DiskCache.ExceptionBufferEntry>();
+
+    /** cached files in order of last access, least recently used first */
+    private LinkedHashMap<String, IndexEntry> index = new LinkedHashMap<String, IndexEntry>( 64, 0.75f, true );
+    private boolean indexChanged = false;
+
+    /** time of the last scan and modification time of the directory it saw */
+    private long lastScan = 0;
+    private long lastScanDirModified = 0;
+
+    /** few writer threads; when they are busy, the requesting thread writes itself */
+    private ThreadPoolExecutor writers = 
+    	new ThreadPoolExecutor( 2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>( 4 ),
+    			new ThreadFactory() {
+    				public Thread newThread( Runnable r ) 
+    				{
+    					Thread thread = new Thread( Thread.currentThread().getThreadGroup(), r, "diskWriter", 1024 * 1024 );
+    					thread.setDaemon( true );
+    					return thread;
+    				}
+    			},
+    			new ThreadPoolExecutor.CallerRunsPolicy() );
     
     public DiskCache( String p, long space, int maxSizeMB ) throws IOException, SecurityException
     {
     	maxSpace = space * 1024 * 1024;
     	this.maxSizeMB = maxSizeMB;
     	p += File.separator;
-    	File file = new File( p + ".start" );
+    	File file = new File( p + startFile );
     	if ( file.exists() )
     		file.delete();
     	if ( !file.createNewFile() )
     		throw new IOException( "dir '" + dir + "' not usable" );
     	dir = p;
-    	getInUse();
+    	writers.allowCoreThreadTimeOut( true );
+    	loadIndex();
     }
 
-    public void writeToDisk( Object o, String fileName )
+    public void writeToDisk( Configuration config, String fileName )
     {
-    	while ( maxSpace - inUse < maxSizeMB * 1024 * 1024 )
-    		deleteOldestFile();
-    	Thread thread = new Thread( Thread.currentThread().getThreadGroup(), 
-    			new WriterThread( fileName, o ), "diskWriter", 1024 * 1024 );
-    	thread.start();
+    	writers.execute( new WriterThread( fileName, config ) );
     }
     
-    public Object loadFromDisk( String fileName )
+    public Configuration loadFromDisk( String fileName )
     {
     	long start = System.currentTimeMillis();
     	
     	File file = new File( dir + fileName );
     	if ( !file.exists() )
+    	{
+    		synchronized ( index ) {
+    			IndexEntry entry = index.remove( fileName );
+    			if ( entry != null )
+    			{
+    				inUse -= entry.size;
+    				indexChanged = true;
+    			}
+    		}
 			return null;
+    	}
 
-    	FileInputStream fis = null;
-        ObjectInputStream ois = null;
         try {
-        	fis = new FileInputStream( file );
-            ois = new ObjectInputStream(fis);
-	        Object o = ois.readObject();
-	        ois.close();
+	        Configuration config = ConfigurationSnapshot.read( file );
+	        if ( config == null )
+	        {
+	        	// snapshot of another format version: a miss, it will be rewritten
+	        	removeFile( fileName );
+	        	return null;
+	        }
 	    	long now = System.currentTimeMillis();
-	        file.setLastModified( now );
-			deserialize.add( now - start );
-			fis.close();
-	        return o;
+	    	synchronized ( index ) {
+	    		IndexEntry entry = index.get( fileName );
+	    		if ( entry == null )
+	    			addToIndex( fileName, file.length(), now );
+	    		else
+	    			entry.lastAccess = now;
+	    		indexChanged = true;
+	    	}
+			synchronized ( deserialize ) {
+				deserialize.add( now - start );
+			}
+	        return config;
 		} catch (Exception e) {
+			// damaged file: drop it, it will be rewritten
 			storeException(e);
-		}
-		finally {
-			if ( ois != null )
-				try {
-					ois.close();
-				} catch (IOException e) {
-				}
-			if ( fis != null )
-				try {
-					fis.close();
-				} catch (IOException e) {
-				}
-			
+			removeFile( fileName );
 		}
 		return null;
     }
     
+    /** total size of the cached files, as kept in the index */
     public long getInUse()
     {
-    	inUse = 0;
-    	File[] files = (new File(dir)).listFiles();
-    	for ( File file : files )
-    		inUse += file.length();
-    	return inUse;
+    	synchronized ( index ) {
+    		return inUse;
+    	}
+    }
+
+    /** rebuild the index from the cache directory, shared with other processes */
+    public long rescan()
+    {
+    	HashMap<String, IndexEntry> persisted = readIndex();
+    	synchronized ( index ) {
+    		lastScan = System.currentTimeMillis();
+    		lastScanDirModified = new File( dir ).lastModified();
+    		// keep the latest access times known from this and the persisted index
+    		HashMap<String, IndexEntry> found = new HashMap<String, IndexEntry>();
+    		File[] files = (new File(dir)).listFiles();
+    		if ( files != null )
+    			for ( File file : files )
+    			{
+    				if ( !isCacheFile( file.getName() ) )
+    					continue;
+    				long lastAccess = file.lastModified();
+    				IndexEntry known = index.get( file.getName() );
+    				if ( known != null )
+    					lastAccess = Math.max( lastAccess, known.lastAccess );
+    				known = persisted.get( file.getName() );
+    				if ( known != null )
+    					lastAccess = Math.max( lastAccess, known.lastAccess );
+    				found.put( file.getName(), new IndexEntry( file.length(), lastAccess ) );
+    			}
+    		ArrayList<Map.Entry<String, IndexEntry>> sorted = 
+    			new ArrayList<Map.Entry<String, IndexEntry>>( found.entrySet() );
+    		Collections.sort( sorted, new Comparator<Map.Entry<String, IndexEntry>>() {
+    			public int compare( Map.Entry<String, IndexEntry> e1, Map.Entry<String, IndexEntry> e2 ) 
+    			{
+    				return Long.compare( e1.getValue().lastAccess, e2.getValue().lastAccess );
+    			}
+    		});
+    		index.clear();
+    		inUse = 0;
+    		for ( Map.Entry<String, IndexEntry> entry : sorted )
+    			addToIndex( entry.getKey(), entry.getValue().size, entry.getValue().lastAccess );
+    		indexChanged = true;
+    		return inUse;
+    	}
     }
 
 
@@ -103,26 +187,171 @@ public class DiskCache
     public int getAvailableSpace( boolean update ) // in MB
     {
     	if ( update )
-    		return (int)((maxSpace - getInUse()) / 1024 / 1024);
+    		return (int)((maxSpace - rescan()) / 1024 / 1024);
     	else
-    		return (int)((maxSpace - inUse) / 1024 / 1024);
+    		return (int)((maxSpace - getInUse()) / 1024 / 1024);
     }
     
+    /** delete the least recently used files until 'needed' bytes are free */
+    protected void makeSpace( long needed )
+    {
+    	// other processes sharing the directory added or removed files: count them
+    	boolean changed;
+    	synchronized ( index ) {
+    		changed = new File( dir ).lastModified() != lastScanDirModified;
+    	}
+    	if ( changed )
+    		rescan();
+
+    	ArrayList<String> victims = new ArrayList<String>();
+    	synchronized ( index ) {
+    		long available = maxSpace - inUse;
+    		for ( Iterator<Map.Entry<String, IndexEntry>> it = index.entrySet().iterator(); 
+    			  it.hasNext() && available < needed; )
+    		{
+    			Map.Entry<String, IndexEntry> entry = it.next();
+    			available += entry.getValue().size;
+    			inUse -= entry.getValue().size;
+    			victims.add( entry.getKey() );
+    			it.remove();
+    			indexChanged = true;
+    		}
+    	}
+    	for ( String victim : victims )
+    		new File( dir + victim ).delete();
+    }
+
     protected void deleteOldestFile()
     {
-    	File[] files = (new File(dir)).listFiles();
-    	File oldest = null;
-    	for ( File file : files )
-    	{
-    		if ( oldest == null ||  file.lastModified() < oldest.lastModified() )
-    			oldest = file;    			
+    	String oldest = null;
+    	synchronized ( index ) {
+    		if ( !index.isEmpty() )
+    			oldest = index.keySet().iterator().next();
     	}
     	if ( oldest != null )
-    		oldest.delete();
-    	getInUse();
+    		removeFile( oldest );
+    }
+
+    private void removeFile( String fileName )
+    {
+    	synchronized ( index ) {
+    		IndexEntry entry = index.remove( fileName );
+    		if ( entry != null )
+    			inUse -= entry.size;
+    		indexChanged = true;
+    	}
+    	new File( dir + fileName ).delete();
+    }
+
+    /** called with the index locked */
+    private void addToIndex( String fileName, long size, long lastAccess )
+    {
+    	IndexEntry entry = index.remove( fileName );
+    	if ( entry != null )
+    		inUse -= entry.size;
+    	index.put( fileName, new IndexEntry( size, lastAccess ) );
+    	inUse += size;
+    }
+
+    private boolean isCacheFile( String fileName )
+    {
+    	return !fileName.equals( startFile ) && !fileName.startsWith( indexFile ) && !fileName.endsWith( tmpSuffix );
+    }
+
+    /** build the index from the directory and the persisted index */
+    private void loadIndex()
+    {
+    	rescan();
+    	saveIndex();
+    }
+
+    /** the index persisted by the processes sharing the directory */
+    private HashMap<String, IndexEntry> readIndex()
+    {
+    	HashMap<String, IndexEntry> persisted = new HashMap<String, IndexEntry>();
+    	File file = new File( dir + indexFile );
+    	if ( !file.exists() )
+    		return persisted;
+    	BufferedReader reader = null;
+    	try {
+    		reader = new BufferedReader( new FileReader( file ) );
+    		String line;
+    		while ( ( line = reader.readLine() ) != null )
+    		{
+    			String[] fields = line.split( "\t" );
+    			if ( fields.length == 3 )
+    				persisted.put( fields[0], new IndexEntry( Long.parseLong( fields[1] ), Long.parseLong( fields[2] ) ) );
+    		}
+    	} catch (Exception e) {
+    		storeException(e);
+    	} finally {
+    		if ( reader != null )
+    			try {
+    				reader.close();
+    			} catch (IOException e) {
+    			}
+    	}
+    	return persisted;
+    }
+
+    /**
+     * persist the index next to the cached files, if it changed. The index
+     * is merged with the persisted one: the later access time wins, and the
+     * files other processes used since the last scan are kept
+     */
+    protected void saveIndex()
+    {
+    	synchronized ( index ) {
+    		if ( !indexChanged )
+    			return;
+    	}
+    	HashMap<String, IndexEntry> persisted = readIndex();
+    	StringBuffer content = new StringBuffer();
+    	synchronized ( index ) {
+    		for ( Map.Entry<String, IndexEntry> entry : index.entrySet() )
+    		{
+    			long lastAccess = entry.getValue().lastAccess;
+    			IndexEntry other = persisted.remove( entry.getKey() );
+    			if ( other != null )
+    				lastAccess = Math.max( lastAccess, other.lastAccess );
+    			appendIndexLine( content, entry.getKey(), entry.getValue().size, lastAccess );
+    		}
+    		for ( Map.Entry<String, IndexEntry> entry : persisted.entrySet() )
+    		{
+    			if ( entry.getValue().lastAccess > lastScan )
+    				appendIndexLine( content, entry.getKey(), entry.getValue().size, entry.getValue().lastAccess );
+    		}
+    		indexChanged = false;
+    	}
+    	File tmp = new File( dir + indexFile + "." + Thread.currentThread().getId() + tmpSuffix );
+    	FileWriter writer = null;
+    	try {
+    		writer = new FileWriter( tmp );
+    		writer.write( content.toString() );
+    		writer.close();
+    		writer = null;
+    		Files.move( tmp.toPath(), new File( dir + indexFile ).toPath(), 
+    				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    	} catch (IOException e) {
+    		storeException(e);
+    		tmp.delete();
+    	} finally {
+    		if ( writer != null )
+    			try {
+    				writer.close();
+    			} catch (IOException e) {
+    			}
+    	}
     }
     
-    protected void storeException( Exception e )
+    static private void appendIndexLine( StringBuffer content, String fileName, long size, long lastAccess )
+    {
+    	content.append( fileName ).append( '\t' )
+    	       .append( size ).append( '\t' )
+    	       .append( lastAccess ).append( '\n' );
+    }
+
+    protected synchronized void storeException( Exception e )
     {
     	if ( exceptions.size() > 100 )
     		exceptions.remove(0);
@@ -176,6 +405,14 @@ public class DiskCache
 
 	/* setters and getters */
 	
+	public boolean isCompress() {
+		return compress;
+	}
+
+	public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+	
 	public Statistics getSerialize() {
 		return serialize;
 	}
@@ -192,61 +429,63 @@ public class DiskCache
 	public class WriterThread implements Runnable
 	{
 		String fileName;
-		Object o;
+		Configuration config;
 
-		WriterThread( String file, Object o )
+		WriterThread( String file, Configuration config )
 		{
 			fileName = file;
-			this.o = o;
+			this.config = config;
 		}
 		
 		public void run() 
 		{
 	    	long start = System.currentTimeMillis();
 	    	
-        	FileOutputStream fos = null;
-	        ObjectOutputStream oos = null;
+	    	makeSpace( maxSizeMB * 1024 * 1024 );
+
+	    	// write to a private file first, readers only ever see complete files
+        	File tmp = new File( dir + fileName + "." + Thread.currentThread().getId() + tmpSuffix );
 	        try {
-	        	File file = new File( dir + fileName );
-	        	fos = new FileOutputStream( file );
-		        oos = new ObjectOutputStream(fos);
-				oos.writeObject( o );
-		        inUse += file.length();
-				serialize.add( System.currentTimeMillis() - start );
+		        long size = ConfigurationSnapshot.write( config, tmp, compress );
+		        Files.move( tmp.toPath(), new File( dir + fileName ).toPath(), 
+		        		StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		        synchronized ( index ) {
+		        	addToIndex( fileName, size, System.currentTimeMillis() );
+		        	indexChanged = true;
+		        }
+		        synchronized ( serialize ) {
+		        	serialize.add( System.currentTimeMillis() - start );
+		        }
 			} catch (Exception e) {
-				if ( e.getMessage().equals( "Disk quota exceeded" ) )
+				if ( "Disk quota exceeded".equals( e.getMessage() ) )
 				{
-					getInUse();
-					maxSpace = inUse;
+					synchronized ( index ) {
+						maxSpace = inUse;
+					}
 				}
 				else
 					storeException(e);
 				try {
-		        	File file = new File( dir + fileName );
-					if ( file.exists() )
-						file.delete();
-					getInUse();
+					if ( tmp.exists() )
+						tmp.delete();
 				} catch (Exception x) {
 				}
 			}
-			finally {
-				if ( oos != null )
-					try {
-						oos.close();
-					} catch (IOException e) {
-					}
-				if ( fos != null )
-					try {
-						fos.close();
-					} catch (IOException e) {
-					}
-				
-			}
+			saveIndex();
 		}
 		
 	}
-	
-}
-
 
+	static private class IndexEntry
+	{
+		long size;
+		long lastAccess;
 
+		IndexEntry( long size, long lastAccess )
+		{
+			this.size = size;
+			this.lastAccess = lastAccess;
+		}
+	}
+	
+}
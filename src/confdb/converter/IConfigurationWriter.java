@@ -1,5 +1,7 @@
 package confdb.converter;
 
+import java.io.IOException;
+
 import confdb.data.IConfiguration;
 
 public interface IConfigurationWriter extends ConverterEngineSetter 
@@ -8,4 +10,10 @@ public interface IConfigurationWriter extends ConverterEngineSetter
 	
 	public String toString( IConfiguration configuration, WriteProcess yesNo ) throws ConverterException;
 	
+	/** write the configuration to 'out' piece by piece; writers which can't stream build the String */
+	default public void write( IConfiguration configuration, WriteProcess yesNo, Appendable out ) throws ConverterException, IOException
+	{
+		out.append( toString( configuration, yesNo ) );
+	}
+	
 }
@@ -1,9 +1,13 @@
 package confdb.converter;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.util.HashMap;
 import java.util.Iterator;
 
 import confdb.data.*;
+import confdb.db.ConfDB;
 import confdb.db.DatabaseException;
 
 import confdb.converter.IConfigurationWriter.WriteProcess;
@@ -105,6 +109,23 @@ public class OfflineConverter extends ConverterBase
 				  String format,
 				  ModifierInstructions modifications,
 				  boolean asFragment)  throws ConverterException
+    {
+	StringBuilder str = new StringBuilder(100000);
+	try {
+	    writeConfig(config,format,modifications,asFragment,str);
+	}
+	catch (IOException e) {
+	    throw new ConverterException("OfflineConverter::getConfigString() failed",e);
+	}
+	return str.toString();
+    }
+    
+    /** write the configuration for an IConfiguration object to 'out' */
+    public void writeConfig(IConfiguration config,
+			    String format,
+			    ModifierInstructions modifications,
+			    boolean asFragment,
+			    Appendable out) throws ConverterException, IOException
     {
     	ConfigurationModifier modifier = new ConfigurationModifier(config);
 	
@@ -119,10 +140,22 @@ public class OfflineConverter extends ConverterBase
 	    } catch (Exception e) {
 		throw new ConverterException( "can't get ConverterEngine", e );
 	    }
+    	ConfDB.loadDeferredParameters(modifier);
     	if (asFragment)
-	    return engine.getConfigurationWriter().toString(modifier,WriteProcess.NO);
+	    engine.getConfigurationWriter().write(modifier,WriteProcess.NO,out);
     	else
-	    return engine.getConfigurationWriter().toString(modifier,WriteProcess.YES);
+	    engine.getConfigurationWriter().write(modifier,WriteProcess.YES,out);
+    }
+    
+    /** write the configuration for the given configId to 'out' */
+    public void writeConfig(int configId,
+			    String format,
+			    ModifierInstructions modifications,
+			    boolean asFragment,
+			    Appendable out) throws ConverterException, IOException
+    {
+    	IConfiguration config = getConfiguration( configId );
+    	writeConfig( config, format, modifications, asFragment, out );
     }
     
     /** retrieve the configuration string for the given configId */
@@ -174,6 +207,9 @@ public class OfflineConverter extends ConverterBase
 	    else if (arg.equals("--cff")) {
 		asFragment = true;
 	    }
+	    else if (arg.equals("--parallel")) {
+		iarg++; ConverterEngine.setDefaultParallelism(Integer.parseInt(args[iarg]));
+	    }
 	    else if (arg.equals("-t")||arg.equals("--dbtype")) {
 		iarg++; dbType = args[iarg];
 	    }
@@ -244,16 +280,14 @@ public class OfflineConverter extends ConverterBase
 	    modifications.interpretArgs(cnvArgs);
 	    OfflineConverter cnv = 
 		new OfflineConverter(format,dbType,dbUrl,dbUser,dbPwrd);
-	    if (configId.length()>0)
-		System.out.println(cnv.getConfigString(Integer.parseInt(configId),
-						       format,
-						       modifications,
-						       asFragment));
-	    else
-		System.out.println(cnv.getConfigString(configName,
-						       format,
-						       modifications,
-						       asFragment));
+	    int id = (configId.length()>0) ?
+		Integer.parseInt(configId) :
+		cnv.getDatabase().getConfigId(configName);
+	    BufferedWriter out =
+		new BufferedWriter(new OutputStreamWriter(System.out),64*1024);
+	    cnv.writeConfig(id,format,modifications,asFragment,out);
+	    out.newLine();
+	    out.flush();
 	    
 	}
 	catch(Exception e) {
@@ -1,8 +1,14 @@
 package confdb.converter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import java.io.IOException;
 import java.sql.Connection;
@@ -24,36 +30,24 @@ public class OnlineConverter extends ConverterBase
 {
     static private OnlineConverter converter = null;
     static private Connection dbConnection = null;
-    static private final Object lock = new Object();
+
+    /** maximum number of configurations kept converted */
+    static private int maxConversions = 4;
     
 	
     //
     // member data
     //
 
-    /** current configuration id */
-    private int configId = -1;
-
-    /** current configuration string for FUEventProcessor */
-    private String epConfigString = null;
-
-    /** current configuration string for StorageManager */
-    private String smConfigString = null;
-
-    /** current hash map 'pathName' -> 'prescalerName' OBSOLETE */
-    private HashMap<String, String> pathToPrescaler =
-	new HashMap<String, String>();
-
-    /** current hash map 'pathName' -> 'pathId' */
-    private HashMap<String,Integer> pathToPathId =
-	new HashMap<String,Integer>();
-
-    /** current hash map 'moduleName' -> 'moduleId' */
-    private HashMap<String,Integer> moduleToModuleId =
-	new HashMap<String,Integer>();
-
-    /** current prescale table */
-    private PrescaleTable prescaleTable = null;
+    /** converted configurations by configId and event setup settings,
+     *  least recently used first */
+    private LinkedHashMap<String,FutureTask<Conversion>> conversions =
+	new LinkedHashMap<String,FutureTask<Conversion>>(16,0.75f,true) {
+	    private static final long serialVersionUID = 1L;
+	    protected boolean removeEldestEntry(Map.Entry<String,FutureTask<Conversion>> eldest) {
+		return size() > maxConversions;
+	    }
+	};
     
     /** MessageLogger verbosity levels for cout & log4cplus */
     private String mlVerbosityCout = "FATAL";
@@ -142,82 +136,124 @@ public class OnlineConverter extends ConverterBase
     public String getEpConfigString(int configId)
 	throws ConverterException
     {
-    	synchronized( lock ) {
-    		if (configId != this.configId)
-    			convertConfiguration(configId);
-    		return epConfigString;
-    	}
+	return getConversion(configId).epConfigString;
     }
 
     /** get the configuration string for StorageManager */
     public String getSmConfigString(int configId)
 	throws ConverterException
     {
-    	synchronized( lock ) {
-    		if (configId != this.configId)
-    			convertConfiguration(configId);
-    		return smConfigString;
-    	}
+	return getConversion(configId).smConfigString;
     }
 
-    /** get the pathName -> prescalerName map  DEPRECTATED */ 
+    /** get (a copy of) the pathName -> prescalerName map  DEPRECTATED */ 
     public HashMap<String, String> getPathToPrescalerMap(int configId)
     throws ConverterException 
     {
-    	synchronized( lock ) {
-    		if (configId != this.configId)
-    			convertConfiguration(configId);
-    		return pathToPrescaler;
-    	}
+	return new HashMap<String,String>(getConversion(configId).pathToPrescaler);
     }
 
-    /** get the prescale table */
+    /** get (a copy of) the prescale table */
     public PrescaleTable getPrescaleTable(int configId)
 	throws ConverterException
     {
-    	synchronized( lock ) {
-    		if (configId != this.configId)
-    			convertConfiguration(configId);
-    		return prescaleTable;
-    	}
+	return new PrescaleTable(getConversion(configId).prescaleTable);
     }
 
-    /** get pathname to pathid map */
+    /** get (a copy of) the pathname to pathid map */
     public HashMap<String,Integer> getPathToPathIdMap(int configId)
 	throws ConverterException
     {
-    	synchronized( lock ) {
-    		if (configId !=this.configId)
-    			convertConfiguration(configId);
-    		return pathToPathId;
-    	}
+	return new HashMap<String,Integer>(getConversion(configId).pathToPathId);
     }
 
-    /** get modulename to moduleid map */
+    /** get (a copy of) the modulename to moduleid map */
     public HashMap<String,Integer> getModuleToModuleIdMap(int configId)
 	throws ConverterException
     {
-    	synchronized( lock ) {
-    		if (configId !=this.configId)
-    			convertConfiguration(configId);
-    		return moduleToModuleId;
-    	}
+	return new HashMap<String,Integer>(getConversion(configId).moduleToModuleId);
     }
     
+    /** set the maximum number of configurations kept converted */
+    public static void setMaxConversions(int max) { maxConversions = max; }
 
     /** set the GlobalTag global tag parameter */
-    public void setGlobalTag(String esGlobalTag) { this.esGlobalTag = esGlobalTag; }
+    public void setGlobalTag(String esGlobalTag)
+    {
+	synchronized(conversions) {
+	    this.esGlobalTag = esGlobalTag;
+	    conversions.clear();
+	}
+    }
 
     /** set the GlobalTag connect parameter */
-    public void setConnect(String esConnect) { this.esConnect = esConnect; }
+    public void setConnect(String esConnect)
+    {
+	synchronized(conversions) {
+	    this.esConnect = esConnect;
+	    conversions.clear();
+	}
+    }
     
 
     //
     // private member data
     //
 
-    /** convert configuration and cache ep and sm configuration string */
-    private void convertConfiguration(int configId) throws ConverterException 
+    /** get the conversion of a configuration with the current event setup
+     *  settings, converting it only once */
+    private Conversion getConversion(final int configId)
+	throws ConverterException
+    {
+	FutureTask<Conversion> task = null;
+	boolean convert = false;
+	String key = null;
+	synchronized(conversions) {
+	    // the settings are read once, a conversion never mixes old and new
+	    final String globalTag = esGlobalTag;
+	    final String connect   = esConnect;
+	    key = configId+"\n"+globalTag+"\n"+connect;
+	    task = conversions.get(key);
+	    if (task == null) {
+		task = new FutureTask<Conversion>(new Callable<Conversion>() {
+			public Conversion call() throws ConverterException {
+			    return convertConfiguration(configId,globalTag,connect);
+			}
+		    });
+		conversions.put(key, task);
+		convert = true;
+	    }
+	}
+	if (convert)
+	    task.run();
+	
+	try {
+	    return task.get();
+	}
+	catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new ConverterException("OnlineConverter: interrupted", e);
+	}
+	catch (ExecutionException e) {
+	    // don't keep failed conversions
+	    synchronized(conversions) {
+		if (conversions.get(key) == task)
+		    conversions.remove(key);
+	    }
+	    Throwable cause = e.getCause();
+	    if (cause instanceof ConverterException)
+		throw (ConverterException)cause;
+	    if (cause instanceof RuntimeException)
+		throw (RuntimeException)cause;
+	    throw new ConverterException("OnlineConverter::getConversion(configId="+
+					 configId+") failed", cause);
+	}
+    }
+
+    /** convert configuration: ep and sm configuration string, maps */
+    private Conversion convertConfiguration(int configId,String globalTag,
+					    String connect)
+	throws ConverterException 
     {
 	IConfiguration epConfig = getConfiguration(configId);
 	
@@ -296,10 +332,11 @@ public class OnlineConverter extends ConverterBase
 				       smErrorWriterT.name(),"out4Error");
 	
 
-	configureGlobalTag(epConfig);
+	configureGlobalTag(epConfig,globalTag,connect);
 	
-	pathToPrescaler.clear();
-	pathToPathId.clear();
+	HashMap<String,String>  pathToPrescaler  = new HashMap<String,String>();
+	HashMap<String,Integer> pathToPathId     = new HashMap<String,Integer>();
+	HashMap<String,Integer> moduleToModuleId = new HashMap<String,Integer>();
 	Iterator<Path> itP = epConfig.pathIterator();
 	while (itP.hasNext()) {
 	    Path path = itP.next();
@@ -315,7 +352,6 @@ public class OnlineConverter extends ConverterBase
 	    }
 	}
 	
-	moduleToModuleId.clear();
 	Iterator<ModuleInstance> itM = epConfig.moduleIterator();
 	while (itM.hasNext()) {
 	    ModuleInstance module = itM.next();
@@ -325,15 +361,15 @@ public class OnlineConverter extends ConverterBase
 	
 	
 	//prescaleTable = new PrescaleTable(epModifier);
-	prescaleTable = new PrescaleTable(epConfig);
+	PrescaleTable prescaleTable = new PrescaleTable(epConfig);
 	
 	addPSetForStreams(epConfig);
 	addPSetForDatasets(epConfig);
 	
-	epConfigString = getConverterEngine().convert(epConfig);
-	smConfigString = getConverterEngine().convert(smConfig);
-
-	this.configId = configId;
+	return new Conversion(getConverterEngine().convert(epConfig),
+			      getConverterEngine().convert(smConfig),
+			      pathToPrescaler,pathToPathId,moduleToModuleId,
+			      prescaleTable);
     }
 
     /** make a sm stream writer template */
@@ -359,7 +395,7 @@ public class OnlineConverter extends ConverterBase
     }
 
     /** configure the global tag event setup source */
-    private void configureGlobalTag( IConfiguration config )
+    private void configureGlobalTag( IConfiguration config, String esGlobalTag, String esConnect )
     {
     	ESSourceInstance globalTag = config.essource("GlobalTag");
     	if ( globalTag == null ) 
@@ -379,6 +415,33 @@ public class OnlineConverter extends ConverterBase
     }
     
     
+    /** the converted artifacts of one configuration, never modified:
+     *  callers get copies of the maps and of the prescale table */
+    private static class Conversion
+    {
+	final String                  epConfigString;
+	final String                  smConfigString;
+	final Map<String,String>      pathToPrescaler;
+	final Map<String,Integer>     pathToPathId;
+	final Map<String,Integer>     moduleToModuleId;
+	final PrescaleTable           prescaleTable;
+	
+	Conversion(String epConfigString,String smConfigString,
+		   HashMap<String,String> pathToPrescaler,
+		   HashMap<String,Integer> pathToPathId,
+		   HashMap<String,Integer> moduleToModuleId,
+		   PrescaleTable prescaleTable)
+	{
+	    this.epConfigString   = epConfigString;
+	    this.smConfigString   = smConfigString;
+	    this.pathToPrescaler  = Collections.unmodifiableMap(pathToPrescaler);
+	    this.pathToPathId     = Collections.unmodifiableMap(pathToPathId);
+	    this.moduleToModuleId = Collections.unmodifiableMap(moduleToModuleId);
+	    this.prescaleTable    = prescaleTable;
+	}
+    }
+    
+    
     //
     // static member functions
     //
@@ -0,0 +1,139 @@
+package confdb.converter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelRenderer
+ * ----------------
+ * render the items of a configuration section (modules, paths, ...) and
+ * append them to the output in their original order. If the engine's
+ * parallelism is larger than one, windows of items are rendered by
+ * fork-join tasks on a shared render pool with as many threads; the output
+ * is identical to rendering the items one after another, as long as rendering
+ * an item only reads shared objects (output modules, for instance, update
+ * their parameters when they are read, and are rendered in order).
+ */
+public class ParallelRenderer
+{
+	/** render one item of a section */
+	public interface Section
+	{
+		public String render( int index ) throws ConverterException;
+	}
+
+	/** sections with fewer items are always rendered sequentially */
+	static private final int minItems = 32;
+
+	/** number of items rendered by one task */
+	static private final int chunkSize = 16;
+
+	/** items rendered per window and thread before they are appended */
+	static private final int windowPerThread = 8 * chunkSize;
+
+	/** render pools by parallelism, shared by all engines */
+	static private final HashMap<Integer,ForkJoinPool> pools = new HashMap<Integer,ForkJoinPool>();
+
+
+	/** render items 0..count-1 of 'section' to 'out' */
+	static public void render( ConverterEngine engine, int count, Section section, Appendable out )
+		throws ConverterException, IOException
+	{
+		int parallelism = engine.getParallelism();
+		if ( parallelism <= 1 || count < minItems )
+		{
+			for ( int i = 0; i < count; i++ )
+				out.append( section.render( i ) );
+			return;
+		}
+
+		ForkJoinPool renderPool = getPool( parallelism );
+		String[] rendered = new String[ Math.min( count, parallelism * windowPerThread ) ];
+		for ( int first = 0; first < count; first += rendered.length )
+		{
+			int last = Math.min( count, first + rendered.length );
+			try {
+				renderPool.invoke( new RenderTask( section, rendered, first, first, last ) );
+			} catch (RenderException e) {
+				throw e.getConverterException();
+			}
+			for ( int i = 0; i < last - first; i++ )
+			{
+				out.append( rendered[i] );
+				rendered[i] = null;
+			}
+		}
+	}
+
+	/** the pool rendering with 'parallelism' threads, shared by all engines */
+	static public synchronized ForkJoinPool getPool( int parallelism )
+	{
+		ForkJoinPool pool = pools.get( parallelism );
+		if ( pool == null )
+		{
+			pool = new ForkJoinPool( parallelism );
+			pools.put( parallelism, pool );
+		}
+		return pool;
+	}
+
+
+	/** render the items [begin,end) into rendered[index-offset] */
+	static private class RenderTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final Section section;
+		private final String[] rendered;
+		private final int offset;
+		private final int begin;
+		private final int end;
+
+		RenderTask( Section section, String[] rendered, int offset, int begin, int end )
+		{
+			this.section = section;
+			this.rendered = rendered;
+			this.offset = offset;
+			this.begin = begin;
+			this.end = end;
+		}
+
+		protected void compute()
+		{
+			if ( end - begin <= chunkSize )
+			{
+				try {
+					for ( int i = begin; i < end; i++ )
+						rendered[ i - offset ] = section.render( i );
+				} catch (ConverterException e) {
+					throw new RenderException( e );
+				}
+				return;
+			}
+			int middle = ( begin + end ) >>> 1;
+			invokeAll( new RenderTask( section, rendered, offset, begin, middle ),
+					   new RenderTask( section, rendered, offset, middle, end ) );
+		}
+	}
+
+	/** carries a ConverterException out of a render task */
+	static private class RenderException extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		RenderException( ConverterException e )
+		{
+			super( e );
+		}
+
+		ConverterException getConverterException()
+		{
+			// the pool may rethrow a copy, wrapping the original exception
+			Throwable cause = getCause();
+			while ( cause != null && !( cause instanceof ConverterException ) )
+				cause = cause.getCause();
+			return ( cause != null ) ? (ConverterException)cause : new ConverterException( "rendering failed", this );
+		}
+	}
+}
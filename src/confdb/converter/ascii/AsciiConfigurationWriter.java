@@ -1,5 +1,6 @@
 package confdb.converter.ascii;
 
+import java.io.IOException;
 import java.util.Iterator;
 
 import confdb.converter.ConverterEngine;
@@ -31,16 +32,26 @@ public class AsciiConfigurationWriter implements IConfigurationWriter
 	protected ConverterEngine converterEngine = null;
 
 	public String toString( IConfiguration conf, WriteProcess writeProcess  ) throws ConverterException
+	{
+		StringBuilder str = new StringBuilder( 100000 );
+		try {
+			write( conf, writeProcess, str );
+		} catch (IOException e) {
+			throw new ConverterException( "AsciiConfigurationWriter::toString() failed", e );
+		}
+		return str.toString();
+	}
+
+	public void write( IConfiguration conf, WriteProcess writeProcess, Appendable out ) throws ConverterException, IOException
 	{
 		String indent = "  ";
-		StringBuffer str = new StringBuffer( 100000 );
 		//String fullName = conf.parentDir().name() + "/" + conf.name() + "/V" + conf.version() ;		
 		String fullName = conf.toString();
-		str.append( "// " + fullName
+		out.append( "// " + fullName
   		   + "  (" + conf.releaseTag() + ")" + converterEngine.getNewline() + converterEngine.getNewline() );
 
 		if ( writeProcess == WriteProcess.YES )
-			str.append( "process " + conf.processName() + " = {" + converterEngine.getNewline() );
+			out.append( "process " + conf.processName() + " = {" + converterEngine.getNewline() );
 		else
 			indent = "";
 
@@ -48,21 +59,21 @@ public class AsciiConfigurationWriter implements IConfigurationWriter
 		for ( int i = 0; i < conf.sequenceCount(); i++ )
 		{
 			Sequence sequence = conf.sequence(i);
-			str.append( sequenceWriter.toString(sequence, converterEngine, indent ) );
+			out.append( sequenceWriter.toString(sequence, converterEngine, indent ) );
 		}
 
 		IPathWriter pathWriter = converterEngine.getPathWriter();
 		for ( int i = 0; i < conf.pathCount(); i++ )
 		{
 			Path path = conf.path(i);
-			str.append( pathWriter.toString( path, converterEngine, indent ) );
+			out.append( pathWriter.toString( path, converterEngine, indent ) );
 		}
 
 		IParameterWriter parameterWriter = converterEngine.getParameterWriter();
 		for ( int i = 0; i < conf.psetCount(); i++ )
 		{
 			Parameter pset = conf.pset(i);
-			str.append( parameterWriter.toString( pset, converterEngine, indent ) );
+			out.append( parameterWriter.toString( pset, converterEngine, indent ) );
 		}
 
 
@@ -70,14 +81,14 @@ public class AsciiConfigurationWriter implements IConfigurationWriter
 		for ( int i = 0; i < conf.edsourceCount(); i++ )
 		{
 			EDSourceInstance edsource = conf.edsource(i);
-			str.append( edsourceWriter.toString(edsource, converterEngine, indent ) );
+			out.append( edsourceWriter.toString(edsource, converterEngine, indent ) );
 		}
 
 		IESSourceWriter essourceWriter = converterEngine.getESSourceWriter();
 		for ( int i = 0; i < conf.essourceCount(); i++ )
 		{
 			ESSourceInstance essource = conf.essource(i);
-			str.append( essourceWriter.toString(essource, converterEngine, indent ) );
+			out.append( essourceWriter.toString(essource, converterEngine, indent ) );
 		}
 
 
@@ -85,7 +96,7 @@ public class AsciiConfigurationWriter implements IConfigurationWriter
 		for ( int i = 0; i < conf.esmoduleCount(); i++ )
 		{
 			ESModuleInstance esmodule = conf.esmodule(i);
-			str.append( esmoduleWriter.toString( esmodule, converterEngine, indent ) );
+			out.append( esmoduleWriter.toString( esmodule, converterEngine, indent ) );
 		}
 
 
@@ -93,39 +104,38 @@ public class AsciiConfigurationWriter implements IConfigurationWriter
 		for ( int i = 0; i < conf.serviceCount(); i++ )
 		{
 			ServiceInstance service = conf.service(i);
-			str.append( serviceWriter.toString( service, converterEngine, indent ) );
+			out.append( serviceWriter.toString( service, converterEngine, indent ) );
 		}
 
 		IModuleWriter moduleWriter = converterEngine.getModuleWriter();
 		for ( int i = 0; i < conf.moduleCount(); i++ )
 		{
 			ModuleInstance module = conf.module(i);
-			str.append( moduleWriter.toString( module ) );
+			out.append( moduleWriter.toString( module ) );
 		}
 
 		IOutputWriter outputWriter = converterEngine.getOutputWriter();
 		for ( int i = 0; i < conf.outputCount(); i++ )
 		{
 			OutputModule output = conf.output(i);
-			str.append( outputWriter.toString( output ) );
+			out.append( outputWriter.toString( output ) );
 		}
 
 		Iterator<Block> blockIterator = conf.blockIterator();
 		while ( blockIterator.hasNext() )
 		{
 			Block block = blockIterator.next();
-			str.append( indent + "block " + block.name() + " = {\n" );
+			out.append( indent + "block " + block.name() + " = {\n" );
 			Iterator<Parameter> parameterIterator = block.parameterIterator();
 			while ( parameterIterator.hasNext() )
 			{
-				str.append( parameterWriter.toString( parameterIterator.next(), converterEngine, indent + "  " ) );
+				out.append( parameterWriter.toString( parameterIterator.next(), converterEngine, indent + "  " ) );
 			}
-			str.append( indent + "}\n" );
+			out.append( indent + "}\n" );
 		}
 
 		if ( writeProcess == WriteProcess.YES )
-			str.append( converterEngine.getConfigurationTrailer() );
-		return str.toString();
+			out.append( converterEngine.getConfigurationTrailer() );
 	}
 
 	public void setConverterEngine( ConverterEngine converterEngine ) 
@@ -1,5 +1,6 @@
 package confdb.converter.html;
 
+import java.io.IOException;
 import confdb.converter.ConverterEngine;
 import confdb.converter.ConverterException;
 import confdb.converter.IConfigurationWriter;
@@ -30,108 +31,117 @@ public class HtmlConfigurationWriter implements IConfigurationWriter {
 	private static final int maxSpaces = spaces.length();
 
 	public String toString(IConfiguration conf, WriteProcess writeProcess) throws ConverterException {
-		StringBuffer str = new StringBuffer(100000);
+		StringBuilder str = new StringBuilder(100000);
+		try {
+			write(conf, writeProcess, str);
+		} catch (IOException e) {
+			throw new ConverterException("HtmlConfigurationWriter::toString() failed", e);
+		}
+		return str.toString();
+	}
+
+	public void write(IConfiguration conf, WriteProcess writeProcess, Appendable out)
+			throws ConverterException, IOException {
 		if (writeProcess == WriteProcess.YES)
-			str.append("process <b>" + conf.processName() + "</b> = {" + converterEngine.getNewline());
+			out.append("process <b>" + conf.processName() + "</b> = {" + converterEngine.getNewline());
 
-		str.append(converterEngine.getNewline());
+		out.append(converterEngine.getNewline());
 
 		if (conf.psetCount() > 0) {
-			str.append("<a name=\"psets\"></a>");
+			out.append("<a name=\"psets\"></a>");
 			IParameterWriter parameterWriter = converterEngine.getParameterWriter();
 			for (int i = 0; i < conf.psetCount(); i++) {
 				Parameter pset = conf.pset(i);
-				str.append(parameterWriter.toString(pset, converterEngine, "  "));
+				out.append(parameterWriter.toString(pset, converterEngine, "  "));
 			}
-			str.append(converterEngine.getNewline());
+			out.append(converterEngine.getNewline());
 		}
 
 		if (conf.pathCount() > 0) {
-			str.append("<a name=\"paths\"><hr noshade></a>");
+			out.append("<a name=\"paths\"><hr noshade></a>");
 			IPathWriter pathWriter = converterEngine.getPathWriter();
 			for (int i = 0; i < conf.pathCount(); i++) {
 				Path path = conf.path(i);
-				str.append(wrapLine(pathWriter.toString(path, converterEngine, "  "), '&', 12 + path.name().length()));
+				out.append(wrapLine(pathWriter.toString(path, converterEngine, "  "), '&', 12 + path.name().length()));
 			}
 			if (conf.sequenceCount() == 0)
-				str.append(converterEngine.getNewline());
+				out.append(converterEngine.getNewline());
 		}
 
 		if (conf.sequenceCount() > 0) {
-			str.append("<a name=\"sequences\"><hr noshade></a>" + converterEngine.getNewline());
+			out.append("<a name=\"sequences\"><hr noshade></a>" + converterEngine.getNewline());
 			ISequenceWriter sequenceWriter = converterEngine.getSequenceWriter();
 			for (int i = 0; i < conf.sequenceCount(); i++) {
 				Sequence sequence = conf.sequence(i);
-				str.append(wrapLine(sequenceWriter.toString(sequence, converterEngine, "  "), '&',
+				out.append(wrapLine(sequenceWriter.toString(sequence, converterEngine, "  "), '&',
 						16 + sequence.name().length()));
 			}
-			str.append(converterEngine.getNewline());
+			out.append(converterEngine.getNewline());
 		}
 
 		if (conf.moduleCount() > 0) {
-			str.append("<a name=\"modules\"><hr noshade></a>");
+			out.append("<a name=\"modules\"><hr noshade></a>");
 			IModuleWriter moduleWriter = converterEngine.getModuleWriter();
 			for (int i = 0; i < conf.moduleCount(); i++) {
 				ModuleInstance module = conf.module(i);
-				str.append(moduleWriter.toString(module));
+				out.append(moduleWriter.toString(module));
 			}
-			str.append(converterEngine.getNewline());
+			out.append(converterEngine.getNewline());
 		}
 
 		if (conf.outputCount() > 0) {
-			str.append("<a name=\"outputs\"><hr noshade></a>");
+			out.append("<a name=\"outputs\"><hr noshade></a>");
 			IOutputWriter outputWriter = converterEngine.getOutputWriter();
 			for (int i = 0; i < conf.outputCount(); i++) {
 				OutputModule output = conf.output(i);
-				str.append(outputWriter.toString(output));
+				out.append(outputWriter.toString(output));
 			}
-			str.append(converterEngine.getNewline());
+			out.append(converterEngine.getNewline());
 		}
 
 		if (conf.edsourceCount() > 0)
-			str.append("<a name=\"ed_sources\"><hr noshade></a>");
+			out.append("<a name=\"ed_sources\"><hr noshade></a>");
 		IEDSourceWriter edsourceWriter = converterEngine.getEDSourceWriter();
 		for (int i = 0; i < conf.edsourceCount(); i++) {
 			EDSourceInstance edsource = conf.edsource(i);
-			str.append(edsourceWriter.toString(edsource, converterEngine, indent));
+			out.append(edsourceWriter.toString(edsource, converterEngine, indent));
 		}
 		if (conf.edsourceCount() == 0) // edsource may be overridden
-			str.append(edsourceWriter.toString(null, converterEngine, indent));
+			out.append(edsourceWriter.toString(null, converterEngine, indent));
 		if (conf.edsourceCount() > 0)
-			str.append(converterEngine.getNewline());
+			out.append(converterEngine.getNewline());
 
 		if (conf.essourceCount() > 0) {
-			str.append("<a name=\"es_sources\"><hr noshade></a>");
+			out.append("<a name=\"es_sources\"><hr noshade></a>");
 			IESSourceWriter essourceWriter = converterEngine.getESSourceWriter();
 			for (int i = 0; i < conf.essourceCount(); i++) {
 				ESSourceInstance essource = conf.essource(i);
-				str.append(essourceWriter.toString(essource, converterEngine, indent));
+				out.append(essourceWriter.toString(essource, converterEngine, indent));
 			}
-			str.append(converterEngine.getNewline());
+			out.append(converterEngine.getNewline());
 		}
 
 		if (conf.esmoduleCount() > 0) {
-			str.append("<a name=\"es_modules\"><hr noshade></a>");
+			out.append("<a name=\"es_modules\"><hr noshade></a>");
 			IESModuleWriter esmoduleWriter = converterEngine.getESModuleWriter();
 			for (int i = 0; i < conf.esmoduleCount(); i++) {
 				ESModuleInstance esmodule = conf.esmodule(i);
-				str.append(esmoduleWriter.toString(esmodule, converterEngine, indent));
+				out.append(esmoduleWriter.toString(esmodule, converterEngine, indent));
 			}
-			str.append(converterEngine.getNewline());
+			out.append(converterEngine.getNewline());
 		}
 
 		if (conf.serviceCount() > 0) {
-			str.append("<a name=\"services\"><hr noshade></a>");
+			out.append("<a name=\"services\"><hr noshade></a>");
 			IServiceWriter serviceWriter = converterEngine.getServiceWriter();
 			for (int i = 0; i < conf.serviceCount(); i++) {
 				ServiceInstance service = conf.service(i);
-				str.append(serviceWriter.toString(service, converterEngine, indent));
+				out.append(serviceWriter.toString(service, converterEngine, indent));
 			}
 		}
 
 		if (writeProcess == WriteProcess.YES)
-			str.append(converterEngine.getConfigurationTrailer());
-		return str.toString();
+			out.append(converterEngine.getConfigurationTrailer());
 	}
 
 	public void setConverterEngine(ConverterEngine converterEngine) {
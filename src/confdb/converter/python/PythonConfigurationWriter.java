@@ -1,5 +1,7 @@
 package confdb.converter.python;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 
 import confdb.converter.ConverterEngine;
@@ -14,6 +16,7 @@ import confdb.converter.IParameterWriter;
 import confdb.converter.IPathWriter;
 import confdb.converter.ISequenceWriter;
 import confdb.converter.IServiceWriter;
+import confdb.converter.ParallelRenderer;
 import confdb.data.Block;
 import confdb.data.ESPreferable;
 import confdb.data.IConfiguration;
@@ -26,163 +29,186 @@ import confdb.data.Parameter;
 import confdb.data.Path;
 import confdb.data.Sequence;
 import confdb.data.ServiceInstance;
+import confdb.db.ConfDB;
 
 public class PythonConfigurationWriter implements IConfigurationWriter {
 	protected ConverterEngine converterEngine = null;
 
 	public String toString(IConfiguration conf, WriteProcess writeProcess) throws ConverterException {
-		String indent = "  ";
-		StringBuffer str = new StringBuffer(100000);
+		StringBuilder str = new StringBuilder(100000);
+		try {
+			write(conf, writeProcess, str);
+		} catch (IOException e) {
+			throw new ConverterException("PythonConfigurationWriter::toString() failed", e);
+		}
+		return str.toString();
+	}
+
+	public void write(final IConfiguration conf, WriteProcess writeProcess, Appendable out)
+			throws ConverterException, IOException {
+		final String indent = (writeProcess == WriteProcess.YES) ? "  " : "";
+		// the parallel sections must only read: load deferred parameters up front
+		if (converterEngine.getParallelism() > 1)
+			ConfDB.loadDeferredParameters(conf);
 		// String fullName = conf.parentDir().name() + "/" + conf.name() + "/V" +
 		// conf.version() ;
 		String fullName = conf.toString();
-		str.append("# " + fullName + " (" + conf.releaseTag() + ")" + converterEngine.getNewline()
+		out.append("# " + fullName + " (" + conf.releaseTag() + ")" + converterEngine.getNewline()
 				+ converterEngine.getNewline());
 
-		str.append("import FWCore.ParameterSet.Config as cms\n\n");
+		out.append("import FWCore.ParameterSet.Config as cms\n\n");
 
-		String object = "";
-		if (writeProcess == WriteProcess.YES) {
-			object = "process.";
-			str.append("process = cms.Process( \"" + conf.processName() + "\" )\n");
-		} else
-			indent = "";
+		final String object = (writeProcess == WriteProcess.YES) ? "process." : "";
+		if (writeProcess == WriteProcess.YES)
+			out.append("process = cms.Process( \"" + conf.processName() + "\" )\n");
 
-		str.append("\n" + object + "HLTConfigVersion = cms.PSet(\n  tableName = cms.string('" + fullName + "')\n)\n\n");
+		out.append("\n" + object + "HLTConfigVersion = cms.PSet(\n  tableName = cms.string('" + fullName + "')\n)\n\n");
 
 		if (conf.psetCount() > 0) {
-			IParameterWriter parameterWriter = converterEngine.getParameterWriter();
-			for (int i = 0; i < conf.psetCount(); i++) {
-				Parameter pset = conf.pset(i);
-				String psetStr = parameterWriter.toString(pset, converterEngine, "");
-				if (psetStr != null && psetStr.length() > 0)
-					str.append(object + psetStr);
-			}
-			str.append("\n");
+			final IParameterWriter parameterWriter = converterEngine.getParameterWriter();
+			ParallelRenderer.render(converterEngine, conf.psetCount(), new ParallelRenderer.Section() {
+				public String render(int i) throws ConverterException {
+					Parameter pset = conf.pset(i);
+					String psetStr = parameterWriter.toString(pset, converterEngine, "");
+					if (psetStr != null && psetStr.length() > 0)
+						return object + psetStr;
+					return "";
+				}
+			}, out);
+			out.append("\n");
 		}
 
 		if (conf.edsourceCount() > 0) {
-			IEDSourceWriter edsourceWriter = converterEngine.getEDSourceWriter();
-			for (int i = 0; i < conf.edsourceCount(); i++) {
-				EDSourceInstance edsource = conf.edsource(i);
-				str.append(object);
-				str.append(edsourceWriter.toString(edsource, converterEngine, indent));
-			}
-			str.append("\n");
+			final IEDSourceWriter edsourceWriter = converterEngine.getEDSourceWriter();
+			ParallelRenderer.render(converterEngine, conf.edsourceCount(), new ParallelRenderer.Section() {
+				public String render(int i) throws ConverterException {
+					EDSourceInstance edsource = conf.edsource(i);
+					return object + edsourceWriter.toString(edsource, converterEngine, indent);
+				}
+			}, out);
+			out.append("\n");
 		}
 
 		if (conf.essourceCount() > 0) {
-			IESSourceWriter essourceWriter = converterEngine.getESSourceWriter();
-			for (int i = 0; i < conf.essourceCount(); i++) {
-				ESSourceInstance essource = conf.essource(i);
-				str.append(object);
-				str.append(essourceWriter.toString(essource, converterEngine, indent));
-			}
+			final IESSourceWriter essourceWriter = converterEngine.getESSourceWriter();
+			ParallelRenderer.render(converterEngine, conf.essourceCount(), new ParallelRenderer.Section() {
+				public String render(int i) throws ConverterException {
+					ESSourceInstance essource = conf.essource(i);
+					return object + essourceWriter.toString(essource, converterEngine, indent);
+				}
+			}, out);
 
 			for (int i = 0; i < conf.essourceCount(); i++) {
 				ESSourceInstance instance = conf.essource(i);
 				if (instance instanceof ESPreferable) {
 					ESPreferable esp = (ESPreferable) instance;
 					if (esp.isPreferred()) {
-						str.append(object);
-						str.append("es_prefer_" + instance.name() + " = cms.ESPrefer( \"" + instance.template().name()
+						out.append(object);
+						out.append("es_prefer_" + instance.name() + " = cms.ESPrefer( \"" + instance.template().name()
 								+ "\", \"" + instance.name() + "\" )\n");
 					}
 				}
 			}
-			str.append("\n");
+			out.append("\n");
 		}
 
 		if (conf.esmoduleCount() > 0) {
-			IESModuleWriter esmoduleWriter = converterEngine.getESModuleWriter();
-			for (int i = 0; i < conf.esmoduleCount(); i++) {
-				ESModuleInstance esmodule = conf.esmodule(i);
-				str.append(object);
-				str.append(esmoduleWriter.toString(esmodule, converterEngine, ""));
-				if (esmodule.isPreferred()) {
-					str.append(object);
-					str.append("es_prefer_" + esmodule.name() + " = cms.ESPrefer( \"" + esmodule.template().name()
-							+ "\", \"" + esmodule.name() + "\" )\n");
+			final IESModuleWriter esmoduleWriter = converterEngine.getESModuleWriter();
+			ParallelRenderer.render(converterEngine, conf.esmoduleCount(), new ParallelRenderer.Section() {
+				public String render(int i) throws ConverterException {
+					ESModuleInstance esmodule = conf.esmodule(i);
+					String str = object + esmoduleWriter.toString(esmodule, converterEngine, "");
+					if (esmodule.isPreferred())
+						str += object + "es_prefer_" + esmodule.name() + " = cms.ESPrefer( \""
+								+ esmodule.template().name() + "\", \"" + esmodule.name() + "\" )\n";
+					return str;
 				}
-			}
+			}, out);
 
-			str.append("\n");
+			out.append("\n");
 		}
 
 		if (conf.serviceCount() > 0) {
-			IServiceWriter serviceWriter = converterEngine.getServiceWriter();
-			for (int i = 0; i < conf.serviceCount(); i++) {
-				ServiceInstance service = conf.service(i);
-				str.append(object);
-				str.append(serviceWriter.toString(service, converterEngine, indent));
-			}
-			str.append("\n");
+			final IServiceWriter serviceWriter = converterEngine.getServiceWriter();
+			ParallelRenderer.render(converterEngine, conf.serviceCount(), new ParallelRenderer.Section() {
+				public String render(int i) throws ConverterException {
+					ServiceInstance service = conf.service(i);
+					return object + serviceWriter.toString(service, converterEngine, indent);
+				}
+			}, out);
+			out.append("\n");
 		}
 
 		if (conf.moduleCount() > 0) {
-			IModuleWriter moduleWriter = converterEngine.getModuleWriter();
-			for (int i = 0; i < conf.moduleCount(); i++) {
-				ModuleInstance module = conf.module(i);
-				str.append(object);
-				str.append(moduleWriter.toString(module));
-			}
-			str.append("\n");
+			final IModuleWriter moduleWriter = converterEngine.getModuleWriter();
+			ParallelRenderer.render(converterEngine, conf.moduleCount(), new ParallelRenderer.Section() {
+				public String render(int i) throws ConverterException {
+					ModuleInstance module = conf.module(i);
+					return object + moduleWriter.toString(module);
+				}
+			}, out);
+			out.append("\n");
 		}
 
 		if (conf.outputCount() > 0) {
+			// rendered in order: reading the parameters of an output module updates them
+			// from its stream and sorts the commands of the shared event content
 			IOutputWriter outputWriter = converterEngine.getOutputWriter();
 			for (int i = 0; i < conf.outputCount(); i++) {
 				OutputModule output = conf.output(i);
-				str.append(object);
-				str.append(outputWriter.toString(output));
+				out.append(object + outputWriter.toString(output));
 			}
-			str.append("\n");
+			out.append("\n");
 		}
 
 		if (conf.sequenceCount() > 0) {
-			ISequenceWriter sequenceWriter = converterEngine.getSequenceWriter();
+			final ISequenceWriter sequenceWriter = converterEngine.getSequenceWriter();
+			final ArrayList<Sequence> sequences = new ArrayList<Sequence>();
 			Iterator<Sequence> sequenceIterator = conf.orderedSequenceIterator();
-			while (sequenceIterator.hasNext()) {
-				Sequence sequence = sequenceIterator.next();
-				str.append(sequenceWriter.toString(sequence, converterEngine, object));
-			}
-			str.append("\n");
+			while (sequenceIterator.hasNext())
+				sequences.add(sequenceIterator.next());
+			ParallelRenderer.render(converterEngine, sequences.size(), new ParallelRenderer.Section() {
+				public String render(int i) throws ConverterException {
+					return sequenceWriter.toString(sequences.get(i), converterEngine, object);
+				}
+			}, out);
+			out.append("\n");
 		}
 
 		if (conf.pathCount() > 0) {
-			IPathWriter pathWriter = converterEngine.getPathWriter();
-			for (int i = 0; i < conf.pathCount(); i++) {
-				Path path = conf.path(i);
-				str.append(pathWriter.toString(path, converterEngine, object));
-			}
-			str.append("\n");
+			final IPathWriter pathWriter = converterEngine.getPathWriter();
+			ParallelRenderer.render(converterEngine, conf.pathCount(), new ParallelRenderer.Section() {
+				public String render(int i) throws ConverterException {
+					Path path = conf.path(i);
+					return pathWriter.toString(path, converterEngine, object);
+				}
+			}, out);
+			out.append("\n");
 		}
 
 		IParameterWriter parameterWriter = converterEngine.getParameterWriter();
 		Iterator<Block> blockIterator = conf.blockIterator();
 		while (blockIterator.hasNext()) {
 			Block block = blockIterator.next();
-			str.append(block.name() + " = cms.PSet(\n");
+			out.append(block.name() + " = cms.PSet(\n");
 			Iterator<Parameter> parameterIterator = block.parameterIterator();
 			while (parameterIterator.hasNext()) {
-				str.append(parameterWriter.toString(parameterIterator.next(), converterEngine, indent));
+				out.append(parameterWriter.toString(parameterIterator.next(), converterEngine, indent));
 			}
-			str.append(")\n");
+			out.append(")\n");
 		}
 
 		if (conf.pathCount() > 0) {
-			str.append("\n" + object + "HLTSchedule = cms.Schedule( *(");
+			out.append("\n" + object + "HLTSchedule = cms.Schedule( *(");
 			for (int i = 0; i < conf.pathCount(); i++) {
 				Path path = conf.path(i);
-				str.append(object + path.name() + ", ");
+				if (i > 0)
+					out.append(", ");
+				out.append(object).append(path.name());
 			}
-			int length = str.length();
-			str.setCharAt(length - 2, ' ');
-			str.setLength(length - 1);
-			str.append("))\n");
+			out.append(" ))\n");
 		}
 
-		return str.toString();
 	}
 
 	public void setConverterEngine(ConverterEngine converterEngine) {
@@ -1,5 +1,6 @@
 package confdb.converter.summary.json;
 
+import java.io.IOException;
 import confdb.converter.ConverterEngine;
 import confdb.converter.ConverterException;
 import confdb.converter.IConfigurationWriter;
@@ -13,16 +14,25 @@ public class JsonConfigurationWriter implements IConfigurationWriter
 
 	public String toString( IConfiguration conf, WriteProcess writeProcess  ) throws ConverterException
 	{
-		StringBuffer str = new StringBuffer( 10000 );
-		str.append( "{\"rows\":[\n" );
+		StringBuilder str = new StringBuilder( 10000 );
+		try {
+			write( conf, writeProcess, str );
+		} catch (IOException e) {
+			throw new ConverterException( "JsonConfigurationWriter::toString() failed", e );
+		}
+		return str.toString();
+	}
+
+	public void write( IConfiguration conf, WriteProcess writeProcess, Appendable out ) throws ConverterException, IOException
+	{
+		out.append( "{\"rows\":[\n" );
 		IPathWriter pathWriter = converterEngine.getPathWriter();
 		for ( int i = 0; i < conf.pathCount(); i++ )
 		{
 			Path path = conf.path(i);
-			str.append( pathWriter.toString( path, converterEngine, "" ) );
+			out.append( pathWriter.toString( path, converterEngine, "" ) );
 		}
-		str.append( "]}\n" );
-		return str.toString();
+		out.append( "]}\n" );
 	}
 
 	public void setConverterEngine( ConverterEngine converterEngine ) 
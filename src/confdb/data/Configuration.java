@@ -1,6 +1,8 @@
 package confdb.data;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Collections;
 
@@ -57,6 +59,18 @@ public class Configuration implements IConfiguration {
 	/** list of blocks (always empty for Configuration!) */
 	private ArrayList<Block> blocks = new ArrayList<Block>();
 
+	/** streams and datasets of the event contents, collected on demand */
+	private transient volatile StreamView streamView = null;
+
+	/** name indexes of the above lists */
+	private NameIndex<EDSourceInstance> edsourceIndex = null;
+	private NameIndex<ESSourceInstance> essourceIndex = null;
+	private NameIndex<ESModuleInstance> esmoduleIndex = null;
+	private NameIndex<ServiceInstance> serviceIndex = null;
+	private NameIndex<ModuleInstance> moduleIndex = null;
+	private NameIndex<Path> pathIndex = null;
+	private NameIndex<Sequence> sequenceIndex = null;
+
 	//
 	// construction
 	//
@@ -72,6 +86,7 @@ public class Configuration implements IConfiguration {
 		paths = new ArrayList<Path>();
 		sequences = new ArrayList<Sequence>();
 		contents = new ArrayList<EventContent>();
+		createIndexes();
 	}
 
 	/** standard constructor */
@@ -85,6 +100,7 @@ public class Configuration implements IConfiguration {
 		paths = new ArrayList<Path>();
 		sequences = new ArrayList<Sequence>();
 		contents = new ArrayList<EventContent>();
+		createIndexes();
 
 		initialize(configInfo, release);
 	}
@@ -108,6 +124,8 @@ public class Configuration implements IConfiguration {
 		paths.clear();
 		sequences.clear();
 		contents.clear();
+		invalidateIndexes();
+		streamView = null;
 	}
 
 	/** reset configuration */
@@ -124,6 +142,48 @@ public class Configuration implements IConfiguration {
 		paths.clear();
 		sequences.clear();
 		contents.clear();
+		invalidateIndexes();
+		streamView = null;
+	}
+
+	/** create the name indexes of the component lists */
+	private void createIndexes() {
+		edsourceIndex = NameIndex.ofInstances(edsources);
+		essourceIndex = NameIndex.ofInstances(essources);
+		esmoduleIndex = NameIndex.ofInstances(esmodules);
+		serviceIndex = NameIndex.ofInstances(services);
+		moduleIndex = NameIndex.ofInstances(modules);
+		pathIndex = NameIndex.ofReferencables(paths);
+		sequenceIndex = NameIndex.ofReferencables(sequences);
+	}
+
+	/** update the name index of a renamed component of this configuration */
+	void renamed(Object component, String oldName) {
+		if (component instanceof EDSourceInstance)
+			edsourceIndex.renamed((EDSourceInstance) component, oldName);
+		else if (component instanceof ESSourceInstance)
+			essourceIndex.renamed((ESSourceInstance) component, oldName);
+		else if (component instanceof ESModuleInstance)
+			esmoduleIndex.renamed((ESModuleInstance) component, oldName);
+		else if (component instanceof ServiceInstance)
+			serviceIndex.renamed((ServiceInstance) component, oldName);
+		else if (component instanceof ModuleInstance)
+			moduleIndex.renamed((ModuleInstance) component, oldName);
+		else if (component instanceof Path)
+			pathIndex.renamed((Path) component, oldName);
+		else if (component instanceof Sequence)
+			sequenceIndex.renamed((Sequence) component, oldName);
+	}
+
+	/** rebuild all name indexes on their next lookup */
+	private void invalidateIndexes() {
+		edsourceIndex.invalidate();
+		essourceIndex.invalidate();
+		esmoduleIndex.invalidate();
+		serviceIndex.invalidate();
+		moduleIndex.invalidate();
+		pathIndex.invalidate();
+		sequenceIndex.invalidate();
 	}
 
 	/** set the configuration info */
@@ -317,21 +377,9 @@ public class Configuration implements IConfiguration {
 	public boolean isUniqueQualifier(String qualifier) {
 		if (qualifier.length() == 0)
 			return false;
-		for (ESSourceInstance ess : essources)
-			if (ess.name().equals(qualifier))
-				return false;
-		for (ESModuleInstance esm : esmodules)
-			if (esm.name().equals(qualifier))
-				return false;
-		for (ModuleInstance m : modules)
-			if (m.name().equals(qualifier))
-				return false;
-		for (Path p : paths)
-			if (p.name().equals(qualifier))
-				return false;
-		for (Sequence s : sequences)
-			if (s.name().equals(qualifier))
-				return false;
+		if (essourceIndex.contains(qualifier) || esmoduleIndex.contains(qualifier) || moduleIndex.contains(qualifier)
+				|| pathIndex.contains(qualifier) || sequenceIndex.contains(qualifier))
+			return false;
 
 		Iterator<OutputModule> itOM = outputIterator();
 		while (itOM.hasNext())
@@ -343,41 +391,22 @@ public class Configuration implements IConfiguration {
 
 	/** check if the reference container has a unique qualifier */
 	public boolean hasUniqueQualifier(Referencable referencable) {
-		if (referencable.name().length() == 0)
+		String name = referencable.name();
+		if (name.length() == 0)
+			return false;
+		if (essourceIndex.contains(name) || esmoduleIndex.contains(name))
+			return false;
+		if (moduleIndex.hasOther(name, referencable))
 			return false;
-		for (ESSourceInstance ess : essources)
-			if (ess.name().equals(referencable.name()))
-				return false;
-		for (ESModuleInstance esm : esmodules)
-			if (esm.name().equals(referencable.name()))
-				return false;
-		for (ModuleInstance m : modules) {
-			if (m == referencable)
-				continue;
-			if (m.name().equals(referencable.name()))
-				return false;
-		}
 		Iterator<OutputModule> itOM = outputIterator();
 		while (itOM.hasNext()) {
 			OutputModule om = itOM.next();
 			if (om == referencable)
 				continue;
-			if (om.name().equals(referencable.name()))
-				return false;
-		}
-		for (Path p : paths) {
-			if (p == referencable)
-				continue;
-			if (p.name().equals(referencable.name()))
+			if (om.name().equals(name))
 				return false;
 		}
-		for (Sequence s : sequences) {
-			if (s == referencable)
-				continue;
-			if (s.name().equals(referencable.name()))
-				return false;
-		}
-		return true;
+		return !pathIndex.hasOther(name, referencable) && !sequenceIndex.hasOther(name, referencable);
 	}
 
 	/** check if all entries of a reference container are unique */
@@ -609,10 +638,7 @@ public class Configuration implements IConfiguration {
 
 	/** get EDSource by name */
 	public EDSourceInstance edsource(String name) {
-		for (EDSourceInstance eds : edsources)
-			if (eds.name().equals(name))
-				return eds;
-		return null;
+		return edsourceIndex.get(name);
 	}
 
 	/** index of a certain EDSource */
@@ -640,6 +666,7 @@ public class Configuration implements IConfiguration {
 		try {
 			instance = (EDSourceInstance) template.instance();
 			edsources.add(instance);
+			edsourceIndex.added(instance);
 			instance.setConfig(this);
 			hasChanged = true;
 		} catch (Exception e) {
@@ -653,12 +680,14 @@ public class Configuration implements IConfiguration {
 		edsource.remove();
 		int index = edsources.indexOf(edsource);
 		edsources.remove(index);
+		edsourceIndex.removed(edsource);
 		hasChanged = true;
 	}
 
 	/** sort EDSources */
 	public void sortEDSources() {
 		Collections.sort(edsources);
+		edsourceIndex.reordered();
 		hasChanged = true;
 	}
 
@@ -678,10 +707,7 @@ public class Configuration implements IConfiguration {
 
 	/** get ESSource by name */
 	public ESSourceInstance essource(String name) {
-		for (ESSourceInstance ess : essources)
-			if (ess.name().equals(name))
-				return ess;
-		return null;
+		return essourceIndex.get(name);
 	}
 
 	/** index of a certain ESSource */
@@ -706,6 +732,7 @@ public class Configuration implements IConfiguration {
 		try {
 			instance = (ESSourceInstance) template.instance(instanceName);
 			essources.add(i, instance);
+			essourceIndex.added(instance);
 			instance.setConfig(this);
 			hasChanged = true;
 		} catch (Exception e) {
@@ -719,12 +746,14 @@ public class Configuration implements IConfiguration {
 		essource.remove();
 		int index = essources.indexOf(essource);
 		essources.remove(index);
+		essourceIndex.removed(essource);
 		hasChanged = true;
 	}
 
 	/** sort ESSources */
 	public void sortESSources() {
 		Collections.sort(essources);
+		essourceIndex.reordered();
 		hasChanged = true;
 	}
 
@@ -744,10 +773,7 @@ public class Configuration implements IConfiguration {
 
 	/** get ESModule by name */
 	public ESModuleInstance esmodule(String name) {
-		for (ESModuleInstance esm : esmodules)
-			if (esm.name().equals(name))
-				return esm;
-		return null;
+		return esmoduleIndex.get(name);
 	}
 
 	/** index of a certain ESSource */
@@ -772,6 +798,7 @@ public class Configuration implements IConfiguration {
 		try {
 			instance = (ESModuleInstance) template.instance(instanceName);
 			esmodules.add(i, instance);
+			esmoduleIndex.added(instance);
 			instance.setConfig(this);
 			hasChanged = true;
 		} catch (Exception e) {
@@ -785,12 +812,14 @@ public class Configuration implements IConfiguration {
 		esmodule.remove();
 		int index = esmodules.indexOf(esmodule);
 		esmodules.remove(index);
+		esmoduleIndex.removed(esmodule);
 		hasChanged = true;
 	}
 
 	/** sort ESModules */
 	public void sortESModules() {
 		Collections.sort(esmodules);
+		esmoduleIndex.reordered();
 		hasChanged = true;
 	}
 
@@ -810,10 +839,7 @@ public class Configuration implements IConfiguration {
 
 	/** get Service by name */
 	public ServiceInstance service(String name) {
-		for (ServiceInstance svc : services)
-			if (svc.name().equals(name))
-				return svc;
-		return null;
+		return serviceIndex.get(name);
 	}
 
 	/** index of a certain Service */
@@ -838,6 +864,7 @@ public class Configuration implements IConfiguration {
 		try {
 			instance = (ServiceInstance) template.instance();
 			services.add(i, instance);
+			serviceIndex.added(instance);
 			instance.setConfig(this);
 			hasChanged = true;
 		} catch (Exception e) {
@@ -851,12 +878,14 @@ public class Configuration implements IConfiguration {
 		service.remove();
 		int index = services.indexOf(service);
 		services.remove(index);
+		serviceIndex.removed(service);
 		hasChanged = true;
 	}
 
 	/** sort services */
 	public void sortServices() {
 		Collections.sort(services);
+		serviceIndex.reordered();
 		hasChanged = true;
 	}
 
@@ -876,10 +905,7 @@ public class Configuration implements IConfiguration {
 
 	/** get Module by name */
 	public ModuleInstance module(String moduleName) {
-		for (ModuleInstance m : modules)
-			if (m.name().equals(moduleName))
-				return m;
-		return null;
+		return moduleIndex.get(moduleName);
 	}
 
 	/** index of a certain Module */
@@ -906,6 +932,7 @@ public class Configuration implements IConfiguration {
 			instance = (ModuleInstance) template.instance(instanceName);
 			if (instance.referenceCount() == 0) {
 				modules.add(instance);
+				moduleIndex.added(instance);
 				instance.setConfig(this);
 				hasChanged = true;
 			}
@@ -919,6 +946,7 @@ public class Configuration implements IConfiguration {
 	public boolean insertModule(int i, ModuleInstance module) {
 		if (modules.indexOf(module) < 0 && module.referenceCount() == 0) {
 			modules.add(i, module);
+			moduleIndex.added(module);
 			module.setConfig(this);
 			hasChanged = true;
 			return true;
@@ -933,6 +961,7 @@ public class Configuration implements IConfiguration {
 		if (instance.referenceCount() == 0) {
 			int index = modules.indexOf(instance);
 			modules.remove(index);
+			moduleIndex.removed(instance);
 		}
 		hasChanged = true;
 	}
@@ -954,6 +983,7 @@ public class Configuration implements IConfiguration {
 	/** sort Modules */
 	public void sortModules() {
 		Collections.sort(modules);
+		moduleIndex.reordered();
 	}
 
 	//
@@ -1033,10 +1063,7 @@ public class Configuration implements IConfiguration {
 
 	/** get Path by name */
 	public Path path(String pathName) {
-		for (Path p : paths)
-			if (p.name().equals(pathName))
-				return p;
-		return null;
+		return pathIndex.get(pathName);
 	}
 
 	/** index of a certain Path */
@@ -1053,6 +1080,7 @@ public class Configuration implements IConfiguration {
 	public Path insertPath(int i, String pathName) {
 		Path path = new Path(pathName);
 		paths.add(i, path);
+		pathIndex.added(path);
 		path.setConfig(this);
 		hasChanged = true;
 		return path;
@@ -1071,6 +1099,7 @@ public class Configuration implements IConfiguration {
 			targetIndex--;
 		paths.remove(currentIndex);
 		paths.add(targetIndex, path);
+		pathIndex.reordered();
 		hasChanged = true;
 		return true;
 	}
@@ -1097,6 +1126,7 @@ public class Configuration implements IConfiguration {
 				if (instance.referenceCount() == 0) {
 					int index = modules.indexOf(instance);
 					modules.remove(index);
+					moduleIndex.removed(instance);
 				}
 			}
 		}
@@ -1108,6 +1138,7 @@ public class Configuration implements IConfiguration {
 
 		int index = paths.indexOf(path);
 		paths.remove(index);
+		pathIndex.removed(path);
 
 		for (int i = 0; i < pathCount(); i++) {
 			Path p = path(i);
@@ -1202,6 +1233,7 @@ public class Configuration implements IConfiguration {
 	/** sort Paths */
 	public void sortPaths() {
 		Collections.sort(paths);
+		pathIndex.reordered();
 		hasChanged = true;
 	}
 
@@ -1221,10 +1253,7 @@ public class Configuration implements IConfiguration {
 
 	/** get Sequence by name */
 	public Sequence sequence(String sequenceName) {
-		for (Sequence s : sequences)
-			if (s.name().equals(sequenceName))
-				return s;
-		return null;
+		return sequenceIndex.get(sequenceName);
 	}
 
 	/** index of a certain Sequence */
@@ -1272,6 +1301,7 @@ public class Configuration implements IConfiguration {
 	public Sequence insertSequence(int i, String sequenceName) {
 		Sequence sequence = new Sequence(sequenceName);
 		sequences.add(i, sequence);
+		sequenceIndex.added(sequence);
 		sequence.setConfig(this);
 		hasChanged = true;
 		return sequence;
@@ -1290,6 +1320,7 @@ public class Configuration implements IConfiguration {
 			targetIndex--;
 		sequences.remove(currentIndex);
 		sequences.add(targetIndex, sequence);
+		sequenceIndex.reordered();
 		hasChanged = true;
 		return true;
 	}
@@ -1311,12 +1342,14 @@ public class Configuration implements IConfiguration {
 				if (instance.referenceCount() == 0) {
 					int index = modules.indexOf(instance);
 					modules.remove(index);
+					moduleIndex.removed(instance);
 				}
 			}
 		}
 
 		int index = sequences.indexOf(sequence);
 		sequences.remove(index);
+		sequenceIndex.removed(sequence);
 		hasChanged = true;
 	}
 
@@ -1330,6 +1363,7 @@ public class Configuration implements IConfiguration {
 	/** sort Sequences */
 	public void sortSequences() {
 		Collections.sort(sequences);
+		sequenceIndex.reordered();
 		hasChanged = true;
 	}
 
@@ -1407,53 +1441,28 @@ public class Configuration implements IConfiguration {
 
 	/** number of streams */
 	public int streamCount() {
-		int result = 0;
-		Iterator<EventContent> itC = contentIterator();
-		while (itC.hasNext())
-			result += itC.next().streamCount();
-		return result;
+		return streamView().streams.items.size();
 	}
 
 	/** retrieve i-th stream */
 	public Stream stream(int i) {
-		ArrayList<Stream> streams = new ArrayList<Stream>();
-		Iterator<Stream> itS = streamIterator();
-		while (itS.hasNext())
-			streams.add(itS.next());
-		return streams.get(i);
+		return streamView().streams.items.get(i);
 	}
 
 	/** retrieve stream by name */
 	public Stream stream(String streamName) {
-		Iterator<Stream> itS = streamIterator();
-		while (itS.hasNext()) {
-			Stream stream = itS.next();
-			if (stream.name().equals(streamName))
-				return stream;
-		}
-		return null;
+		return streamView().streams.byName.get(streamName);
 	}
 
 	/** index of a certain stream */
 	public int indexOfStream(Stream stream) {
-		ArrayList<Stream> streams = new ArrayList<Stream>();
-		Iterator<Stream> itS = streamIterator();
-		while (itS.hasNext())
-			streams.add(itS.next());
-		return streams.indexOf(stream);
+		Integer index = streamView().streams.indices.get(stream);
+		return (index != null) ? index : -1;
 	}
 
 	/** retrieve stream iterator */
 	public Iterator<Stream> streamIterator() {
-		ArrayList<Stream> streams = new ArrayList<Stream>();
-		Iterator<EventContent> itC = contentIterator();
-		while (itC.hasNext()) {
-			Iterator<Stream> itS = itC.next().streamIterator();
-			while (itS.hasNext())
-				streams.add(itS.next());
-		}
-		Collections.sort(streams);
-		return streams.iterator();
+		return Collections.unmodifiableList(streamView().streams.items).iterator();
 	}
 
 	//
@@ -1462,53 +1471,194 @@ public class Configuration implements IConfiguration {
 
 	/** number of primary datasets */
 	public int datasetCount() {
-		int result = 0;
-		Iterator<Stream> itS = streamIterator();
-		while (itS.hasNext())
-			result += itS.next().datasetCount();
-		return result;
+		return streamView().datasets.items.size();
 	}
 
 	/** retrieve i-th primary dataset */
 	public PrimaryDataset dataset(int i) {
-		ArrayList<PrimaryDataset> datasets = new ArrayList<PrimaryDataset>();
-		Iterator<PrimaryDataset> itD = datasetIterator();
-		while (itD.hasNext())
-			datasets.add(itD.next());
-		return datasets.get(i);
+		return streamView().datasets.items.get(i);
 	}
 
 	/** retrieve primary dataset by name */
 	public PrimaryDataset dataset(String datasetName) {
-		Iterator<PrimaryDataset> itD = datasetIterator();
-		while (itD.hasNext()) {
-			PrimaryDataset dataset = itD.next();
-			if (dataset.name().equals(datasetName))
-				return dataset;
-		}
-		return null;
+		return streamView().datasets.byName.get(datasetName);
 	}
 
 	/** index of a certain primary dataset */
 	public int indexOfDataset(PrimaryDataset dataset) {
-		ArrayList<PrimaryDataset> datasets = new ArrayList<PrimaryDataset>();
-		Iterator<PrimaryDataset> itD = datasetIterator();
-		while (itD.hasNext())
-			datasets.add(itD.next());
-		return datasets.indexOf(dataset);
+		Integer index = streamView().datasets.indices.get(dataset);
+		return (index != null) ? index : -1;
 	}
 
 	/** retrieve primary dataset iterator */
 	public Iterator<PrimaryDataset> datasetIterator() {
-		ArrayList<PrimaryDataset> datasets = new ArrayList<PrimaryDataset>();
-		Iterator<Stream> itS = streamIterator();
-		while (itS.hasNext()) {
-			Iterator<PrimaryDataset> itD = itS.next().datasetIterator();
-			while (itD.hasNext())
-				datasets.add(itD.next());
+		return Collections.unmodifiableList(streamView().datasets.items).iterator();
+	}
+
+	/** a stream was inserted into an event content */
+	static void streamInserted(Stream stream) {
+		StreamView view = streamViewOf(stream);
+		if (view == null)
+			return;
+		view.streams.add(stream);
+		Iterator<PrimaryDataset> itD = stream.datasetIterator();
+		while (itD.hasNext())
+			view.datasets.add(itD.next());
+	}
+
+	/** a stream was removed from its event content */
+	static void streamRemoved(Stream stream) {
+		StreamView view = streamViewOf(stream);
+		if (view == null)
+			return;
+		view.streams.remove(stream, stream.name());
+		Iterator<PrimaryDataset> itD = stream.datasetIterator();
+		while (itD.hasNext()) {
+			PrimaryDataset dataset = itD.next();
+			view.datasets.remove(dataset, dataset.name());
+		}
+	}
+
+	/** a stream was renamed from 'oldName' */
+	static void streamRenamed(Stream stream, String oldName) {
+		StreamView view = streamViewOf(stream);
+		if (view != null)
+			view.streams.renamed(stream, oldName);
+	}
+
+	/** a primary dataset was inserted into a stream */
+	static void datasetInserted(PrimaryDataset dataset) {
+		StreamView view = streamViewOf(dataset.parentStream());
+		if (view != null)
+			view.datasets.add(dataset);
+	}
+
+	/** a primary dataset was removed from its stream */
+	static void datasetRemoved(PrimaryDataset dataset) {
+		StreamView view = streamViewOf(dataset.parentStream());
+		if (view != null)
+			view.datasets.remove(dataset, dataset.name());
+	}
+
+	/** a primary dataset was renamed from 'oldName' */
+	static void datasetRenamed(PrimaryDataset dataset, String oldName) {
+		StreamView view = streamViewOf(dataset.parentStream());
+		if (view != null)
+			view.datasets.renamed(dataset, oldName);
+	}
+
+	/** stream view of the configuration of a stream, null if not collected yet */
+	private static StreamView streamViewOf(Stream stream) {
+		if (stream == null || stream.parentContent() == null)
+			return null;
+		IConfiguration config = stream.parentContent().config();
+		return (config instanceof Configuration) ? ((Configuration) config).streamView : null;
+	}
+
+	/** current streams and datasets, collected on first use */
+	private StreamView streamView() {
+		StreamView view = streamView;
+		if (view == null) {
+			view = new StreamView(contentIterator());
+			streamView = view;
+		}
+		return view;
+	}
+
+	/** sorted streams and datasets of all event contents */
+	private static class StreamView {
+		final SortedView<Stream> streams = new SortedView<Stream>();
+		final SortedView<PrimaryDataset> datasets = new SortedView<PrimaryDataset>();
+
+		StreamView(Iterator<EventContent> itC) {
+			while (itC.hasNext()) {
+				Iterator<Stream> itS = itC.next().streamIterator();
+				while (itS.hasNext()) {
+					Stream stream = itS.next();
+					streams.items.add(stream);
+					Iterator<PrimaryDataset> itD = stream.datasetIterator();
+					while (itD.hasNext())
+						datasets.items.add(itD.next());
+				}
+			}
+			streams.sort();
+			datasets.sort();
+		}
+	}
+
+	/**
+	 * items sorted by name, with the first item of each name and the index of
+	 * each item; the list is replaced, not modified, so iterators over it
+	 * remain valid
+	 */
+	private static class SortedView<T extends Comparable<T>> {
+		ArrayList<T> items = new ArrayList<T>();
+		final HashMap<String, T> byName = new HashMap<String, T>();
+		final IdentityHashMap<T, Integer> indices = new IdentityHashMap<T, Integer>();
+
+		/** sort and index the collected items */
+		void sort() {
+			Collections.sort(items);
+			for (int i = 0; i < items.size(); i++) {
+				T item = items.get(i);
+				if (!byName.containsKey(item.toString()))
+					byName.put(item.toString(), item);
+				if (!indices.containsKey(item))
+					indices.put(item, i);
+			}
+		}
+
+		/** insert an item after the items which sort before or equal to it */
+		void add(T item) {
+			if (indices.containsKey(item))
+				return;
+			int lo = 0;
+			int hi = items.size();
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (items.get(mid).compareTo(item) <= 0)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			ArrayList<T> changed = new ArrayList<T>(items);
+			changed.add(lo, item);
+			items = changed;
+			reindex(lo);
+			T first = byName.get(item.toString());
+			if (first == null || indices.get(first) > lo)
+				byName.put(item.toString(), item);
+		}
+
+		/** remove an item, which was listed as 'name' */
+		void remove(T item, String name) {
+			Integer index = indices.remove(item);
+			if (index == null)
+				return;
+			ArrayList<T> changed = new ArrayList<T>(items);
+			changed.remove((int) index);
+			items = changed;
+			reindex(index);
+			if (byName.get(name) == item) {
+				byName.remove(name);
+				if (index < items.size() && items.get(index).toString().equals(name))
+					byName.put(name, items.get(index));
+			}
+		}
+
+		/** an item was renamed from 'oldName' */
+		void renamed(T item, String oldName) {
+			if (!indices.containsKey(item))
+				return;
+			remove(item, oldName);
+			add(item);
+		}
+
+		/** update the indices of the items from 'first' on */
+		private void reindex(int first) {
+			for (int i = first; i < items.size(); i++)
+				indices.put(items.get(i), i);
 		}
-		Collections.sort(datasets);
-		return datasets.iterator();
 	}
 
 	//
@@ -0,0 +1,222 @@
+package confdb.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.zip.CRC32;
+
+/**
+ * ContentHash
+ * -----------
+ *
+ * Structural CRC32 fingerprints of instances, paths, sequences and whole
+ * configurations. Instances are hashed over their template, name and
+ * parameters (recursively), reference containers over their name and the
+ * fingerprints of their entries, the configuration over the fingerprints of
+ * its components: equal fingerprints identify (with CRC32 confidence) equal
+ * content, regardless of database ids. The fingerprint of a component which
+ * is in the database and unchanged is kept in its crcval, so only changed
+ * components are hashed again. 0 is never a fingerprint.
+ */
+public class ContentHash {
+	//
+	// member data
+	//
+
+	/** the running checksum */
+	private final CRC32 crc = new CRC32();
+
+	//
+	// construction
+	//
+
+	/** start a fingerprint of a component of the given kind */
+	private ContentHash(String kind) {
+		update(kind);
+	}
+
+	//
+	// static member functions
+	//
+
+	/** fingerprint of an instance (module, service, ...) */
+	public static int of(Instance instance) {
+		if (!instance.hasChanged() && instance.crcval() != 0)
+			return instance.crcval();
+		ContentHash hash = new ContentHash("Instance");
+		hash.update(instance.template().type()).update(instance.template().name()).update(instance.name());
+		hash.updateParameters(instance.parameterIterator());
+		int result = hash.value();
+		if (!instance.hasChanged())
+			instance.setCrcval(result);
+		return result;
+	}
+
+	/** fingerprint of an output module */
+	public static int of(OutputModule output) {
+		ContentHash hash = new ContentHash("OutputModule");
+		hash.update(output.name());
+		hash.updateParameters(output.parameterIterator());
+		return hash.value();
+	}
+
+	/** fingerprint of a template */
+	public static int of(Template template) {
+		ContentHash hash = new ContentHash("Template");
+		hash.update(template.type()).update(template.name()).update(template.cvsTag());
+		hash.updateParameters(template.parameterIterator());
+		return hash.value();
+	}
+
+	/** fingerprint of a parameter, recursively */
+	public static int of(Parameter parameter) {
+		ContentHash hash = new ContentHash("Parameter");
+		hash.updateParameter(parameter);
+		return hash.value();
+	}
+
+	/** fingerprint of a path or sequence, over the fingerprints of its entries */
+	public static int of(ReferenceContainer container) {
+		if (!container.hasChanged() && container.crcval() != 0)
+			return container.crcval();
+		ContentHash hash = new ContentHash((container instanceof Path) ? "Path" : "Sequence");
+		hash.update(container.name());
+		if (container instanceof Path)
+			hash.update(((Path) container).isSetAsEndPath() ? 1 : 0);
+		hash.update(container.entryCount());
+		Iterator<Reference> itR = container.entryIterator();
+		while (itR.hasNext()) {
+			Reference reference = itR.next();
+			hash.update(reference.getOperator().ordinal());
+			hash.update(ofReferencable(reference.parent()));
+		}
+		int result = hash.value();
+		if (!container.hasChanged())
+			container.setCrcval(result);
+		return result;
+	}
+
+	/** fingerprint of a whole configuration */
+	public static int of(IConfiguration config) {
+		ContentHash hash = new ContentHash("Configuration");
+		hash.update(config.releaseTag());
+
+		hash.update(config.psetCount());
+		Iterator<PSetParameter> itPSet = config.psetIterator();
+		while (itPSet.hasNext())
+			hash.updateParameter(itPSet.next());
+
+		hash.updateInstances(config.edsourceCount(), config.edsourceIterator());
+		hash.updateInstances(config.essourceCount(), config.essourceIterator());
+		hash.updateInstances(config.esmoduleCount(), config.esmoduleIterator());
+		hash.updateInstances(config.serviceCount(), config.serviceIterator());
+
+		// modules and output modules are covered by the paths they are on
+		hash.update(config.pathCount());
+		Iterator<Path> itP = config.pathIterator();
+		while (itP.hasNext())
+			hash.update(of(itP.next()));
+		hash.update(config.sequenceCount());
+		Iterator<Sequence> itS = config.sequenceIterator();
+		while (itS.hasNext())
+			hash.update(of(itS.next()));
+
+		hash.update(config.contentCount());
+		Iterator<EventContent> itC = config.contentIterator();
+		while (itC.hasNext()) {
+			EventContent content = itC.next();
+			hash.update(content.name());
+			hash.update(content.commandCount());
+			Iterator<OutputCommand> itOC = content.commandIterator();
+			while (itOC.hasNext())
+				hash.update(itOC.next().toString());
+			hash.update(content.streamCount());
+			Iterator<Stream> itStream = content.streamIterator();
+			while (itStream.hasNext()) {
+				Stream stream = itStream.next();
+				hash.update(stream.name());
+				hash.update(stream.datasetCount());
+				Iterator<PrimaryDataset> itD = stream.datasetIterator();
+				while (itD.hasNext()) {
+					PrimaryDataset dataset = itD.next();
+					hash.update(dataset.name());
+					hash.update(dataset.pathCount());
+					Iterator<Path> itDP = dataset.pathIterator();
+					while (itDP.hasNext())
+						hash.update(itDP.next().name());
+				}
+			}
+		}
+		return hash.value();
+	}
+
+	/** fingerprint of the component referenced by a path/sequence entry */
+	private static int ofReferencable(Referencable referencable) {
+		if (referencable instanceof ReferenceContainer)
+			return of((ReferenceContainer) referencable);
+		if (referencable instanceof OutputModule)
+			return of((OutputModule) referencable);
+		if (referencable instanceof Instance)
+			return of((Instance) referencable);
+		return new ContentHash("Referencable").update(referencable.name()).value();
+	}
+
+	//
+	// private member functions
+	//
+
+	/** add the fingerprints of a list of instances */
+	private void updateInstances(int count, Iterator<? extends Instance> itI) {
+		update(count);
+		while (itI.hasNext())
+			update(of(itI.next()));
+	}
+
+	/** add a list of parameters, recursively */
+	private void updateParameters(Iterator<Parameter> itP) {
+		while (itP.hasNext())
+			updateParameter(itP.next());
+	}
+
+	/** add a parameter, recursively */
+	private void updateParameter(Parameter p) {
+		update(p.name()).update(p.type()).update(p.isTracked() ? 1 : 0);
+		if (p instanceof VPSetParameter) {
+			VPSetParameter vpset = (VPSetParameter) p;
+			update(vpset.parameterSetCount());
+			for (int i = 0; i < vpset.parameterSetCount(); i++)
+				updateParameter(vpset.parameterSet(i));
+		} else if (p instanceof PSetParameter) {
+			PSetParameter pset = (PSetParameter) p;
+			update(pset.parameterCount());
+			updateParameters(pset.parameterIterator());
+		} else {
+			update(p.isValueSet() ? 1 : 0);
+			update(p.valueAsString());
+		}
+	}
+
+	/** add a string, prefixed by its length */
+	private ContentHash update(String s) {
+		if (s == null)
+			return update(-1);
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		update(bytes.length);
+		crc.update(bytes, 0, bytes.length);
+		return this;
+	}
+
+	/** add an int */
+	private ContentHash update(int i) {
+		crc.update(i >>> 24);
+		crc.update(i >>> 16);
+		crc.update(i >>> 8);
+		crc.update(i);
+		return this;
+	}
+
+	/** the fingerprint, never 0 */
+	private int value() {
+		int result = (int) crc.getValue();
+		return (result != 0) ? result : 1;
+	}
+}
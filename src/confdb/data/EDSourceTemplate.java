@@ -43,7 +43,7 @@ public class EDSourceTemplate extends Template
     {
 	if (instances.size()>0) return instances.get(0);
 	EDSourceInstance instance = new EDSourceInstance(name,this);
-	instances.add(instance);
+	addInstance(instance);
 	return instance;
     }
     
@@ -63,7 +63,7 @@ public class EDSourceTemplate extends Template
 	    String msg = "Failed to remove EDSource Instance '"+name+"'.";
 	    throw new DataException(msg);
 	}
-	instances.clear();
+	removeAllInstances();
     }
 
     /** remove an instance of this template */
@@ -41,32 +41,27 @@ public class ESSourceTemplate extends Template
     /** create or retrieve an instance of this template (name=template-name)*/
     public Instance instance() throws DataException
     {
-	for (Instance i : instances)
-	    if (i.name().equals(name)) return i;
+	Instance existing = findInstance(name);
+	if (existing!=null) return existing;
 	ESSourceInstance instance = new ESSourceInstance(name,this);
-	instances.add(instance);
+	addInstance(instance);
 	return instance;
     }
 
     /** create or retrieve an instance of this template */
     public Instance instance(String instanceName) throws DataException
     {
-	for (Instance i : instances)
-	    if (i.name().equals(instanceName)) return i;
+	Instance existing = findInstance(instanceName);
+	if (existing!=null) return existing;
 	ESSourceInstance instance = new ESSourceInstance(instanceName,this);
-	instances.add(instance);
+	addInstance(instance);
 	return instance;
     }
     
     /** remove an instance of this template (name=template-name) */
     public void removeInstance() throws DataException
     {
-	for (Instance i : instances) {
-	    if (i.name().equals(name)) {
-		instances.remove(instances.indexOf(i));
-		return;
-	    }
-	}
+	if (removeInstanceNamed(name)) return;
 	String msg = "Failed to remove ESSource Instance '"+name+"'.";
 	throw new DataException(msg);
     }
@@ -74,12 +69,7 @@ public class ESSourceTemplate extends Template
     /** remove an instance of this template */
     public void removeInstance(String instanceName) throws DataException
     {
-	for (Instance i : instances) {
-	    if (i.name().equals(instanceName)) {
-		instances.remove(instances.indexOf(i));
-		return;
-	    }
-	}
+	if (removeInstanceNamed(instanceName)) return;
 	String msg = "Failed to remove ESSource Instance '"+instanceName+"'.";
 	throw new DataException(msg);
     }
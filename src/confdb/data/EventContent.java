@@ -271,6 +271,7 @@ public class EventContent extends DatabaseEntry implements Comparable<EventConte
 	    if (itS.next().name().equals(streamName)) return null;
 	Stream stream = new Stream(streamName,this);
 	streams.add(stream);
+	Configuration.streamInserted(stream);
 	setHasChanged();
 	return stream;
     }
@@ -282,6 +283,7 @@ public class EventContent extends DatabaseEntry implements Comparable<EventConte
 	if (index<0) return false;
 	stream.removeOutputModuleReferences();
 	streams.remove(index);
+	Configuration.streamRemoved(stream);
 	setHasChanged();
 	return true;
     }
@@ -65,7 +65,15 @@ public class Instance extends ParameterContainer implements Comparable<Instance>
 	    ||(config!=null&&!config.isUniqueQualifier(name)))
 	    throw new DataException("Instance.setName() ERROR: " +
 				    "name '"+name+"' is not unique!");
+	String oldName = this.name;
 	this.name = name;
+	if (oldName!=null) {
+	    template().instanceRenamed(this,oldName);
+	    if (config instanceof Configuration)
+		((Configuration)config).renamed(this,oldName);
+	    if (this instanceof Referencable)
+		ReferenceContainer.parentRenamed((Referencable)this,oldName);
+	}
 	setHasChanged();
     }
     
@@ -81,10 +89,12 @@ public class Instance extends ParameterContainer implements Comparable<Instance>
     /** ParameterContainer: indicate wether parameter is at its default */
     public boolean isParameterAtItsDefault(Parameter p)
     {
-	Parameter templateParameter =
-	    template.findParameter(p.fullName(),p.type());
-	if (templateParameter==null) return false;
-	return p.valueAsString().equals(templateParameter.valueAsString());
+	if (p.type()==null) {
+	    Parameter templateParameter = template.findParameter(p.fullName());
+	    if (templateParameter==null) return false;
+	    return p.valueAsString().equals(templateParameter.valueAsString());
+	}
+	return template.isDefaultValue(p.fullName(),p.type(),p.valueAsString());
     }
     
     /** ParameterContainer: indicate wether a parameter can be removed */
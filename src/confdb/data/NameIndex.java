@@ -0,0 +1,207 @@
+package confdb.data;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * NameIndex
+ * ---------
+ *
+ * name -> component index over a list of named components (instances,
+ * paths, sequences, references), giving the same answer as a linear search
+ * for the first component of the list with that name. The owner of the list
+ * reports insertions, removals and renames of its components.
+ */
+abstract class NameIndex<T> implements Serializable {
+	//
+	// member data
+	//
+
+	private static final long serialVersionUID = 1L;
+
+	/** the indexed list */
+	private final List<T> list;
+
+	/** first component of the list for each name, null if not built */
+	private transient volatile HashMap<String, T> map = null;
+
+	/** does the list contain several components with the same name? */
+	private transient boolean hasDuplicates = false;
+
+	//
+	// construction
+	//
+
+	/** standard constructor */
+	NameIndex(List<T> list) {
+		this.list = list;
+	}
+
+	/** index of instances */
+	static <T extends Instance> NameIndex<T> ofInstances(List<T> list) {
+		return new InstanceIndex<T>(list);
+	}
+
+	/** index of paths, sequences, ... */
+	static <T extends Referencable> NameIndex<T> ofReferencables(List<T> list) {
+		return new ReferencableIndex<T>(list);
+	}
+
+	/** index of the entries of a path or sequence */
+	static NameIndex<Reference> ofReferences(List<Reference> list) {
+		return new ReferenceIndex(list);
+	}
+
+	//
+	// abstract member functions
+	//
+
+	/** name of a component */
+	abstract protected String nameOf(T component);
+
+	//
+	// member functions
+	//
+
+	/** first component with the given name, null if none */
+	T get(String name) {
+		HashMap<String, T> m = map;
+		if (m == null)
+			m = build();
+		return m.get(name);
+	}
+
+	/** check if a component with the given name exists */
+	boolean contains(String name) {
+		return get(name) != null;
+	}
+
+	/** check if a component other than 'component' has the given name */
+	boolean hasOther(String name, Object component) {
+		T first = get(name);
+		if (first == null)
+			return false;
+		if (first != component)
+			return true;
+		if (!hasDuplicates)
+			return false;
+		for (T other : list)
+			if (other != component && nameOf(other).equals(name))
+				return true;
+		return false;
+	}
+
+	/** a component was inserted into the list */
+	void added(T component) {
+		HashMap<String, T> m = map;
+		if (m == null)
+			return;
+		String name = nameOf(component);
+		if (m.containsKey(name))
+			invalidate();
+		else
+			m.put(name, component);
+	}
+
+	/** a component was removed from the list */
+	void removed(T component) {
+		HashMap<String, T> m = map;
+		if (m == null)
+			return;
+		if (hasDuplicates) {
+			invalidate();
+			return;
+		}
+		String name = nameOf(component);
+		if (m.get(name) == component)
+			m.remove(name);
+	}
+
+	/** a component of the list changed its name from 'oldName' */
+	void renamed(T component, String oldName) {
+		HashMap<String, T> m = map;
+		if (m == null)
+			return;
+		if (hasDuplicates) {
+			invalidate();
+			return;
+		}
+		if (m.get(oldName) != component)
+			return;
+		String name = nameOf(component);
+		if (m.containsKey(name)) {
+			invalidate();
+			return;
+		}
+		m.remove(oldName);
+		m.put(name, component);
+	}
+
+	/** the list was reordered */
+	void reordered() {
+		if (hasDuplicates)
+			invalidate();
+	}
+
+	/** the list was modified otherwise (cleared, ...) */
+	void invalidate() {
+		map = null;
+	}
+
+	/** build the map from the list */
+	private synchronized HashMap<String, T> build() {
+		HashMap<String, T> m = new HashMap<String, T>(2 * list.size() + 16);
+		boolean duplicates = false;
+		for (T component : list) {
+			String name = nameOf(component);
+			if (m.containsKey(name))
+				duplicates = true;
+			else
+				m.put(name, component);
+		}
+		hasDuplicates = duplicates;
+		map = m;
+		return m;
+	}
+
+	//
+	// implementations
+	//
+
+	private static class InstanceIndex<T extends Instance> extends NameIndex<T> {
+		private static final long serialVersionUID = 1L;
+
+		InstanceIndex(List<T> list) {
+			super(list);
+		}
+
+		protected String nameOf(T instance) {
+			return instance.name();
+		}
+	}
+
+	private static class ReferencableIndex<T extends Referencable> extends NameIndex<T> {
+		private static final long serialVersionUID = 1L;
+
+		ReferencableIndex(List<T> list) {
+			super(list);
+		}
+
+		protected String nameOf(T referencable) {
+			return referencable.name();
+		}
+	}
+
+	private static class ReferenceIndex extends NameIndex<Reference> {
+		private static final long serialVersionUID = 1L;
+
+		ReferenceIndex(List<Reference> list) {
+			super(list);
+		}
+
+		protected String nameOf(Reference reference) {
+			return reference.name();
+		}
+	}
+}
@@ -151,7 +151,9 @@ public class OutputModule extends ParameterContainer implements Referencable {
 
 	/** Referenable: setName() */
 	public void setName(String name) throws DataException {
+		String oldName = this.name;
 		this.name = name.replaceAll("\\W", "");
+		ReferenceContainer.parentRenamed(this, oldName);
 	}
 
 	/** Referencable: retrieve the parent configuration */
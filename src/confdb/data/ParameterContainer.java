@@ -1,7 +1,12 @@
 package confdb.data;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.Iterator;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * ParameterContainer
@@ -19,6 +24,12 @@ abstract public class ParameterContainer extends DatabaseEntry {
 	/** collection of parameters */
 	private ArrayList<Parameter> parameters = new ArrayList<Parameter>();
 
+	/** loads the parameters on their first access, null if loaded */
+	private transient volatile ParameterLoader parameterLoader = null;
+
+	/** parameters shared with another container, cloned on first modification */
+	private boolean parametersShared = false;
+
 	//
 	// abstract member functions
 	//
@@ -33,8 +44,77 @@ abstract public class ParameterContainer extends DatabaseEntry {
 	// non-abstract member functions
 	//
 
+	/** defer loading the parameters to their first access, null if loaded */
+	public void setParameterLoader(ParameterLoader parameterLoader) {
+		this.parameterLoader = parameterLoader;
+	}
+
+	/** indicate wether the parameters are still to be loaded */
+	public boolean isParameterLoadPending() {
+		return parameterLoader != null;
+	}
+
+	/** load the parameters now, if they were deferred */
+	public void loadParameters() {
+		ParameterLoader loader = parameterLoader;
+		if (loader != null)
+			loader.loadParameters(this);
+	}
+
+	/** load the deferred parameters of several containers at once */
+	public static void loadParameters(List<? extends ParameterContainer> containers) {
+		Map<ParameterLoader, List<ParameterContainer>> loaderToContainers = new IdentityHashMap<ParameterLoader, List<ParameterContainer>>();
+		for (ParameterContainer container : containers) {
+			ParameterLoader loader = container.parameterLoader;
+			if (loader == null)
+				continue;
+			List<ParameterContainer> pending = loaderToContainers.get(loader);
+			if (pending == null) {
+				pending = new ArrayList<ParameterContainer>();
+				loaderToContainers.put(loader, pending);
+			}
+			pending.add(container);
+		}
+		for (Map.Entry<ParameterLoader, List<ParameterContainer>> e : loaderToContainers.entrySet())
+			e.getKey().loadParameters(e.getValue());
+	}
+
+	/**
+	 * share the parameters of another container, which must not modify them,
+	 * until this container modifies them; the shared parameters keep their
+	 * parent
+	 */
+	void shareParameters(ParameterContainer other) {
+		other.loadParameters();
+		parameterLoader = null;
+		parameters = other.parameters;
+		parametersShared = true;
+	}
+
+	/**
+	 * replace shared parameters by clones before modifying them; return the
+	 * clone of 'p', or 'p' itself if the parameters were not shared
+	 */
+	private Parameter unshareParameters(Parameter p) {
+		if (!parametersShared)
+			return p;
+		ArrayList<Parameter> clones = new ArrayList<Parameter>(parameters.size());
+		Parameter result = p;
+		for (Parameter shared : parameters) {
+			Parameter clone = shared.clone(this);
+			if (shared == p)
+				result = clone;
+			clones.add(clone);
+		}
+		parameters = clones;
+		parametersShared = false;
+		return result;
+	}
+
 	/** add a parameter */
 	public void addParameter(Parameter parameter) {
+		loadParameters();
+		unshareParameters(null);
 		parameters.add(parameter);
 		parameter.setParent(this);
 		setHasChanged();
@@ -42,6 +122,8 @@ abstract public class ParameterContainer extends DatabaseEntry {
 
 	/** remove a given parameter */
 	public void removeParameter(Parameter parameter) {
+		loadParameters();
+		parameter = unshareParameters(parameter);
 		parameters.remove(parameter);
 		parameter.setParent(null);
 		setHasChanged();
@@ -49,39 +131,50 @@ abstract public class ParameterContainer extends DatabaseEntry {
 
 	/** remove all parameters */
 	public void clear() {
-		parameters.clear();
+		parameterLoader = null;
+		if (parametersShared) {
+			parameters = new ArrayList<Parameter>();
+			parametersShared = false;
+		} else
+			parameters.clear();
 		setHasChanged();
 	}
 
 	/** number of parameters */
 	public int parameterCount() {
+		loadParameters();
 		return parameters.size();
 	}
 
 	/** retrieve i-th parameter */
 	public Parameter parameter(int i) {
+		loadParameters();
 		return parameters.get(i);
 	}
 
 	/** retrieve index of a given parameter */
 	public int indexOfParameter(Parameter p) {
+		loadParameters();
 		return parameters.indexOf(p);
 	}
 
 	/** retrieve parameter iterator */
 	public Iterator<Parameter> parameterIterator() {
+		loadParameters();
 		return parameters.iterator();
 	}
 
 	/** check wether this container contains a given parameter */
 	public boolean containsParameter(Parameter p) {
+		loadParameters();
 		return parameters.contains(p);
 	}
 
 	/** remove untracked parameter */
 	public boolean removeUntrackedParameter(Parameter p) {
 		if (isParameterRemovable(p)) {
-			parameters.remove(p);
+			loadParameters();
+			parameters.remove(unshareParameters(p));
 			setHasChanged();
 			return true;
 		}
@@ -240,6 +333,8 @@ abstract public class ParameterContainer extends DatabaseEntry {
 
 	/** update a parameter when the value is changed */
 	public boolean updateParameter(int index, String valueAsString) {
+		loadParameters();
+		unshareParameters(null);
 		Parameter p = parameter(index);
 		String oldValueAsString = p.valueAsString();
 		if (valueAsString.equals(oldValueAsString))
@@ -252,6 +347,8 @@ abstract public class ParameterContainer extends DatabaseEntry {
 
 	/** update a parameter when the value is changed */
 	public boolean updateParameter(String name, String type, String valueAsString) {
+		loadParameters();
+		unshareParameters(null);
 		Parameter p = findParameter(name, type);
 		// handle existing parameter, top-level or not
 		if (p != null) {
@@ -316,4 +413,10 @@ abstract public class ParameterContainer extends DatabaseEntry {
 		}
 		return result;
 	}
+
+	/** serialize with all parameters loaded */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		loadParameters();
+		out.defaultWriteObject();
+	}
 }
@@ -0,0 +1,20 @@
+package confdb.data;
+
+import java.util.List;
+
+/**
+ * ParameterLoader
+ * ---------------
+ *
+ * Loads the parameters of containers (instances, output modules) whose
+ * parameters were deferred to their first access, see
+ * ParameterContainer.setParameterLoader(). A loader sets the parameters
+ * of each container it loads and removes itself from it.
+ */
+public interface ParameterLoader {
+	/** load the parameters of a container */
+	public void loadParameters(ParameterContainer container);
+
+	/** load the parameters of several containers at once */
+	public void loadParameters(List<ParameterContainer> containers);
+}
@@ -124,7 +124,7 @@ public class Path extends ReferenceContainer {
 	/** insert a path entry */
 	public void insertEntry(int i, Reference reference) {
 		if (!entries.contains(reference)) {
-			entries.add(i, reference);
+			addEntry(i, reference);
 			setHasChanged();
 		} else
 			System.err.println("Path.insertEntry FAILED.");
@@ -36,6 +36,16 @@ public class PrescaleTable
 	initialize(config);
     }
     
+    /** copy constructor */
+    public PrescaleTable(PrescaleTable other)
+    {
+	defaultName = other.defaultName;
+	columnNames.addAll(other.columnNames);
+	for (PrescaleTableRow row : other.rows)
+	    rows.add(new PrescaleTableRow(row.pathName,
+					  new ArrayList<Long>(row.prescales)));
+    }
+    
     /** NULL CONSTRUCTOR. To allow different construction in subclass. */
     protected PrescaleTable() {} 
     
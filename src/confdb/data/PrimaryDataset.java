@@ -68,7 +68,9 @@ public class PrimaryDataset extends DatabaseEntry
 
     /** set name of this stream */
     public void setName(String name) {
+	String oldName = this.name;
 	this.name = name.replaceAll("\\W", "");
+	Configuration.datasetRenamed(this,oldName);
 	setHasChanged();
 	for (Path p : paths) {
 	    p.setHasChanged();
@@ -22,6 +22,9 @@ abstract public class ReferenceContainer extends DatabaseEntry implements Compar
 	/** list of contained references */
 	protected ArrayList<Reference> entries = new ArrayList<Reference>();
 
+	/** name index of the contained references */
+	private NameIndex<Reference> entryIndex = NameIndex.ofReferences(entries);
+
 	/** references of this path within other paths */
 	protected ArrayList<Reference> references = new ArrayList<Reference>();
 
@@ -88,7 +91,11 @@ abstract public class ReferenceContainer extends DatabaseEntry implements Compar
 		name = name.replaceAll("\\W", "");
 		if (config != null && !config.isUniqueQualifier(name))
 			throw new DataException("ReferenceContainer.setName ERROR: '" + name + "' is not a unique qualifier.");
+		String oldName = this.name;
 		this.name = name;
+		if (config instanceof Configuration)
+			((Configuration) config).renamed(this, oldName);
+		parentRenamed(this, oldName);
 		setHasChanged();
 	}
 
@@ -176,10 +183,21 @@ abstract public class ReferenceContainer extends DatabaseEntry implements Compar
 
 	/** retrieve reference by name */
 	public Reference entry(String name) {
-		for (Reference e : entries)
-			if (e.name().equals(name))
-				return e;
-		return null;
+		return entryIndex.get(name);
+	}
+
+	/** update the entry indexes of the containers referencing a renamed component */
+	static void parentRenamed(Referencable parent, String oldName) {
+		for (int i = 0; i < parent.referenceCount(); i++) {
+			Reference reference = parent.reference(i);
+			reference.container().entryIndex.renamed(reference, oldName);
+		}
+	}
+
+	/** add a reference to the container at i-th position */
+	protected void addEntry(int i, Reference reference) {
+		entries.add(i, reference);
+		entryIndex.added(reference);
 	}
 
 	/** index of a certain entry */
@@ -192,6 +210,7 @@ abstract public class ReferenceContainer extends DatabaseEntry implements Compar
 		int index = entries.indexOf(reference);
 		if (index >= 0) {
 			entries.remove(index);
+			entryIndex.removed(reference);
 			setHasChanged();
 		} else {
 			System.err.println("ReferenceContainer.removeEntry FAILED.");
@@ -211,6 +230,7 @@ abstract public class ReferenceContainer extends DatabaseEntry implements Compar
 			targetIndex--;
 		entries.remove(currentIndex);
 		entries.add(targetIndex, reference);
+		entryIndex.reordered();
 		setHasChanged();
 		return true;
 	}
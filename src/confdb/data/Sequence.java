@@ -29,7 +29,7 @@ public class Sequence extends ReferenceContainer {
 		if (reference instanceof ModuleReference || reference instanceof SequenceReference
 				|| reference instanceof OutputModuleReference) {
 			if (!entries.contains(reference)) {
-				entries.add(i, reference);
+				addEntry(i, reference);
 				setHasChanged();
 				return;
 			}
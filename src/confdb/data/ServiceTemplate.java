@@ -42,7 +42,7 @@ public class ServiceTemplate extends Template
     {
 	if (instances.size()>0) return instances.get(0);
 	ServiceInstance instance = new ServiceInstance(name,this);
-	instances.add(instance);
+	addInstance(instance);
 	return instance;
     }
 
@@ -62,7 +62,7 @@ public class ServiceTemplate extends Template
 	    String msg = "Failed to remove Service instance '"+name+"'.";
 	    throw new DataException(msg);
 	}
-	instances.clear();
+	removeAllInstances();
     }
 
     /** remove an instance of this template */
@@ -110,78 +110,8 @@ public class SoftwareRelease implements Serializable {
 
 	/** construct release from another release */
 	public SoftwareRelease(SoftwareRelease otherRelease) {
-		this.releaseTag = otherRelease.releaseTag();
-
-		subsystems = new ArrayList<SoftwareSubsystem>();
-
-		templates = new ArrayList<Template>();
-		edsourceTemplates = new ArrayList<EDSourceTemplate>();
-		essourceTemplates = new ArrayList<ESSourceTemplate>();
-		esmoduleTemplates = new ArrayList<ESModuleTemplate>();
-		serviceTemplates = new ArrayList<ServiceTemplate>();
-		moduleTemplates = new ArrayList<ModuleTemplate>();
-
-		templatesByName = new HashMap<String, Template>();
-		edsourceTemplatesByName = new HashMap<String, EDSourceTemplate>();
-		essourceTemplatesByName = new HashMap<String, ESSourceTemplate>();
-		esmoduleTemplatesByName = new HashMap<String, ESModuleTemplate>();
-		serviceTemplatesByName = new HashMap<String, ServiceTemplate>();
-		moduleTemplatesByName = new HashMap<String, ModuleTemplate>();
-
-		edsourceTemplateNamesByDbId = new HashMap<Integer, String>();
-		essourceTemplateNamesByDbId = new HashMap<Integer, String>();
-		esmoduleTemplateNamesByDbId = new HashMap<Integer, String>();
-		serviceTemplateNamesByDbId = new HashMap<Integer, String>();
-		moduleTemplateNamesByDbId = new HashMap<Integer, String>();
-
-		Iterator<SoftwareSubsystem> subsysIt = otherRelease.subsystemIterator();
-		while (subsysIt.hasNext()) {
-			SoftwareSubsystem otherSubsys = subsysIt.next();
-			SoftwareSubsystem subsys = new SoftwareSubsystem(otherSubsys.name());
-			Iterator<SoftwarePackage> pkgIt = otherSubsys.packageIterator();
-			while (pkgIt.hasNext()) {
-				SoftwarePackage otherPkg = pkgIt.next();
-				SoftwarePackage pkg = new SoftwarePackage(otherPkg.name());
-				subsys.addPackage(pkg);
-				Iterator<Template> templateIt = otherPkg.templateIterator();
-				while (templateIt.hasNext()) {
-					Template template = templateIt.next();
-					ArrayList<Parameter> parameters = new ArrayList<Parameter>();
-					Iterator<Parameter> parameterIt = template.parameterIterator();
-					while (parameterIt.hasNext()) {
-						Parameter p = parameterIt.next();
-						parameters.add(p.clone(null));
-					}
-					if (template instanceof EDSourceTemplate) {
-						EDSourceTemplate newTemplate = new EDSourceTemplate(template.name(), template.cvsTag(),
-								parameters);
-						newTemplate.setDatabaseId(template.databaseId());
-						pkg.addTemplate(newTemplate);
-					} else if (template instanceof ESSourceTemplate) {
-						ESSourceTemplate newTemplate = new ESSourceTemplate(template.name(), template.cvsTag(),
-								parameters);
-						newTemplate.setDatabaseId(template.databaseId());
-						pkg.addTemplate(newTemplate);
-					} else if (template instanceof ESModuleTemplate) {
-						ESModuleTemplate newTemplate = new ESModuleTemplate(template.name(), template.cvsTag(),
-								parameters);
-						newTemplate.setDatabaseId(template.databaseId());
-						pkg.addTemplate(newTemplate);
-					} else if (template instanceof ServiceTemplate) {
-						ServiceTemplate newTemplate = new ServiceTemplate(template.name(), template.cvsTag(),
-								parameters);
-						newTemplate.setDatabaseId(template.databaseId());
-						pkg.addTemplate(newTemplate);
-					} else if (template instanceof ModuleTemplate) {
-						ModuleTemplate newTemplate = new ModuleTemplate(template.name(), template.cvsTag(), parameters,
-								template.type());
-						newTemplate.setDatabaseId(template.databaseId());
-						pkg.addTemplate(newTemplate);
-					}
-				}
-			}
-			addSubsystem(subsys);
-		}
+		this();
+		copy(otherRelease);
 	}
 
 	//
@@ -289,6 +219,69 @@ public class SoftwareRelease implements Serializable {
 		moduleTemplateNamesByDbId.clear();
 	}
 
+	/** replace all templates by copies of the templates of another release */
+	public void copy(SoftwareRelease otherRelease) {
+		copy(otherRelease, false);
+	}
+
+	/**
+	 * replace all templates by copies of the templates of another release,
+	 * sharing their parameters until they are modified: 'otherRelease' must
+	 * not modify them
+	 */
+	public void share(SoftwareRelease otherRelease) {
+		copy(otherRelease, true);
+	}
+
+	/** replace all templates by copies, sharing their parameters or not */
+	private void copy(SoftwareRelease otherRelease, boolean shareParameters) {
+		clear(otherRelease.releaseTag());
+
+		Iterator<SoftwareSubsystem> subsysIt = otherRelease.subsystemIterator();
+		while (subsysIt.hasNext()) {
+			SoftwareSubsystem otherSubsys = subsysIt.next();
+			SoftwareSubsystem subsys = new SoftwareSubsystem(otherSubsys.name());
+			Iterator<SoftwarePackage> pkgIt = otherSubsys.packageIterator();
+			while (pkgIt.hasNext()) {
+				SoftwarePackage otherPkg = pkgIt.next();
+				SoftwarePackage pkg = new SoftwarePackage(otherPkg.name());
+				subsys.addPackage(pkg);
+				Iterator<Template> templateIt = otherPkg.templateIterator();
+				while (templateIt.hasNext()) {
+					Template template = templateIt.next();
+					ArrayList<Parameter> parameters = null;
+					if (!shareParameters) {
+						parameters = new ArrayList<Parameter>();
+						Iterator<Parameter> parameterIt = template.parameterIterator();
+						while (parameterIt.hasNext()) {
+							Parameter p = parameterIt.next();
+							parameters.add(p.clone(null));
+						}
+					}
+					Template newTemplate = null;
+					if (template instanceof EDSourceTemplate)
+						newTemplate = new EDSourceTemplate(template.name(), template.cvsTag(), parameters);
+					else if (template instanceof ESSourceTemplate)
+						newTemplate = new ESSourceTemplate(template.name(), template.cvsTag(), parameters);
+					else if (template instanceof ESModuleTemplate)
+						newTemplate = new ESModuleTemplate(template.name(), template.cvsTag(), parameters);
+					else if (template instanceof ServiceTemplate)
+						newTemplate = new ServiceTemplate(template.name(), template.cvsTag(), parameters);
+					else if (template instanceof ModuleTemplate)
+						newTemplate = new ModuleTemplate(template.name(), template.cvsTag(), parameters,
+								template.type());
+					if (newTemplate == null)
+						continue;
+					if (shareParameters)
+						newTemplate.shareParameters(template);
+					newTemplate.setDatabaseId(template.databaseId());
+					pkg.addTemplate(newTemplate);
+				}
+			}
+			addSubsystem(subsys);
+		}
+	}
+
 	/** clear the instances which might be instantiated */
 	public int clearInstances() {
 		int result = 0;
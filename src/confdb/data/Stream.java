@@ -64,7 +64,9 @@ public class Stream extends DatabaseEntry implements Comparable<Stream>
     
     /** set name of this stream */
     public void setName(String name) { 
+	String oldName = this.name;
 	this.name = name.replaceAll("\\W", "");
+	Configuration.streamRenamed(this,oldName);
         setHasChanged();
 	try {
 	    this.outputModule.setName("hltOutput"+name);
@@ -313,6 +315,7 @@ public class Stream extends DatabaseEntry implements Comparable<Stream>
         PrimaryDataset result = new PrimaryDataset(datasetName, this);
         datasets.add(result);
 	Collections.sort(datasets);
+	Configuration.datasetInserted(result);
         setHasChanged();
         return result;
     }
@@ -323,6 +326,7 @@ public class Stream extends DatabaseEntry implements Comparable<Stream>
 	int index = datasets.indexOf(dataset);
 	if (index<0) return false;
 	datasets.remove(index);
+	Configuration.datasetRemoved(dataset);
 	setHasChanged();
 	return true;
 
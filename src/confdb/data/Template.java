@@ -1,6 +1,7 @@
 package confdb.data;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Collections;
 
@@ -30,6 +31,13 @@ abstract public class Template extends    ParameterContainer
     /** list of instances of this template */
     protected ArrayList<Instance> instances = new ArrayList<Instance>();
     
+    /** name index of the instances */
+    private NameIndex<Instance> instanceIndex = NameIndex.ofInstances(instances);
+    
+    /** 'fullName type' -> first parameter (recursively), on demand; the
+     *  values are read from the parameters, which may be updated in place */
+    private transient volatile HashMap<String,Parameter> defaultParameters = null;
+    
 
     //
     // construction
@@ -80,6 +88,68 @@ abstract public class Template extends    ParameterContainer
     /** ParameterContainer: indicate wether a parameter is removable */
     public boolean isParameterRemovable(Parameter p) { return false; }
 
+    /** ParameterContainer: add a parameter */
+    public void addParameter(Parameter parameter)
+    {
+	super.addParameter(parameter);
+	defaultParameters = null;
+    }
+
+    /** ParameterContainer: remove a given parameter */
+    public void removeParameter(Parameter parameter)
+    {
+	super.removeParameter(parameter);
+	defaultParameters = null;
+    }
+
+    /** ParameterContainer: remove all parameters */
+    public void clear()
+    {
+	super.clear();
+	defaultParameters = null;
+    }
+
+    /** ParameterContainer: update a parameter (or add an untracked one) */
+    public boolean updateParameter(int index,String valueAsString)
+    {
+	boolean result = super.updateParameter(index,valueAsString);
+	defaultParameters = null;
+	return result;
+    }
+
+    /** ParameterContainer: update a parameter (or add an untracked one) */
+    public boolean updateParameter(String name,String type,String valueAsString)
+    {
+	boolean result = super.updateParameter(name,type,valueAsString);
+	defaultParameters = null;
+	return result;
+    }
+
+    /** check if the template parameter 'fullName' of 'type' has 'value' */
+    public boolean isDefaultValue(String fullName,String type,String value)
+    {
+	HashMap<String,Parameter> params = defaultParameters;
+	if (params==null) params = buildDefaultParameters();
+	Parameter p = params.get(fullName+" "+type);
+	String defaultValue = (p!=null) ? p.valueAsString() : null;
+	return defaultValue!=null && defaultValue.equals(value);
+    }
+    
+    /** index all parameters by full name and type, the first of each */
+    private synchronized HashMap<String,Parameter> buildDefaultParameters()
+    {
+	if (defaultParameters!=null) return defaultParameters;
+	HashMap<String,Parameter> params = new HashMap<String,Parameter>();
+	Iterator<Parameter> itP = recursiveParameterIterator();
+	while (itP.hasNext()) {
+	    Parameter p = itP.next();
+	    String key = p.fullName()+" "+p.type();
+	    if (!params.containsKey(key)) params.put(key,p);
+	}
+	defaultParameters = params;
+	return params;
+    }
+
     /** Comparable: compareTo */
     public int compareTo(Template t) { return name().compareTo(t.name()); }
     
@@ -111,14 +181,43 @@ abstract public class Template extends    ParameterContainer
     public Iterator<Instance> instanceIterator()
     {
 	Collections.sort(instances);
+	instanceIndex.reordered();
 	return instances.iterator();
     }
     
     /** check if instance with name 'instanceName' exists */
     public boolean hasInstance(String instanceName)
     {
-	for (Instance i : instances) if (i.name().equals(instanceName)) return true;
-	return false;
+	return instanceIndex.contains(instanceName);
+    }
+    
+    /** retrieve the instance with name 'instanceName', null if none */
+    protected Instance findInstance(String instanceName)
+    {
+	return instanceIndex.get(instanceName);
+    }
+    
+    /** add an instance of this template */
+    protected void addInstance(Instance instance)
+    {
+	instances.add(instance);
+	instanceIndex.added(instance);
+    }
+    
+    /** an instance of this template changed its name from 'oldName' */
+    void instanceRenamed(Instance instance,String oldName)
+    {
+	instanceIndex.renamed(instance,oldName);
+    }
+    
+    /** remove the instance with name 'instanceName', false if none */
+    protected boolean removeInstanceNamed(String instanceName)
+    {
+	Instance instance = instanceIndex.get(instanceName);
+	if (instance==null) return false;
+	instances.remove(instances.indexOf(instance));
+	instanceIndex.removed(instance);
+	return true;
     }
     
     /** remove all instances of this template */
@@ -126,6 +225,7 @@ abstract public class Template extends    ParameterContainer
     {
 	int result = instances.size();
 	instances.clear();
+	instanceIndex.invalidate();
 	return result;
     }
 
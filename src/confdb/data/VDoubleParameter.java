@@ -1,6 +1,7 @@
 package confdb.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
@@ -19,8 +20,11 @@ public class VDoubleParameter extends VectorParameter
     /** parameter type string */
     private static final String type = "vdouble";
     
-    /** parameter values */
-    private ArrayList<Double> values = new ArrayList<Double>();
+    /** parameter values, the first 'size' are set */
+    private double[] values = new double[0];
+
+    /** number of values */
+    private int size = 0;
 
     
     //
@@ -32,7 +36,8 @@ public class VDoubleParameter extends VectorParameter
 			    boolean isTracked)
     {
 	super(name,isTracked);
-	for (Double d : values) this.values.add(new Double(d));
+	ensureCapacity(values.size());
+	for (Double d : values) add(d);
     }
     
     /** constructor from a string */
@@ -50,7 +55,9 @@ public class VDoubleParameter extends VectorParameter
     /** make a clone of the parameter */
     public Parameter clone(Object parent)
     {
-	VDoubleParameter result = new VDoubleParameter(name,values,isTracked);
+	VDoubleParameter result = new VDoubleParameter(name,"",isTracked);
+	result.values = Arrays.copyOf(values,size);
+	result.size   = size;
 	result.setParent(parent);
 	return result;
     }
@@ -61,26 +68,29 @@ public class VDoubleParameter extends VectorParameter
     /** retrieve the values of the parameter as a string */
     public String valueAsString()
     {
-	String result = new String();
-	for (Double v : values) result += v.toString() + ", ";
-	if (values.size()>0) result = result.substring(0,result.length()-2);
-	return result;
+	StringBuilder result = new StringBuilder();
+	for (int i=0;i<size;i++) {
+	    if (i>0) result.append(", ");
+	    result.append(values[i]);
+	}
+	return result.toString();
     }
     
     /** set the parameter values from string */
     public boolean setValue(String valueAsString)
     {
-	values.clear();
+	size = 0;
 	if (valueAsString==null||valueAsString.length()==0) {
 	    return true;
 	} else {
 	    try {
 		String[] strValues = valueAsString.split(",");
+		ensureCapacity(strValues.length);
 		for (int i=0;i<strValues.length;i++) {
 		    String s = strValues[i];
 		    while (s.startsWith(" ")) s = s.substring(1,s.length());
 		    while (s.endsWith(" ")) s = s.substring(0,s.length()-1);
-		    values.add(new Double(s));
+		    add(Double.parseDouble(s));
 		}
 	    }
 	    catch (NumberFormatException e) {
@@ -92,16 +102,18 @@ public class VDoubleParameter extends VectorParameter
     }
     
     /** number of vector entries  */
-    public int vectorSize() { return values.size(); }
+    public int vectorSize() { return size; }
 
     /** i-th value of a vector type parameter */
-    public Object value(int i) { return values.get(i); }
+    public Object value(int i) { checkIndex(i); return Double.valueOf(values[i]); }
 
     /** set i-th value of a vector-type parameter */
     public boolean setValue(int i,String valueAsString)
     {
 	try {
-	    values.set(i,new Double(valueAsString));
+	    double value = Double.parseDouble(valueAsString);
+	    checkIndex(i);
+	    values[i] = value;
 	}
 	catch (NumberFormatException e) {
 	    System.err.println(e.getMessage());
@@ -113,7 +125,28 @@ public class VDoubleParameter extends VectorParameter
     /** remove i-th value from vector type parameter */
     public Object removeValue(int i)
     {
-    	Object result = values.remove(i);
+	Object result = value(i);
+	System.arraycopy(values,i+1,values,i,size-i-1);
+	size--;
 	return result;
     }
+
+
+    //
+    // private member functions
+    //
+    
+    /** make room for at least 'capacity' values */
+    private void ensureCapacity(int capacity)
+    {
+	if (capacity<=values.length) return;
+	values = Arrays.copyOf(values,grownCapacity(values.length,capacity));
+    }
+    
+    /** append a value */
+    private void add(double value)
+    {
+	ensureCapacity(size+1);
+	values[size++] = value;
+    }
 }
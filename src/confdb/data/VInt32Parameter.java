@@ -1,6 +1,7 @@
 package confdb.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
@@ -19,11 +20,14 @@ public class VInt32Parameter extends VectorParameter
     /** parameter type string */
     private static final String type = "vint32";
     
-    /** parameter values */
-    private ArrayList<Integer> values = new ArrayList<Integer>();
+    /** parameter values, the first 'size' are set */
+    private int[] values = new int[0];
 
     /** inidcate if values are in hex format */
-    private ArrayList<Boolean> isHex  = new ArrayList<Boolean>();
+    private boolean[] isHex = new boolean[0];
+    
+    /** number of values */
+    private int size = 0;
     
     
     //
@@ -35,10 +39,8 @@ public class VInt32Parameter extends VectorParameter
 			   boolean isTracked)
     {
 	super(name,isTracked);
-	for (Integer i : values) {
-	    this.values.add(new Integer(i));
-	    this.isHex.add(new Boolean(false));
-	}
+	ensureCapacity(values.size());
+	for (Integer i : values) add(i,false);
     }
     
     /** constructor from a string */
@@ -55,7 +57,10 @@ public class VInt32Parameter extends VectorParameter
     /** make a clone of the parameter */
     public Parameter clone(Object parent)
     {
-	VInt32Parameter result = new VInt32Parameter(name,values,isTracked);
+	VInt32Parameter result = new VInt32Parameter(name,"",isTracked);
+	result.values = Arrays.copyOf(values,size);
+	result.isHex  = Arrays.copyOf(isHex,size);
+	result.size   = size;
 	result.setParent(parent);
 	return result;
     }
@@ -64,33 +69,31 @@ public class VInt32Parameter extends VectorParameter
     public String type() { return type; }
 
     /** hex format? */
-    public boolean isHex(int i) { return isHex.get(i); }
+    public boolean isHex(int i) { checkIndex(i); return isHex[i]; }
     
     /** retrieve the values of the parameter as a string */
     public String valueAsString()
     {
-	String result = new String();
-	for (int i=0;i<values.size();i++) {
-	    result += (isHex.get(i)) ?
-		"0x"+Integer.toHexString(values.get(i)) :
-		values.get(i).toString();
-	    result += ", ";
+	StringBuilder result = new StringBuilder();
+	for (int i=0;i<size;i++) {
+	    if (i>0) result.append(", ");
+	    if (isHex[i]) result.append("0x").append(Integer.toHexString(values[i]));
+	    else          result.append(values[i]);
 	}
-	if (values.size()>0) result = result.substring(0,result.length()-2);
-	return result;
+	return result.toString();
     }
 
     /** set the parameter values from string */
     public boolean setValue(String valueAsString)
     {
-	values.clear();
-	isHex.clear();
+	size = 0;
 	if (valueAsString==null||valueAsString.length()==0) {
 	    return true;
 	}
 	else {
 	    try {
 		String[] strValues = valueAsString.split(",");
+		ensureCapacity(strValues.length);
 		for (int i=0;i<strValues.length;i++) {
 		    String s = strValues[i];
 		    while (s.startsWith(" ")) s = s.substring(1,s.length());
@@ -98,12 +101,10 @@ public class VInt32Parameter extends VectorParameter
 		    if (s.startsWith("+")) s = s.substring(1);
 		    if (s.startsWith("0x")) {
 			s = s.substring(2);
-			this.values.add(new Integer(Integer.parseInt(s,16)));
-			this.isHex.add(new Boolean(true));
+			add(Integer.parseInt(s,16),true);
 		    }
 		    else {
-			this.values.add(new Integer(s));
-			this.isHex.add(new Boolean(false));
+			add(Integer.parseInt(s),false);
 		    }
 		}
 	    }
@@ -118,10 +119,10 @@ public class VInt32Parameter extends VectorParameter
     }
 
     /** number of values, *if* a vector type (throw exception otherwise!) */
-    public int vectorSize() { return values.size(); }
+    public int vectorSize() { return size; }
 
     /** i-th value of a vector type parameter */
-    public Object value(int i) { return values.get(i); }
+    public Object value(int i) { checkIndex(i); return Integer.valueOf(values[i]); }
 
     /** set i-th value of a vector-type parameter */
     public boolean setValue(int i,String valueAsString)
@@ -129,15 +130,12 @@ public class VInt32Parameter extends VectorParameter
 	try {
 	    String s = valueAsString;
 	    if (s.startsWith("+")) s = s.substring(1);
-	    if (s.startsWith("0x")) {
-		s = s.substring(2);
-		values.set(i,new Integer(Integer.parseInt(s,16)));
-		isHex.set(i,new Boolean(true));
-	    }
-	    else {
-		values.set(i,new Integer(s));
-		isHex.set(i,new Boolean(false));
-	    }
+	    boolean hex = s.startsWith("0x");
+	    int value = (hex) ?
+		Integer.parseInt(s.substring(2),16) : Integer.parseInt(s);
+	    checkIndex(i);
+	    values[i] = value;
+	    isHex[i]  = hex;
 	}
 	catch (NumberFormatException e) {
 	    System.err.println(e.getMessage());
@@ -149,8 +147,34 @@ public class VInt32Parameter extends VectorParameter
     /** remove i-th value from vector type parameter */
     public Object removeValue(int i)
     {
-	Object result = values.remove(i);
+	Object result = value(i);
+	System.arraycopy(values,i+1,values,i,size-i-1);
+	System.arraycopy(isHex,i+1,isHex,i,size-i-1);
+	size--;
 	return result;
     }
     
+
+    //
+    // private member functions
+    //
+    
+    /** make room for at least 'capacity' values */
+    private void ensureCapacity(int capacity)
+    {
+	if (capacity<=values.length) return;
+	int newCapacity = grownCapacity(values.length,capacity);
+	values = Arrays.copyOf(values,newCapacity);
+	isHex  = Arrays.copyOf(isHex,newCapacity);
+    }
+    
+    /** append a value */
+    private void add(int value,boolean hex)
+    {
+	ensureCapacity(size+1);
+	values[size] = value;
+	isHex[size]  = hex;
+	size++;
+    }
+    
 }
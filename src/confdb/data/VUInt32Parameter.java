@@ -1,6 +1,7 @@
 package confdb.data;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
@@ -18,12 +19,15 @@ public class VUInt32Parameter extends VectorParameter
 
     /** parameter type string */
     private static final String type = "vuint32";
-
-    /** parameter values */
-    private ArrayList<Long> values = new ArrayList<Long>();
     
+    /** parameter values, the first 'size' are set */
+    private long[] values = new long[0];
+
     /** inidcate if values are in hex format */
-    private ArrayList<Boolean> isHex  = new ArrayList<Boolean>();
+    private boolean[] isHex = new boolean[0];
+    
+    /** number of values */
+    private int size = 0;
     
     
     //
@@ -35,10 +39,8 @@ public class VUInt32Parameter extends VectorParameter
 			    boolean isTracked)
     {
 	super(name,isTracked);
-	for (Long i : values) {
-	    this.values.add(new Long(i));
-	    this.isHex.add(new Boolean(false));
-	}
+	ensureCapacity(values.size());
+	for (Long i : values) add(i,false);
     }
     
     /** constructor from a string */
@@ -48,7 +50,6 @@ public class VUInt32Parameter extends VectorParameter
 	setValue(valuesAsString);
     }
 
-    
     //
     // member functions
     //
@@ -56,42 +57,43 @@ public class VUInt32Parameter extends VectorParameter
     /** make a clone of the parameter */
     public Parameter clone(Object parent)
     {
-	VUInt32Parameter result = new VUInt32Parameter(name,values,isTracked);
+	VUInt32Parameter result = new VUInt32Parameter(name,"",isTracked);
+	result.values = Arrays.copyOf(values,size);
+	result.isHex  = Arrays.copyOf(isHex,size);
+	result.size   = size;
 	result.setParent(parent);
 	return result;
     }
     
     /** type of the parameter as a string */
     public String type() { return type; }
-    
+
     /** hex format? */
-    public boolean isHex(int i) { return isHex.get(i); }
+    public boolean isHex(int i) { checkIndex(i); return isHex[i]; }
     
     /** retrieve the values of the parameter as a string */
     public String valueAsString()
     {
-	String result = new String();
-	for (int i=0;i<values.size();i++) {
-	    result += (isHex.get(i)) ?
-		"0x"+Long.toHexString(values.get(i)) :
-		values.get(i).toString();
-	    result += ", ";
+	StringBuilder result = new StringBuilder();
+	for (int i=0;i<size;i++) {
+	    if (i>0) result.append(", ");
+	    if (isHex[i]) result.append("0x").append(Long.toHexString(values[i]));
+	    else          result.append(values[i]);
 	}
-	if (values.size()>0) result = result.substring(0,result.length()-2);
-	return result;
+	return result.toString();
     }
 
     /** set the parameter values from string */
     public boolean setValue(String valueAsString)
     {
-	values.clear();
-	isHex.clear();
+	size = 0;
 	if (valueAsString==null||valueAsString.length()==0) {
 	    return true;
 	}
 	else {
 	    try {
 		String[] strValues = valueAsString.split(",");
+		ensureCapacity(strValues.length);
 		for (int i=0;i<strValues.length;i++) {
 		    String s = strValues[i];
 		    while (s.startsWith(" ")) s = s.substring(1,s.length());
@@ -100,12 +102,10 @@ public class VUInt32Parameter extends VectorParameter
 		    if (s.startsWith("-")) s = s.substring(1);
 		    if (s.startsWith("0x")) {
 			s = s.substring(2);
-			this.values.add(new Long(Long.parseLong(s,16)));
-			this.isHex.add(new Boolean(true));
+			add(Long.parseLong(s,16),true);
 		    }
 		    else {
-			this.values.add(new Long(s));
-			this.isHex.add(new Boolean(false));
+			add(Long.parseLong(s),false);
 		    }
 		}
 	    }
@@ -120,10 +120,10 @@ public class VUInt32Parameter extends VectorParameter
     }
 
     /** number of values, *if* a vector type (throw exception otherwise!) */
-    public int vectorSize() { return values.size(); }
+    public int vectorSize() { return size; }
 
     /** i-th value of a vector type parameter */
-    public Object value(int i) { return values.get(i); }
+    public Object value(int i) { checkIndex(i); return Long.valueOf(values[i]); }
 
     /** set i-th value of a vector-type parameter */
     public boolean setValue(int i,String valueAsString)
@@ -131,15 +131,12 @@ public class VUInt32Parameter extends VectorParameter
 	try {
 	    String s = valueAsString;
 	    if (s.startsWith("+")) s = s.substring(1);
-	    if (s.startsWith("0x")) {
-		s = s.substring(2);
-		values.set(i,new Long(Long.parseLong(s,16)));
-		isHex.set(i,new Boolean(true));
-	    }
-	    else {
-		values.set(i,new Long(s));
-		isHex.set(i,new Boolean(false));
-	    }
+	    boolean hex = s.startsWith("0x");
+	    long value = (hex) ?
+		Long.parseLong(s.substring(2),16) : Long.parseLong(s);
+	    checkIndex(i);
+	    values[i] = value;
+	    isHex[i]  = hex;
 	}
 	catch (NumberFormatException e) {
 	    System.err.println(e.getMessage());
@@ -147,12 +144,38 @@ public class VUInt32Parameter extends VectorParameter
 	}
 	return true;
     }
-
+    
     /** remove i-th value from vector type parameter */
     public Object removeValue(int i)
     {
-	Object result = values.remove(i);
+	Object result = value(i);
+	System.arraycopy(values,i+1,values,i,size-i-1);
+	System.arraycopy(isHex,i+1,isHex,i,size-i-1);
+	size--;
 	return result;
     }
- 
+    
+
+    //
+    // private member functions
+    //
+    
+    /** make room for at least 'capacity' values */
+    private void ensureCapacity(int capacity)
+    {
+	if (capacity<=values.length) return;
+	int newCapacity = grownCapacity(values.length,capacity);
+	values = Arrays.copyOf(values,newCapacity);
+	isHex  = Arrays.copyOf(isHex,newCapacity);
+    }
+    
+    /** append a value */
+    private void add(long value,boolean hex)
+    {
+	ensureCapacity(size+1);
+	values[size] = value;
+	isHex[size]  = hex;
+	size++;
+    }
+    
 }
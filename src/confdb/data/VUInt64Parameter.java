@@ -2,6 +2,7 @@ package confdb.data;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
@@ -11,7 +12,8 @@ import java.util.ArrayList;
  *
  * for parameters of type vector<uint64>.
  *
- * java's long is signed, so need to use BigInteger
+ * java's long is signed: the values are stored as the bits of a long,
+ * and handed out as BigInteger
  *
  */
 public class VUInt64Parameter extends VectorParameter
@@ -23,11 +25,17 @@ public class VUInt64Parameter extends VectorParameter
     /** parameter type string */
     private static final String type = "vuint64";
 
-    /** parameter values */
-    private ArrayList<BigInteger> values = new ArrayList<BigInteger>();
+    /** parameter values (unsigned), the first 'size' are set */
+    private long[] values = new long[0];
     
     /** inidcate if values are in hex format */
-    private ArrayList<Boolean> isHex  = new ArrayList<Boolean>();
+    private boolean[] isHex = new boolean[0];
+    
+    /** number of values */
+    private int size = 0;
+    
+    /** 2^64, to convert the stored values to BigInteger */
+    private static final BigInteger twoPow64 = BigInteger.ONE.shiftLeft(64);
     
     
     //
@@ -40,10 +48,8 @@ public class VUInt64Parameter extends VectorParameter
 			    boolean isTracked)
     {
 	super(name,isTracked);
-	for (Long i : values) {
-	    this.values.add(new BigInteger(Long.toHexString(i),16));
-	    this.isHex.add(new Boolean(false));
-	}
+	ensureCapacity(values.size());
+	for (Long i : values) add(i,false);
     }
 
     /* need to avoid "have the same erasure"
@@ -73,12 +79,10 @@ public class VUInt64Parameter extends VectorParameter
     /** make a clone of the parameter */
     public Parameter clone(Object parent)
     {
-	ArrayList<Long> temp = new ArrayList<Long>();
-	for (int i=0;i<values.size();i++) {
-	    temp.add(values.get(i).longValue());
-	}
-
-	VUInt64Parameter result = new VUInt64Parameter(name,temp,isTracked);
+	VUInt64Parameter result = new VUInt64Parameter(name,"",isTracked);
+	result.values = Arrays.copyOf(values,size);
+	result.isHex  = Arrays.copyOf(isHex,size);
+	result.size   = size;
 	result.setParent(parent);
 	return result;
     }
@@ -87,27 +91,24 @@ public class VUInt64Parameter extends VectorParameter
     public String type() { return type; }
     
     /** hex format? */
-    public boolean isHex(int i) { return isHex.get(i); }
+    public boolean isHex(int i) { checkIndex(i); return isHex[i]; }
     
     /** retrieve the values of the parameter as a string */
     public String valueAsString()
     {
-	String result = new String();
-	for (int i=0;i<values.size();i++) {
-	    result += (isHex.get(i)) ?
-		"0x"+values.get(i).toString(16) :
-		values.get(i).toString();
-	    result += ", ";
+	StringBuilder result = new StringBuilder();
+	for (int i=0;i<size;i++) {
+	    if (i>0) result.append(", ");
+	    if (isHex[i]) result.append("0x").append(Long.toHexString(values[i]));
+	    else          result.append(Long.toUnsignedString(values[i]));
 	}
-	if (values.size()>0) result = result.substring(0,result.length()-2);
-	return result;
+	return result.toString();
     }
 
     /** set the parameter values from string */
     public boolean setValue(String valueAsString)
     {
-	values.clear();
-	isHex.clear();
+	size = 0;
 
 	if (valueAsString==null) return true;
 	valueAsString=valueAsString.replace(" ","");
@@ -115,6 +116,7 @@ public class VUInt64Parameter extends VectorParameter
 
 	boolean ishex;
 	String[] strValues = valueAsString.split(",");
+	ensureCapacity(strValues.length);
 	for (int i=0;i<strValues.length;i++) {
 	    String value = strValues[i].replace(" ","");
 	    if (value.startsWith("+")) value = value.substring(1,value.length());
@@ -125,11 +127,9 @@ public class VUInt64Parameter extends VectorParameter
 		value = value.substring(2);
 	    }
 
-	    BigInteger big;
+	    long parsed;
 	    try {
-		big = (ishex) ?
-		    new BigInteger(value,16) :
-		    new BigInteger(value);
+		parsed = parse(value,ishex);
 	    }
 	    catch (NumberFormatException e) {
 		System.err.println("VUInt64Parameter.setValue " +
@@ -138,18 +138,21 @@ public class VUInt64Parameter extends VectorParameter
 		return false;
 	    }
 
-	    big = big.abs().mod((BigInteger.ONE.add(BigInteger.ONE)).pow(64));
-	    this.values.add(big);
-	    this.isHex.add(ishex);
+	    add(parsed,ishex);
 	}
     	return true;
     }
 
     /** number of values, *if* a vector type (throw exception otherwise!) */
-    public int vectorSize() { return values.size(); }
+    public int vectorSize() { return size; }
 
     /** i-th value of a vector type parameter */
-    public Object value(int i) { return values.get(i); }
+    public Object value(int i)
+    {
+	checkIndex(i);
+	BigInteger result = BigInteger.valueOf(values[i]);
+	return (values[i]<0) ? result.add(twoPow64) : result;
+    }
 
     /** set i-th value of a vector-type parameter */
     public boolean setValue(int i,String valueAsString)
@@ -169,11 +172,9 @@ public class VUInt64Parameter extends VectorParameter
 	    valueAsString = valueAsString.substring(2);
 	}
 
-	BigInteger big;
+	long parsed;
 	try {
-	    big = (ishex) ?
-		new BigInteger(valueAsString,16) :
-		new BigInteger(valueAsString);
+	    parsed = parse(valueAsString,ishex);
 	}
 	catch (NumberFormatException e) {
 	    System.err.println("VUInt64Parameter.setValue " +
@@ -182,9 +183,9 @@ public class VUInt64Parameter extends VectorParameter
 	    return false;
 	}
 
-	big = big.abs().mod((BigInteger.ONE.add(BigInteger.ONE)).pow(64));
-	values.set(i,big);
-	isHex.set(i,ishex);
+	checkIndex(i);
+	values[i] = parsed;
+	isHex[i]  = ishex;
 
 	return true;
     }
@@ -192,8 +193,47 @@ public class VUInt64Parameter extends VectorParameter
     /** remove i-th value from vector type parameter */
     public Object removeValue(int i)
     {
-	Object result = values.remove(i);
+	Object result = value(i);
+	System.arraycopy(values,i+1,values,i,size-i-1);
+	System.arraycopy(isHex,i+1,isHex,i,size-i-1);
+	size--;
 	return result;
     }
  
+
+    //
+    // private member functions
+    //
+    
+    /** parse an unsigned value, larger values are taken modulo 2^64 */
+    private static long parse(String value,boolean ishex)
+    {
+	int radix = (ishex) ? 16 : 10;
+	try {
+	    return Long.parseUnsignedLong(value,radix);
+	}
+	catch (NumberFormatException e) {
+	    // too large (or invalid, then BigInteger throws as well)
+	    return new BigInteger(value,radix).abs().longValue();
+	}
+    }
+    
+    /** make room for at least 'capacity' values */
+    private void ensureCapacity(int capacity)
+    {
+	if (capacity<=values.length) return;
+	int newCapacity = grownCapacity(values.length,capacity);
+	values = Arrays.copyOf(values,newCapacity);
+	isHex  = Arrays.copyOf(isHex,newCapacity);
+    }
+    
+    /** append a value */
+    private void add(long value,boolean hex)
+    {
+	ensureCapacity(size+1);
+	values[size] = value;
+	isHex[size]  = hex;
+	size++;
+    }
+    
 }
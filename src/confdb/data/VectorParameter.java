@@ -41,4 +41,18 @@ abstract public class VectorParameter extends Parameter
     // member functions
     //
 
+    /** throw if i is not the index of a value, as ArrayList.get() would */
+    protected void checkIndex(int i)
+    {
+	if (i<0||i>=vectorSize())
+	    throw new IndexOutOfBoundsException("Index: "+i+", Size: "+
+						vectorSize());
+    }
+    
+    /** capacity of a value array for at least 'size' values, growing by half */
+    protected static int grownCapacity(int capacity,int size)
+    {
+	return Math.max(size,Math.max(4,capacity+(capacity>>1)));
+    }
+    
 }
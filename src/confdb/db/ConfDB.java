@@ -12,13 +12,34 @@ import java.sql.Types;
 import java.text.SimpleDateFormat;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Properties;
 import java.util.LinkedList;
 import java.util.Stack;
+import java.util.List;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
 
 import java.io.*;
 
@@ -37,7 +58,7 @@ import oracle.jdbc.pool.OracleDataSource;
  *
  * Handle all database access operations.
  */
-public class ConfDB {
+public class ConfDB implements ParameterLoader {
 	//
 	// member data
 	//
@@ -80,6 +101,80 @@ public class ConfDB {
 	// sv
 	private Integer countingParamIds = 20000000;
 
+	/** attach parameters to their owners while reading them (single pass) */
+	private boolean streamingLoad = false;
+
+	/** defer loading the parameters of modules to their first access */
+	private boolean lazyLoad = false;
+
+	/** defer loading the parameters of release templates to their first access */
+	private boolean lazyTemplates = false;
+
+	/** number of modules / templates whose parameters are fetched per query */
+	private static final int parameterChunkSize = 64;
+
+	/** database id of each module / template whose parameters are deferred */
+	private WeakHashMap<ParameterContainer, Integer> deferredParameterIds = new WeakHashMap<ParameterContainer, Integer>();
+
+	/** number of connections used to run the configuration queries in parallel */
+	private int parallelLoadCount = 0;
+
+	/** helper sessions, each with its own connection, for parallel loading */
+	private ArrayList<ConfDB> loadSessions = null;
+
+	/** executor running the configuration queries in parallel */
+	private ExecutorService loadExecutor = null;
+
+	/** duration [ms] of each phase of the last configuration load, never modified */
+	private volatile Map<String, Long> loadTimings = Collections.emptyMap();
+
+	/** maximum number of pooled sessions serving reads, 0 if not pooled */
+	private int connectionPoolSize = 0;
+
+	/** connections of the pooled sessions, null if not pooled */
+	private volatile PooledDatabaseConnector connectionPool = null;
+
+	/** pooled sessions currently not serving a read */
+	private LinkedBlockingQueue<ConfDB> idleSessions = new LinkedBlockingQueue<ConfDB>();
+
+	/** reuse stored modules, sequences and paths of identical content on save */
+	private boolean reuseIdenticalElements = false;
+
+	/** number of rows sent per JDBC batch when saving */
+	private int insertBatchSize = 500;
+
+	/** module parameter rows waiting for their ids, see insertMoElement() */
+	private KeyedInserts moElementInserts = new KeyedInserts(
+			"INSERT INTO u_moelements (moetype,name,o_id,paramtype,tracked,crc32,value,valuelob,hex) "
+					+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?)",
+			Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.VARCHAR,
+			Types.VARCHAR, Types.INTEGER);
+
+	/** module, level and position of each pending module parameter row */
+	private ArrayList<int[]> moElementLinks = new ArrayList<int[]>();
+
+	/** rows added to the batch of each insert statement and not yet executed */
+	private LinkedHashMap<PreparedStatement, Integer> pendingBatches = new LinkedHashMap<PreparedStatement, Integer>();
+
+	/** on save, link the unchanged parts to the rows of the previous version */
+	private boolean deltaSave = false;
+
+	/** names of the queries run to load a configuration */
+	private static final String loadPhaseInstances = "instances";
+	private static final String loadPhasePathEntries = "pathEntries";
+	private static final String loadPhaseSequenceEntries = "sequenceEntries";
+	private static final String loadPhaseEventContents = "eventContents";
+	private static final String loadPhaseStreams = "streams";
+	private static final String loadPhaseDatasets = "datasets";
+	private static final String loadPhasePathStreamDatasets = "pathStreamDatasets";
+	private static final String loadPhaseEventContentStatements = "eventContentStatements";
+	private static final String loadPhaseParameters = "parameters";
+	private static final String loadPhaseSkeletonParameters = "skeletonParameters";
+
+	private static final String[] loadPhases = { loadPhaseParameters, loadPhaseInstances, loadPhasePathEntries,
+			loadPhaseSequenceEntries, loadPhaseEventContents, loadPhaseStreams, loadPhaseDatasets,
+			loadPhasePathStreamDatasets, loadPhaseEventContentStatements };
+
 	/** template table name hash map */
 	private HashMap<String, String> templateTableNameHashMap = null;
 
@@ -245,13 +340,31 @@ public class ConfDB {
 	private PreparedStatement psCheckPathNoum = null;
 	private PreparedStatement psInsertPathNoum = null;
 	private PreparedStatement psInsertPath = null;
-	private PreparedStatement psInsertPathIds = null;
 	private PreparedStatement psInsertConfigPathAssoc = null;
 	private PreparedStatement psInsertHPathIds = null;
 	private PreparedStatement psInsertHPathId2Path = null;
 	private PreparedStatement psInsertHPathId2Uq = null;
 	private PreparedStatement psSelectPathId2Uq = null;
 	private PreparedStatement psCheckHPathIdCrc = null;
+	private PreparedStatement psSelectPathIdByCrc = null;
+	private PreparedStatement psSelectPathIdElements = null;
+	private PreparedStatement psSelectPathIdOutputModules = null;
+	private PreparedStatement psSelectSequenceByCrc = null;
+	private PreparedStatement psSelectModuleByCrc = null;
+	private PreparedStatement psSelectGlobalPSetCount = null;
+	private PreparedStatement psCopyGlobalPSets = null;
+	private PreparedStatement psCopyConfigEDSourceAssoc = null;
+	private PreparedStatement psCopyConfigESSourceAssoc = null;
+	private PreparedStatement psCopyConfigESModuleAssoc = null;
+	private PreparedStatement psCopyConfigServiceAssoc = null;
+	private PreparedStatement psCopyConfigPathAssoc = null;
+	private PreparedStatement psCopyConfigSequenceAssoc = null;
+	private PreparedStatement psSelectConfigEDSourceAssoc = null;
+	private PreparedStatement psSelectConfigESSourceAssoc = null;
+	private PreparedStatement psSelectConfigESModuleAssoc = null;
+	private PreparedStatement psSelectConfigServiceAssoc = null;
+	private PreparedStatement psSelectConfigPathAssoc = null;
+	private PreparedStatement psSelectConfigSequenceAssoc = null;
 	private PreparedStatement psInsertConfigHPathAssoc = null;
 	private PreparedStatement psInsertSequence = null;
 	private PreparedStatement psInsertConfigSequenceAssoc = null;
@@ -287,7 +400,6 @@ public class ConfDB {
 	private PreparedStatement psInsertParameterMOE = null;
 	private PreparedStatement psInsertParameterMODT = null;
 	private PreparedStatement psInsertParameterOUTM = null;
-	private PreparedStatement psInsertPathElement = null;
 	private PreparedStatement psInsertPathElementAssoc = null;
 	private PreparedStatement psInsertHPathElement = null;
 	private PreparedStatement psInsertMoElement = null;
@@ -372,6 +484,9 @@ public class ConfDB {
 	private PreparedStatement psSelectInstances = null;
 	private PreparedStatement psSelectParametersTemplates = null;
 	private PreparedStatement psSelectParameters = null;
+	private PreparedStatement psSelectParametersSkeleton = null;
+	private PreparedStatement psSelectModuleParameters = null;
+	private PreparedStatement psSelectTemplateParameters = null;
 	private PreparedStatement psSelectBooleanValues = null;
 	private PreparedStatement psSelectIntValues = null;
 	private PreparedStatement psSelectRealValues = null;
@@ -524,6 +639,222 @@ public class ConfDB {
 		return operatorFieldForSequencesAvailability;
 	}
 
+	/** load configurations with the single-pass, streaming parameter loader */
+	public synchronized void setStreamingLoad(boolean streamingLoad) {
+		this.streamingLoad = streamingLoad;
+	}
+
+	/** indicate wether configurations are loaded in streaming mode */
+	public boolean isStreamingLoad() {
+		return streamingLoad;
+	}
+
+	/**
+	 * load configurations without the parameters of their modules, which are
+	 * fetched on first access (see loadParameters())
+	 */
+	public synchronized void setLazyLoad(boolean lazyLoad) {
+		this.lazyLoad = lazyLoad;
+	}
+
+	/** indicate wether module parameters are loaded on first access */
+	public boolean isLazyLoad() {
+		return lazyLoad;
+	}
+
+	/**
+	 * load software releases without the parameters of their templates, which
+	 * are fetched on first access, or with a configuration instantiating them
+	 */
+	public synchronized void setLazyTemplates(boolean lazyTemplates) {
+		this.lazyTemplates = lazyTemplates;
+	}
+
+	/** indicate wether template parameters are loaded on first access */
+	public boolean isLazyTemplates() {
+		return lazyTemplates;
+	}
+
+	/**
+	 * run the configuration queries in parallel on 'connectionCount' additional
+	 * connections; a count smaller than 2 restores sequential loading
+	 */
+	public synchronized void setParallelLoad(int connectionCount) {
+		closeLoadSessions();
+		parallelLoadCount = connectionCount;
+	}
+
+	/** indicate wether the configuration queries are run in parallel */
+	public boolean isParallelLoad() {
+		// additional connections can only be opened with known parameters
+		return parallelLoadCount > 1 && dbType != null && dbUrl != null && !dbUrl.equals("UNKNOWN");
+	}
+
+	/**
+	 * timing report [ms] of the phases of the last configuration load, also
+	 * when it was served by a pooled session
+	 */
+	public String loadTimingReport() {
+		StringBuffer result = new StringBuffer();
+		for (Map.Entry<String, Long> e : loadTimings.entrySet())
+			result.append(String.format("%-32s %8d ms\n", e.getKey(), e.getValue()));
+		return result.toString();
+	}
+
+	/**
+	 * serve configuration loads and directory / id queries from a pool of up to
+	 * 'connectionCount' sessions, each with its own connection and prepared
+	 * statements, such that they can run concurrently; 0 disables the pool
+	 */
+	public synchronized void setConnectionPool(int connectionCount) throws DatabaseException {
+		closeConnectionPool();
+		connectionPoolSize = connectionCount;
+		if (dbConnector != null)
+			openConnectionPool();
+	}
+
+	/**
+	 * on save, reuse the rows of stored modules, sequences and paths with the
+	 * same content fingerprint (crc32) instead of inserting copies, once their
+	 * stored parameters and entries are found to be the same
+	 */
+	public void setReuseIdenticalElements(boolean reuseIdenticalElements) {
+		this.reuseIdenticalElements = reuseIdenticalElements;
+	}
+
+	/** indicate wether identical stored elements are reused on save */
+	public boolean isReuseIdenticalElements() {
+		return reuseIdenticalElements;
+	}
+
+	/**
+	 * set the number of rows sent per JDBC batch when saving; rows whose ids are
+	 * needed are sent in blocks of the same size, up to 500 rows
+	 */
+	public void setInsertBatchSize(int insertBatchSize) {
+		this.insertBatchSize = Math.max(1, insertBatchSize);
+	}
+
+	/** number of rows sent per JDBC batch when saving */
+	public int insertBatchSize() {
+		return insertBatchSize;
+	}
+
+	/**
+	 * on save, copy the links of the global psets, instances, paths and sequences
+	 * from the version the configuration was loaded from or last saved as, if they
+	 * are unchanged, instead of inserting them row by row
+	 */
+	public void setDeltaSave(boolean deltaSave) {
+		this.deltaSave = deltaSave;
+	}
+
+	/** indicate wether unchanged links are copied from the previous version on save */
+	public boolean isDeltaSave() {
+		return deltaSave;
+	}
+
+	/** indicate wether reads are served by the connection pool */
+	public boolean isConnectionPool() {
+		return connectionPool != null;
+	}
+
+	/** open the connection pool, if requested */
+	private void openConnectionPool() throws DatabaseException {
+		// additional connections can only be opened with known parameters
+		if (connectionPool != null || connectionPoolSize < 1 || dbUrl == null || dbUrl.equals("UNKNOWN"))
+			return;
+		PooledDatabaseConnector pool = new PooledDatabaseConnector(dbType, dbUrl, dbUser, dbPwrd,
+				connectionPoolSize);
+		pool.openConnection();
+		connectionPool = pool;
+	}
+
+	/** close the connection pool, sessions still in use are closed on return */
+	private void closeConnectionPool() {
+		PooledDatabaseConnector pool = connectionPool;
+		if (pool == null)
+			return;
+		ArrayList<ConfDB> sessions = new ArrayList<ConfDB>();
+		synchronized (idleSessions) {
+			connectionPool = null;
+			idleSessions.drainTo(sessions);
+		}
+		try {
+			pool.closeConnection();
+		} catch (DatabaseException e) {
+			System.err.println("ConfDB::closeConnectionPool(): " + e.getMessage());
+		}
+		for (ConfDB session : sessions)
+			closeSession(pool, session);
+	}
+
+	/** borrow a session from the pool, null if reads are not pooled */
+	private ConfDB borrowSession(PooledDatabaseConnector pool) throws DatabaseException {
+		if (pool == null)
+			return null;
+
+		ConfDB session = idleSessions.poll();
+		if (session == null) {
+			IDatabaseConnector connector = pool.tryBorrowConnector();
+			if (connector != null) {
+				session = new ConfDB();
+				try {
+					session.connect(dbType, connector);
+				} catch (DatabaseException e) {
+					pool.returnConnector(connector);
+					throw e;
+				}
+			}
+		}
+		try {
+			// all connections in use: wait for a session to be returned
+			while (session == null) {
+				session = idleSessions.poll(1, TimeUnit.SECONDS);
+				if (session == null && connectionPool != pool)
+					return null;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DatabaseException("ConfDB::borrowSession() interrupted", e);
+		}
+		session.setStreamingLoad(streamingLoad);
+		session.setLazyLoad(lazyLoad);
+		session.setLazyTemplates(lazyTemplates);
+		// the helper sessions of the borrowed session are kept while unchanged
+		if (session.parallelLoadCount != parallelLoadCount)
+			session.setParallelLoad(parallelLoadCount);
+		return session;
+	}
+
+	/** return a session to the pool it was borrowed from */
+	private void returnSession(PooledDatabaseConnector pool, ConfDB session) {
+		// report the timings of a configuration loaded by the session
+		Map<String, Long> timings = session.loadTimings;
+		if (!timings.isEmpty()) {
+			loadTimings = timings;
+			session.loadTimings = Collections.emptyMap();
+		}
+		synchronized (idleSessions) {
+			if (connectionPool == pool) {
+				idleSessions.offer(session);
+				return;
+			}
+		}
+		closeSession(pool, session);
+	}
+
+	/** close a session of a connection pool which was closed */
+	private static void closeSession(PooledDatabaseConnector pool, ConfDB session) {
+		try {
+			session.closeLoadSessions();
+			session.closePreparedStatements();
+			pool.returnConnector(session.getDbConnector());
+		} catch (DatabaseException e) {
+			System.err.println("ConfDB::closeSession(): " + e.getMessage());
+		}
+	}
+
 	/** close all prepared statements */
 	void closePreparedStatements() throws DatabaseException {
 		for (PreparedStatement ps : preparedStatements) {
@@ -555,6 +886,7 @@ public class ConfDB {
 		dbConnector.openConnection();
 		prepareStatements();
 		checkDbFeatures(); // Check Clobs and Documentation fields availability.
+		openConnectionPool();
 	}
 
 	/** connect to the database */
@@ -567,6 +899,18 @@ public class ConfDB {
 		dbConnector.openConnection();
 		prepareStatements();
 		checkDbFeatures(); // Check Clobs and Documentation fields availability.
+		openConnectionPool();
+	}
+
+	/** connect a pooled session via a connector borrowed from the pool */
+	private synchronized void connect(String dbType, IDatabaseConnector connector) throws DatabaseException {
+		this.dbType = dbType;
+		this.dbUrl = connector.dbURL();
+		this.dbUser = connector.dbUser();
+		this.dbPwrd = connector.dbPassword();
+		dbConnector = connector;
+		prepareStatements();
+		checkDbFeatures(); // Check Clobs and Documentation fields availability.
 	}
 
 	/** connect to the database */
@@ -580,6 +924,8 @@ public class ConfDB {
 
 	/** disconnect from database */
 	public synchronized void disconnect() throws DatabaseException {
+		closeLoadSessions();
+		closeConnectionPool();
 		if (dbConnector != null) {
 			closePreparedStatements();
 			dbConnector.closeConnection();
@@ -770,144 +1116,155 @@ public class ConfDB {
 	}
 
 	/** load information about all stored configurations */
-	public synchronized Directory loadConfigurationTree() throws DatabaseException {
-		reconnect();
-
-		// System.err.println("loadConfigTree ");
-		Directory rootDir = null;
-		ResultSet rs = null;
-		try {
-			HashMap<Integer, Directory> directoryHashMap = new HashMap<Integer, Directory>();
-
-			// DEBUG
-			// long startTime = System.currentTimeMillis();
-
-			rs = psSelectDirectories.executeQuery();
-			// System.err.println("Selected Directories ");
-
-			// DEBUG
-			// long dir1Time = System.currentTimeMillis();
-
-			while (rs.next()) {
-				int dirId = rs.getInt(1);
-				int parentDirId = rs.getInt(2);
-				String dirName = rs.getString(3);
-				String dirCreated = rs.getTimestamp(4).toString();
-
-				// System.err.println("Retrieved Dirs: "+dirId+"- parent "+parentDirId+"
-				// "+dirName+" "+dirCreated);
-				if (directoryHashMap.size() == 0) {
-					// System.err.println("New root DIrectrory: "+dirId+"- "+dirName+"
-					// "+dirCreated);
-					rootDir = new Directory(dirId, dirName, dirCreated, null);
-					// System.err.println("New root DIrectrory done");
-					directoryHashMap.put(dirId, rootDir);
-				} else {
-					// System.err.println("Now checking parenmt dir - "+parentDirId);
-
-					if (!directoryHashMap.containsKey(parentDirId))
-						throw new DatabaseException("parentDir not found in DB" + " (parentDirId=" + parentDirId + ")");
-					// System.err.println("getting parentdir "+parentDirId);
-					Directory parentDir = directoryHashMap.get(parentDirId);
-					// System.err.println("New DIrectrory with parent: "+dirId+"- "+dirName+"
-					// "+dirCreated+ parentDirId);
-					Directory newDir = new Directory(dirId, dirName, dirCreated, parentDir);
-					// System.err.println("New DIrectrory with parent - done");
-					parentDir.addChildDir(newDir);
-					// System.err.println("New DIrectrory - done adding child");
-					directoryHashMap.put(dirId, newDir);
-					// System.err.println("New DIrectrory - done putting hash");
-				}
+	public Directory loadConfigurationTree() throws DatabaseException {
+		PooledDatabaseConnector pool = connectionPool;
+		ConfDB session = borrowSession(pool);
+		if (session != null) {
+			try {
+				return session.loadConfigurationTree();
+			} finally {
+				returnSession(pool, session);
 			}
+		}
+		synchronized (this) {
+			reconnect();
 
-			// DEBUG
-			// long dir2Time = System.currentTimeMillis();
-
-			// System.err.println("Done with Retrieving Dirs: ");
-			// retrieve list of configurations for all directories
-			HashMap<String, ConfigInfo> configHashMap = new HashMap<String, ConfigInfo>();
-
-			// System.err.println("Try to query COnfs");
+			// System.err.println("loadConfigTree ");
+			Directory rootDir = null;
+			ResultSet rs = null;
+			try {
+				HashMap<Integer, Directory> directoryHashMap = new HashMap<Integer, Directory>();
+
+				// DEBUG
+				// long startTime = System.currentTimeMillis();
+
+				rs = psSelectDirectories.executeQuery();
+				// System.err.println("Selected Directories ");
+
+				// DEBUG
+				// long dir1Time = System.currentTimeMillis();
+
+				while (rs.next()) {
+					int dirId = rs.getInt(1);
+					int parentDirId = rs.getInt(2);
+					String dirName = rs.getString(3);
+					String dirCreated = rs.getTimestamp(4).toString();
+
+					// System.err.println("Retrieved Dirs: "+dirId+"- parent "+parentDirId+"
+					// "+dirName+" "+dirCreated);
+					if (directoryHashMap.size() == 0) {
+						// System.err.println("New root DIrectrory: "+dirId+"- "+dirName+"
+						// "+dirCreated);
+						rootDir = new Directory(dirId, dirName, dirCreated, null);
+						// System.err.println("New root DIrectrory done");
+						directoryHashMap.put(dirId, rootDir);
+					} else {
+						// System.err.println("Now checking parenmt dir - "+parentDirId);
+
+						if (!directoryHashMap.containsKey(parentDirId))
+							throw new DatabaseException("parentDir not found in DB" + " (parentDirId=" + parentDirId + ")");
+						// System.err.println("getting parentdir "+parentDirId);
+						Directory parentDir = directoryHashMap.get(parentDirId);
+						// System.err.println("New DIrectrory with parent: "+dirId+"- "+dirName+"
+						// "+dirCreated+ parentDirId);
+						Directory newDir = new Directory(dirId, dirName, dirCreated, parentDir);
+						// System.err.println("New DIrectrory with parent - done");
+						parentDir.addChildDir(newDir);
+						// System.err.println("New DIrectrory - done adding child");
+						directoryHashMap.put(dirId, newDir);
+						// System.err.println("New DIrectrory - done putting hash");
+					}
+				}
 
-			rs = psSelectConfigurations.executeQuery();
-			// System.err.println("Queried COnfs");
+				// DEBUG
+				// long dir2Time = System.currentTimeMillis();
+
+				// System.err.println("Done with Retrieving Dirs: ");
+				// retrieve list of configurations for all directories
+				HashMap<String, ConfigInfo> configHashMap = new HashMap<String, ConfigInfo>();
+
+				// System.err.println("Try to query COnfs");
+
+				rs = psSelectConfigurations.executeQuery();
+				// System.err.println("Queried COnfs");
+
+				// DEBUG
+				// long config1Time = System.currentTimeMillis();
+
+				while (rs.next()) {
+					int configId = rs.getInt(1);
+					int parentDirId = rs.getInt(2);
+					String configName = rs.getString(3);
+					int configVersion = rs.getInt(4);
+					String configCreated = rs.getTimestamp(5).toString();
+					String configCreator = rs.getString(6);
+					String configReleaseTag = rs.getString(7);
+					String configProcessName = rs.getString(8);
+					String configComment = rs.getString(9);
+
+					// System.err.println("Retrieved Conf: "+configName+" "+configCreated+"
+					// "+configReleaseTag);
+					if (configComment == null)
+						configComment = "";
+
+					Directory dir = directoryHashMap.get(parentDirId);
+					if (dir == null) {
+						String errMsg = "ConfDB::loadConfigurationTree(): can't find directory " + "for parentDirId="
+								+ parentDirId + ".";
+						throw new DatabaseException(errMsg);
+					}
 
-			// DEBUG
-			// long config1Time = System.currentTimeMillis();
+					String configPathAndName = dir.name() + "/" + configName;
 
-			while (rs.next()) {
-				int configId = rs.getInt(1);
-				int parentDirId = rs.getInt(2);
-				String configName = rs.getString(3);
-				int configVersion = rs.getInt(4);
-				String configCreated = rs.getTimestamp(5).toString();
-				String configCreator = rs.getString(6);
-				String configReleaseTag = rs.getString(7);
-				String configProcessName = rs.getString(8);
-				String configComment = rs.getString(9);
-
-				// System.err.println("Retrieved Conf: "+configName+" "+configCreated+"
-				// "+configReleaseTag);
-				if (configComment == null)
-					configComment = "";
-
-				Directory dir = directoryHashMap.get(parentDirId);
-				if (dir == null) {
-					String errMsg = "ConfDB::loadConfigurationTree(): can't find directory " + "for parentDirId="
-							+ parentDirId + ".";
-					throw new DatabaseException(errMsg);
+					if (configHashMap.containsKey(configPathAndName)) {
+						ConfigInfo configInfo = configHashMap.get(configPathAndName);
+						configInfo.addVersion(configId, configVersion, configCreated, configCreator, configReleaseTag,
+								configProcessName, configComment);
+					} else {
+						ConfigInfo configInfo = new ConfigInfo(configName, dir, configId, configVersion, configCreated,
+								configCreator, configReleaseTag, configProcessName, configComment);
+						configHashMap.put(configPathAndName, configInfo);
+						dir.addConfigInfo(configInfo);
+					}
+					// System.err.println("ConfigHash done: "+configName+" "+configCreated+"
+					// "+configReleaseTag);
 				}
 
-				String configPathAndName = dir.name() + "/" + configName;
+				rs = psSelectLockedConfigurations.executeQuery();
 
-				if (configHashMap.containsKey(configPathAndName)) {
+				while (rs.next()) {
+					String dirName = rs.getString(1);
+					String configName = rs.getString(2);
+					String userName = rs.getString(3);
+					String configPathAndName = dirName + "/" + configName;
 					ConfigInfo configInfo = configHashMap.get(configPathAndName);
-					configInfo.addVersion(configId, configVersion, configCreated, configCreator, configReleaseTag,
-							configProcessName, configComment);
-				} else {
-					ConfigInfo configInfo = new ConfigInfo(configName, dir, configId, configVersion, configCreated,
-							configCreator, configReleaseTag, configProcessName, configComment);
-					configHashMap.put(configPathAndName, configInfo);
-					dir.addConfigInfo(configInfo);
+					if (configInfo == null) {
+						String errMsg = "ConfDB::loadConfigurationTree(): can't find locked " + "configuration '"
+								+ configPathAndName + "'.";
+						throw new DatabaseException(errMsg);
+					}
+					configInfo.lock(userName);
 				}
-				// System.err.println("ConfigHash done: "+configName+" "+configCreated+"
-				// "+configReleaseTag);
-			}
 
-			rs = psSelectLockedConfigurations.executeQuery();
+				// System.out.println("Config Lock done: ");
 
-			while (rs.next()) {
-				String dirName = rs.getString(1);
-				String configName = rs.getString(2);
-				String userName = rs.getString(3);
-				String configPathAndName = dirName + "/" + configName;
-				ConfigInfo configInfo = configHashMap.get(configPathAndName);
-				if (configInfo == null) {
-					String errMsg = "ConfDB::loadConfigurationTree(): can't find locked " + "configuration '"
-							+ configPathAndName + "'.";
-					throw new DatabaseException(errMsg);
-				}
-				configInfo.lock(userName);
+				// DEBUG
+				// int config2Time = System.currentTimeMillis();
+				// System.err.println("TIMING: "+
+				// (config2Time-startTime)+": "+
+				// (dir1Time-startTime)+" / "+
+				// (dir2Time-dir1Time)+" / "+
+				// (config1Time-dir2Time)+" / "+
+				// (config2Time-config1Time));
+			} catch (SQLException e) {
+				String errMsg = "ConfDB::loadConfigurationTree() failed: " + e.getMessage();
+				throw new DatabaseException(errMsg, e);
+			} finally {
+				dbConnector.release(rs);
 			}
 
-			// System.out.println("Config Lock done: ");
-
-			// DEBUG
-			// int config2Time = System.currentTimeMillis();
-			// System.err.println("TIMING: "+
-			// (config2Time-startTime)+": "+
-			// (dir1Time-startTime)+" / "+
-			// (dir2Time-dir1Time)+" / "+
-			// (config1Time-dir2Time)+" / "+
-			// (config2Time-config1Time));
-		} catch (SQLException e) {
-			String errMsg = "ConfDB::loadConfigurationTree() failed: " + e.getMessage();
-			throw new DatabaseException(errMsg, e);
-		} finally {
-			dbConnector.release(rs);
+			return rootDir;
 		}
-
-		return rootDir;
 	}
 
 	/** load a single template from a certain release */
@@ -938,9 +1295,11 @@ public class ConfDB {
 		return it.next();
 	}
 
-	/** load a software release (all templates) */
+	/** load a software release (all templates), see SoftwareReleaseCache */
 	public synchronized void loadSoftwareRelease(int releaseId, SoftwareRelease release) throws DatabaseException {
 		String releaseTag = getReleaseTag(releaseId);
+		if (SoftwareReleaseCache.copyTo(dbUrl, releaseId, releaseTag, release))
+			return;
 		release.clear(releaseTag);
 		try {
 			// System.err.println("loadTemplates with ReleaseiD: "+releaseId+" "+release);
@@ -951,6 +1310,8 @@ public class ConfDB {
 			throw new DatabaseException(errMsg, e);
 		}
 		loadTemplates(csLoadTemplates, release);
+		if (!lazyTemplates)
+			SoftwareReleaseCache.put(dbUrl, releaseId, release);
 	}
 
 	/** load a software release (all templates) */
@@ -997,7 +1358,9 @@ public class ConfDB {
 		// System.err.println("loadTemplates: release ");
 		try {
 			int releaseId = getReleaseId(release.releaseTag());
-			HashMap<Integer, ArrayList<Parameter>> templateParams = getParameters(-releaseId);
+			HashMap<Integer, ArrayList<Parameter>> templateParams = (lazyTemplates)
+					? new HashMap<Integer, ArrayList<Parameter>>()
+					: getParameters(-releaseId);
 
 			// System.err.println("loadTemplates: gotParameters ");
 
@@ -1058,6 +1421,8 @@ public class ConfDB {
 					pkg.addTemplate(template);
 				}
 				template.setDatabaseId(id);
+				if (lazyTemplates)
+					deferParameters(template, id);
 			}
 
 			for (SoftwareSubsystem s : subsystems) {
@@ -1111,82 +1476,305 @@ public class ConfDB {
 	}
 
 	/** load configuration & *necessary* release templates from the database */
-	public synchronized Configuration loadConfigurationWithOrigId(int configId) throws DatabaseException {
-		reconnect();
-		ResultSet rs = null;
-		int newId = -1;
-		// System.err.println("loadConfiguration with orig Id: "+configId);
-		try {
-			psSelectNewDbId.setInt(1, configId);
-			rs = psSelectNewDbId.executeQuery();
-			while (rs.next()) {
-				newId = rs.getInt(1);
+	public Configuration loadConfigurationWithOrigId(int configId) throws DatabaseException {
+		PooledDatabaseConnector pool = connectionPool;
+		ConfDB session = borrowSession(pool);
+		if (session != null) {
+			try {
+				return session.loadConfigurationWithOrigId(configId);
+			} finally {
+				returnSession(pool, session);
+			}
+		}
+		synchronized (this) {
+			reconnect();
+			ResultSet rs = null;
+			int newId = -1;
+			// System.err.println("loadConfiguration with orig Id: "+configId);
+			try {
+				psSelectNewDbId.setInt(1, configId);
+				rs = psSelectNewDbId.executeQuery();
+				while (rs.next()) {
+					newId = rs.getInt(1);
+				}
+				;
+			} catch (SQLException e) {
+				String errMsg = "ConfDB::loadConfigurationWithOrigId(Configuration config) failed " + "(OrigconfigId="
+						+ configId + "): " + e.getMessage();
+				throw new DatabaseException(errMsg, e);
 			}
 			;
-		} catch (SQLException e) {
-			String errMsg = "ConfDB::loadConfigurationWithOrigId(Configuration config) failed " + "(OrigconfigId="
-					+ configId + "): " + e.getMessage();
-			throw new DatabaseException(errMsg, e);
+			return loadConfiguration(newId);
 		}
-		;
-		return loadConfiguration(newId);
 	}
 
 	/** load configuration & *necessary* release templates from the database */
-	public synchronized Configuration loadConfiguration(int configId) throws DatabaseException {
-		ConfigInfo configInfo = getConfigNewInfo(configId);
-		String releaseTag = configInfo.releaseTag();
-		SoftwareRelease release = new SoftwareRelease();
-		release.clear(releaseTag);
-		// System.err.println("loadTemplates with only configid: "+configId);
-		loadPartialSoftwareRelease(configId, release);
-		Configuration config = new Configuration(configInfo, release);
-		loadConfiguration(config);
-		config.setHasChanged(false);
-		return config;
+	public Configuration loadConfiguration(int configId) throws DatabaseException {
+		PooledDatabaseConnector pool = connectionPool;
+		ConfDB session = borrowSession(pool);
+		if (session != null) {
+			try {
+				return session.loadConfiguration(configId);
+			} finally {
+				returnSession(pool, session);
+			}
+		}
+		synchronized (this) {
+			ConfigInfo configInfo = getConfigNewInfo(configId);
+			String releaseTag = configInfo.releaseTag();
+			SoftwareRelease release = new SoftwareRelease();
+			release.clear(releaseTag);
+			// System.err.println("loadTemplates with only configid: "+configId);
+			loadPartialSoftwareRelease(configId, release);
+			Configuration config = new Configuration(configInfo, release);
+			loadConfiguration(config);
+			config.setHasChanged(false);
+			return config;
+		}
 	}
 
-	/** fill an empty configuration *after* template hash maps were filled! */
-	private void loadConfiguration(Configuration config) throws DatabaseException {
+	/** execute one of the configuration queries, see loadPhases */
+	private ResultSet executeLoadQuery(String phase, int configId) throws SQLException {
+		PreparedStatement ps = null;
+		int parameterCount = 1;
+		if (phase.equals(loadPhaseInstances)) {
+			ps = psSelectInstances;
+			parameterCount = 10;
+		} else if (phase.equals(loadPhasePathEntries)) {
+			ps = psSelectPathEntries;
+			parameterCount = 2;
+		} else if (phase.equals(loadPhaseSequenceEntries)) {
+			ps = psSelectSequenceEntries;
+			parameterCount = 2;
+		} else if (phase.equals(loadPhaseEventContents))
+			ps = psSelectEventContentEntries;
+		else if (phase.equals(loadPhaseStreams))
+			ps = psSelectStreamEntries;
+		else if (phase.equals(loadPhaseDatasets))
+			ps = psSelectDatasetEntries;
+		else if (phase.equals(loadPhasePathStreamDatasets))
+			ps = psSelectPathStreamDatasetEntries;
+		else if (phase.equals(loadPhaseEventContentStatements))
+			ps = psSelectEventContentStatements;
+		else if (phase.equals(loadPhaseParameters) && lazyLoad || phase.equals(loadPhaseSkeletonParameters)) {
+			ps = psSelectParametersSkeleton;
+			parameterCount = 6;
+		} else if (phase.equals(loadPhaseParameters)) {
+			ps = psSelectParameters;
+			parameterCount = 8;
+		} else
+			throw new SQLException("ConfDB::executeLoadQuery(): unknown phase '" + phase + "'");
+
+		for (int i = 1; i <= parameterCount; i++)
+			ps.setInt(i, configId);
+		return ps.executeQuery();
+	}
+
+	/** result of a configuration query, prefetched or executed now */
+	private ResultSet loadQueryResult(HashMap<String, ResultSet> phaseToResults, String phase, int configId)
+			throws SQLException {
+		if (phaseToResults != null)
+			return phaseToResults.get(phase);
+		return executeLoadQuery(phase, configId);
+	}
+
+	/** execute a configuration query, the caller reads and releases the result */
+	private synchronized ResultSet openLoadQuery(String phase, int configId) throws DatabaseException {
 		reconnect();
+		try {
+			return executeLoadQuery(phase, configId);
+		} catch (SQLException e) {
+			String errMsg = "ConfDB::openLoadQuery(phase=" + phase + ",configId=" + configId + ") failed: "
+					+ e.getMessage();
+			throw new DatabaseException(errMsg, e);
+		}
+	}
 
-		int configId = config.dbId();
-		Stack<Integer> idlifo = new Stack<Integer>();
+	/** execute a configuration query and fetch all of its rows */
+	private synchronized CachedRowSet fetchLoadQuery(String phase, int configId) throws DatabaseException {
+		reconnect();
 
-		// System.err.println("loadConfiguration with config "+config);
+		ResultSet rs = null;
+		try {
+			rs = executeLoadQuery(phase, configId);
+			CachedRowSet result = RowSetProvider.newFactory().createCachedRowSet();
+			result.populate(rs);
+			return result;
+		} catch (SQLException e) {
+			String errMsg = "ConfDB::fetchLoadQuery(phase=" + phase + ",configId=" + configId + ") failed: "
+					+ e.getMessage();
+			throw new DatabaseException(errMsg, e);
+		} finally {
+			dbConnector.release(rs);
+		}
+	}
 
-		ResultSet rsInstances = null;
+	/**
+	 * run all configuration queries at the same time on the helper sessions.
+	 * The parameters, by far the largest result, are not fetched: they are
+	 * streamed by the caller from the first helper session, which serves no
+	 * other query and is released by releaseParameterQuery(); the other
+	 * (small) results are fetched at once on the remaining sessions
+	 */
+	private HashMap<String, ResultSet> fetchLoadQueries(final int configId, Map<String, Long> timings)
+			throws DatabaseException {
+		openLoadSessions();
+
+		final ConfDB parameterSession = loadSessions.get(0);
+		final ArrayBlockingQueue<ConfDB> freeLoadSessions = new ArrayBlockingQueue<ConfDB>(loadSessions.size() - 1,
+				false, loadSessions.subList(1, loadSessions.size()));
+		final ConcurrentHashMap<String, Long> phaseToTime = new ConcurrentHashMap<String, Long>();
+		LinkedHashMap<String, Future<ResultSet>> phaseToFuture = new LinkedHashMap<String, Future<ResultSet>>();
+
+		long fetchStart = System.currentTimeMillis();
+		for (final String phase : loadPhases) {
+			// the helper sessions don't know about lazy loading
+			final String query = (lazyLoad && phase.equals(loadPhaseParameters)) ? loadPhaseSkeletonParameters
+					: phase;
+			phaseToFuture.put(phase, loadExecutor.submit(new Callable<ResultSet>() {
+				public ResultSet call() throws Exception {
+					long start = System.currentTimeMillis();
+					if (phase.equals(loadPhaseParameters)) {
+						ResultSet result = parameterSession.openLoadQuery(query, configId);
+						phaseToTime.put(phase, System.currentTimeMillis() - start);
+						return result;
+					}
+					ConfDB session = freeLoadSessions.take();
+					try {
+						ResultSet result = session.fetchLoadQuery(query, configId);
+						phaseToTime.put(phase, System.currentTimeMillis() - start);
+						return result;
+					} finally {
+						freeLoadSessions.put(session);
+					}
+				}
+			}));
+		}
 
-		ResultSet rsPathEntries = null;
-		ResultSet rsSequenceEntries = null;
-		ResultSet rsPrepareSequence = null;
+		// the parameters come first: if another query fails, they are released,
+		// and the sessions, possibly still busy with the other queries, are
+		// closed instead of being reused by the next load
+		HashMap<String, ResultSet> result = new HashMap<String, ResultSet>();
+		boolean complete = false;
+		try {
+			for (Map.Entry<String, Future<ResultSet>> e : phaseToFuture.entrySet())
+				result.put(e.getKey(), e.getValue().get());
+			complete = true;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			String errMsg = "ConfDB::fetchLoadQueries(configId=" + configId + ") failed: " + cause.getMessage();
+			throw new DatabaseException(errMsg, cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			String errMsg = "ConfDB::fetchLoadQueries(configId=" + configId + ") interrupted.";
+			throw new DatabaseException(errMsg, e);
+		} finally {
+			if (!complete) {
+				releaseParameterQuery(result);
+				closeLoadSessions();
+			}
+		}
 
-		ResultSet rsEventContentEntries = null;
-		ResultSet rsStreamEntries = null;
-		ResultSet rsEventContentStatements = null;
-		ResultSet rsDatasetEntries = null;
-		ResultSet rsPathStreamDataset = null;
+		for (String phase : loadPhases)
+			timings.put("fetch " + phase, phaseToTime.get(phase));
+		timings.put("fetch (parallel)", System.currentTimeMillis() - fetchStart);
 
-		SoftwareRelease release = config.release();
+		return result;
+	}
 
-		try {
+	/** release the parameters streamed from the helper session, see fetchLoadQueries() */
+	private void releaseParameterQuery(HashMap<String, ResultSet> phaseToResults) {
+		if (phaseToResults == null || loadSessions == null)
+			return;
+		ResultSet rsParameters = phaseToResults.remove(loadPhaseParameters);
+		if (rsParameters != null)
+			loadSessions.get(0).dbConnector.release(rsParameters);
+	}
 
-			// System.err.println("Trying rs instances"+configId);
-			psSelectInstances.setInt(1, configId);
-			psSelectInstances.setInt(2, configId);
-			psSelectInstances.setInt(3, configId);
-			psSelectInstances.setInt(4, configId);
-			psSelectInstances.setInt(5, configId);
-			psSelectInstances.setInt(6, configId);
-			psSelectInstances.setInt(7, configId);
-			psSelectInstances.setInt(8, configId);
-			psSelectInstances.setInt(9, configId);
-			psSelectInstances.setInt(10, configId);
-			rsInstances = psSelectInstances.executeQuery();
-			psSelectPathEntries.setInt(1, configId);
-			psSelectPathEntries.setInt(2, configId);
-			// System.err.println("Trying Pathentries"+configId);
-			rsPathEntries = psSelectPathEntries.executeQuery();
+	/** open the helper sessions used for parallel loading */
+	private void openLoadSessions() throws DatabaseException {
+		if (loadSessions != null)
+			return;
+
+		ArrayList<ConfDB> sessions = new ArrayList<ConfDB>();
+		try {
+			for (int i = 0; i < parallelLoadCount; i++) {
+				ConfDB session = new ConfDB();
+				sessions.add(session);
+				session.connect(dbType, dbUrl, dbUser, dbPwrd);
+			}
+		} catch (DatabaseException e) {
+			for (ConfDB session : sessions)
+				session.disconnect();
+			throw e;
+		}
+
+		loadSessions = sessions;
+		loadExecutor = Executors.newFixedThreadPool(parallelLoadCount, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "ConfDB-load");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/** close the helper sessions used for parallel loading */
+	private void closeLoadSessions() {
+		if (loadExecutor != null) {
+			loadExecutor.shutdownNow();
+			loadExecutor = null;
+		}
+		if (loadSessions != null) {
+			for (ConfDB session : loadSessions) {
+				try {
+					session.disconnect();
+				} catch (DatabaseException e) {
+					System.err.println("ConfDB::closeLoadSessions(): " + e.getMessage());
+				}
+			}
+			loadSessions = null;
+		}
+	}
+
+	/** fill an empty configuration *after* template hash maps were filled! */
+	private void loadConfiguration(Configuration config) throws DatabaseException {
+		reconnect();
+
+		int configId = config.dbId();
+		Stack<Integer> idlifo = new Stack<Integer>();
+
+		// System.err.println("loadConfiguration with config "+config);
+
+		ResultSet rsInstances = null;
+
+		ResultSet rsPathEntries = null;
+		ResultSet rsSequenceEntries = null;
+		ResultSet rsPrepareSequence = null;
+
+		ResultSet rsEventContentEntries = null;
+		ResultSet rsStreamEntries = null;
+		ResultSet rsEventContentStatements = null;
+		ResultSet rsDatasetEntries = null;
+		ResultSet rsPathStreamDataset = null;
+
+		SoftwareRelease release = config.release();
+
+		long loadStart = System.currentTimeMillis();
+		LinkedHashMap<String, Long> timings = new LinkedHashMap<String, Long>();
+		HashMap<String, ResultSet> phaseToResults = null;
+
+		try {
+
+			// in parallel mode, all queries are run at the same time on the
+			// helper sessions, see fetchLoadQueries()
+			if (isParallelLoad())
+				phaseToResults = fetchLoadQueries(configId, timings);
+
+			// System.err.println("Trying rs instances"+configId);
+			rsInstances = loadQueryResult(phaseToResults, loadPhaseInstances, configId);
+			// System.err.println("Trying Pathentries"+configId);
+			rsPathEntries = loadQueryResult(phaseToResults, loadPhasePathEntries, configId);
 
 			// This is to fix the operator field bug for modules inside sequences. bug
 			// #91797
@@ -1198,28 +1786,41 @@ public class ConfDB {
 			 * psSelectSequenceEntries.executeQuery(); }
 			 */
 
-			psSelectSequenceEntries.setInt(1, configId);
-			psSelectSequenceEntries.setInt(2, configId);
-			rsSequenceEntries = psSelectSequenceEntries.executeQuery();
-
-			psSelectEventContentEntries.setInt(1, configId);
-			rsEventContentEntries = psSelectEventContentEntries.executeQuery();
-			psSelectStreamEntries.setInt(1, configId);
-			rsStreamEntries = psSelectStreamEntries.executeQuery();
-			psSelectDatasetEntries.setInt(1, configId);
-			rsDatasetEntries = psSelectDatasetEntries.executeQuery();
-			psSelectPathStreamDatasetEntries.setInt(1, configId);
-			rsPathStreamDataset = psSelectPathStreamDatasetEntries.executeQuery();
+			rsSequenceEntries = loadQueryResult(phaseToResults, loadPhaseSequenceEntries, configId);
+
+			rsEventContentEntries = loadQueryResult(phaseToResults, loadPhaseEventContents, configId);
+			rsStreamEntries = loadQueryResult(phaseToResults, loadPhaseStreams, configId);
+			rsDatasetEntries = loadQueryResult(phaseToResults, loadPhaseDatasets, configId);
+			rsPathStreamDataset = loadQueryResult(phaseToResults, loadPhasePathStreamDatasets, configId);
+
+			rsEventContentStatements = loadQueryResult(phaseToResults, loadPhaseEventContentStatements, configId);
+			// fetch the deferred parameters of the instantiated templates at once
+			if (lazyTemplates) {
+				if (!(rsInstances instanceof CachedRowSet)) {
+					CachedRowSet cachedInstances = RowSetProvider.newFactory().createCachedRowSet();
+					cachedInstances.populate(rsInstances);
+					dbConnector.release(rsInstances);
+					rsInstances = cachedInstances;
+				}
+				loadInstantiatedTemplateParameters(rsInstances, release);
+			}
 
-			psSelectEventContentStatements.setInt(1, configId);
-			rsEventContentStatements = psSelectEventContentStatements.executeQuery();
+			long queryTime = System.currentTimeMillis();
+			timings.put("queries", queryTime - loadStart);
 
 			HashMap<Integer, Stream> idToStream = new HashMap<Integer, Stream>();
 			HashMap<Integer, PrimaryDataset> idToDataset = new HashMap<Integer, PrimaryDataset>();
 
-			// System.err.println("getting params"+configId);
-			HashMap<Integer, ArrayList<Parameter>> idToParams = getParameters(configId);
-			// System.err.println("DOne params");
+			// in streaming mode, parameters are attached to their owners
+			// once instances and streams are known, see streamParameters()
+			HashMap<Integer, ArrayList<Parameter>> idToParams = null;
+			if (streamingLoad)
+				idToParams = new HashMap<Integer, ArrayList<Parameter>>();
+			else if (phaseToResults != null)
+				idToParams = getParameters(phaseToResults.get(loadPhaseParameters));
+			else
+				idToParams = getParameters(configId);
+			HashMap<Integer, Object> idToParameterOwner = new HashMap<Integer, Object>();
 
 			HashMap<Integer, ModuleInstance> idToModules = new HashMap<Integer, ModuleInstance>();
 			HashMap<Integer, Path> idToPaths = new HashMap<Integer, Path>();
@@ -1245,6 +1846,7 @@ public class ConfDB {
 				if (type.equals("PSet")) {
 					PSetParameter pset = (PSetParameter) ParameterFactory.create("PSet", instanceName, "", flag);
 					config.insertPSet(pset);
+					idToParameterOwner.put(id, pset);
 					ArrayList<Parameter> psetParams = idToParams.remove(id);
 					if (psetParams != null) {
 						Iterator<Parameter> it = psetParams.iterator();
@@ -1253,7 +1855,7 @@ public class ConfDB {
 							if (p != null)
 								pset.addParameter(p);
 						}
-					} else
+					} else if (!streamingLoad)
 						System.out.println("Found null PSet for instance " + instanceName + " " + id + "  templateid="
 								+ templateId + " entryType=" + type);
 					config.psets().setDatabaseId(1);
@@ -1261,6 +1863,7 @@ public class ConfDB {
 					templateName = release.edsourceTemplateName(templateId);
 					Instance edsource = config.insertEDSource(templateName);
 					edsource.setDatabaseId(id);
+					idToParameterOwner.put(id, edsource);
 					updateInstanceParameters(edsource, idToParams.remove(id));
 
 				} else if (type.equals("ESSource")) {
@@ -1269,6 +1872,7 @@ public class ConfDB {
 					ESSourceInstance essource = config.insertESSource(insertIndex, templateName, instanceName);
 					essource.setPreferred(flag);
 					essource.setDatabaseId(id);
+					idToParameterOwner.put(id, essource);
 					updateInstanceParameters(essource, idToParams.remove(id));
 				} else if (type.equals("ESModule")) {
 					int insertIndex = config.esmoduleCount();
@@ -1276,17 +1880,23 @@ public class ConfDB {
 					ESModuleInstance esmodule = config.insertESModule(insertIndex, templateName, instanceName);
 					esmodule.setPreferred(flag);
 					esmodule.setDatabaseId(id);
+					idToParameterOwner.put(id, esmodule);
 					updateInstanceParameters(esmodule, idToParams.remove(id));
 				} else if (type.equals("Service")) {
 					int insertIndex = config.serviceCount();
 					templateName = release.serviceTemplateName(templateId);
 					Instance service = config.insertService(insertIndex, templateName);
 					service.setDatabaseId(id);
+					idToParameterOwner.put(id, service);
 					updateInstanceParameters(service, idToParams.remove(id));
 				} else if (type.equals("Module")) {
 					templateName = release.moduleTemplateName(templateId);
 					ModuleInstance module = config.insertModule(templateName, instanceName);
 					module.setDatabaseId(id);
+					if (lazyLoad)
+						deferParameters(module, id);
+					else
+						idToParameterOwner.put(id, module);
 					updateInstanceParameters(module, idToParams.remove(id));
 					idToModules.put(id, module);
 				} else if (type.equals("Path")) {
@@ -1357,6 +1967,7 @@ public class ConfDB {
 				eventContent.setDatabaseId(eventContentId);
 				streamToId.put(stream, streamId);
 				idToStream.put(streamId, stream);
+				idToParameterOwner.put(streamId, stream.outputModule());
 				ArrayList<Parameter> parameters = idToParams.remove(streamId);
 				if (parameters == null)
 					continue;
@@ -1389,6 +2000,11 @@ public class ConfDB {
 				outputModule.setDatabaseId(streamId);
 			}
 
+			if (streamingLoad && phaseToResults != null)
+				streamParameters(phaseToResults.get(loadPhaseParameters), idToParameterOwner);
+			else if (streamingLoad)
+				streamParameters(configId, idToParameterOwner);
+
 			int previouslvl = 0;
 			boolean seqtoskip = false;
 			int lvltoskip = 0;
@@ -1706,11 +2322,17 @@ public class ConfDB {
 			// System.err.println("###########################End of
 			// loops###################");
 
+			long loadEnd = System.currentTimeMillis();
+			timings.put("assemble", loadEnd - queryTime);
+			timings.put("total", loadEnd - loadStart);
+			loadTimings = Collections.unmodifiableMap(timings);
+
 		} catch (SQLException e) {
 			String errMsg = "ConfDB::loadConfiguration(Configuration config) failed " + "(configId=" + configId + "): "
 					+ e.getMessage();
 			throw new DatabaseException(errMsg, e);
 		} finally {
+			releaseParameterQuery(phaseToResults);
 			/*
 			 * dbConnector.release(rsInstances); dbConnector.release(rsPathEntries);
 			 * dbConnector.release(rsSequenceEntries);
@@ -1780,6 +2402,12 @@ public class ConfDB {
 		try {
 			dbConnector.getConnection().setAutoCommit(false);
 
+			// the version the database ids of the components refer to
+			int baseId = deltaSave ? config.dbId() : -1;
+
+			// the fingerprints of changed paths and sequences need all parameters
+			loadDeferredParameters(config);
+
 			psFindConfiguration.setString(1, config.parentDir().name() + "/" + config.name());
 			rs = psFindConfiguration.executeQuery();
 			Integer id_config = 0;
@@ -1819,19 +2447,19 @@ public class ConfDB {
 			config.updatePathReferences();
 
 			// insert global psets
-			insertGlobalPSets(configId, config);
+			insertGlobalPSets(configId, config, baseId);
 
 			// insert edsource
-			insertEDSources(configId, config);
+			insertEDSources(configId, config, baseId);
 
 			// insert essources
-			insertESSources(configId, config);
+			insertESSources(configId, config, baseId);
 
 			// insert esmodules
-			insertESModules(configId, config);
+			insertESModules(configId, config, baseId);
 
 			// insert services
-			insertServices(configId, config);
+			insertServices(configId, config, baseId);
 
 			HashMap<String, Integer> primaryDatasetHashMap = insertPrimaryDatasets(configId, config);
 			HashMap<String, Integer> eventContentHashMap = insertEventContents(configId, config);
@@ -1840,15 +2468,16 @@ public class ConfDB {
 			insertEventContentStreamAssoc(eventContentHashMap, streamHashMap, config);
 			insertStreamDatasetAssoc(streamHashMap, primaryDatasetHashMap, config, configId);
 
-			// insert paths
-			HashMap<String, Integer> pathHashMap = insertPaths(configId, config);
-
 			// insert sequences
 			HashMap<String, Integer> sequenceHashMap = insertSequences(configId, config);
 
 			// insert modules
 			HashMap<String, Integer> moduleHashMap = insertModules(config);
 
+			// insert paths, which may only reuse stored paths on the elements above
+			HashMap<String, Integer> pathHashMap = insertPaths(configId, config, sequenceHashMap, moduleHashMap,
+					streamHashMap, baseId);
+
 			insertEventContentStatements(configId, config, eventContentHashMap);
 			insertPathStreamPDAssoc(pathHashMap, streamHashMap, primaryDatasetHashMap, config, configId);
 
@@ -1863,7 +2492,9 @@ public class ConfDB {
 			 */
 
 			// insert references regarding paths and sequences
-			insertReferences(config, pathHashMap, sequenceHashMap, moduleHashMap, streamHashMap, configId);
+			insertReferences(config, pathHashMap, sequenceHashMap, moduleHashMap, streamHashMap, configId, baseId);
+
+			executePendingBatches();
 
 			psInsertConfDone.setInt(1, configId);
 			psInsertConfDone.executeUpdate();
@@ -1900,6 +2531,7 @@ public class ConfDB {
 					+ ",processName=" + processName + ",comment=" + comment + ") failed: " + e.getMessage();
 			throw new DatabaseException(errMsg, e);
 		} finally {
+			discardPendingBatches();
 			try {
 				dbConnector.getConnection().setAutoCommit(true);
 			} catch (SQLException e) {
@@ -1969,7 +2601,9 @@ public class ConfDB {
 	}
 
 	/** insert configuration's global PSets */
-	private void insertGlobalPSets(int configId, Configuration config) throws DatabaseException {
+	private void insertGlobalPSets(int configId, Configuration config, int baseId) throws DatabaseException {
+		if (baseId > 0 && !config.psets().hasChanged() && copyGlobalPSets(configId, baseId, config.psetCount()))
+			return;
 		for (int sequenceNb = 0; sequenceNb < config.psetCount(); sequenceNb++) {
 			// int psetId = insertSuperId();
 			PSetParameter pset = config.pset(sequenceNb);
@@ -2007,8 +2641,61 @@ public class ConfDB {
 		config.psets().setDatabaseId(1);
 	}
 
+	/** link the unchanged global psets of the previous version, false if not found */
+	private boolean copyGlobalPSets(int configId, int baseId, int psetCount) throws DatabaseException {
+		ResultSet rs = null;
+		try {
+			psSelectGlobalPSetCount.setInt(1, baseId);
+			rs = psSelectGlobalPSetCount.executeQuery();
+			if (!rs.next() || rs.getInt(1) != psetCount)
+				return false;
+			psCopyGlobalPSets.setInt(1, configId);
+			psCopyGlobalPSets.setInt(2, baseId);
+			psCopyGlobalPSets.executeUpdate();
+			return true;
+		} catch (SQLException e) {
+			String errMsg = "ConfDB::copyGlobalPSets(configId=" + configId + ",baseId=" + baseId + ") failed: "
+					+ e.getMessage();
+			throw new DatabaseException(errMsg, e);
+		} finally {
+			dbConnector.release(rs);
+		}
+	}
+
+	/**
+	 * insert the link rows 'links' with 'psInsert'; if they are identical to the
+	 * rows stored for version 'baseId' (read with 'psSelect'), copy those with
+	 * 'psCopy' instead, without building the batch
+	 */
+	private void executeLinks(ConfigLinks links, PreparedStatement psInsert, PreparedStatement psSelect,
+			PreparedStatement psCopy, int configId, int baseId) throws SQLException {
+		if (baseId > 0 && links.rowCount() > 0) {
+			ResultSet rs = null;
+			boolean unchanged = false;
+			try {
+				psSelect.setInt(1, baseId);
+				rs = psSelect.executeQuery();
+				unchanged = links.matches(rs);
+			} finally {
+				dbConnector.release(rs);
+			}
+			if (unchanged) {
+				psCopy.setInt(1, configId);
+				psCopy.setInt(2, baseId);
+				int rowCount = psCopy.executeUpdate();
+				if (rowCount != links.rowCount())
+					throw new SQLException(links.table() + ": copied " + rowCount + " rows of version " + baseId
+							+ ", expected " + links.rowCount());
+				return;
+			}
+		}
+		links.addBatch(psInsert, configId);
+		psInsert.executeBatch();
+	}
+
 	/** insert configuration's edsoures */
-	private void insertEDSources(int configId, Configuration config) throws DatabaseException {
+	private void insertEDSources(int configId, Configuration config, int baseId) throws DatabaseException {
+		ConfigLinks links = new ConfigLinks("u_conf2eds", 1);
 		for (int sequenceNb = 0; sequenceNb < config.edsourceCount(); sequenceNb++) {
 			EDSourceInstance edsource = config.edsource(sequenceNb);
 			int edsourceId = edsource.databaseId();
@@ -2032,20 +2719,11 @@ public class ConfDB {
 			} else
 				edsourceId -= 1000000;
 
-			try {
-				psInsertConfigEDSourceAssoc.setInt(1, configId);
-				psInsertConfigEDSourceAssoc.setInt(2, edsourceId);
-				psInsertConfigEDSourceAssoc.setInt(3, sequenceNb);
-				psInsertConfigEDSourceAssoc.addBatch();
-			} catch (SQLException e) {
-				String errMsg = "ConfDB::insertEDSources(configID=" + configId + ") failed " + "(edsourceId="
-						+ edsourceId + ", sequenceNb=" + sequenceNb + "): " + e.getMessage();
-				throw new DatabaseException(errMsg, e);
-			}
+			links.add(edsourceId, sequenceNb);
 		}
 
 		try {
-			psInsertConfigEDSourceAssoc.executeBatch();
+			executeLinks(links, psInsertConfigEDSourceAssoc, psSelectConfigEDSourceAssoc, psCopyConfigEDSourceAssoc, configId, baseId);
 		} catch (SQLException e) {
 			String errMsg = "ConfDB::insertEDSources(configId=" + configId + ") failed " + "(batch insert):"
 					+ e.getMessage();
@@ -2054,7 +2732,8 @@ public class ConfDB {
 	}
 
 	/** insert configuration's essources */
-	private void insertESSources(int configId, Configuration config) throws DatabaseException {
+	private void insertESSources(int configId, Configuration config, int baseId) throws DatabaseException {
+		ConfigLinks links = new ConfigLinks("u_conf2ess", 1);
 		for (int sequenceNb = 0; sequenceNb < config.essourceCount(); sequenceNb++) {
 			ESSourceInstance essource = config.essource(sequenceNb);
 			int essourceId = essource.databaseId();
@@ -2081,21 +2760,11 @@ public class ConfDB {
 			} else
 				essourceId -= 2000000;
 
-			try {
-				psInsertConfigESSourceAssoc.setInt(1, configId);
-				psInsertConfigESSourceAssoc.setInt(2, essourceId);
-				psInsertConfigESSourceAssoc.setInt(3, sequenceNb);
-				psInsertConfigESSourceAssoc.setBoolean(4, isPreferred);
-				psInsertConfigESSourceAssoc.addBatch();
-			} catch (SQLException e) {
-				String errMsg = "ConfDB::insertESSources(configID=" + configId + ") failed " + "(essourceId="
-						+ essourceId + ", sequenceNb=" + sequenceNb + "):" + e.getMessage();
-				throw new DatabaseException(errMsg, e);
-			}
+			links.add(essourceId, sequenceNb, isPreferred ? 1 : 0);
 		}
 
 		try {
-			psInsertConfigESSourceAssoc.executeBatch();
+			executeLinks(links, psInsertConfigESSourceAssoc, psSelectConfigESSourceAssoc, psCopyConfigESSourceAssoc, configId, baseId);
 		} catch (SQLException e) {
 			String errMsg = "ConfDB::insertESSources(configId=" + configId + ") failed " + "(batch insert):"
 					+ e.getMessage();
@@ -2104,7 +2773,8 @@ public class ConfDB {
 	}
 
 	/** insert configuration's esmodules */
-	private void insertESModules(int configId, Configuration config) throws DatabaseException {
+	private void insertESModules(int configId, Configuration config, int baseId) throws DatabaseException {
+		ConfigLinks links = new ConfigLinks("u_conf2esm", 1);
 		for (int sequenceNb = 0; sequenceNb < config.esmoduleCount(); sequenceNb++) {
 			ESModuleInstance esmodule = config.esmodule(sequenceNb);
 			int esmoduleId = esmodule.databaseId();
@@ -2132,21 +2802,11 @@ public class ConfDB {
 			} else
 				esmoduleId -= 3000000;
 
-			try {
-				psInsertConfigESModuleAssoc.setInt(1, configId);
-				psInsertConfigESModuleAssoc.setInt(2, esmoduleId);
-				psInsertConfigESModuleAssoc.setInt(3, sequenceNb);
-				psInsertConfigESModuleAssoc.setBoolean(4, isPreferred);
-				psInsertConfigESModuleAssoc.addBatch();
-			} catch (SQLException e) {
-				String errMsg = "ConfDB::insertESModules(configID=" + configId + ") failed " + "(esmoduleId="
-						+ esmoduleId + ", sequenceNb=" + sequenceNb + "): " + e.getMessage();
-				throw new DatabaseException(errMsg, e);
-			}
+			links.add(esmoduleId, sequenceNb, isPreferred ? 1 : 0);
 		}
 
 		try {
-			psInsertConfigESModuleAssoc.executeBatch();
+			executeLinks(links, psInsertConfigESModuleAssoc, psSelectConfigESModuleAssoc, psCopyConfigESModuleAssoc, configId, baseId);
 		} catch (SQLException e) {
 			String errMsg = "ConfDB::insertESModule(configId=" + configId + ") failed " + "(batch insert):"
 					+ e.getMessage();
@@ -2155,7 +2815,8 @@ public class ConfDB {
 	}
 
 	/** insert configuration's services */
-	private void insertServices(int configId, Configuration config) throws DatabaseException {
+	private void insertServices(int configId, Configuration config, int baseId) throws DatabaseException {
+		ConfigLinks links = new ConfigLinks("u_conf2srv", 1);
 		for (int sequenceNb = 0; sequenceNb < config.serviceCount(); sequenceNb++) {
 			ServiceInstance service = config.service(sequenceNb);
 			int serviceId = service.databaseId();
@@ -2181,20 +2842,11 @@ public class ConfDB {
 			} else
 				serviceId -= 4000000;
 
-			try {
-				psInsertConfigServiceAssoc.setInt(1, configId);
-				psInsertConfigServiceAssoc.setInt(2, serviceId);
-				psInsertConfigServiceAssoc.setInt(3, sequenceNb);
-				psInsertConfigServiceAssoc.addBatch();
-			} catch (SQLException e) {
-				String errMsg = "ConfDB::insertServices(configID=" + configId + ") failed " + "(serviceId=" + serviceId
-						+ ", sequenceNb=" + sequenceNb + "): " + e.getMessage();
-				throw new DatabaseException(errMsg, e);
-			}
+			links.add(serviceId, sequenceNb);
 		}
 
 		try {
-			psInsertConfigServiceAssoc.executeBatch();
+			executeLinks(links, psInsertConfigServiceAssoc, psSelectConfigServiceAssoc, psCopyConfigServiceAssoc, configId, baseId);
 		} catch (SQLException e) {
 			String errMsg = "ConfDB::insertService(configId=" + configId + ") failed " + "(batch insert):"
 					+ e.getMessage();
@@ -2202,26 +2854,193 @@ public class ConfDB {
 		}
 	}
 
+	/** structural fingerprint of a path, see ContentHash */
 	private Integer calculatePathCRC(Path path) {
-		return 111111;
+		return ContentHash.of(path);
 	}
 
+	/** structural fingerprint of a sequence, see ContentHash */
 	private Integer calculateSequenceCRC(Sequence seq) {
-		return 111111;
+		return ContentHash.of(seq);
 	}
 
+	/** structural fingerprint of a module, see ContentHash */
 	private Integer calculateModuleCRC(ModuleInstance module) {
-		return 111111;
+		return ContentHash.of(module);
+	}
+
+	/** structural fingerprint of a template, see ContentHash */
+	private Integer calculateTemplateCRC(Template template) {
+		return ContentHash.of(template);
+	}
+
+	/**
+	 * id of a stored path with identical content, -1 if none; the entries stored
+	 * for the path must be the very rows its entries are saved as in this
+	 * configuration, with the modules, sequences and streams already inserted
+	 */
+	private int selectIdenticalPathId(int crc32, int id_path, Path path, HashMap<String, Integer> sequenceHashMap,
+			HashMap<String, Integer> moduleHashMap, HashMap<String, Integer> streamHashMap) throws SQLException {
+		ArrayList<Integer> candidates = new ArrayList<Integer>();
+		ResultSet rs = null;
+		try {
+			psSelectPathIdByCrc.setInt(1, crc32);
+			psSelectPathIdByCrc.setInt(2, id_path);
+			psSelectPathIdByCrc.setInt(3, path.isSetAsEndPath() ? 1 : 0);
+			rs = psSelectPathIdByCrc.executeQuery();
+			while (rs.next()) {
+				String dbDescription = rs.getString(2);
+				String dbContacts = rs.getString(3);
+				if (sameString(path.getDescription(), dbDescription) && sameString(path.getContacts(), dbContacts))
+					candidates.add(rs.getInt(1));
+			}
+		} finally {
+			dbConnector.release(rs);
+		}
+		if (candidates.isEmpty())
+			return -1;
+
+		ConfigLinks elements = new ConfigLinks("u_pathid2pae", 1);
+		ConfigLinks outputs = new ConfigLinks("u_pathid2outm", 1);
+		addPathLinks(path, -1, 0, sequenceHashMap, moduleHashMap, streamHashMap, elements, outputs);
+		for (int pathId : candidates) {
+			if (storedLinksMatch(psSelectPathIdElements, pathId, elements)
+					&& storedLinksMatch(psSelectPathIdOutputModules, pathId, outputs))
+				return pathId;
+		}
+		return -1;
+	}
+
+	/** check if the rows selected for 'id' by 'ps' are the rows of 'links' */
+	private boolean storedLinksMatch(PreparedStatement ps, int id, ConfigLinks links) throws SQLException {
+		ResultSet rs = null;
+		try {
+			ps.setInt(1, id);
+			rs = ps.executeQuery();
+			return links.matches(rs);
+		} finally {
+			dbConnector.release(rs);
+		}
+	}
+
+	/**
+	 * id of a stored sequence with the same name and fingerprint, -1 if none; a
+	 * sequence row holds no content, its entries are saved with each path and
+	 * configuration, so reusing it can not change what is stored
+	 */
+	private int selectIdenticalSequenceId(int crc32, String sequenceName) throws SQLException {
+		ResultSet rs = null;
+		try {
+			psSelectSequenceByCrc.setInt(1, crc32);
+			psSelectSequenceByCrc.setString(2, sequenceName);
+			rs = psSelectSequenceByCrc.executeQuery();
+			return rs.next() ? rs.getInt(1) : -1;
+		} finally {
+			dbConnector.release(rs);
+		}
+	}
+
+	/**
+	 * id of a stored module with identical content, -1 if none; the parameters
+	 * stored for a candidate are compared with those of the module
+	 */
+	private int selectIdenticalModuleId(int crc32, ModuleInstance module, int templateId) throws DatabaseException {
+		ArrayList<Integer> candidates = new ArrayList<Integer>();
+		ResultSet rs = null;
+		try {
+			psSelectModuleByCrc.setInt(1, crc32);
+			psSelectModuleByCrc.setString(2, module.name());
+			psSelectModuleByCrc.setInt(3, templateId);
+			rs = psSelectModuleByCrc.executeQuery();
+			while (rs.next())
+				candidates.add(rs.getInt(1));
+			dbConnector.release(rs);
+			rs = null;
+
+			for (int moduleId : candidates) {
+				for (int i = 0; i < parameterChunkSize; i++)
+					psSelectModuleParameters.setInt(i + 1, (i == 0) ? moduleId : -1);
+				PSetParameter stored = new PSetParameter("", "", false);
+				HashMap<Integer, Object> idToOwner = new HashMap<Integer, Object>();
+				idToOwner.put(moduleId, stored);
+				rs = psSelectModuleParameters.executeQuery();
+				streamParameters(rs, idToOwner);
+				dbConnector.release(rs);
+				rs = null;
+				if (sameParameters(storedParameters(module), stored))
+					return moduleId;
+			}
+			return -1;
+		} catch (SQLException e) {
+			String errMsg = "ConfDB::selectIdenticalModuleId(moduleName=" + module.name() + ") failed: "
+					+ e.getMessage();
+			throw new DatabaseException(errMsg, e);
+		} finally {
+			dbConnector.release(rs);
+		}
+	}
+
+	/** the parameters of an instance which are stored, see insertInstanceParameters */
+	private static ArrayList<Parameter> storedParameters(Instance instance) {
+		ArrayList<Parameter> result = new ArrayList<Parameter>();
+		for (int i = 0; i < instance.parameterCount(); i++)
+			if (!instance.parameter(i).isDefault())
+				result.add(instance.parameter(i));
+		return result;
+	}
+
+	/** check if 'parameters' are the parameters of 'pset', recursively */
+	private static boolean sameParameters(List<Parameter> parameters, PSetParameter pset) {
+		if (parameters.size() != pset.parameterCount())
+			return false;
+		for (int i = 0; i < parameters.size(); i++)
+			if (!sameParameter(parameters.get(i), pset.parameter(i)))
+				return false;
+		return true;
+	}
+
+	/** check if two parameters have the same name, type and value, recursively */
+	private static boolean sameParameter(Parameter p1, Parameter p2) {
+		if (!p1.name().equals(p2.name()) || !p1.type().equals(p2.type()) || p1.isTracked() != p2.isTracked())
+			return false;
+		if (p1 instanceof VPSetParameter) {
+			VPSetParameter vpset1 = (VPSetParameter) p1;
+			VPSetParameter vpset2 = (VPSetParameter) p2;
+			if (vpset1.parameterSetCount() != vpset2.parameterSetCount())
+				return false;
+			for (int i = 0; i < vpset1.parameterSetCount(); i++)
+				if (!sameParameter(vpset1.parameterSet(i), vpset2.parameterSet(i)))
+					return false;
+			return true;
+		}
+		if (p1 instanceof PSetParameter) {
+			PSetParameter pset = (PSetParameter) p1;
+			ArrayList<Parameter> parameters = new ArrayList<Parameter>();
+			for (int i = 0; i < pset.parameterCount(); i++)
+				parameters.add(pset.parameter(i));
+			return sameParameters(parameters, (PSetParameter) p2);
+		}
+		return sameString(p1.valueAsString(), p2.valueAsString());
 	}
 
-	private Integer calculateTemplateCRC() {
-		return 111111;
+	/** compare two strings from the GUI and the database, null and "" are the same */
+	private static boolean sameString(String s1, String s2) {
+		return ((s1 == null) ? "" : s1).equals((s2 == null) ? "" : s2);
 	}
 
 	/** insert configuration's paths */
-	private HashMap<String, Integer> insertPaths(int configId, Configuration config) throws DatabaseException {
+	private HashMap<String, Integer> insertPaths(int configId, Configuration config,
+			HashMap<String, Integer> sequenceHashMap, HashMap<String, Integer> moduleHashMap,
+			HashMap<String, Integer> streamHashMap, int baseId) throws DatabaseException {
 		HashMap<String, Integer> result = new HashMap<String, Integer>();
 		HashMap<Integer, Path> idToPath = new HashMap<Integer, Path>();
+		ConfigLinks links = new ConfigLinks("u_pathid2conf", 2);
+		KeyedInserts pathIdInserts = new KeyedInserts(
+				"INSERT INTO u_pathids (id_path,pathid,isEndPath,crc32,crc32logic,description, contact, fromdb) "
+						+ "VALUES(?, NULL, ?, ?, ?, ?, ?,'gui')",
+				Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.VARCHAR, Types.VARCHAR);
+		ArrayList<Path> newPaths = new ArrayList<Path>();
+		ArrayList<Integer> newPathOrds = new ArrayList<Integer>();
 
 		ResultSet rs = null;
 		try {
@@ -2238,10 +3057,7 @@ public class ConfDB {
 				if (pathId <= 0) {
 
 					int id_path = -1;
-					int crc32 = 0;
-					/*
-					 * h_ tables int crc32 = calculatePathCRC(path);
-					 */
+					int crc32 = calculatePathCRC(path);
 					psCheckPathName.setString(1, pathName);
 					rs = psCheckPathName.executeQuery();
 					if (rs.next()) {
@@ -2293,24 +3109,20 @@ public class ConfDB {
 						 * psUpdatePathDescription.executeUpdate(); }
 						 */
 
-					psInsertPathIds.setInt(1, id_path);
-					if (pathIsEndPath) {
-						psInsertPathIds.setInt(2, 1);
+					int identicalPathId = reuseIdenticalElements
+							? selectIdenticalPathId(crc32, id_path, path, sequenceHashMap, moduleHashMap,
+									streamHashMap)
+							: -1;
+					if (identicalPathId > 0) {
+						vpathId = identicalPathId;
+						pathId = vpathId;
 					} else {
-						psInsertPathIds.setInt(2, 0);
+						// the id is assigned below, with those of the other new paths
+						pathIdInserts.add(id_path, pathIsEndPath ? 1 : 0, crc32, null, description, contacts);
+						newPaths.add(path);
+						newPathOrds.add(sequenceNb);
+						continue;
 					}
-					// psInsertPathIds.setInt(3,crc32);
-					psInsertPathIds.setNull(3, Types.INTEGER);// crc
-					// psInsertPathIds.setInt(4,111111);
-					psInsertPathIds.setNull(4, Types.INTEGER);
-					psInsertPathIds.setString(5, description);
-					psInsertPathIds.setString(6, contacts);
-					psInsertPathIds.executeUpdate();
-					rs = psInsertPathIds.getGeneratedKeys();
-					rs.next();
-					vpathId = rs.getInt(1);
-					// System.err.println("insertPath: created vpathid "+vpathId);
-					pathId = vpathId; // if not using h_ tables
 
 					/*
 					 * only for h_ tables psCheckHPathIdCrc.setInt(1,crc32);
@@ -2330,7 +3142,8 @@ public class ConfDB {
 					 * psInsertHPathId2Uq.executeUpdate(); }
 					 */
 
-					result.put(pathName, pathId);
+					// references of a reused path id are in the database already
+					result.put(pathName, -pathId);
 					idToPath.put(pathId, path);
 				} else {
 					result.put(pathName, -pathId);
@@ -2344,10 +3157,7 @@ public class ConfDB {
 
 				// System.err.println("insertPath: Trying to insert confver "+configId+" v
 				// pathid "+vpathId);
-				psInsertConfigPathAssoc.setInt(1, vpathId);
-				psInsertConfigPathAssoc.setInt(2, configId);
-				psInsertConfigPathAssoc.setInt(3, sequenceNb);
-				psInsertConfigPathAssoc.addBatch();
+				links.add(vpathId, sequenceNb);
 				// psInsertConfigPathAssoc.executeUpdate();
 
 				/*
@@ -2359,11 +3169,20 @@ public class ConfDB {
 				 */
 			}
 
+			int[] newPathIds = pathIdInserts.execute(dbConnector.getConnection(), insertBatchSize);
+			for (int i = 0; i < newPathIds.length; i++) {
+				Path path = newPaths.get(i);
+				result.put(path.name(), newPathIds[i]);
+				idToPath.put(newPathIds[i], path);
+				links.add(newPathIds[i], newPathOrds.get(i));
+			}
+
 			// only *now* set the new databaseId of changed paths!
 			for (Map.Entry<Integer, Path> e : idToPath.entrySet()) {
 				int id = e.getKey();
 				Path p = e.getValue();
 				p.setDatabaseId(id);
+				p.setCrcval(calculatePathCRC(p));
 			}
 		} catch (SQLException e) {
 			String errMsg = "ConfDB::insertPaths(configId=" + configId + ") failed: " + e.getMessage();
@@ -2373,7 +3192,7 @@ public class ConfDB {
 		}
 
 		try {
-			psInsertConfigPathAssoc.executeBatch();
+			executeLinks(links, psInsertConfigPathAssoc, psSelectConfigPathAssoc, psCopyConfigPathAssoc, configId, baseId);
 		} catch (SQLException e) {
 			String errMsg = "ConfDB::insertPaths(configId=" + configId + ") failed (batch insert): " + e.getMessage();
 			throw new DatabaseException(errMsg, e);
@@ -2386,8 +3205,9 @@ public class ConfDB {
 	private HashMap<String, Integer> insertSequences(int configId, Configuration config) throws DatabaseException {
 		HashMap<String, Integer> result = new HashMap<String, Integer>();
 		HashMap<Integer, Sequence> idToSequence = new HashMap<Integer, Sequence>();
+		KeyedInserts pathElementInserts = pathElementInserts();
+		ArrayList<Sequence> newSequences = new ArrayList<Sequence>();
 
-		ResultSet rs = null;
 		try {
 			for (int sequenceNb = 0; sequenceNb < config.sequenceCount(); sequenceNb++) {
 				Sequence sequence = config.sequence(sequenceNb);
@@ -2396,21 +3216,17 @@ public class ConfDB {
 				String sequenceName = sequence.name();
 
 				if (sequenceId <= 0) {
-					// int crc32 = calculateSequenceCRC(sequence);
-					int crc32 = 0;
-					psInsertPathElement.setInt(1, 2); // paetype
-					psInsertPathElement.setString(2, sequenceName);
-					// psInsertPathElement.setInt(3,crc32);
-					psInsertPathElement.setNull(3, Types.INTEGER);
-
-					psInsertPathElement.executeUpdate();
-
-					rs = psInsertPathElement.getGeneratedKeys();
-					rs.next();
-
-					sequenceId = rs.getInt(1);
-					result.put(sequenceName, sequenceId);
-					idToSequence.put(sequenceId, sequence);
+					int crc32 = calculateSequenceCRC(sequence);
+					int identicalSequenceId = reuseIdenticalElements ? selectIdenticalSequenceId(crc32, sequenceName)
+							: -1;
+					if (identicalSequenceId > 0) {
+						sequenceId = identicalSequenceId;
+						result.put(sequenceName, -sequenceId);
+						idToSequence.put(sequenceId, sequence);
+					} else {
+						pathElementInserts.add(2, sequenceName, crc32); // paetype
+						newSequences.add(sequence);
+					}
 				} else
 					result.put(sequenceName, -sequenceId);
 
@@ -2420,17 +3236,23 @@ public class ConfDB {
 				// psInsertConfigSequenceAssoc.addBatch();
 			}
 
+			int[] newSequenceIds = pathElementInserts.execute(dbConnector.getConnection(), insertBatchSize);
+			for (int i = 0; i < newSequenceIds.length; i++) {
+				Sequence sequence = newSequences.get(i);
+				result.put(sequence.name(), newSequenceIds[i]);
+				idToSequence.put(newSequenceIds[i], sequence);
+			}
+
 			// only *now* set the new databaseId of changed sequences!
 			for (Map.Entry<Integer, Sequence> e : idToSequence.entrySet()) {
 				int id = e.getKey();
 				Sequence s = e.getValue();
 				s.setDatabaseId(id);
+				s.setCrcval(calculateSequenceCRC(s));
 			}
 		} catch (SQLException e) {
 			String errMsg = "ConfDB::insertSequences(configId=" + configId + ") failed: " + e.getMessage();
 			throw new DatabaseException(errMsg, e);
-		} finally {
-			dbConnector.release(rs);
 		}
 
 		/*
@@ -2444,194 +3266,102 @@ public class ConfDB {
 	/** insert configuration's modules */
 	private HashMap<String, Integer> insertModules(Configuration config) throws DatabaseException {
 		HashMap<String, Integer> result = new HashMap<String, Integer>();
-
-		ArrayList<IdInstancePair> modulesToStore = new ArrayList<IdInstancePair>();
-
-		ResultSet rs = null;
+		KeyedInserts pathElementInserts = pathElementInserts();
+		ArrayList<ModuleInstance> newModules = new ArrayList<ModuleInstance>();
+		ArrayList<Integer> newModuleCrcs = new ArrayList<Integer>();
 
 		for (int i = 0; i < config.moduleCount(); i++) {
 			ModuleInstance module = config.module(i);
 			int moduleId = module.databaseId();
-			int hmoduleId = module.databaseId();
 			int templateId = module.template().databaseId();
 			if (moduleId > 0) {
 				result.put(module.name(), moduleId);
 			} else {
-				// int crc32 = calculateModuleCRC(module);
-				int crc32 = 0;
-				try {
-					psInsertPathElement.setInt(1, 1); // paetype
-					psInsertPathElement.setString(2, module.name());
-					// psInsertPathElement.setInt(3,crc32);
-					psInsertPathElement.setNull(3, Types.INTEGER); // crc
-					psInsertPathElement.executeUpdate();
-
-					rs = psInsertPathElement.getGeneratedKeys();
-					rs.next();
-					moduleId = rs.getInt(1);
-
-					psInsertMod2Templ.setInt(1, moduleId);
-					psInsertMod2Templ.setInt(2, templateId);
-					psInsertMod2Templ.addBatch();
-
-					insertInstanceParameters(moduleId, module, psInsertMoElement);
-
-					result.put(module.name(), moduleId);
-					modulesToStore.add(new IdInstancePair(moduleId, module));
-					module.setDatabaseId(moduleId);
-
-					/*
-					 * Only for h_ tables psCheckHPaElCrc.setInt(1,crc32);
-					 * rs=psCheckHPaElCrc.executeQuery(); if (rs.next()) { hmoduleId=rs.getInt(1);
-					 * System.out.println("insertPath: found crc in pathid "+moduleId); } else {
-					 * psInsertHPaEl.setInt(1,crc32); psInsertHPaEl.setInt(2,111111);
-					 * psInsertHPaEl.executeUpdate(); rs = psInsertHPaEl.getGeneratedKeys();
-					 * rs.next(); hmoduleId=rs.getInt(1);
-					 * System.out.println("insertPath: created HPAE "+moduleId);
-					 * insertInstanceParameters(hmoduleId,module,psInsertParameterHMOE);
-					 * 
-					 * }
-					 */
-				} catch (SQLException e) {
-					String errMsg = "ConfDB::insertModules(config=" + config.toString() + " failed (moduleId="
-							+ moduleId + " templateId=" + templateId + "): " + e.getMessage();
-					throw new DatabaseException(errMsg, e);
+				int crc32 = calculateModuleCRC(module);
+				int identicalModuleId = reuseIdenticalElements ? selectIdenticalModuleId(crc32, module, templateId)
+						: -1;
+				if (identicalModuleId > 0) {
+					result.put(module.name(), identicalModuleId);
+					module.setDatabaseId(identicalModuleId);
+					module.setCrcval(crc32);
+					continue;
 				}
+				pathElementInserts.add(1, module.name(), crc32); // paetype
+				newModules.add(module);
+				newModuleCrcs.add(crc32);
 			}
 		}
 
+		int moduleId = -1;
 		try {
-			psInsertMod2Templ.executeBatch();
-			psInsertMoElement.executeBatch();
-			// psInsertPae2Moe.executeBatch();
+			int[] newModuleIds = pathElementInserts.execute(dbConnector.getConnection(), insertBatchSize);
+			for (int i = 0; i < newModuleIds.length; i++) {
+				ModuleInstance module = newModules.get(i);
+				moduleId = newModuleIds[i];
+
+				psInsertMod2Templ.setInt(1, moduleId);
+				psInsertMod2Templ.setInt(2, module.template().databaseId());
+				addToBatch(psInsertMod2Templ);
+
+				insertInstanceParameters(moduleId, module, psInsertMoElement);
+
+				result.put(module.name(), moduleId);
+				module.setDatabaseId(moduleId);
+				module.setCrcval(newModuleCrcs.get(i));
+			}
+			flushMoElements();
 		} catch (SQLException e) {
-			String errMsg = "ConfDB::insertModules(configId=" + config.toString() + ") failed " + "(batch insert): "
-					+ e.getMessage();
+			String errMsg = "ConfDB::insertModules(config=" + config.toString() + ") failed (moduleId=" + moduleId
+					+ "): " + e.getMessage();
 			throw new DatabaseException(errMsg, e);
 		}
-
-		/*
-		 * Iterator<IdInstancePair> it=modulesToStore.iterator(); while (it.hasNext()) {
-		 * IdInstancePair pair = it.next(); int moduleId = pair.id; ModuleInstance
-		 * module = (ModuleInstance)pair.instance;
-		 * insertInstanceParameters(moduleId,module,psInsertParameterMOE);
-		 * module.setDatabaseId(moduleId); }
-		 */
 		return result;
 	}
 
+	/** new rows of u_paelements (modules, sequences), see KeyedInserts */
+	private static KeyedInserts pathElementInserts() {
+		return new KeyedInserts(
+				"INSERT INTO u_paelements (paetype,name,crc32,crc32logic,o_id) VALUES(?, ?, ?, NULL, NULL)",
+				Types.INTEGER, Types.VARCHAR, Types.INTEGER);
+	}
+
 	/** insert all references, regarding paths and sequences */
 	private void insertReferences(Configuration config, HashMap<String, Integer> pathHashMap,
 			HashMap<String, Integer> sequenceHashMap, HashMap<String, Integer> moduleHashMap,
-			HashMap<String, Integer> streamHashMap, int configId) throws DatabaseException {
+			HashMap<String, Integer> streamHashMap, int configId, int baseId) throws DatabaseException {
 		// paths
 		for (int i = 0; i < config.pathCount(); i++) {
 			Path path = config.path(i);
 			int pathId = pathHashMap.get(path.name());
 
 			if (pathId > 0) {
-
-				for (int sequenceNb = 0; sequenceNb < path.entryCount(); sequenceNb++) {
-					Reference r = path.entry(sequenceNb);
-					/*
-					 * not allowed anymore if (r instanceof PathReference) { int childPathId =
-					 * Math.abs(pathHashMap.get(r.name())); try {
-					 * psInsertPathPathAssoc.setInt(1,pathId);
-					 * psInsertPathPathAssoc.setInt(2,childPathId);
-					 * psInsertPathPathAssoc.setInt(3,sequenceNb);
-					 * psInsertPathPathAssoc.setInt(4,r.getOperator().ordinal());
-					 * psInsertPathPathAssoc.addBatch(); } catch (SQLException e) { String errMsg =
-					 * "ConfDB::insertReferences(config="+ config.toString()+
-					 * ") failed (pathId="+pathId+",childPathId="+
-					 * childPathId+",sequenceNb="+sequenceNb+"): "+ e.getMessage(); throw new
-					 * DatabaseException(errMsg,e); } } else
-					 */
-					if (r instanceof SequenceReference) {
-						int sequenceId = Math.abs(sequenceHashMap.get(r.name()));
-						// System.err.println("insertReferences - Found seq " + sequenceId + " ( " +
-						// r.name() + " )");
-						try {
-							psInsertPathElementAssoc.setInt(1, pathId);
-							psInsertPathElementAssoc.setInt(2, sequenceId);
-							psInsertPathElementAssoc.setNull(3, Types.INTEGER);// parent
-							psInsertPathElementAssoc.setInt(4, 0); // lvl
-							psInsertPathElementAssoc.setInt(5, sequenceNb);
-							psInsertPathElementAssoc.setInt(6, r.getOperator().ordinal());
-							psInsertPathElementAssoc.addBatch();
-							// psInsertPathElementAssoc.executeUpdate();
-							insertPathSeqReferences((Sequence) r.parent(), pathId, sequenceId, 1, sequenceHashMap,
-									moduleHashMap, streamHashMap);
-						} catch (SQLException e) {
-							String errMsg = "ConfDB::insertReferences(config=" + config.toString() + ") failed (pathId="
-									+ pathId + ",sequenceId=" + sequenceId + ",sequenceNb=" + sequenceNb + "): "
-									+ e.getMessage();
-							throw new DatabaseException(errMsg, e);
-						}
-					} else if (r instanceof ModuleReference) {
-						int moduleId = moduleHashMap.get(r.name());
-						try {
-							psInsertPathElementAssoc.setInt(1, pathId);
-							psInsertPathElementAssoc.setInt(2, moduleId);
-							psInsertPathElementAssoc.setNull(3, Types.INTEGER);// parent
-							psInsertPathElementAssoc.setInt(4, 0); // lvl
-							psInsertPathElementAssoc.setInt(5, sequenceNb);
-							psInsertPathElementAssoc.setInt(6, r.getOperator().ordinal());
-							psInsertPathElementAssoc.addBatch();
-							// psInsertPathElementAssoc.executeUpdate();
-						} catch (SQLException e) {
-							String errMsg = "ConfDB::insertReferences(config=" + config.toString() + ") failed (pathId="
-									+ pathId + ",moduleId=" + moduleId + ",sequenceNb=" + sequenceNb + "): "
-									+ e.getMessage();
-							throw new DatabaseException(errMsg, e);
-						}
-					} else if (r instanceof OutputModuleReference) {
-						String streamName = r.name().replaceFirst("hltOutput", "");
-						int outputModuleId = streamHashMap.get(streamName);
-						if (outputModuleId < 0)
-							outputModuleId = -1 * outputModuleId;
-						try {
-							psInsertPathOutputModuleAssoc.setInt(1, pathId);
-							psInsertPathOutputModuleAssoc.setInt(2, outputModuleId);
-							psInsertPathOutputModuleAssoc.setInt(3, sequenceNb);
-							psInsertPathOutputModuleAssoc.setInt(4, r.getOperator().ordinal());
-							psInsertPathOutputModuleAssoc.addBatch();
-							// psInsertPathOutputModuleAssoc.executeUpdate();
-						} catch (SQLException e) {
-							String errMsg = "ConfDB::insertReferences(config=" + config.toString() + ") failed (pathId="
-									+ pathId + ",moduleId=" + outputModuleId + ",sequenceNb=" + sequenceNb + "): "
-									+ e.getMessage();
-							throw new DatabaseException(errMsg, e);
-						}
-					}
+				ConfigLinks elements = new ConfigLinks("u_pathid2pae", 1);
+				ConfigLinks outputs = new ConfigLinks("u_pathid2outm", 1);
+				addPathLinks(path, -1, 0, sequenceHashMap, moduleHashMap, streamHashMap, elements, outputs);
+				try {
+					elements.addBatch(psInsertPathElementAssoc, pathId);
+					outputs.addBatch(psInsertPathOutputModuleAssoc, pathId);
+				} catch (SQLException e) {
+					String errMsg = "ConfDB::insertReferences(config=" + config.toString() + ") failed (pathId="
+							+ pathId + "): " + e.getMessage();
+					throw new DatabaseException(errMsg, e);
 				}
 			}
 		}
 //sequences
+		ConfigLinks links = new ConfigLinks("u_conf2pae", 1);
 		for (int sequenceNb = 0; sequenceNb < config.sequenceCount(); sequenceNb++) {
 			Sequence sequence = config.sequence(sequenceNb);
 			int sequenceId = sequence.databaseId();
 
-			try {
-				psInsertConfigSequenceAssoc.setInt(1, configId);
-				psInsertConfigSequenceAssoc.setInt(2, sequenceId);
-				psInsertConfigSequenceAssoc.setNull(3, Types.INTEGER);// parent
-				psInsertConfigSequenceAssoc.setInt(4, 0); // lvl
-				psInsertConfigSequenceAssoc.setInt(5, sequenceNb);
-				psInsertConfigSequenceAssoc.setInt(6, 0);
-				psInsertConfigSequenceAssoc.addBatch();
-
-				insertSeqReferences(sequence, configId, 0, 0, sequenceHashMap, moduleHashMap);
-			} catch (SQLException e) {
-				String errMsg = "ConfDB::insertSeqReferences(config=" + config.toString() + ") failed (configId="
-						+ configId + ",sequenceId=" + sequenceId + ",sequenceNb=" + sequenceNb + "): " + e.getMessage();
-				throw new DatabaseException(errMsg, e);
-			}
+			links.add(sequenceId, -1, 0, sequenceNb, 0);
+			insertSeqReferences(sequence, configId, 0, 0, sequenceHashMap, moduleHashMap, links);
 		}
 		try {
 
 			psInsertPathElementAssoc.executeBatch();
 			psInsertPathOutputModuleAssoc.executeBatch();
-			psInsertConfigSequenceAssoc.executeBatch();
+			executeLinks(links, psInsertConfigSequenceAssoc, psSelectConfigSequenceAssoc, psCopyConfigSequenceAssoc, configId, baseId);
 //            psInsertPathPathAssoc.executeBatch();
 //            psInsertPathSequenceAssoc.executeBatch();
 //            psInsertPathModuleAssoc.executeBatch();
@@ -2647,144 +3377,57 @@ public class ConfDB {
 
 	/** insert all references, regarding paths and sequences */
 	private void insertSeqReferences(Sequence sequence, int configId, int parentId, int lvl,
-			HashMap<String, Integer> sequenceHashMap, HashMap<String, Integer> moduleHashMap) throws DatabaseException {
+			HashMap<String, Integer> sequenceHashMap, HashMap<String, Integer> moduleHashMap, ConfigLinks links)
+			throws DatabaseException {
 		int sequenceId = sequenceHashMap.get(sequence.name());
 
 		for (int sequenceNb = 0; sequenceNb < sequence.entryCount(); sequenceNb++) {
 			Reference r = sequence.entry(sequenceNb);
 			if (r instanceof SequenceReference) {
 				int childSequenceId = Math.abs(sequenceHashMap.get(r.name()));
-				try {
-					psInsertConfigSequenceAssoc.setInt(1, configId);
-					psInsertConfigSequenceAssoc.setInt(2, childSequenceId);
-					psInsertConfigSequenceAssoc.setInt(3, parentId); // lvl
-					psInsertConfigSequenceAssoc.setInt(4, lvl); // lvl
-					psInsertConfigSequenceAssoc.setInt(5, sequenceNb);
-					psInsertConfigSequenceAssoc.setInt(6, r.getOperator().ordinal());
-					psInsertConfigSequenceAssoc.addBatch();
-
-					insertSeqReferences((Sequence) r.parent(), configId, childSequenceId, lvl + 1, sequenceHashMap,
-							moduleHashMap);
-
-				} catch (SQLException e) {
-					e.printStackTrace();
-					String errMsg = "ConfDB::insertReferences(Sequence=" + sequence.name() + ") failed (sequenceId="
-							+ sequenceId + " (" + sequence.name() + "), childSequenceId=" + childSequenceId + " ("
-							+ r.name() + ")" + ",sequenceNb=" + sequenceNb + "): " + e.getMessage();
-					throw new DatabaseException(errMsg, e);
-				}
+				links.add(childSequenceId, parentId, lvl, sequenceNb, r.getOperator().ordinal());
+				insertSeqReferences((Sequence) r.parent(), configId, childSequenceId, lvl + 1, sequenceHashMap,
+						moduleHashMap, links);
 			} else if (r instanceof ModuleReference) {
 				int moduleId = moduleHashMap.get(r.name());
-				try {
-					psInsertConfigSequenceAssoc.setInt(1, configId);
-					psInsertConfigSequenceAssoc.setInt(2, moduleId);
-					psInsertConfigSequenceAssoc.setInt(3, parentId); // lvl
-					psInsertConfigSequenceAssoc.setInt(4, lvl); // lvl
-					psInsertConfigSequenceAssoc.setInt(5, sequenceNb);
-					psInsertConfigSequenceAssoc.setInt(6, r.getOperator().ordinal());
-					psInsertConfigSequenceAssoc.addBatch();
-					// psInsertPathElementAssoc.executeUpdate();
-				} catch (SQLException e) {
-					String errMsg = "ConfDB::insertReferences(Sequence=" + sequence.name() + ") failed (sequenceId="
-							+ sequenceId + ",moduleId=" + moduleId + ",sequenceNb=" + sequenceNb + "): "
-							+ e.getMessage();
-					throw new DatabaseException(errMsg, e);
-				}
+				links.add(moduleId, parentId, lvl, sequenceNb, r.getOperator().ordinal());
 			}
 		}
 
 	}
 
-	/** insert all references, regarding paths and sequences */
-	private void insertPathSeqReferences(Sequence sequence, int pathId, int parentId, int lvl,
+	/**
+	 * add the rows stored for the entries of a path or of a sequence on a path
+	 * (parent 'parentId' at level 'lvl', -1 for the path itself) to 'elements'
+	 * (u_pathid2pae) and 'outputs' (u_pathid2outm), without the path id
+	 */
+	private void addPathLinks(ReferenceContainer container, int parentId, int lvl,
 			HashMap<String, Integer> sequenceHashMap, HashMap<String, Integer> moduleHashMap,
-			HashMap<String, Integer> streamHashMap) throws DatabaseException {
-
-		// sequences
-//      for (int i=0;i<config.sequenceCount();i++) {
-//          Sequence sequence   = config.sequence(i);
-//          int      sequenceId = sequenceHashMap.get(sequence.name());
-
-		int sequenceId = sequenceHashMap.get(sequence.name());
+			HashMap<String, Integer> streamHashMap, ConfigLinks elements, ConfigLinks outputs) {
+		for (int sequenceNb = 0; sequenceNb < container.entryCount(); sequenceNb++) {
+			Reference r = container.entry(sequenceNb);
+			int operator = r.getOperator().ordinal();
+			if (r instanceof SequenceReference) {
+				int childSequenceId = Math.abs(sequenceHashMap.get(r.name()));
+				elements.add(childSequenceId, parentId, lvl, sequenceNb, operator);
+				addPathLinks((Sequence) r.parent(), childSequenceId, lvl + 1, sequenceHashMap, moduleHashMap,
+						streamHashMap, elements, outputs);
+			} else if (r instanceof ModuleReference) {
+				elements.add(moduleHashMap.get(r.name()), parentId, lvl, sequenceNb, operator);
+			} else if (r instanceof OutputModuleReference) {
+				String streamName = r.name().replaceFirst("hltOutput", "");
+				outputs.add(Math.abs(streamHashMap.get(streamName)), sequenceNb, operator);
+			}
+		}
+	}
 
-		// System.err.println("insertSeqRef - Found " + sequence.entryCount() + " for
-		// seq " + sequenceId + " ( " + sequence.name() + " )");
+	/** insert configuration's Event Content */
+	private HashMap<String, Integer> insertEventContents(int configId, Configuration config) throws DatabaseException {
+		HashMap<String, Integer> result = new HashMap<String, Integer>();
 
-		// if (sequenceId>0) {
-		if (true) {
+		Iterator<EventContent> itC = config.contentIterator();
 
-			for (int sequenceNb = 0; sequenceNb < sequence.entryCount(); sequenceNb++) {
-				Reference r = sequence.entry(sequenceNb);
-				if (r instanceof SequenceReference) {
-					int childSequenceId = Math.abs(sequenceHashMap.get(r.name()));
-					try {
-						psInsertPathElementAssoc.setInt(1, pathId);
-						psInsertPathElementAssoc.setInt(2, childSequenceId);
-						psInsertPathElementAssoc.setInt(3, parentId); // lvl
-						psInsertPathElementAssoc.setInt(4, lvl); // lvl
-						psInsertPathElementAssoc.setInt(5, sequenceNb);
-						psInsertPathElementAssoc.setInt(6, r.getOperator().ordinal());
-						psInsertPathElementAssoc.addBatch();
-						// psInsertPathElementAssoc.executeUpdate();
-
-						insertPathSeqReferences((Sequence) r.parent(), pathId, childSequenceId, lvl + 1,
-								sequenceHashMap, moduleHashMap, streamHashMap);
-
-					} catch (SQLException e) {
-						e.printStackTrace();
-						String errMsg = "ConfDB::insertReferences(Sequence=" + sequence.name() + ") failed (sequenceId="
-								+ sequenceId + " (" + sequence.name() + "), childSequenceId=" + childSequenceId + " ("
-								+ r.name() + ")" + ",sequenceNb=" + sequenceNb + "): " + e.getMessage();
-						throw new DatabaseException(errMsg, e);
-					}
-				} else if (r instanceof ModuleReference) {
-					int moduleId = moduleHashMap.get(r.name());
-					try {
-						psInsertPathElementAssoc.setInt(1, pathId);
-						psInsertPathElementAssoc.setInt(2, moduleId);
-						psInsertPathElementAssoc.setInt(3, parentId); // lvl
-						psInsertPathElementAssoc.setInt(4, lvl); // lvl
-						psInsertPathElementAssoc.setInt(5, sequenceNb);
-						psInsertPathElementAssoc.setInt(6, r.getOperator().ordinal());
-						psInsertPathElementAssoc.addBatch();
-						// psInsertPathElementAssoc.executeUpdate();
-					} catch (SQLException e) {
-						String errMsg = "ConfDB::insertReferences(Sequence=" + sequence.name() + ") failed (sequenceId="
-								+ sequenceId + ",moduleId=" + moduleId + ",sequenceNb=" + sequenceNb + "): "
-								+ e.getMessage();
-						throw new DatabaseException(errMsg, e);
-					}
-				} else if (r instanceof OutputModuleReference) {
-					String streamName = r.name().replaceFirst("hltOutput", "");
-					int outputModuleId = streamHashMap.get(streamName);
-					if (outputModuleId < 0)
-						outputModuleId = -1 * outputModuleId;
-					try {
-						psInsertPathOutputModuleAssoc.setInt(1, pathId);
-						psInsertPathOutputModuleAssoc.setInt(2, outputModuleId);
-						psInsertPathOutputModuleAssoc.setInt(3, sequenceNb);
-						psInsertPathOutputModuleAssoc.setInt(4, r.getOperator().ordinal());
-						psInsertPathOutputModuleAssoc.addBatch();
-						// psInsertPathOutputModuleAssoc.executeUpdate();
-					} catch (SQLException e) {
-						String errMsg = "ConfDB::insertReferences(sequence=" + sequence.name() + ") failed (sequenceId="
-								+ sequenceId + ",outputmoduleId=" + outputModuleId + ",sequenceNb=" + sequenceNb + "): "
-								+ e.getMessage();
-						throw new DatabaseException(errMsg, e);
-					}
-				}
-			}
-		}
-
-	}
-
-	/** insert configuration's Event Content */
-	private HashMap<String, Integer> insertEventContents(int configId, Configuration config) throws DatabaseException {
-		HashMap<String, Integer> result = new HashMap<String, Integer>();
-
-		Iterator<EventContent> itC = config.contentIterator();
-
-		ResultSet rse;
+		ResultSet rse;
 
 		while (itC.hasNext()) {
 			EventContent eventContent = itC.next();
@@ -3329,133 +3972,188 @@ public class ConfDB {
 		}
 	}
 
-	public synchronized int getConfigId(int newId) throws DatabaseException {
+	public int getConfigId(int newId) throws DatabaseException {
+		PooledDatabaseConnector pool = connectionPool;
+		ConfDB session = borrowSession(pool);
+		if (session != null) {
+			try {
+				return session.getConfigId(newId);
+			} finally {
+				returnSession(pool, session);
+			}
+		}
+		synchronized (this) {
 
-		reconnect();
+			reconnect();
 
-		ResultSet rs = null;
-		int oldId = -1;
+			ResultSet rs = null;
+			int oldId = -1;
 
-		try {
-			psSelectOrigDbId.setInt(1, newId);
-			rs = psSelectOrigDbId.executeQuery();
-			while (rs.next()) {
-				oldId = rs.getInt(1);
+			try {
+				psSelectOrigDbId.setInt(1, newId);
+				rs = psSelectOrigDbId.executeQuery();
+				while (rs.next()) {
+					oldId = rs.getInt(1);
+				}
+				;
+			} catch (SQLException e) {
+				String errMsg = "ConfDB::getConfigId(newID" + newId + ": " + e.getMessage();
+				throw new DatabaseException(errMsg, e);
 			}
 			;
-		} catch (SQLException e) {
-			String errMsg = "ConfDB::getConfigId(newID" + newId + ": " + e.getMessage();
-			throw new DatabaseException(errMsg, e);
-		}
-		;
 
-		return oldId;
+			return oldId;
+		}
 	}
 
-	public synchronized int getConfigId(String fullConfigName) throws DatabaseException {
-		int newId = getConfigNewId(fullConfigName);
-		// System.out.println("getConfigId : " + fullConfigName + " newId " + newId );
+	public int getConfigId(String fullConfigName) throws DatabaseException {
+		PooledDatabaseConnector pool = connectionPool;
+		ConfDB session = borrowSession(pool);
+		if (session != null) {
+			try {
+				return session.getConfigId(fullConfigName);
+			} finally {
+				returnSession(pool, session);
+			}
+		}
+		synchronized (this) {
+			int newId = getConfigNewId(fullConfigName);
+			// System.out.println("getConfigId : " + fullConfigName + " newId " + newId );
 
-		reconnect();
+			reconnect();
 
-		ResultSet rs = null;
-		int oldId = -1;
+			ResultSet rs = null;
+			int oldId = -1;
 
-		try {
-			psSelectOrigDbId.setInt(1, newId);
-			rs = psSelectOrigDbId.executeQuery();
-			while (rs.next()) {
-				oldId = rs.getInt(1);
+			try {
+				psSelectOrigDbId.setInt(1, newId);
+				rs = psSelectOrigDbId.executeQuery();
+				while (rs.next()) {
+					oldId = rs.getInt(1);
+				}
+				;
+			} catch (SQLException e) {
+				String errMsg = "ConfDB::getConfigId(fullConfigName=" + fullConfigName + ": " + e.getMessage();
+				throw new DatabaseException(errMsg, e);
 			}
 			;
-		} catch (SQLException e) {
-			String errMsg = "ConfDB::getConfigId(fullConfigName=" + fullConfigName + ": " + e.getMessage();
-			throw new DatabaseException(errMsg, e);
-		}
-		;
 
-		return oldId;
+			return oldId;
+		}
 	}
 
 	/** get the configuration id for a configuration name */
-	public synchronized int getConfigNewId(String fullConfigName) throws DatabaseException {
-		reconnect();
+	public int getConfigNewId(String fullConfigName) throws DatabaseException {
+		PooledDatabaseConnector pool = connectionPool;
+		ConfDB session = borrowSession(pool);
+		if (session != null) {
+			try {
+				return session.getConfigNewId(fullConfigName);
+			} finally {
+				returnSession(pool, session);
+			}
+		}
+		synchronized (this) {
+			reconnect();
 
-		int version = 0;
+			int version = 0;
 
-		int index = fullConfigName.lastIndexOf("/V");
-		if (index >= 0) {
-			version = Integer.parseInt(fullConfigName.substring(index + 2));
-			fullConfigName = fullConfigName.substring(0, index);
-		}
+			int index = fullConfigName.lastIndexOf("/V");
+			if (index >= 0) {
+				version = Integer.parseInt(fullConfigName.substring(index + 2));
+				fullConfigName = fullConfigName.substring(0, index);
+			}
 
-		index = fullConfigName.lastIndexOf("/");
-		if (index < 0) {
-			String errMsg = "ConfDB::getConfigNewId(fullConfigName=" + fullConfigName + ") failed (invalid name).";
-			throw new DatabaseException(errMsg);
-		}
+			index = fullConfigName.lastIndexOf("/");
+			if (index < 0) {
+				String errMsg = "ConfDB::getConfigNewId(fullConfigName=" + fullConfigName + ") failed (invalid name).";
+				throw new DatabaseException(errMsg);
+			}
 
-		String dirName = fullConfigName.substring(0, index);
-		String configName = fullConfigName.substring(index + 1);
+			String dirName = fullConfigName.substring(0, index);
+			String configName = fullConfigName.substring(index + 1);
 
-		ResultSet rs = null;
-		try {
+			ResultSet rs = null;
+			try {
 
-			PreparedStatement ps = null;
+				PreparedStatement ps = null;
 
-			if (version > 0) {
-				ps = psSelectConfigurationId;
-				ps.setString(1, dirName);
-				ps.setString(2, configName);
-				ps.setInt(3, version);
-			} else {
-				ps = psSelectConfigurationIdLatest;
-				ps.setString(1, dirName);
-				ps.setString(2, configName);
-			}
+				if (version > 0) {
+					ps = psSelectConfigurationId;
+					ps.setString(1, dirName);
+					ps.setString(2, configName);
+					ps.setInt(3, version);
+				} else {
+					ps = psSelectConfigurationIdLatest;
+					ps.setString(1, dirName);
+					ps.setString(2, configName);
+				}
 
-			rs = ps.executeQuery();
-			rs.next();
-			return rs.getInt(1);
-		} catch (SQLException e) {
-			String errMsg = "ConfDB::getConfigNewId(fullConfigName=" + fullConfigName + ") failed (dirName=" + dirName
-					+ ", configName=" + configName + ",version=" + version + "): " + e.getMessage();
-			throw new DatabaseException(errMsg, e);
-		} finally {
-			dbConnector.release(rs);
+				rs = ps.executeQuery();
+				rs.next();
+				return rs.getInt(1);
+			} catch (SQLException e) {
+				String errMsg = "ConfDB::getConfigNewId(fullConfigName=" + fullConfigName + ") failed (dirName=" + dirName
+						+ ", configName=" + configName + ",version=" + version + "): " + e.getMessage();
+				throw new DatabaseException(errMsg, e);
+			} finally {
+				dbConnector.release(rs);
+			}
 		}
 	}
 
 	/** get ConfigInfo for a particular configId */
-	public synchronized ConfigInfo getConfigInfo(int configId) throws DatabaseException {
-		reconnect();
-		ResultSet rs = null;
-		int newId = -1;
-		try {
-			psSelectNewDbId.setInt(1, configId);
-			rs = psSelectNewDbId.executeQuery();
-			while (rs.next()) {
-				newId = rs.getInt(1);
+	public ConfigInfo getConfigInfo(int configId) throws DatabaseException {
+		PooledDatabaseConnector pool = connectionPool;
+		ConfDB session = borrowSession(pool);
+		if (session != null) {
+			try {
+				return session.getConfigInfo(configId);
+			} finally {
+				returnSession(pool, session);
 			}
-			;
-		} catch (SQLException e) {
-			String errMsg = "ConfDB::getConfigInfo(Configuration config) failed " + "(OrigconfigId=" + configId + "): "
-					+ e.getMessage();
-			throw new DatabaseException(errMsg, e);
 		}
-		;
+		synchronized (this) {
+			reconnect();
+			ResultSet rs = null;
+			int newId = -1;
+			try {
+				psSelectNewDbId.setInt(1, configId);
+				rs = psSelectNewDbId.executeQuery();
+				while (rs.next()) {
+					newId = rs.getInt(1);
+				}
+				;
+			} catch (SQLException e) {
+				String errMsg = "ConfDB::getConfigInfo(Configuration config) failed " + "(OrigconfigId=" + configId + "): "
+						+ e.getMessage();
+				throw new DatabaseException(errMsg, e);
+			}
+			;
 
-		return getConfigNewInfo(newId);
+			return getConfigNewInfo(newId);
+		}
 	};
 
 	/** get ConfigInfo for a particular configId */
-	public synchronized ConfigInfo getConfigNewInfo(int configId) throws DatabaseException {
-		ConfigInfo result = getConfigNewInfo(configId, loadConfigurationTree());
-		if (result == null) {
-			String errMsg = "ConfDB::getConfigNewInfo(configId=" + configId + ") failed.";
-			throw new DatabaseException(errMsg);
+	public ConfigInfo getConfigNewInfo(int configId) throws DatabaseException {
+		PooledDatabaseConnector pool = connectionPool;
+		ConfDB session = borrowSession(pool);
+		if (session != null) {
+			try {
+				return session.getConfigNewInfo(configId);
+			} finally {
+				returnSession(pool, session);
+			}
+		}
+		synchronized (this) {
+			ConfigInfo result = getConfigNewInfo(configId, loadConfigurationTree());
+			if (result == null) {
+				String errMsg = "ConfDB::getConfigNewInfo(configId=" + configId + ") failed.";
+				throw new DatabaseException(errMsg);
+			}
+			return result;
 		}
-		return result;
 	}
 
 	/** get all configuration names */
@@ -3948,6 +4646,7 @@ public class ConfDB {
 			rsInsertReleaseTag.next();
 			int releaseId = rsInsertReleaseTag.getInt(1);
 			insertSoftwareSubsystem(newRelease, releaseId);
+			executePendingBatches();
 
 			/*
 			 * was already psInsertEDSourceTemplate.executeBatch();
@@ -3972,6 +4671,8 @@ public class ConfDB {
 			}
 
 			dbConnector.getConnection().commit();
+			// a release of the same id may be cached from before it was reused
+			SoftwareReleaseCache.remove(dbUrl, releaseId);
 		} catch (Exception e) {
 			e.printStackTrace();
 			try {
@@ -3981,6 +4682,7 @@ public class ConfDB {
 			}
 			throw new DatabaseException("removeSoftwareRelease FAILED", e);
 		} finally {
+			discardPendingBatches();
 			try {
 				dbConnector.getConnection().setAutoCommit(true);
 			} catch (SQLException e) {
@@ -4179,6 +4881,7 @@ public class ConfDB {
 			}
 			throw new DatabaseException("removeSoftwareRelease FAILED", e);
 		} finally {
+			SoftwareReleaseCache.remove(dbUrl, releaseId);
 			try {
 				dbConnector.getConnection().setAutoCommit(true);
 			} catch (SQLException e) {
@@ -5027,6 +5730,89 @@ public class ConfDB {
 			psCheckPathNoum = dbConnector.getConnection().prepareStatement(" SELECT id from u_noumpaths WHERE name=? ");
 			preparedStatements.add(psCheckPathNoum);
 
+			psSelectPathIdByCrc = dbConnector.getConnection()
+					.prepareStatement("SELECT id, description, contact FROM u_pathids "
+							+ "WHERE crc32=? AND id_path=? AND isEndPath=? ORDER BY id DESC");
+			preparedStatements.add(psSelectPathIdByCrc);
+
+			psSelectPathIdElements = dbConnector.getConnection()
+					.prepareStatement("SELECT id_pae, id_parent, lvl, ord, operator FROM u_pathid2pae WHERE id_pathid=?");
+			preparedStatements.add(psSelectPathIdElements);
+
+			psSelectPathIdOutputModules = dbConnector.getConnection()
+					.prepareStatement("SELECT id_streamid, ord, operator FROM u_pathid2outm WHERE id_pathid=?");
+			preparedStatements.add(psSelectPathIdOutputModules);
+
+			psSelectSequenceByCrc = dbConnector.getConnection().prepareStatement(
+					"SELECT id FROM u_paelements WHERE crc32=? AND paetype=2 AND name=? ORDER BY id DESC");
+			preparedStatements.add(psSelectSequenceByCrc);
+
+			psSelectModuleByCrc = dbConnector.getConnection()
+					.prepareStatement("SELECT u_paelements.id FROM u_paelements, u_mod2templ "
+							+ "WHERE u_paelements.crc32=? AND u_paelements.paetype=1 AND u_paelements.name=? "
+							+ "AND u_mod2templ.id_pae=u_paelements.id AND u_mod2templ.id_templ=? "
+							+ "ORDER BY u_paelements.id DESC");
+			preparedStatements.add(psSelectModuleByCrc);
+
+			psSelectGlobalPSetCount = dbConnector.getConnection()
+					.prepareStatement("SELECT COUNT(*) FROM u_conf2gpset WHERE id_confver=?");
+			preparedStatements.add(psSelectGlobalPSetCount);
+
+			psCopyGlobalPSets = dbConnector.getConnection().prepareStatement("INSERT INTO u_conf2gpset "
+					+ "(id_confver,id_gpset,ord) " + "SELECT ?, id_gpset, ord FROM u_conf2gpset WHERE id_confver=?");
+			preparedStatements.add(psCopyGlobalPSets);
+
+			psCopyConfigEDSourceAssoc = dbConnector.getConnection().prepareStatement("INSERT INTO u_conf2eds "
+					+ "(id_confver,id_edsource,ord) " + "SELECT ?, id_edsource, ord FROM u_conf2eds WHERE id_confver=?");
+			preparedStatements.add(psCopyConfigEDSourceAssoc);
+
+			psCopyConfigESSourceAssoc = dbConnector.getConnection()
+					.prepareStatement("INSERT INTO u_conf2ess " + "(id_confver,id_essource,ord,prefer) "
+							+ "SELECT ?, id_essource, ord, prefer FROM u_conf2ess WHERE id_confver=?");
+			preparedStatements.add(psCopyConfigESSourceAssoc);
+
+			psCopyConfigESModuleAssoc = dbConnector.getConnection()
+					.prepareStatement("INSERT INTO u_conf2esm " + "(id_confver,id_esmodule,ord,prefer) "
+							+ "SELECT ?, id_esmodule, ord, prefer FROM u_conf2esm WHERE id_confver=?");
+			preparedStatements.add(psCopyConfigESModuleAssoc);
+
+			psCopyConfigServiceAssoc = dbConnector.getConnection().prepareStatement("INSERT INTO u_conf2srv "
+					+ "(id_confver,id_service,ord) " + "SELECT ?, id_service, ord FROM u_conf2srv WHERE id_confver=?");
+			preparedStatements.add(psCopyConfigServiceAssoc);
+
+			psCopyConfigPathAssoc = dbConnector.getConnection().prepareStatement("INSERT INTO u_pathid2conf "
+					+ "(id_pathId,id_confver,ord) " + "SELECT id_pathId, ?, ord FROM u_pathid2conf WHERE id_confver=?");
+			preparedStatements.add(psCopyConfigPathAssoc);
+
+			psCopyConfigSequenceAssoc = dbConnector.getConnection()
+					.prepareStatement("INSERT INTO u_conf2pae " + "(id_confver,id_pae,id_parent,lvl,ord,operator) "
+							+ "SELECT ?, id_pae, id_parent, lvl, ord, operator FROM u_conf2pae WHERE id_confver=?");
+			preparedStatements.add(psCopyConfigSequenceAssoc);
+
+			psSelectConfigEDSourceAssoc = dbConnector.getConnection()
+					.prepareStatement("SELECT id_edsource, ord FROM u_conf2eds WHERE id_confver=?");
+			preparedStatements.add(psSelectConfigEDSourceAssoc);
+
+			psSelectConfigESSourceAssoc = dbConnector.getConnection()
+					.prepareStatement("SELECT id_essource, ord, prefer FROM u_conf2ess WHERE id_confver=?");
+			preparedStatements.add(psSelectConfigESSourceAssoc);
+
+			psSelectConfigESModuleAssoc = dbConnector.getConnection()
+					.prepareStatement("SELECT id_esmodule, ord, prefer FROM u_conf2esm WHERE id_confver=?");
+			preparedStatements.add(psSelectConfigESModuleAssoc);
+
+			psSelectConfigServiceAssoc = dbConnector.getConnection()
+					.prepareStatement("SELECT id_service, ord FROM u_conf2srv WHERE id_confver=?");
+			preparedStatements.add(psSelectConfigServiceAssoc);
+
+			psSelectConfigPathAssoc = dbConnector.getConnection()
+					.prepareStatement("SELECT id_pathId, ord FROM u_pathid2conf WHERE id_confver=?");
+			preparedStatements.add(psSelectConfigPathAssoc);
+
+			psSelectConfigSequenceAssoc = dbConnector.getConnection().prepareStatement(
+					"SELECT id_pae, id_parent, lvl, ord, operator FROM u_conf2pae WHERE id_confver=?");
+			preparedStatements.add(psSelectConfigSequenceAssoc);
+
 			psInsertPathNoum = dbConnector.getConnection()
 					.prepareStatement("INSERT INTO u_noumPaths (name) " + "VALUES(?)", keyColumn);
 			preparedStatements.add(psInsertPathNoum);
@@ -5035,12 +5821,6 @@ public class ConfDB {
 					.prepareStatement("INSERT INTO u_Paths (name,version,id_noumpath) " + "VALUES(?, ?, ?)", keyColumn);
 			preparedStatements.add(psInsertPath);
 
-			psInsertPathIds = dbConnector.getConnection().prepareStatement(
-					"INSERT INTO u_pathids (id_path,pathid,isEndPath,crc32,crc32logic,description, contact, fromdb) "
-							+ "VALUES(?, NULL, ?, ?, ?, ?, ?,'gui')",
-					keyColumn);
-			preparedStatements.add(psInsertPathIds);
-
 			/*
 			 * psInsertHPathIds = dbConnector.getConnection().prepareStatement
 			 * ("INSERT INTO h_pathids (crc32,crc32logic) " + "VALUES(?, ? )",keyColumn);
@@ -5081,11 +5861,6 @@ public class ConfDB {
 					+ "u_conf2pae (id_confver,id_pae,id_parent,lvl,ord,operator) " + "VALUES(?, ?, ?, ?, ?, ?)");
 			preparedStatements.add(psInsertConfigSequenceAssoc);
 
-			psInsertPathElement = dbConnector.getConnection().prepareStatement(
-					"INSERT INTO u_paelements (paetype,name,crc32,crc32logic,o_id) " + "VALUES(?, ?, ?, NULL,NULL)",
-					keyColumn);
-			preparedStatements.add(psInsertPathElement);
-
 			psInsertHPathElement = dbConnector.getConnection()
 					.prepareStatement("INSERT INTO h_paelements (moe_type,templateId,name,crc32,crc32logic) "
 							+ "VALUES(?, ?, ?, ?, NULL)");
@@ -5098,7 +5873,7 @@ public class ConfDB {
 			preparedStatements.add(psInsertMoElement);
 
 			psInsertPae2Moe = dbConnector.getConnection().prepareStatement(
-					"INSERT INTO u_pae2moe (id_pae,id_moe,lvl,ord) " + "VALUES(?, ?, ?, ?)", keyColumn);
+					"INSERT INTO u_pae2moe (id_pae,id_moe,lvl,ord) " + "VALUES(?, ?, ?, ?)");
 			preparedStatements.add(psInsertPae2Moe);
 
 			psInsertMod2Templ = dbConnector.getConnection()
@@ -5205,68 +5980,57 @@ public class ConfDB {
 
 			psInsertParameterGPset = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_gpsetelements (id_gpset,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?,NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?,NULL, ?)");
 			preparedStatements.add(psInsertParameterGPset);
 
 			psInsertParameterEDS = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_edselements (id_edsource,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterEDS);
 
 			psInsertParameterEDST = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_edstelements (id_edstemplate,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterEDST);
 
 			psInsertParameterESM = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_esmelements (id_esmodule,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterESM);
 
 			psInsertParameterESMT = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_esmtelements (id_esmtemplate,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterESMT);
 
 			psInsertParameterESS = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_esselements (id_essource,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterESS);
 
 			psInsertParameterESST = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_esstelements (id_esstemplate,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterESST);
 
 			psInsertParameterSRV = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_srvelements (id_service,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterSRV);
 
 			psInsertParameterSRVT = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_srvtelements (id_srvtemplate,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterSRVT);
 
 			psInsertParameterMODT = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_modtelements (id_modtemplate,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterMODT);
 
 			psInsertParameterOUTM = dbConnector.getConnection().prepareStatement(
 					"INSERT INTO u_outmelements (id_streamid,name,lvl,tracked,paramtype,ord,value,valuelob,hex,o_id,moetype) "
-							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)",
-					keyColumn);
+							+ "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)");
 			preparedStatements.add(psInsertParameterOUTM);
 
 			psInsertSuperIdParamSetAssoc = dbConnector.getConnection().prepareStatement(
@@ -5669,6 +6433,57 @@ public class ConfDB {
 			psSelectParameters.setFetchSize(8192);
 			preparedStatements.add(psSelectParameters);
 
+			// as psSelectParameters, without the parameters of modules
+			psSelectParametersSkeleton = dbConnector.getConnection().prepareStatement(
+					"Select * from (Select * from (SELECT a.id+1000000 as id, a.paramtype, a.name, a.tracked, a.ord,a.id_edsource+1000000, a.lvl,  a.value,  a.valuelob, a.hex  from u_EDSELEMENTS a, u_CONF2EDS c "
+							+ " where c.ID_CONFVER=? and c.ID_EDSOURCE=a.ID_edsource order by a.id_edsource+1000000,id ) "
+							+ " UNION ALL "
+							+ "Select * from (SELECT a.id+2000000 as id, a.paramtype, a.name, a.tracked, a.ord,a.id_essource+2000000, a.lvl,  a.value,  a.valuelob , a.hex from u_ESSELEMENTS a, u_CONF2ESS c "
+							+ " where c.ID_CONFVER=? and c.ID_ESSOURCE=a.ID_essource order by a.id_essource+2000000,id ) "
+							+ " UNION ALL "
+							+ "Select * from (SELECT a.id+4000000 as id, a.paramtype, a.name, a.tracked, a.ord,a.id_service+4000000, a.lvl,  a.value,  a.valuelob, a.hex from u_SRVELEMENTS a, u_CONF2SRV c "
+							+ " where c.ID_CONFVER=? and c.ID_SERVICE=a.ID_Service order by a.id_service+4000000,id )"
+							+ " UNION ALL "
+							+ "Select * from (SELECT a.id+3000000 as id, a.paramtype, a.name, a.tracked, a.ord,a.id_esmodule+3000000, a.lvl,  a.value,  a.valuelob, a.hex from u_ESMELEMENTS a, u_CONF2ESM c "
+							+ " where c.ID_CONFVER=? and c.ID_esmodule=a.ID_esmodule order by a.id_esmodule+3000000,id ) "
+							+ " UNION ALL "
+							+ "Select * from (SELECT a.id+6000000 as id, a.paramtype, a.name, a.tracked, a.ord,a.id_gpset+6000000, a.lvl,  a.value,  a.valuelob, a.hex from u_GPSETELEMENTS a, u_CONF2GPSET c "
+							+ " where c.ID_CONFVER=? and c.ID_gpset=a.ID_gpset order by a.id_gpset+6000000,id ) "
+							+ " UNION ALL "
+							+ " select * from (SELECT a.id+5000000 as id, a.paramtype, a.name, a.tracked, a.ord,u_streamids.id+5000000, a.lvl,  a.value,  a.valuelob, a.hex from u_outmelements a,u_pathid2conf,u_pathid2outm,u_streamids where a.id_streamid=u_streamids.id  AND u_streamids.id=u_pathid2outm.id_streamid and u_pathid2outm.id_pathid=u_pathid2conf.id_pathid AND u_pathid2conf.id_confver = ? order by u_streamids.id+5000000,id) )");
+			psSelectParametersSkeleton.setFetchSize(8192);
+			preparedStatements.add(psSelectParametersSkeleton);
+
+			// parameters of up to parameterChunkSize modules, by module
+			StringBuilder moduleIds = new StringBuilder("?");
+			for (int i = 1; i < parameterChunkSize; i++)
+				moduleIds.append(",?");
+			psSelectModuleParameters = dbConnector.getConnection().prepareStatement("SELECT"
+					+ " u_moelements.id," + " u_moelements.paramtype," + " u_moelements.name,"
+					+ " u_moelements.tracked," + " u_pae2moe.ord," + " u_pae2moe.id_pae," + " u_pae2moe.lvl,"
+					+ " u_moelements.value," + " u_moelements.valuelob," + " u_moelements.hex " + "FROM u_moelements "
+					+ "JOIN u_pae2moe ON u_pae2moe.id_moe = u_moelements.id " + "WHERE u_pae2moe.id_pae IN ("
+					+ moduleIds + ") " + "ORDER BY u_pae2moe.id_pae, u_moelements.id");
+			psSelectModuleParameters.setFetchSize(4096);
+			preparedStatements.add(psSelectModuleParameters);
+
+			// as psSelectParametersTemplates, for up to parameterChunkSize templates
+			// of each type (module, service, esmodule, essource, edsource)
+			String templateIds = "(" + moduleIds + ")";
+			psSelectTemplateParameters = dbConnector.getConnection().prepareStatement(
+					"select id,paramtype,name,tracked,ord,id_modtemplate,lvl,value,valuelob,hex from u_modtelements where id_modtemplate in "
+							+ templateIds + " UNION ALL "
+							+ " select id+4000000,paramtype,name,tracked,ord,id_srvtemplate+4000000,lvl,value,valuelob,hex from u_srvtelements where id_srvtemplate in "
+							+ templateIds + " UNION ALL "
+							+ " select id+3000000,paramtype,name,tracked,ord,id_esmtemplate+3000000,lvl,value,valuelob,hex  from u_esmtelements where id_esmtemplate in "
+							+ templateIds + " UNION ALL "
+							+ " select id+2000000,paramtype,name,tracked,ord,id_esstemplate+2000000,lvl,value,valuelob,hex  from u_esstelements where id_esstemplate in "
+							+ templateIds + " UNION ALL "
+							+ " select id+1000000,paramtype,name,tracked,ord,id_edstemplate+1000000,lvl,value,valuelob,hex from u_edstelements where id_edstemplate in "
+							+ templateIds + " order by 6,1");
+			psSelectTemplateParameters.setFetchSize(4096);
+			preparedStatements.add(psSelectTemplateParameters);
+
 			psSelectBooleanValues = dbConnector.getConnection().prepareStatement(
 					"SELECT DISTINCT" + " parameter_id," + " parameter_value " + "FROM tmp_boolean_table");
 			psSelectBooleanValues.setFetchSize(2048);
@@ -5922,13 +6737,7 @@ public class ConfDB {
 
 	/** get values as strings after loading templates/configuration */
 	private HashMap<Integer, ArrayList<Parameter>> getParameters(int configId) throws DatabaseException {
-		HashMap<Integer, ArrayList<Parameter>> idToParameters = new HashMap<Integer, ArrayList<Parameter>>();
-
 		ResultSet rsParameters = null;
-		ResultSet rsBooleanValues = null;
-		ResultSet rsIntValues = null;
-		ResultSet rsRealValues = null;
-		ResultSet rsStringValues = null;
 
 // System.err.println("getParameters ");
 
@@ -5942,264 +6751,533 @@ public class ConfDB {
 				psSelectParametersTemplates.setInt(5, releaseId);
 				rsParameters = psSelectParametersTemplates.executeQuery();
 			} else {
-				psSelectParameters.setInt(1, configId);
-				psSelectParameters.setInt(2, configId);
-				psSelectParameters.setInt(3, configId);
-				psSelectParameters.setInt(4, configId);
-				psSelectParameters.setInt(5, configId);
-				psSelectParameters.setInt(6, configId);
-				psSelectParameters.setInt(7, configId);
-				psSelectParameters.setInt(8, configId);
-				rsParameters = psSelectParameters.executeQuery();
+				rsParameters = executeLoadQuery(loadPhaseParameters, configId);
 			}
 
 // System.err.println("getParameter query dones ");
 
-			// get values as strings first
-			HashMap<Integer, String> idToValueAsString = new HashMap<Integer, String>();
+			return getParameters(rsParameters);
+		} catch (SQLException e) {
+			String errMsg = "ConfDB::getParameters() failed: " + e.getMessage();
+			throw new DatabaseException(errMsg, e);
+		} finally {
+			dbConnector.release(rsParameters);
+		}
+	}
 
-			ArrayList<IdPSetPair> psets = new ArrayList<IdPSetPair>();
-			ArrayList<IdVPSetPair> vpsets = new ArrayList<IdVPSetPair>();
+	/** build the parameter trees of all owners from the result set */
+	private HashMap<Integer, ArrayList<Parameter>> getParameters(ResultSet rsParameters) throws SQLException {
+		HashMap<Integer, ArrayList<Parameter>> idToParameters = new HashMap<Integer, ArrayList<Parameter>>();
 
-			// Queue<Integer> idlifo = new LinkedList<Integer>();
-			Stack<Integer> idlifo = new Stack<Integer>();
+		ArrayList<IdPSetPair> psets = new ArrayList<IdPSetPair>();
+		ArrayList<IdVPSetPair> vpsets = new ArrayList<IdVPSetPair>();
 
-			// int newpamid=8000000;
-			// if(configId==0) newpamid=10000000;
-			int previouslvl = 0;
+		// Queue<Integer> idlifo = new LinkedList<Integer>();
+		Stack<Integer> idlifo = new Stack<Integer>();
+
+		// int newpamid=8000000;
+		// if(configId==0) newpamid=10000000;
+		int previouslvl = 0;
 //long thebefore=System.currentTimeMillis();
-			while (rsParameters.next()) {
-				int parameterId = rsParameters.getInt(1);
-				String type = rsParameters.getString(2);
-				String name = rsParameters.getString(3);
-				boolean isTrkd = rsParameters.getBoolean(4);
-				int seqNb = rsParameters.getInt(5);
-				int parentId = rsParameters.getInt(6);
-				int lvl = rsParameters.getInt(7);
-
-				// parameterId=++newpamid;
-				// parameterId=++countingParamIds;
-				// dbidParamHashMap.put(parameterId,parameterId+newpamid);
-				dbidParamHashMap.put(parameterId, ++countingParamIds);
-				parameterId = countingParamIds;
-
-				if (name == null)
-					name = "";
-				if (name.contains("Empty name"))
-					name = "";
-
-				if (type.equals("bool")) {
-// System.err.println("getParameters: name "+name+" id="+parameterId+" parentId "+parentId);
-					String valueAsString = (new Boolean(rsParameters.getBoolean(8))).toString();
-					idToValueAsString.put(parameterId, valueAsString);
+		while (rsParameters.next()) {
+			int parameterId = rsParameters.getInt(1);
+			String type = rsParameters.getString(2);
+			String name = rsParameters.getString(3);
+			boolean isTrkd = rsParameters.getBoolean(4);
+			int seqNb = rsParameters.getInt(5);
+			int parentId = rsParameters.getInt(6);
+			int lvl = rsParameters.getInt(7);
+
+			// parameterId=++newpamid;
+			// parameterId=++countingParamIds;
+			// dbidParamHashMap.put(parameterId,parameterId+newpamid);
+			dbidParamHashMap.put(parameterId, ++countingParamIds);
+			parameterId = countingParamIds;
+
+			if (name == null)
+				name = "";
+			if (name.contains("Empty name"))
+				name = "";
+
+			int orparid = parentId;
+			// System.err.println("ParId "+parentId+" (origparid "+orparid+") parameterId
+			// "+parameterId+" type "+ type+" name "+name+" seqNb "+seqNb+" lvl"+lvl);
+
+			while (lvl < previouslvl) {
+				idlifo.pop();
+				previouslvl--;
+			}
+			if (lvl > 0)
+				parentId = idlifo.peek();
+			previouslvl = lvl;
+
+			// if (configId<0) System.out.println("ParId "+parentId+" (origparid
+			// "+orparid+") parameterId "+parameterId+" type "+
+			// type+" name "+name+" seqNb "+seqNb+" lvl"+lvl);
+
+			String valueAsString = null;
+			if (type.indexOf("PSet") < 0)
+				valueAsString = parameterValueAsString(rsParameters, type);
+			if (valueAsString == null)
+				valueAsString = "";
+
+			Parameter p = ParameterFactory.create(type, name, valueAsString, isTrkd);
+
+			if (type.equals("PSet")) {
+				// idlifo.push(new Integer(parameterId));
+				idlifo.push(parameterId);
+				previouslvl++;
+				psets.add(new IdPSetPair(parameterId, (PSetParameter) p));
+			}
+			if (type.equals("VPSet")) {
+				// idlifo.push(new Integer(parameterId));
+				idlifo.push(parameterId);
+				previouslvl++;
+				vpsets.add(new IdVPSetPair(parameterId, (VPSetParameter) p));
+			}
+
+			ArrayList<Parameter> parameters = null;
+			if (idToParameters.containsKey(parentId))
+				parameters = idToParameters.get(parentId);
+			else {
+				parameters = new ArrayList<Parameter>();
+				idToParameters.put(parentId, parameters);
+			}
+			while (parameters.size() <= seqNb)
+				parameters.add(null);
+			parameters.set(seqNb, p);
+		}
+
+		Iterator<IdPSetPair> itPSet = psets.iterator();
+		while (itPSet.hasNext()) {
+			IdPSetPair pair = itPSet.next();
+			int psetId = pair.id;
+			PSetParameter pset = pair.pset;
+			ArrayList<Parameter> parameters = idToParameters.remove(psetId);
+			if (parameters != null) {
+				int missingCount = 0;
+				Iterator<Parameter> it = parameters.iterator();
+				while (it.hasNext()) {
+					Parameter p = it.next();
+					if (p == null)
+						missingCount++;
+					else
+						pset.addParameter(p);
 				}
+				// TODO Database check. This is happening.
+				if (missingCount > 0)
+					System.err.println("WARNING: " + missingCount + " parameter(s)" + " missing from PSet '"
+							+ pset.name() + "'");
+			}
+		}
 
-				if (type.contains("int")) {
-					// Long value = new Long(rsParameters.getLong(8));
-					boolean isHex = false; // rsIntValues.getBoolean(4);
+		Iterator<IdVPSetPair> itVPSet = vpsets.iterator();
+		while (itVPSet.hasNext()) {
+			IdVPSetPair pair = itVPSet.next();
+			int vpsetId = pair.id;
+			VPSetParameter vpset = pair.vpset;
+			ArrayList<Parameter> parameters = idToParameters.remove(vpsetId);
+			if (parameters != null) {
+				int missingCount = 0;
+				Iterator<Parameter> it = parameters.iterator();
+				while (it.hasNext()) {
+					Parameter p = it.next();
+					if (p == null || !(p instanceof PSetParameter))
+						missingCount++;
+					else
+						vpset.addParameterSet((PSetParameter) p);
+				}
+				// TODO database check, this is happening.
+				if (missingCount > 0)
+					System.err.println(
+							"WARNING: " + missingCount + " pset(s)" + " missing from VPSet '" + vpset.name() + "'");
+			}
+		}
 
-					if (rsParameters.getInt(10) > 0)
-						isHex = true;
+		return idToParameters;
+	}
 
-					String valueAsString = rsParameters.getString(8);
-// System.err.println("getParameters: name "+name+" id="+parameterId+" parentId "+parentId);
+	/**
+	 * stream the parameters of a configuration and attach them to their owners
+	 * (instances, global psets, output modules) while the result set is read.
+	 * Rows are ordered by owner, so only the parameter tree of the current owner
+	 * is held in memory, instead of the whole parameter table.
+	 */
+	private void streamParameters(int configId, HashMap<Integer, Object> idToOwner) throws DatabaseException {
+		ResultSet rsParameters = null;
+		try {
+			rsParameters = executeLoadQuery(loadPhaseParameters, configId);
+			streamParameters(rsParameters, idToOwner);
+		} catch (SQLException e) {
+			String errMsg = "ConfDB::streamParameters() failed: " + e.getMessage();
+			throw new DatabaseException(errMsg, e);
+		} finally {
+			dbConnector.release(rsParameters);
+		}
+	}
 
-					if (type.contains("v")) { // should handle vector hex representation
-						valueAsString = rsParameters.getString(8);
-					} else if ((isHex) && (type.contains("64")))
-						valueAsString = "0x" + Long.toHexString(rsParameters.getLong(8));
-					else if (isHex)
-						valueAsString = "0x" + Integer.toHexString(rsParameters.getInt(8));
+	/** defer loading the parameters of a module or template to their first access */
+	private synchronized void deferParameters(ParameterContainer container, int id) {
+		deferredParameterIds.put(container, id);
+		container.setParameterLoader(this);
+	}
 
-					Clob valueAsStringLOB = rsParameters.getClob(9);
-					if (valueAsStringLOB != null) {
-						int lobLength = (int) valueAsStringLOB.length();
-						valueAsString = valueAsStringLOB.getSubString(1, lobLength);
-						valueAsString = valueAsString.trim();
-					}
-					if (valueAsString != null) {
-						if (valueAsString.startsWith("{"))
-							valueAsString = valueAsString.substring(1, valueAsString.length() - 1);
-						valueAsString = valueAsString.trim();
-					}
+	/**
+	 * load the deferred parameters of all modules of a configuration, and of
+	 * their templates, at once
+	 */
+	public static void loadDeferredParameters(IConfiguration config) {
+		ArrayList<ParameterContainer> containers = new ArrayList<ParameterContainer>();
+		IdentityHashMap<Template, Boolean> templates = new IdentityHashMap<Template, Boolean>();
+		for (int i = 0; i < config.moduleCount(); i++) {
+			ModuleInstance module = config.module(i);
+			if (module.isParameterLoadPending())
+				containers.add(module);
+			Template template = module.template();
+			if (template != null && template.isParameterLoadPending() && templates.put(template, Boolean.TRUE) == null)
+				containers.add(template);
+		}
+		ParameterContainer.loadParameters(containers);
+	}
 
-					// if (sequenceNb!=null&&
-					// idToValueAsString.containsKey(parameterId))
-					// idToValueAsString.put(parameterId,
-					// idToValueAsString.get(parameterId) +
-					// ", "+valueAsString);
-					// else
-					idToValueAsString.put(parameterId, valueAsString);
-				}
+	/** ParameterLoader: load the deferred parameters of a module or template */
+	public void loadParameters(ParameterContainer container) {
+		ArrayList<ParameterContainer> containers = new ArrayList<ParameterContainer>();
+		containers.add(container);
+		loadParameters(containers);
+	}
 
-				if (type.contains("double")) {
-					String valueAsString = rsParameters.getString(8);
+	/**
+	 * ParameterLoader: load the deferred parameters of several modules and
+	 * templates, parameterChunkSize of them per query. The loader of a
+	 * container is removed only once its parameters are complete, so that
+	 * concurrent readers wait for them; nested calls while loading find no
+	 * id left and return at once
+	 */
+	public synchronized void loadParameters(List<ParameterContainer> containers) {
+		ArrayList<ParameterContainer> modules = new ArrayList<ParameterContainer>();
+		ArrayList<Integer> moduleIds = new ArrayList<Integer>();
+		ArrayList<ParameterContainer> templates = new ArrayList<ParameterContainer>();
+		ArrayList<Integer> templateIds = new ArrayList<Integer>();
+		for (ParameterContainer container : containers) {
+			Integer id = deferredParameterIds.remove(container);
+			if (id == null)
+				continue;
+			if (container instanceof Template) {
+				templates.add(container);
+				templateIds.add(id);
+			} else {
+				modules.add(container);
+				moduleIds.add(id);
+			}
+		}
+		if (modules.isEmpty() && templates.isEmpty())
+			return;
 
-					Clob valueAsStringLOB = rsParameters.getClob(9);
-					if (valueAsStringLOB != null) {
-						int lobLength = (int) valueAsStringLOB.length();
-						valueAsString = valueAsStringLOB.getSubString(1, lobLength);
-						valueAsString = valueAsString.trim();
-					}
-					if (valueAsString != null) {
-						if (valueAsString.startsWith("{"))
-							valueAsString = valueAsString.substring(1, valueAsString.length() - 1);
-						valueAsString = valueAsString.trim();
-					}
-					// valueAsString=valueAsString.trim();
+		try {
+			reconnect();
+		} catch (DatabaseException e) {
+			for (int i = 0; i < modules.size(); i++)
+				deferParameters(modules.get(i), moduleIds.get(i));
+			for (int i = 0; i < templates.size(); i++)
+				deferParameters(templates.get(i), templateIds.get(i));
+			String errMsg = "ConfDB::loadParameters() failed: " + e.getMessage();
+			throw new IllegalStateException(errMsg, e);
+		}
+		loadModuleParameters(modules, moduleIds);
+		loadTemplateParameters(templates, templateIds);
+	}
 
-					idToValueAsString.put(parameterId, valueAsString);
+	/** load the deferred parameters of modules */
+	private void loadModuleParameters(ArrayList<ParameterContainer> modules, ArrayList<Integer> moduleIds) {
+		ResultSet rsParameters = null;
+		int loadedCount = 0;
+		try {
+			for (int first = 0; first < modules.size(); first += parameterChunkSize) {
+				HashMap<Integer, Object> idToOwner = new HashMap<Integer, Object>();
+				HashSet<ParameterContainer> changed = new HashSet<ParameterContainer>();
+				for (int i = 0; i < parameterChunkSize; i++) {
+					int moduleId = -1;
+					if (first + i < modules.size()) {
+						ParameterContainer module = modules.get(first + i);
+						moduleId = moduleIds.get(first + i);
+						idToOwner.put(moduleId, module);
+						if (module.hasChanged())
+							changed.add(module);
+					}
+					psSelectModuleParameters.setInt(i + 1, moduleId);
 				}
+				rsParameters = psSelectModuleParameters.executeQuery();
+				streamParameters(rsParameters, idToOwner);
+				dbConnector.release(rsParameters);
+				rsParameters = null;
+
+				// loading restored the database id of modules changed meanwhile
+				for (ParameterContainer module : changed)
+					module.setHasChanged();
+				loadedCount = Math.min(modules.size(), first + parameterChunkSize);
+				for (int i = first; i < loadedCount; i++)
+					modules.get(i).setParameterLoader(null);
+			}
+		} catch (SQLException e) {
+			// keep the modules not loaded yet deferred
+			for (int i = loadedCount; i < modules.size(); i++)
+				deferParameters(modules.get(i), moduleIds.get(i));
+			String errMsg = "ConfDB::loadModuleParameters() failed: " + e.getMessage();
+			throw new IllegalStateException(errMsg, e);
+		} finally {
+			dbConnector.release(rsParameters);
+		}
+	}
 
-				/////////////////
-//          while (rsStringValues.next()) {
-				if (type.contains("string") || type.contains("InputTag") || type.contains("ESInputTag")
-						|| type.contains("FileInPath") || type.contains("EventID")) {
-
-					String valueAsString = rsParameters.getString(8); // get PARAMETER_VALUE
-
-					// if (valueAsString.startsWith("{")) valueAsString=valueAsString.substring(1,
-					// valueAsString.length()-1);
-					// valueAsString=valueAsString.trim();
-					Clob valueAsStringLOB = rsParameters.getClob(9);
-					if (valueAsStringLOB != null) {
-						int lobLength = (int) valueAsStringLOB.length();
-						valueAsString = valueAsStringLOB.getSubString(1, lobLength);
-						valueAsString = valueAsString.trim();
+	/** load the deferred parameters of templates */
+	private void loadTemplateParameters(ArrayList<ParameterContainer> templates, ArrayList<Integer> templateIds) {
+		ResultSet rsParameters = null;
+		int loadedCount = 0;
+		try {
+			for (int first = 0; first < templates.size(); first += parameterChunkSize) {
+				// one list of template ids per template table, see psSelectTemplateParameters
+				int last = Math.min(templates.size(), first + parameterChunkSize);
+				for (int i = 1; i <= 5 * parameterChunkSize; i++)
+					psSelectTemplateParameters.setInt(i, -1);
+				for (int i = first; i < last; i++) {
+					ParameterContainer template = templates.get(i);
+					int id = templateIds.get(i);
+					int table = 0;
+					if (template instanceof ServiceTemplate) {
+						table = 1;
+						id -= 4000000;
+					} else if (template instanceof ESModuleTemplate) {
+						table = 2;
+						id -= 3000000;
+					} else if (template instanceof ESSourceTemplate) {
+						table = 3;
+						id -= 2000000;
+					} else if (template instanceof EDSourceTemplate) {
+						table = 4;
+						id -= 1000000;
 					}
-					if (valueAsString != null) {
-						if (valueAsString.startsWith("{"))
-							valueAsString = valueAsString.substring(1, valueAsString.length() - 1);
-						valueAsString = valueAsString.trim();
+					psSelectTemplateParameters.setInt(table * parameterChunkSize + i - first + 1, id);
+				}
+				rsParameters = psSelectTemplateParameters.executeQuery();
+				HashMap<Integer, ArrayList<Parameter>> idToParams = getParameters(rsParameters);
+				dbConnector.release(rsParameters);
+				rsParameters = null;
+
+				for (int i = first; i < last; i++) {
+					Template template = (Template) templates.get(i);
+					ArrayList<Parameter> params = idToParams.remove(templateIds.get(i));
+					if (params != null) {
+						if (params.contains(null))
+							System.err.println("ERROR: parameter(s) missing from " + template.type() + " Template '"
+									+ template.name() + "'");
+						else
+							for (Parameter p : params)
+								template.addParameter(p);
 					}
-					idToValueAsString.put(parameterId, valueAsString);
-
+					template.setDatabaseId(templateIds.get(i));
 				}
-				///////////////////
-
-//           }
-
-//            if (type.equals("Pset") {
-
-				/*
-				 * if(configId==0) { rsParameters = psSelectParametersTemplates.executeQuery();
-				 * } else { rsParameters=psSelectParameters.executeQuery(); }
-				 * 
-				 * int previouslvl=0; // Queue<Integer> idlifo = new LinkedList<Integer>();
-				 * while (rsParameters.next()) { int parameterId = rsParameters.getInt(1);
-				 * String type = rsParameters.getString(2); String name =
-				 * rsParameters.getString(3); boolean isTrkd = rsParameters.getBoolean(4); int
-				 * seqNb = rsParameters.getInt(5); int parentId = rsParameters.getInt(6); int
-				 * lvl = rsParameters.getInt(7);
-				 */
+				loadedCount = last;
+				for (int i = first; i < last; i++)
+					templates.get(i).setParameterLoader(null);
+			}
+		} catch (SQLException e) {
+			// keep the templates not loaded yet deferred
+			for (int i = loadedCount; i < templates.size(); i++)
+				deferParameters(templates.get(i), templateIds.get(i));
+			String errMsg = "ConfDB::loadTemplateParameters() failed: " + e.getMessage();
+			throw new IllegalStateException(errMsg, e);
+		} finally {
+			dbConnector.release(rsParameters);
+		}
+	}
 
-				int orparid = parentId;
-				// System.err.println("ParId "+parentId+" (origparid "+orparid+") parameterId
-				// "+parameterId+" type "+ type+" name "+name+" seqNb "+seqNb+" lvl"+lvl);
+	/** load the deferred parameters of the templates instantiated by a configuration */
+	private void loadInstantiatedTemplateParameters(ResultSet rsInstances, SoftwareRelease release)
+			throws SQLException {
+		ArrayList<Template> templates = new ArrayList<Template>();
+		while (rsInstances.next()) {
+			int templateId = rsInstances.getInt(2);
+			String type = rsInstances.getString(3);
+			Template template = null;
+			if (type.equals("EDSource"))
+				template = release.edsourceTemplate(release.edsourceTemplateName(templateId));
+			else if (type.equals("ESSource"))
+				template = release.essourceTemplate(release.essourceTemplateName(templateId));
+			else if (type.equals("ESModule"))
+				template = release.esmoduleTemplate(release.esmoduleTemplateName(templateId));
+			else if (type.equals("Service"))
+				template = release.serviceTemplate(release.serviceTemplateName(templateId));
+			else if (type.equals("Module"))
+				template = release.moduleTemplate(release.moduleTemplateName(templateId));
+			if (template != null && template.isParameterLoadPending())
+				templates.add(template);
+		}
+		rsInstances.beforeFirst();
+		ParameterContainer.loadParameters(templates);
+	}
 
-				while (lvl < previouslvl) {
-					idlifo.pop();
-					previouslvl--;
-				}
-				if (lvl > 0)
-					parentId = idlifo.peek();
-				previouslvl = lvl;
+	/** build the parameter tree of one owner at a time from the result set */
+	private void streamParameters(ResultSet rsParameters, HashMap<Integer, Object> idToOwner) throws SQLException {
+		int ownerId = -1;
+		ArrayList<Parameter> ownerParameters = new ArrayList<Parameter>();
+		HashMap<Integer, ArrayList<Parameter>> idToParameters = new HashMap<Integer, ArrayList<Parameter>>();
+		ArrayList<IdPSetPair> psets = new ArrayList<IdPSetPair>();
+		ArrayList<IdVPSetPair> vpsets = new ArrayList<IdVPSetPair>();
 
-				// if (configId<0) System.out.println("ParId "+parentId+" (origparid
-				// "+orparid+") parameterId "+parameterId+" type "+
-				// type+" name "+name+" seqNb "+seqNb+" lvl"+lvl);
+		Stack<Integer> idlifo = new Stack<Integer>();
+		int previouslvl = 0;
+		int psetId = 0;
+
+		while (rsParameters.next()) {
+			String type = rsParameters.getString(2);
+			String name = rsParameters.getString(3);
+			boolean isTrkd = rsParameters.getBoolean(4);
+			int seqNb = rsParameters.getInt(5);
+			int parentId = rsParameters.getInt(6);
+			int lvl = rsParameters.getInt(7);
+
+			if (name == null)
+				name = "";
+			if (name.contains("Empty name"))
+				name = "";
+
+			// a new owner starts: complete and attach the previous one
+			if (lvl == 0 && parentId != ownerId) {
+				attachParameters(idToOwner.get(ownerId), ownerId, ownerParameters, idToParameters, psets, vpsets);
+				ownerId = parentId;
+				ownerParameters = new ArrayList<Parameter>();
+				idToParameters.clear();
+				psets.clear();
+				vpsets.clear();
+				idlifo.clear();
+				previouslvl = 0;
+			}
 
-				String valueAsString = null;
-				if (type.indexOf("PSet") < 0)
-					valueAsString = idToValueAsString.remove(parameterId);
-				if (valueAsString == null)
-					valueAsString = "";
+			while (lvl < previouslvl) {
+				idlifo.pop();
+				previouslvl--;
+			}
+			previouslvl = lvl;
 
-				Parameter p = ParameterFactory.create(type, name, valueAsString, isTrkd);
+			String valueAsString = null;
+			if (type.indexOf("PSet") < 0)
+				valueAsString = parameterValueAsString(rsParameters, type);
+			if (valueAsString == null)
+				valueAsString = "";
 
-				if (type.equals("PSet")) {
-					// idlifo.push(new Integer(parameterId));
-					idlifo.push(parameterId);
-					previouslvl++;
-					psets.add(new IdPSetPair(parameterId, (PSetParameter) p));
-				}
-				if (type.equals("VPSet")) {
-					// idlifo.push(new Integer(parameterId));
-					idlifo.push(parameterId);
-					previouslvl++;
-					vpsets.add(new IdVPSetPair(parameterId, (VPSetParameter) p));
-				}
+			Parameter p = ParameterFactory.create(type, name, valueAsString, isTrkd);
 
-				ArrayList<Parameter> parameters = null;
-				if (idToParameters.containsKey(parentId))
-					parameters = idToParameters.get(parentId);
-				else {
+			ArrayList<Parameter> parameters = ownerParameters;
+			if (lvl > 0) {
+				int parentPSetId = idlifo.peek();
+				parameters = idToParameters.get(parentPSetId);
+				if (parameters == null) {
 					parameters = new ArrayList<Parameter>();
-					idToParameters.put(parentId, parameters);
-				}
-				while (parameters.size() <= seqNb)
-					parameters.add(null);
-				parameters.set(seqNb, p);
-			}
-
-			Iterator<IdPSetPair> itPSet = psets.iterator();
-			while (itPSet.hasNext()) {
-				IdPSetPair pair = itPSet.next();
-				int psetId = pair.id;
-				PSetParameter pset = pair.pset;
-				ArrayList<Parameter> parameters = idToParameters.remove(psetId);
-				if (parameters != null) {
-					int missingCount = 0;
-					Iterator<Parameter> it = parameters.iterator();
-					while (it.hasNext()) {
-						Parameter p = it.next();
-						if (p == null)
-							missingCount++;
-						else
-							pset.addParameter(p);
-					}
-					// TODO Database check. This is happening.
-					if (missingCount > 0)
-						System.err.println("WARNING: " + missingCount + " parameter(s)" + " missing from PSet '"
-								+ pset.name() + "'");
+					idToParameters.put(parentPSetId, parameters);
 				}
 			}
+			while (parameters.size() <= seqNb)
+				parameters.add(null);
+			parameters.set(seqNb, p);
+
+			if (type.equals("PSet")) {
+				idlifo.push(++psetId);
+				previouslvl++;
+				psets.add(new IdPSetPair(psetId, (PSetParameter) p));
+			}
+			if (type.equals("VPSet")) {
+				idlifo.push(++psetId);
+				previouslvl++;
+				vpsets.add(new IdVPSetPair(psetId, (VPSetParameter) p));
+			}
+		}
+		attachParameters(idToOwner.get(ownerId), ownerId, ownerParameters, idToParameters, psets, vpsets);
+	}
 
-			Iterator<IdVPSetPair> itVPSet = vpsets.iterator();
-			while (itVPSet.hasNext()) {
-				IdVPSetPair pair = itVPSet.next();
-				int vpsetId = pair.id;
-				VPSetParameter vpset = pair.vpset;
-				ArrayList<Parameter> parameters = idToParameters.remove(vpsetId);
-				if (parameters != null) {
-					int missingCount = 0;
-					Iterator<Parameter> it = parameters.iterator();
-					while (it.hasNext()) {
-						Parameter p = it.next();
-						if (p == null || !(p instanceof PSetParameter))
-							missingCount++;
-						else
-							vpset.addParameterSet((PSetParameter) p);
-					}
-					// TODO database check, this is happening.
-					if (missingCount > 0)
-						System.err.println(
-								"WARNING: " + missingCount + " pset(s)" + " missing from VPSet '" + vpset.name() + "'");
-				}
+	/** fill the (v)psets of one owner and attach its top-level parameters */
+	private void attachParameters(Object owner, int ownerId, ArrayList<Parameter> parameters,
+			HashMap<Integer, ArrayList<Parameter>> idToParameters, ArrayList<IdPSetPair> psets,
+			ArrayList<IdVPSetPair> vpsets) {
+		for (IdPSetPair pair : psets) {
+			ArrayList<Parameter> psetParameters = idToParameters.remove(pair.id);
+			if (psetParameters == null)
+				continue;
+			int missingCount = 0;
+			for (Parameter p : psetParameters) {
+				if (p == null)
+					missingCount++;
+				else
+					pair.pset.addParameter(p);
 			}
+			if (missingCount > 0)
+				System.err.println("WARNING: " + missingCount + " parameter(s)" + " missing from PSet '"
+						+ pair.pset.name() + "'");
+		}
+		for (IdVPSetPair pair : vpsets) {
+			ArrayList<Parameter> vpsetParameters = idToParameters.remove(pair.id);
+			if (vpsetParameters == null)
+				continue;
+			int missingCount = 0;
+			for (Parameter p : vpsetParameters) {
+				if (p == null || !(p instanceof PSetParameter))
+					missingCount++;
+				else
+					pair.vpset.addParameterSet((PSetParameter) p);
+			}
+			if (missingCount > 0)
+				System.err.println("WARNING: " + missingCount + " pset(s)" + " missing from VPSet '"
+						+ pair.vpset.name() + "'");
+		}
 
-		} catch (SQLException e) {
-			String errMsg = "ConfDB::getParameters() failed: " + e.getMessage();
-			throw new DatabaseException(errMsg, e);
-		} finally {
-			dbConnector.release(rsParameters);
-			dbConnector.release(rsBooleanValues);
-			dbConnector.release(rsIntValues);
-			dbConnector.release(rsRealValues);
-			dbConnector.release(rsStringValues);
+		if (owner instanceof PSetParameter) {
+			PSetParameter pset = (PSetParameter) owner;
+			for (Parameter p : parameters)
+				if (p != null)
+					pset.addParameter(p);
+		} else if (owner instanceof ParameterContainer) {
+			ParameterContainer container = (ParameterContainer) owner;
+			for (Parameter p : parameters)
+				if (p != null)
+					container.updateParameter(p.name(), p.type(), p.valueAsString());
+			container.setDatabaseId(ownerId);
 		}
+	}
 
-		return idToParameters;
+	/** retrieve the value of the current parameter row as string, null if none */
+	private String parameterValueAsString(ResultSet rsParameters, String type) throws SQLException {
+		if (type.equals("bool"))
+			return (new Boolean(rsParameters.getBoolean(8))).toString();
+
+		String valueAsString = null;
+		if (type.contains("int")) {
+			boolean isHex = (rsParameters.getInt(10) > 0);
+
+			valueAsString = rsParameters.getString(8);
+			if (type.contains("v")) // should handle vector hex representation
+				valueAsString = rsParameters.getString(8);
+			else if ((isHex) && (type.contains("64")))
+				valueAsString = "0x" + Long.toHexString(rsParameters.getLong(8));
+			else if (isHex)
+				valueAsString = "0x" + Integer.toHexString(rsParameters.getInt(8));
+		} else if (type.contains("double") || type.contains("string") || type.contains("InputTag")
+				|| type.contains("ESInputTag") || type.contains("FileInPath") || type.contains("EventID")) {
+			valueAsString = rsParameters.getString(8); // get PARAMETER_VALUE
+		} else
+			return null;
+
+		Clob valueAsStringLOB = rsParameters.getClob(9);
+		if (valueAsStringLOB != null) {
+			int lobLength = (int) valueAsStringLOB.length();
+			valueAsString = valueAsStringLOB.getSubString(1, lobLength);
+			valueAsString = valueAsString.trim();
+		}
+		if (valueAsString != null) {
+			if (valueAsString.startsWith("{"))
+				valueAsString = valueAsString.substring(1, valueAsString.length() - 1);
+			valueAsString = valueAsString.trim();
+		}
+		return valueAsString;
 	}
 
 	private String CLOBToString(Clob cl) throws IOException, SQLException {
@@ -6233,16 +7311,10 @@ public class ConfDB {
 	private void insertVecParameterSet(int parentId, int sequenceNb, int lvl, VPSetParameter vpset,
 			PreparedStatement dbstmnt) throws DatabaseException {
 		// int vpsetId = insertSuperId();
-		ResultSet rs = null;
 		try {
 			if (dbstmnt == psInsertMoElement) {
-				dbstmnt.setInt(1, 3); // moetype
-				dbstmnt.setString(2, vpset.name());
-				dbstmnt.setNull(3, Types.INTEGER);
-				dbstmnt.setString(4, "VPSet");
-				dbstmnt.setBoolean(5, vpset.isTracked());
-				// dbstmnt.setInt(6,999);
-				dbstmnt.setNull(6, Types.INTEGER);// crc
+				insertMoElement(parentId, lvl, sequenceNb, 3, vpset.name(), null, "VPSet", vpset.isTracked(), null,
+						null, null); // moetype
 			} else {
 				dbstmnt.setInt(1, parentId);
 				dbstmnt.setString(2, vpset.name());
@@ -6250,23 +7322,11 @@ public class ConfDB {
 				dbstmnt.setBoolean(4, vpset.isTracked());
 				dbstmnt.setString(5, "VPSet");
 				dbstmnt.setInt(6, sequenceNb);
+				dbstmnt.setString(7, null);
+				dbstmnt.setString(8, null);
+				dbstmnt.setString(9, null);
 				dbstmnt.setInt(10, 3); // moetype
-			}
-			dbstmnt.setString(7, null);
-			dbstmnt.setString(8, null);
-			dbstmnt.setString(9, null);
-
-			dbstmnt.execute();
-			if (dbstmnt == psInsertMoElement) {
-				rs = dbstmnt.getGeneratedKeys();
-				rs.next();
-				int paramId = rs.getInt(1);
-				psInsertPae2Moe.setInt(1, parentId);
-				psInsertPae2Moe.setInt(2, paramId);
-				psInsertPae2Moe.setInt(3, lvl);
-				psInsertPae2Moe.setInt(4, sequenceNb);
-				// psInsertPae2Moe.addBatch();
-				psInsertPae2Moe.executeUpdate();
+				addToBatch(dbstmnt);
 			}
 
 			for (int i = 0; i < vpset.parameterSetCount(); i++) {
@@ -6277,15 +7337,7 @@ public class ConfDB {
 			String errMsg = "ConfDB::insertVecParameterSet(parId=" + parentId + ",sequenceNb=" + sequenceNb + ",vpset="
 					+ vpset.name() + ") failed: " + e.getMessage();
 			throw new DatabaseException(errMsg, e);
-		} finally {
-			dbConnector.release(rs);
 		}
-		/*
-		 * try { if (dbstmnt==psInsertMoElement) { psInsertPae2Moe.executeBatch(); } }
-		 * catch (SQLException e) { String errMsg =
-		 * "ConfDB::insertVecParameterSet(parId="+parentId+") failed "+
-		 * "(batch insert):" + e.getMessage(); throw new DatabaseException(errMsg,e); }
-		 */
 
 		// insertSuperIdVecParamSetAssoc(superId,vpsetId,sequenceNb);
 	}
@@ -6294,16 +7346,10 @@ public class ConfDB {
 	private void insertParameterSet(int parentId, int sequenceNb, int lvl, PSetParameter pset,
 			PreparedStatement dbstmnt) throws DatabaseException {
 		// int psetId = insertSuperId();
-		ResultSet rs = null;
 		try {
 			if (dbstmnt == psInsertMoElement) {
-				dbstmnt.setInt(1, 2); // moetype
-				dbstmnt.setString(2, pset.name());
-				dbstmnt.setInt(3, -1);
-				dbstmnt.setString(4, "PSet");
-				dbstmnt.setBoolean(5, pset.isTracked());
-				// dbstmnt.setInt(6,999);
-				dbstmnt.setNull(6, Types.INTEGER);// crc
+				insertMoElement(parentId, lvl, sequenceNb, 2, pset.name(), -1, "PSet", pset.isTracked(), null, null,
+						null); // moetype
 			} else {
 				dbstmnt.setInt(1, parentId);
 				dbstmnt.setString(2, pset.name());
@@ -6311,25 +7357,11 @@ public class ConfDB {
 				dbstmnt.setBoolean(4, pset.isTracked());
 				dbstmnt.setString(5, "PSet");
 				dbstmnt.setInt(6, sequenceNb);
+				dbstmnt.setString(7, null);
+				dbstmnt.setString(8, null);
+				dbstmnt.setString(9, null);
 				dbstmnt.setInt(10, 2); // moetype
-			}
-			dbstmnt.setString(7, null);
-			dbstmnt.setString(8, null);
-			dbstmnt.setString(9, null);
-			dbstmnt.execute();
-			// rs=dbstmnt.getGeneratedKeys();
-//            rs.next();
-//            int psetId = rs.getInt(1);
-			if (dbstmnt == psInsertMoElement) {
-				rs = dbstmnt.getGeneratedKeys();
-				rs.next();
-				int paramId = rs.getInt(1);
-				psInsertPae2Moe.setInt(1, parentId);
-				psInsertPae2Moe.setInt(2, paramId);
-				psInsertPae2Moe.setInt(3, lvl);
-				psInsertPae2Moe.setInt(4, sequenceNb);
-				// psInsertPae2Moe.addBatch();
-				psInsertPae2Moe.executeUpdate();
+				addToBatch(dbstmnt);
 			}
 
 			for (int i = 0; i < pset.parameterCount(); i++) {
@@ -6348,24 +7380,14 @@ public class ConfDB {
 			String errMsg = "ConfDB::insertParameterSet(parId=" + parentId + ",sequenceNb=" + sequenceNb + ",pset="
 					+ pset.name() + ") failed: " + e.getMessage();
 			throw new DatabaseException(errMsg, e);
-		} finally {
-			dbConnector.release(rs);
 		}
 
-		/*
-		 * try { if (dbstmnt==psInsertMoElement) { psInsertPae2Moe.executeBatch(); } }
-		 * catch (SQLException e) { String errMsg =
-		 * "ConfDB::insertParameterSet(parId="+parentId+") failed "+ "(batch insert):" +
-		 * e.getMessage(); throw new DatabaseException(errMsg,e); }
-		 */
-
 //      insertSuperIdParamSetAssoc(superId,psetId,sequenceNb);
 	}
 
 	/** insert parameter into Parameters table */
 	private void insertParameter(int parentId, int sequenceNb, int lvl, Parameter parameter, PreparedStatement dbstmnt)
 			throws DatabaseException {
-		ResultSet rs = null;
 		try {
 			/* Fix for File in Path Error */
 			/*
@@ -6375,15 +7397,7 @@ public class ConfDB {
 			 * valueAsString()==null) fileInPathParameter.setValue("' '"); }
 			 */
 
-			if (dbstmnt == psInsertMoElement) {
-				dbstmnt.setInt(1, 1); // moetype
-				dbstmnt.setString(2, parameter.name());
-				dbstmnt.setNull(3, Types.INTEGER);
-				dbstmnt.setString(4, parameter.type());
-				dbstmnt.setBoolean(5, parameter.isTracked());
-				// dbstmnt.setInt(6,999);
-				dbstmnt.setNull(6, Types.INTEGER);// crc
-			} else {
+			if (dbstmnt != psInsertMoElement) {
 				dbstmnt.setInt(1, parentId);
 				dbstmnt.setString(2, parameter.name());
 				dbstmnt.setInt(3, lvl);
@@ -6397,24 +7411,24 @@ public class ConfDB {
 			int hexo = 0;
 
 			if (parameter instanceof VectorParameter) {
-				value = "{ ";
+				StringBuilder vector = new StringBuilder("{ ");
 				VectorParameter vp = (VectorParameter) parameter;
 				for (int i = 0; i < vp.vectorSize(); i++) {
 					if (vp instanceof VStringParameter) {
-						value += " \"" + (String) vp.value(i) + "\" ";
+						vector.append(" \"").append((String) vp.value(i)).append("\" ");
 					} else if (vp instanceof VUInt64Parameter) {
 						Long vuint64 = ((BigInteger) vp.value(i)).longValue();
-						value += " " + vuint64.toString() + " ";
+						vector.append(' ').append(vuint64.toString()).append(' ');
 					} else if (vp instanceof VInputTagParameter) {
 						if (((String) vp.value(i)).isEmpty())
-							value += " \"\" ";
+							vector.append(" \"\" ");
 						else
-							value += " " + ((String) vp.value(i)) + " ";
+							vector.append(' ').append((String) vp.value(i)).append(' ');
 					} else {
-						value += " " + (vp.value(i)).toString() + " ";
+						vector.append(' ').append((vp.value(i)).toString()).append(' ');
 					}
 					if (i < (vp.vectorSize() - 1)) {
-						value += ",";
+						vector.append(',');
 					}
 
 					if (vp instanceof VInt32Parameter) {
@@ -6436,7 +7450,8 @@ public class ConfDB {
 					}
 
 				}
-				value += " }";
+				vector.append(" }");
+				value = vector.toString();
 
 			} else {
 				ScalarParameter sp = (ScalarParameter) parameter;
@@ -6483,36 +7498,22 @@ public class ConfDB {
 
 			}
 
-			if (value.length() < 4000) {
-				dbstmnt.setString(7, value);
-				dbstmnt.setString(8, null);
-			} else {
-				dbstmnt.setString(7, null);
-				dbstmnt.setString(8, value);
-			}
-
-			dbstmnt.setInt(9, hexo);
-			dbstmnt.executeUpdate();
-
+			String shortValue = (value.length() < 4000) ? value : null;
+			String longValue = (value.length() < 4000) ? null : value;
 			if (dbstmnt == psInsertMoElement) {
-				rs = dbstmnt.getGeneratedKeys();
-				rs.next();
-				int paramId = rs.getInt(1);
-				psInsertPae2Moe.setInt(1, parentId);
-				psInsertPae2Moe.setInt(2, paramId);
-				psInsertPae2Moe.setInt(3, lvl);
-				psInsertPae2Moe.setInt(4, sequenceNb);
-
-				// psInsertPae2Moe.addBatch();
-				psInsertPae2Moe.executeUpdate();
+				insertMoElement(parentId, lvl, sequenceNb, 1, parameter.name(), null, parameter.type(),
+						parameter.isTracked(), shortValue, longValue, hexo); // moetype
+			} else {
+				dbstmnt.setString(7, shortValue);
+				dbstmnt.setString(8, longValue);
+				dbstmnt.setInt(9, hexo);
+				addToBatch(dbstmnt);
 			}
 
 		} catch (SQLException e) {
 			String errMsg = "ConfDB::insertParameter(parId=" + parentId + ",sequenceNb=" + sequenceNb + ",parameter="
 					+ parameter.name() + ") failed: " + e.getMessage();
 			throw new DatabaseException(errMsg, e);
-		} finally {
-			dbConnector.release(rs);
 		}
 
 		/*
@@ -6524,6 +7525,99 @@ public class ConfDB {
 
 	}
 
+	/**
+	 * insert a parameter row of module 'moduleId' and link it to the module;
+	 * the rows are sent in blocks (see flushMoElements()), only those with a
+	 * value too long for a VARCHAR2 bind one by one
+	 */
+	private void insertMoElement(int moduleId, int lvl, int sequenceNb, int moetype, String name, Integer oId,
+			String paramType, boolean isTracked, String value, String valueLob, Integer hex) throws SQLException {
+		if (valueLob == null) {
+			moElementInserts.add(moetype, name, oId, paramType, isTracked ? 1 : 0, null, value, null, hex);
+			moElementLinks.add(new int[] { moduleId, lvl, sequenceNb });
+			if (moElementInserts.rowCount() >= insertBatchSize)
+				flushMoElements();
+			return;
+		}
+		ResultSet rs = null;
+		try {
+			psInsertMoElement.setInt(1, moetype);
+			psInsertMoElement.setString(2, name);
+			psInsertMoElement.setNull(3, Types.INTEGER);
+			psInsertMoElement.setString(4, paramType);
+			psInsertMoElement.setBoolean(5, isTracked);
+			psInsertMoElement.setNull(6, Types.INTEGER);// crc
+			psInsertMoElement.setString(7, value);
+			psInsertMoElement.setString(8, valueLob);
+			psInsertMoElement.setInt(9, (hex == null) ? 0 : hex);
+			psInsertMoElement.executeUpdate();
+			rs = psInsertMoElement.getGeneratedKeys();
+			rs.next();
+			linkMoElement(moduleId, rs.getInt(1), lvl, sequenceNb);
+		} finally {
+			dbConnector.release(rs);
+		}
+	}
+
+	/** insert the pending module parameter rows and link them to their modules */
+	private void flushMoElements() throws SQLException {
+		try {
+			int[] ids = moElementInserts.execute(dbConnector.getConnection(), insertBatchSize);
+			for (int i = 0; i < ids.length; i++) {
+				int[] link = moElementLinks.get(i);
+				linkMoElement(link[0], ids[i], link[1], link[2]);
+			}
+		} finally {
+			moElementLinks.clear();
+		}
+	}
+
+	/** link a module parameter row to its module */
+	private void linkMoElement(int moduleId, int moElementId, int lvl, int sequenceNb) throws SQLException {
+		psInsertPae2Moe.setInt(1, moduleId);
+		psInsertPae2Moe.setInt(2, moElementId);
+		psInsertPae2Moe.setInt(3, lvl);
+		psInsertPae2Moe.setInt(4, sequenceNb);
+		addToBatch(psInsertPae2Moe);
+	}
+
+	/** add the current row to the batch of 'ps', execute it once it is full */
+	private void addToBatch(PreparedStatement ps) throws SQLException {
+		ps.addBatch();
+		Integer count = pendingBatches.get(ps);
+		int rows = (count == null) ? 1 : count + 1;
+		if (rows < insertBatchSize) {
+			pendingBatches.put(ps, rows);
+		} else {
+			pendingBatches.remove(ps);
+			ps.executeBatch();
+		}
+	}
+
+	/** execute the rows still pending in the batches, in the order they were added */
+	private void executePendingBatches() throws SQLException {
+		Iterator<Map.Entry<PreparedStatement, Integer>> it = pendingBatches.entrySet().iterator();
+		while (it.hasNext()) {
+			PreparedStatement ps = it.next().getKey();
+			it.remove();
+			ps.executeBatch();
+		}
+	}
+
+	/** drop the rows still pending in the batches, e.g. after a failed save */
+	private void discardPendingBatches() {
+		for (PreparedStatement ps : pendingBatches.keySet()) {
+			try {
+				ps.clearBatch();
+			} catch (SQLException e) {
+				System.err.println("ConfDB::discardPendingBatches() failed: " + e.getMessage());
+			}
+		}
+		pendingBatches.clear();
+		moElementInserts.clear();
+		moElementLinks.clear();
+	}
+
 	/** associate parameter with the service/module superid */
 	private void insertSuperIdParamAssoc(int superId, int paramId, int sequenceNb) throws DatabaseException {
 		try {
@@ -7066,3 +8160,170 @@ class IdVPSetPair {
 		this.vpset = vpset;
 	}
 }
+
+/** rows linking the components of one kind to a configuration version */
+class ConfigLinks {
+	private String table;
+	private int configColumn;
+	private ArrayList<int[]> rows = new ArrayList<int[]>();
+
+	/** rows of 'table', whose configuration id is the 'configColumn'-th value */
+	ConfigLinks(String table, int configColumn) {
+		this.table = table;
+		this.configColumn = configColumn;
+	}
+
+	/** add a row, by its values except the configuration id (-1 for NULL) */
+	void add(int... values) {
+		rows.add(values);
+	}
+
+	/** name of the link table */
+	String table() {
+		return table;
+	}
+
+	/** number of rows */
+	int rowCount() {
+		return rows.size();
+	}
+
+	/** check if the rows of 'rs' (same values, same columns) are the same rows */
+	boolean matches(ResultSet rs) throws SQLException {
+		ArrayList<int[]> stored = new ArrayList<int[]>();
+		int columnCount = rs.getMetaData().getColumnCount();
+		while (rs.next()) {
+			if (stored.size() == rows.size())
+				return false;
+			int[] row = new int[columnCount];
+			for (int i = 0; i < columnCount; i++) {
+				row[i] = rs.getInt(i + 1);
+				if (rs.wasNull())
+					row[i] = -1;
+			}
+			stored.add(row);
+		}
+		if (stored.size() != rows.size())
+			return false;
+		ArrayList<int[]> sorted = new ArrayList<int[]>(rows);
+		Collections.sort(sorted, rowOrder);
+		Collections.sort(stored, rowOrder);
+		for (int i = 0; i < sorted.size(); i++)
+			if (!Arrays.equals(sorted.get(i), stored.get(i)))
+				return false;
+		return true;
+	}
+
+	/** add the rows to the batch of 'ps', for configuration 'configId' */
+	void addBatch(PreparedStatement ps, int configId) throws SQLException {
+		for (int[] row : rows) {
+			int column = 1;
+			for (int value : row) {
+				if (column == configColumn)
+					ps.setInt(column++, configId);
+				if (value == -1)
+					ps.setNull(column++, Types.INTEGER);
+				else
+					ps.setInt(column++, value);
+			}
+			if (column == configColumn)
+				ps.setInt(column, configId);
+			ps.addBatch();
+		}
+	}
+
+	/** lexicographic order of rows */
+	private static final Comparator<int[]> rowOrder = new Comparator<int[]>() {
+		public int compare(int[] a, int[] b) {
+			for (int i = 0; i < Math.min(a.length, b.length); i++)
+				if (a[i] != b[i])
+					return (a[i] < b[i]) ? -1 : 1;
+			return a.length - b.length;
+		}
+	};
+}
+
+/**
+ * rows of an INSERT whose generated ids are needed: rather than with one
+ * executeUpdate() and getGeneratedKeys() round trip each, they are sent as
+ * PL/SQL blocks of 'INSERT ... RETURNING id INTO ?' statements, so the ids
+ * are still assigned by the database (trigger, sequence or identity)
+ */
+class KeyedInserts {
+	/** rows per block at most, well within the bind variable limit */
+	private static final int maxBlockRows = 500;
+
+	private String insert;
+	private int[] columnTypes;
+	private ArrayList<Object[]> rows = new ArrayList<Object[]>();
+
+	/** 'insert' with one '?' per column, of the given java.sql.Types */
+	KeyedInserts(String insert, int... columnTypes) {
+		this.insert = insert;
+		this.columnTypes = columnTypes;
+	}
+
+	/** add a row, by its values (Integer, String or null) */
+	void add(Object... values) {
+		rows.add(values);
+	}
+
+	/** number of rows pending */
+	int rowCount() {
+		return rows.size();
+	}
+
+	/** drop the pending rows */
+	void clear() {
+		rows.clear();
+	}
+
+	/** insert the pending rows, 'blockRows' per round trip; their ids, in order */
+	int[] execute(Connection connection, int blockRows) throws SQLException {
+		int[] ids = new int[rows.size()];
+		int size = Math.max(1, Math.min(blockRows, maxBlockRows));
+		CallableStatement block = null;
+		int blockSize = 0;
+		try {
+			for (int first = 0; first < rows.size(); first += size) {
+				int count = Math.min(size, rows.size() - first);
+				if (count != blockSize) {
+					if (block != null)
+						block.close();
+					block = connection.prepareCall(blockSql(count));
+					blockSize = count;
+				}
+				int index = 1;
+				for (int i = first; i < first + count; i++) {
+					Object[] row = rows.get(i);
+					for (int column = 0; column < row.length; column++) {
+						Object value = row[column];
+						if (value == null)
+							block.setNull(index++, columnTypes[column]);
+						else if (value instanceof Integer)
+							block.setInt(index++, (Integer) value);
+						else
+							block.setString(index++, value.toString());
+					}
+					block.registerOutParameter(index++, Types.INTEGER);
+				}
+				block.execute();
+				for (int i = 0; i < count; i++)
+					ids[first + i] = block.getInt((i + 1) * (columnTypes.length + 1));
+			}
+		} finally {
+			rows.clear();
+			if (block != null)
+				block.close();
+		}
+		return ids;
+	}
+
+	/** PL/SQL block inserting 'count' rows */
+	private String blockSql(int count) {
+		StringBuilder sql = new StringBuilder("BEGIN\n");
+		for (int i = 0; i < count; i++)
+			sql.append(insert).append(" RETURNING id INTO ?;\n");
+		return sql.append("END;").toString();
+	}
+}
@@ -0,0 +1,212 @@
+package confdb.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * PooledDatabaseConnector
+ * -----------------------
+ *
+ * Bounded pool of dedicated connections to the same database. Each
+ * connection is wrapped by its own DBMS specific connector, which is handed
+ * out by borrowConnector() and taken back by returnConnector(), so that the
+ * borrower can keep its own set of prepared statements on it. The
+ * IDatabaseConnector interface gives access to the connection borrowed by
+ * the calling thread.
+ */
+public class PooledDatabaseConnector implements IDatabaseConnector {
+	//
+	// member data
+	//
+
+	/** type of the database, see ConfDB.dbTypeMySQL / ConfDB.dbTypeOracle */
+	private String dbType = null;
+
+	/** URL of the database */
+	private String dbURL = null;
+
+	/** current user accessing the database */
+	private String dbUser = null;
+
+	/** password of current user accessing the database */
+	private String dbPassword = null;
+
+	/** maximum number of connections */
+	private int poolSize = 0;
+
+	/** all connectors opened by the pool */
+	private ArrayList<IDatabaseConnector> connectors = new ArrayList<IDatabaseConnector>();
+
+	/** connectors currently not borrowed */
+	private LinkedBlockingQueue<IDatabaseConnector> idleConnectors = new LinkedBlockingQueue<IDatabaseConnector>();
+
+	/** connector borrowed by each thread */
+	private ThreadLocal<IDatabaseConnector> threadConnector = new ThreadLocal<IDatabaseConnector>();
+
+	/** pool has been closed, returned connectors are closed too */
+	private boolean closed = false;
+
+	//
+	// construction
+	//
+
+	/** standard constructor */
+	public PooledDatabaseConnector(String dbType, String url, String user, String password, int poolSize)
+			throws DatabaseException {
+		if (!dbType.equals(ConfDB.dbTypeMySQL) && !dbType.equals(ConfDB.dbTypeOracle))
+			throw new DatabaseException("PooledDatabaseConnector: unknown database type '" + dbType + "'");
+		if (poolSize < 1)
+			throw new DatabaseException("PooledDatabaseConnector: invalid pool size " + poolSize);
+		this.dbType = dbType;
+		this.dbURL = url;
+		this.dbUser = user;
+		this.dbPassword = password;
+		this.poolSize = poolSize;
+	}
+
+	//
+	// member functions
+	//
+
+	/** open the first connection of the pool, to validate the parameters */
+	public void openConnection() throws DatabaseException {
+		synchronized (this) {
+			closed = false;
+		}
+		IDatabaseConnector connector = tryBorrowConnector();
+		if (connector != null)
+			returnConnector(connector);
+	}
+
+	/** close all connections which are not borrowed, the others on return */
+	public void closeConnection() throws DatabaseException {
+		ArrayList<IDatabaseConnector> idle = new ArrayList<IDatabaseConnector>();
+		synchronized (this) {
+			closed = true;
+			idleConnectors.drainTo(idle);
+			connectors.removeAll(idle);
+		}
+		for (IDatabaseConnector connector : idle)
+			connector.closeConnection();
+	}
+
+	/** access to the connection borrowed by the calling thread */
+	public Connection getConnection() {
+		IDatabaseConnector connector = threadConnector.get();
+		return (connector != null) ? connector.getConnection() : null;
+	}
+
+	/** access to the URL of the database */
+	public String dbURL() {
+		return dbURL;
+	}
+
+	/** access the current username accessing the database */
+	public String dbUser() {
+		return dbUser;
+	}
+
+	/** access the password of the current user accessing the database */
+	public String dbPassword() {
+		return dbPassword;
+	}
+
+	/** initialize the database access parameters, for connections opened next */
+	public synchronized void setParameters(String url, String user, String password) {
+		dbURL = url;
+		dbUser = user;
+		dbPassword = password;
+	}
+
+	/** release the resources associated with a result set */
+	public ResultSet release(ResultSet rs) {
+		if (rs != null) {
+			try {
+				rs.close();
+			} catch (SQLException e) {
+				String msg = "WARNING: Can't close SQL ResultSet: " + e.getMessage();
+				System.err.println(msg);
+			}
+		}
+		return null;
+	}
+
+	/** maximum number of connections */
+	public int poolSize() {
+		return poolSize;
+	}
+
+	/** number of connections currently opened by the pool */
+	public synchronized int connectionCount() {
+		return connectors.size();
+	}
+
+	/** borrow a connector, waiting for one to be returned if the pool is exhausted */
+	public IDatabaseConnector borrowConnector() throws DatabaseException {
+		IDatabaseConnector connector = tryBorrowConnector();
+		if (connector == null) {
+			try {
+				connector = idleConnectors.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DatabaseException("PooledDatabaseConnector::borrowConnector() interrupted", e);
+			}
+			threadConnector.set(connector);
+		}
+		return connector;
+	}
+
+	/** borrow a connector, null if the pool is exhausted */
+	public IDatabaseConnector tryBorrowConnector() throws DatabaseException {
+		IDatabaseConnector connector = null;
+		synchronized (this) {
+			if (closed)
+				throw new DatabaseException("PooledDatabaseConnector::tryBorrowConnector(): pool is closed");
+			connector = idleConnectors.poll();
+			if (connector == null) {
+				if (connectors.size() >= poolSize)
+					return null;
+				connector = newConnector();
+				connectors.add(connector);
+			}
+		}
+		try {
+			connector.openConnection();
+		} catch (DatabaseException e) {
+			synchronized (this) {
+				connectors.remove(connector);
+			}
+			throw e;
+		}
+		threadConnector.set(connector);
+		return connector;
+	}
+
+	/** return a borrowed connector to the pool */
+	public void returnConnector(IDatabaseConnector connector) throws DatabaseException {
+		if (threadConnector.get() == connector)
+			threadConnector.remove();
+		synchronized (this) {
+			if (!connectors.contains(connector))
+				return;
+			if (!closed) {
+				idleConnectors.offer(connector);
+				return;
+			}
+			connectors.remove(connector);
+		}
+		connector.closeConnection();
+	}
+
+	/** create a connector for one dedicated connection */
+	private IDatabaseConnector newConnector() throws DatabaseException {
+		if (dbType.equals(ConfDB.dbTypeMySQL))
+			return new MySQLDatabaseConnector(dbURL, dbUser, dbPassword);
+		return new OracleDatabaseConnector(dbURL, dbUser, dbPassword);
+	}
+
+}
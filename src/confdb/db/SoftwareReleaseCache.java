@@ -0,0 +1,205 @@
+package confdb.db;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import confdb.data.SoftwareRelease;
+
+/**
+ * SoftwareReleaseCache
+ * --------------------
+ *
+ * Process-wide cache of the software releases (all templates) loaded last,
+ * shared by all ConfDB sessions and keyed by database and release id. The
+ * cached releases are never handed out: templates keep track of their
+ * instances, so each caller gets its own templates, which share the
+ * parameters of the cached ones until they modify them (see
+ * SoftwareRelease.share()). Optionally, releases are also written to snapshot
+ * files in a local directory, from which they are read instead of the
+ * database after a restart. Releases inserted or removed through ConfDB are
+ * dropped from the cache and from the snapshot directory.
+ */
+public class SoftwareReleaseCache {
+	//
+	// member data
+	//
+
+	/** maximum number of releases kept in memory, 0 to disable the cache */
+	private static int capacity = 2;
+
+	/** directory of the release snapshots, null if not persisted */
+	private static File snapshotDirectory = null;
+
+	/** cached releases, least recently used first */
+	private static final LinkedHashMap<String, SoftwareRelease> releases = new LinkedHashMap<String, SoftwareRelease>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<String, SoftwareRelease> eldest) {
+			return size() > capacity;
+		}
+	};
+
+	//
+	// member functions
+	//
+
+	/** set the maximum number of releases kept in memory, 0 to disable */
+	public static synchronized void setCapacity(int capacity) {
+		SoftwareReleaseCache.capacity = Math.max(0, capacity);
+		while (releases.size() > SoftwareReleaseCache.capacity)
+			releases.remove(releases.keySet().iterator().next());
+	}
+
+	/** maximum number of releases kept in memory */
+	public static synchronized int capacity() {
+		return capacity;
+	}
+
+	/** persist the cached releases in 'directory', null to keep them in memory only */
+	public static synchronized void setSnapshotDirectory(File directory) {
+		snapshotDirectory = directory;
+	}
+
+	/** drop all releases kept in memory */
+	public static synchronized void clear() {
+		releases.clear();
+	}
+
+	/**
+	 * fill 'release' with a copy of the cached release 'releaseId' (tagged
+	 * 'releaseTag') of database 'dbUrl'; return false if it is not cached
+	 */
+	static boolean copyTo(String dbUrl, int releaseId, String releaseTag, SoftwareRelease release) {
+		SoftwareRelease cached = get(dbUrl, releaseId, releaseTag);
+		if (cached == null)
+			return false;
+		// cached releases are never modified, copy outside of the lock
+		release.share(cached);
+		release.sortTemplates();
+		return true;
+	}
+
+	/** cache a copy of the freshly loaded release 'releaseId' */
+	static void put(String dbUrl, int releaseId, SoftwareRelease release) {
+		if (capacity() == 0)
+			return;
+		SoftwareRelease cached = new SoftwareRelease(release);
+		File file = null;
+		synchronized (SoftwareReleaseCache.class) {
+			releases.put(key(dbUrl, releaseId), cached);
+			file = snapshotFile(dbUrl, releaseId);
+		}
+		if (file != null)
+			writeSnapshot(cached, file);
+	}
+
+	/** drop the release 'releaseId' of database 'dbUrl', and its snapshot */
+	static void remove(String dbUrl, int releaseId) {
+		File file = null;
+		synchronized (SoftwareReleaseCache.class) {
+			releases.remove(key(dbUrl, releaseId));
+			file = snapshotFile(dbUrl, releaseId);
+		}
+		if (file != null && file.isFile() && !file.delete())
+			System.err.println("SoftwareReleaseCache: can't delete " + file);
+	}
+
+	//
+	// private member functions
+	//
+
+	/** cached release, from memory or from its snapshot, null if not cached */
+	private static SoftwareRelease get(String dbUrl, int releaseId, String releaseTag) {
+		File file = null;
+		synchronized (SoftwareReleaseCache.class) {
+			if (capacity == 0)
+				return null;
+			SoftwareRelease cached = releases.get(key(dbUrl, releaseId));
+			if (cached != null && releaseTag.equals(cached.releaseTag()))
+				return cached;
+			file = snapshotFile(dbUrl, releaseId);
+		}
+		if (file == null || !file.isFile())
+			return null;
+
+		SoftwareRelease cached = readSnapshot(file);
+		if (cached == null || !releaseTag.equals(cached.releaseTag()))
+			return null;
+		synchronized (SoftwareReleaseCache.class) {
+			releases.put(key(dbUrl, releaseId), cached);
+		}
+		return cached;
+	}
+
+	/** cache key of a release */
+	private static String key(String dbUrl, int releaseId) {
+		return dbUrl + " " + releaseId;
+	}
+
+	/** snapshot file of a release, null if not persisted */
+	private static File snapshotFile(String dbUrl, int releaseId) {
+		if (snapshotDirectory == null)
+			return null;
+		String name = "release" + releaseId + "-" + Integer.toHexString(String.valueOf(dbUrl).hashCode())
+				+ ".release";
+		return new File(snapshotDirectory, name);
+	}
+
+	/** read a release snapshot, null if it can't be read */
+	private static SoftwareRelease readSnapshot(File file) {
+		ObjectInputStream in = null;
+		try {
+			in = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+			return (SoftwareRelease) in.readObject();
+		} catch (Exception e) {
+			System.err.println("SoftwareReleaseCache: can't read " + file + ": " + e.getMessage());
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/** write a release snapshot, replacing the file only once complete */
+	private static void writeSnapshot(SoftwareRelease release, File file) {
+		File tmpFile = new File(file.getPath() + ".tmp");
+		ObjectOutputStream out = null;
+		try {
+			out = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile))));
+			out.writeObject(release);
+			out.close();
+			out = null;
+			if (!tmpFile.renameTo(file)) {
+				file.delete();
+				if (!tmpFile.renameTo(file))
+					throw new IOException("can't rename " + tmpFile);
+			}
+		} catch (IOException e) {
+			System.err.println("SoftwareReleaseCache: can't write " + file + ": " + e.getMessage());
+			tmpFile.delete();
+		} finally {
+			close(out);
+		}
+	}
+
+	/** close a stream, ignoring errors */
+	private static void close(Closeable stream) {
+		if (stream == null)
+			return;
+		try {
+			stream.close();
+		} catch (IOException e) {
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package confdb.diff;
+
+import java.util.Iterator;
+import java.util.List;
+
+import confdb.converter.ConfCache;
+import confdb.data.*;
+import confdb.db.*;
+
+/**
+ * BatchDiff
+ * ---------
+ *
+ * Compare one reference configuration to many others, e.g. to the last
+ * versions of a menu. The reference is fetched and indexed once (see
+ * DiffBaseline), the other configurations are fetched one at a time, and
+ * each Diff is handed to a listener as soon as it is complete, so that the
+ * configurations compared before can be dropped from memory.
+ */
+public class BatchDiff {
+	//
+	// member data
+	//
+
+	/** the indexed reference configuration */
+	private final DiffBaseline baseline;
+
+	/** skip components with equal content hashes, see Diff.setHashPruning() */
+	private boolean hashPruning = false;
+
+	/** number of threads comparing a pair, see Diff.setParallelism() */
+	private int parallelism = 1;
+
+	//
+	// construction
+	//
+
+	/** standard constructor */
+	public BatchDiff(IConfiguration reference) {
+		this.baseline = new DiffBaseline(reference);
+	}
+
+	//
+	// member functions
+	//
+
+	/** the reference configuration */
+	public IConfiguration reference() {
+		return baseline.reference();
+	}
+
+	/** skip components with equal content hashes */
+	public void setHashPruning(boolean hashPruning) {
+		this.hashPruning = hashPruning;
+	}
+
+	/** indicate wether components with equal content hashes are skipped */
+	public boolean isHashPruning() {
+		return hashPruning;
+	}
+
+	/** number of threads comparing each pair of configurations */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/** number of threads comparing each pair of configurations */
+	public int parallelism() {
+		return parallelism;
+	}
+
+	/** compare the reference to one configuration */
+	public Diff compare(IConfiguration config) {
+		Diff diff = new Diff(baseline, config);
+		diff.setHashPruning(hashPruning);
+		diff.setParallelism(parallelism);
+		diff.compare();
+		return diff;
+	}
+
+	/** compare the reference to each configuration, in order */
+	public void compare(Iterator<IConfiguration> itC, Listener listener) {
+		while (itC.hasNext()) {
+			IConfiguration config = itC.next();
+			listener.compared(config, compare(config));
+		}
+	}
+
+	/**
+	 * compare the reference to each configuration 'configIds', in order,
+	 * fetching them through the ConfCache
+	 */
+	public void compare(List<Integer> configIds, ConfDB database, Listener listener) throws DiffException {
+		for (Integer configId : configIds) {
+			IConfiguration config = null;
+			try {
+				config = ConfCache.getCache().getConfiguration(configId, database);
+			} catch (DatabaseException e) {
+				String errMsg = "BatchDiff::compare(configId=" + configId + ") failed: " + e.getMessage();
+				throw new DiffException(errMsg, e);
+			}
+			listener.compared(config, compare(config));
+		}
+	}
+
+	//
+	// nested interfaces
+	//
+
+	/** receives the result of each comparison as soon as it is complete */
+	public interface Listener {
+		/** the reference was compared to 'config' */
+		public void compared(IConfiguration config, Diff diff);
+	}
+}
@@ -2,7 +2,13 @@ package confdb.diff;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import confdb.converter.ConfCache;
 import confdb.converter.ConverterException;
@@ -47,8 +53,35 @@ public class Diff {
 	private ArrayList<Comparison> streams = new ArrayList<Comparison>();
 	private ArrayList<Comparison> datasets = new ArrayList<Comparison>();
 
-	private HashMap<String, Comparison> containerMap = new HashMap<String, Comparison>();
-	private HashMap<String, Comparison> instanceMap = new HashMap<String, Comparison>();
+	/** comparisons already done, shared by concurrent category passes */
+	private Map<String, Comparison> containerMap = new ConcurrentHashMap<String, Comparison>();
+	private Map<String, Comparison> instanceMap = new ConcurrentHashMap<String, Comparison>();
+
+	/** index of config1 shared with other Diffs, null if config1 isn't indexed */
+	private DiffBaseline baseline = null;
+
+	/** skip components with equal content hashes, see ContentHash */
+	private boolean hashPruning = false;
+
+	/** number of threads comparing the components, 1 to compare sequentially */
+	private int parallelism = 1;
+
+	/** number of component categories, see compareCategory() */
+	private static final int categoryCount = 12;
+
+	/**
+	 * first of the categories compared on a single thread, in order: output
+	 * modules update their SelectEvents / outputCommands and event contents sort
+	 * their commands on every read, and they are reached from output modules,
+	 * sequences, paths, event contents, streams and datasets
+	 */
+	private static final int firstSerialCategory = 6;
+
+	/** number of components compared by one task */
+	private static final int chunkSize = 16;
+
+	/** pools of the parallel comparisons by parallelism, shared by all instances */
+	private static final HashMap<Integer, ForkJoinPool> pools = new HashMap<Integer, ForkJoinPool>();
 
 	//
 	// construction
@@ -60,10 +93,46 @@ public class Diff {
 		this.config2 = config2;
 	}
 
+	/** constructor comparing the reference of an indexed baseline to config2 */
+	public Diff(DiffBaseline baseline, IConfiguration config2) {
+		this(baseline.reference(), config2);
+		this.baseline = baseline;
+	}
+
 	//
 	// member functions
 	//
 
+	/**
+	 * don't descend into instances, paths, sequences and output modules whose
+	 * content hashes are equal: only their parameters / entries can differ, and
+	 * they are covered by the hash
+	 */
+	public void setHashPruning(boolean hashPruning) {
+		this.hashPruning = hashPruning;
+	}
+
+	/** indicate wether components with equal content hashes are skipped */
+	public boolean isHashPruning() {
+		return hashPruning;
+	}
+
+	/**
+	 * compare the categories, and the components within each category,
+	 * concurrently on a pool of 'parallelism' threads, except for the output
+	 * related categories, which are compared on one thread (see
+	 * firstSerialCategory); the comparisons are stored in the same order as
+	 * with a single thread
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/** number of threads comparing the components */
+	public int parallelism() {
+		return parallelism;
+	}
+
 	/** get old configuration identifier */
 	public String configName1() {
 		return config1.toString();
@@ -76,196 +145,73 @@ public class Diff {
 
 	/** compare the two configurations and store all non-identical comparisons */
 	public void compare() {
-		// global parameter sets
-		Iterator<PSetParameter> itPSet2 = config2.psetIterator();
-		while (itPSet2.hasNext()) {
-			PSetParameter pset2 = itPSet2.next();
-			PSetParameter pset1 = config1.pset(pset2.name());
-			Comparison c = comparePSets(pset1, pset2);
-			if (!c.isIdentical())
-				psets.add(c);
-		}
-		Iterator<PSetParameter> itPSet1 = config1.psetIterator();
-		while (itPSet1.hasNext()) {
-			PSetParameter pset1 = itPSet1.next();
-			if (config2.pset(pset1.name()) == null)
-				psets.add(comparePSets(pset1, null));
-		}
-
-		// EDSources
-		Iterator<EDSourceInstance> itEDS2 = config2.edsourceIterator();
-		while (itEDS2.hasNext()) {
-			EDSourceInstance eds2 = itEDS2.next();
-			EDSourceInstance eds1 = config1.edsource(eds2.name());
-			Comparison c = compareInstances(eds1, eds2);
-			if (!c.isIdentical())
-				edsources.add(c);
-		}
-		Iterator<EDSourceInstance> itEDS1 = config1.edsourceIterator();
-		while (itEDS1.hasNext()) {
-			EDSourceInstance eds1 = itEDS1.next();
-			if (config2.edsource(eds1.name()) == null)
-				edsources.add(compareInstances(eds1, null));
-		}
-
-		// ESSources
-		Iterator<ESSourceInstance> itESS2 = config2.essourceIterator();
-		while (itESS2.hasNext()) {
-			ESSourceInstance ess2 = itESS2.next();
-			ESSourceInstance ess1 = config1.essource(ess2.name());
-			Comparison c = compareInstances(ess1, ess2);
-			if (!c.isIdentical())
-				essources.add(c);
-		}
-		Iterator<ESSourceInstance> itESS1 = config1.essourceIterator();
-		while (itESS1.hasNext()) {
-			ESSourceInstance ess1 = itESS1.next();
-			if (config2.essource(ess1.name()) == null)
-				essources.add(compareInstances(ess1, null));
-		}
-
-		// ESModules
-		Iterator<ESModuleInstance> itESM2 = config2.esmoduleIterator();
-		while (itESM2.hasNext()) {
-			ESModuleInstance esm2 = itESM2.next();
-			ESModuleInstance esm1 = config1.esmodule(esm2.name());
-			Comparison c = compareInstances(esm1, esm2);
-			if (!c.isIdentical())
-				esmodules.add(c);
-		}
-		Iterator<ESModuleInstance> itESM1 = config1.esmoduleIterator();
-		while (itESM1.hasNext()) {
-			ESModuleInstance esm1 = itESM1.next();
-			if (config2.esmodule(esm1.name()) == null)
-				esmodules.add(compareInstances(esm1, null));
-		}
-
-		// Services
-		Iterator<ServiceInstance> itSvc2 = config2.serviceIterator();
-		while (itSvc2.hasNext()) {
-			ServiceInstance svc2 = itSvc2.next();
-			ServiceInstance svc1 = config1.service(svc2.name());
-			Comparison c = compareInstances(svc1, svc2);
-			if (!c.isIdentical())
-				services.add(c);
-		}
-		Iterator<ServiceInstance> itSvc1 = config1.serviceIterator();
-		while (itSvc1.hasNext()) {
-			ServiceInstance svc1 = itSvc1.next();
-			if (config2.service(svc1.name()) == null)
-				services.add(compareInstances(svc1, null));
-		}
-
-		// Modules
-		Iterator<ModuleInstance> itMod2 = config2.moduleIterator();
-		while (itMod2.hasNext()) {
-			ModuleInstance mod2 = itMod2.next();
-			ModuleInstance mod1 = config1.module(mod2.name());
-			Comparison c = compareInstances(mod1, mod2);
-			if (!c.isIdentical())
-				modules.add(c);
-		}
-		Iterator<ModuleInstance> itMod1 = config1.moduleIterator();
-		while (itMod1.hasNext()) {
-			ModuleInstance mod1 = itMod1.next();
-			if (config2.module(mod1.name()) == null)
-				modules.add(compareInstances(mod1, null));
-		}
-
-		// Outputs
-		Iterator<OutputModule> itOut2 = config2.outputIterator();
-		while (itOut2.hasNext()) {
-			OutputModule out2 = itOut2.next();
-			OutputModule out1 = config1.output(out2.name());
-			Comparison c = compareOutputModules(out1, out2);
-			if (!c.isIdentical())
-				outputs.add(c);
-		}
-		Iterator<OutputModule> itOut1 = config1.outputIterator();
-		while (itOut1.hasNext()) {
-			OutputModule out1 = itOut1.next();
-			if (config2.output(out1.name()) == null)
-				outputs.add(compareOutputModules(out1, null));
-		}
-
-		// Sequences
-		Iterator<Sequence> itSeq2 = config2.sequenceIterator();
-		while (itSeq2.hasNext()) {
-			Sequence seq2 = itSeq2.next();
-			Sequence seq1 = config1.sequence(seq2.name());
-			Comparison c = compareContainers(seq1, seq2);
-			if (!c.isIdentical())
-				sequences.add(c);
-		}
-		Iterator<Sequence> itSeq1 = config1.sequenceIterator();
-		while (itSeq1.hasNext()) {
-			Sequence seq1 = itSeq1.next();
-			if (config2.sequence(seq1.name()) == null)
-				sequences.add(compareContainers(seq1, null));
-		}
-
-		// Paths
-		Iterator<Path> itPath2 = config2.pathIterator();
-		while (itPath2.hasNext()) {
-			Path path2 = itPath2.next();
-			Path path1 = config1.path(path2.name());
-			Comparison c = compareContainers(path1, path2);
-			if (!c.isIdentical())
-				paths.add(c);
-		}
-		Iterator<Path> itPath1 = config1.pathIterator();
-		while (itPath1.hasNext()) {
-			Path path1 = itPath1.next();
-			if (config2.path(path1.name()) == null)
-				paths.add(compareContainers(path1, null));
+		ConfDB.loadDeferredParameters(config1);
+		ConfDB.loadDeferredParameters(config2);
+		if (parallelism <= 1) {
+			for (int i = 0; i < categoryCount; i++)
+				compareCategory(i);
+			return;
 		}
+		// the categories fill separate lists, so they can be compared concurrently
+		invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
 
-		// EventContents
-		Iterator<EventContent> itEventContent2 = config2.contentIterator();
-		while (itEventContent2.hasNext()) {
-			EventContent ec2 = itEventContent2.next();
-			EventContent ec1 = config1.content(ec2.name());
-			Comparison c = compareEventContents(ec1, ec2);
-			if (!c.isIdentical())
-				contents.add(c);
-		}
-		Iterator<EventContent> itEventContent1 = config1.contentIterator();
-		while (itEventContent1.hasNext()) {
-			EventContent ec1 = itEventContent1.next();
-			if (config2.content(ec1.name()) == null)
-				contents.add(compareEventContents(ec1, null));
-		}
+			protected void compute() {
+				ArrayList<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+				for (int i = 0; i < firstSerialCategory; i++)
+					tasks.add(new CategoryTask(i));
+				tasks.add(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
 
-		// Streams
-		Iterator<Stream> itStream2 = config2.streamIterator();
-		while (itStream2.hasNext()) {
-			Stream s2 = itStream2.next();
-			Stream s1 = config1.stream(s2.name());
-			Comparison c = compareStreams(s1, s2);
-			if (!c.isIdentical())
-				streams.add(c);
-		}
-		Iterator<Stream> itStream1 = config1.streamIterator();
-		while (itStream1.hasNext()) {
-			Stream s1 = itStream1.next();
-			if (config2.stream(s1.name()) == null)
-				streams.add(compareStreams(s1, null));
-		}
-
-		// Datasets
-		Iterator<PrimaryDataset> itDataset2 = config2.datasetIterator();
-		while (itDataset2.hasNext()) {
-			PrimaryDataset dataset2 = itDataset2.next();
-			PrimaryDataset dataset1 = config1.dataset(dataset2.name());
-			Comparison c = compareDatasets(dataset1, dataset2);
-			if (!c.isIdentical())
-				datasets.add(c);
-		}
-		Iterator<PrimaryDataset> itDataset1 = config1.datasetIterator();
-		while (itDataset1.hasNext()) {
-			PrimaryDataset dataset1 = itDataset1.next();
-			if (config2.dataset(dataset1.name()) == null)
-				datasets.add(compareDatasets(dataset1, null));
+					protected void compute() {
+						for (int i = firstSerialCategory; i < categoryCount; i++)
+							compareCategory(i);
+					}
+				});
+				invokeAll(tasks);
+			}
+		});
+	}
+
+	/** compare all components of the i-th category, in the order of compare() */
+	private void compareCategory(int category) {
+		switch (category) {
+		case 0:
+			comparePSets();
+			break;
+		case 1:
+			compareEDSources();
+			break;
+		case 2:
+			compareESSources();
+			break;
+		case 3:
+			compareESModules();
+			break;
+		case 4:
+			compareServices();
+			break;
+		case 5:
+			compareModules();
+			break;
+		case 6:
+			compareOutputModules();
+			break;
+		case 7:
+			compareSequences();
+			break;
+		case 8:
+			comparePaths();
+			break;
+		case 9:
+			compareEventContents();
+			break;
+		case 10:
+			compareStreams();
+			break;
+		case 11:
+			compareDatasets();
+			break;
 		}
 	}
 
@@ -444,20 +390,27 @@ public class Diff {
 
 	/** compare all paths and store all non-identical comparisons */
 	public void comparePaths() {
-		Iterator<Path> itPath2 = config2.pathIterator();
-		while (itPath2.hasNext()) {
-			Path path2 = itPath2.next();
-			Path path1 = config1.path(path2.name());
-			Comparison c = compareContainers(path1, path2);
-			if (!c.isIdentical())
-				paths.add(c);
-		}
-		Iterator<Path> itPath1 = config1.pathIterator();
-		while (itPath1.hasNext()) {
-			Path path1 = itPath1.next();
-			if (config2.path(path1.name()) == null)
-				paths.add(compareContainers(path1, null));
-		}
+		compareAll(new Category<Path>() {
+			Iterator<Path> iterator1() {
+				return config1.pathIterator();
+			}
+
+			Iterator<Path> iterator2() {
+				return config2.pathIterator();
+			}
+
+			Path find1(Path path2) {
+				return config1.path(path2.name());
+			}
+
+			boolean has2(Path path1) {
+				return config2.path(path1.name()) != null;
+			}
+
+			Comparison compare(Path path1, Path path2) {
+				return compareContainers(path1, path2);
+			}
+		}, paths, false);
 	}
 
 	/**
@@ -469,172 +422,227 @@ public class Diff {
 	 * analysis of DeepImport feature.
 	 */
 	public void comparePathsIgnoreStreams() {
-		Iterator<Path> itPath2 = config2.pathIterator();
-		while (itPath2.hasNext()) {
-			Path path2 = itPath2.next();
-			Path path1 = config1.path(path2.name());
-			Comparison c = compareContainersIgnoreStreams(path1, path2);
-			if (!c.isIdentical())
-				paths.add(c);
-		}
-		Iterator<Path> itPath1 = config1.pathIterator();
-		while (itPath1.hasNext()) {
-			Path path1 = itPath1.next();
-			if (config2.path(path1.name()) == null)
-				paths.add(compareContainersIgnoreStreams(path1, null));
-		}
+		compareAll(new Category<Path>() {
+			Iterator<Path> iterator1() {
+				return config1.pathIterator();
+			}
+
+			Iterator<Path> iterator2() {
+				return config2.pathIterator();
+			}
+
+			Path find1(Path path2) {
+				return config1.path(path2.name());
+			}
+
+			boolean has2(Path path1) {
+				return config2.path(path1.name()) != null;
+			}
+
+			Comparison compare(Path path1, Path path2) {
+				return compareContainersIgnoreStreams(path1, path2);
+			}
+		}, paths, false);
 	}
 
 	/** compare all parameter sets and store all non-identical comparisons */
 	public void comparePSets() {
-		// global parameter sets
-		Iterator<PSetParameter> itPSet2 = config2.psetIterator();
-		while (itPSet2.hasNext()) {
-			PSetParameter pset2 = itPSet2.next();
-			PSetParameter pset1 = config1.pset(pset2.name());
-			Comparison c = comparePSets(pset1, pset2);
-			if (!c.isIdentical())
-				psets.add(c);
-		}
-		Iterator<PSetParameter> itPSet1 = config1.psetIterator();
-		while (itPSet1.hasNext()) {
-			PSetParameter pset1 = itPSet1.next();
-			if (config2.pset(pset1.name()) == null)
-				psets.add(comparePSets(pset1, null));
-		}
+		compareAll(new Category<PSetParameter>() {
+			Iterator<PSetParameter> iterator1() {
+				return config1.psetIterator();
+			}
+
+			Iterator<PSetParameter> iterator2() {
+				return config2.psetIterator();
+			}
+
+			PSetParameter find1(PSetParameter pset2) {
+				return config1.pset(pset2.name());
+			}
+
+			boolean has2(PSetParameter pset1) {
+				return config2.pset(pset1.name()) != null;
+			}
+
+			Comparison compare(PSetParameter pset1, PSetParameter pset2) {
+				return comparePSets(pset1, pset2);
+			}
+		}, psets, true);
 	}
 
 	/** compare all EDSources and store all non-identical comparisons */
 	public void compareEDSources() {
-		// EDSources
-		Iterator<EDSourceInstance> itEDS2 = config2.edsourceIterator();
-		while (itEDS2.hasNext()) {
-			EDSourceInstance eds2 = itEDS2.next();
-			EDSourceInstance eds1 = config1.edsource(eds2.name());
-			Comparison c = compareInstances(eds1, eds2);
-			if (!c.isIdentical())
-				edsources.add(c);
-		}
-		Iterator<EDSourceInstance> itEDS1 = config1.edsourceIterator();
-		while (itEDS1.hasNext()) {
-			EDSourceInstance eds1 = itEDS1.next();
-			if (config2.edsource(eds1.name()) == null)
-				edsources.add(compareInstances(eds1, null));
-		}
+		compareAll(new Category<EDSourceInstance>() {
+			Iterator<EDSourceInstance> iterator1() {
+				return config1.edsourceIterator();
+			}
+
+			Iterator<EDSourceInstance> iterator2() {
+				return config2.edsourceIterator();
+			}
+
+			EDSourceInstance find1(EDSourceInstance eds2) {
+				return config1.edsource(eds2.name());
+			}
+
+			boolean has2(EDSourceInstance eds1) {
+				return config2.edsource(eds1.name()) != null;
+			}
+
+			Comparison compare(EDSourceInstance eds1, EDSourceInstance eds2) {
+				return compareInstances(eds1, eds2);
+			}
+		}, edsources, true);
 	}
 
 	/** compare all ESSources and store all non-identical comparisons */
 	public void compareESSources() {
-		// ESSources
-		Iterator<ESSourceInstance> itESS2 = config2.essourceIterator();
-		while (itESS2.hasNext()) {
-			ESSourceInstance ess2 = itESS2.next();
-			ESSourceInstance ess1 = config1.essource(ess2.name());
-			Comparison c = compareInstances(ess1, ess2);
-			if (!c.isIdentical())
-				essources.add(c);
-		}
-		Iterator<ESSourceInstance> itESS1 = config1.essourceIterator();
-		while (itESS1.hasNext()) {
-			ESSourceInstance ess1 = itESS1.next();
-			if (config2.essource(ess1.name()) == null)
-				essources.add(compareInstances(ess1, null));
-		}
+		compareAll(new Category<ESSourceInstance>() {
+			Iterator<ESSourceInstance> iterator1() {
+				return config1.essourceIterator();
+			}
+
+			Iterator<ESSourceInstance> iterator2() {
+				return config2.essourceIterator();
+			}
+
+			ESSourceInstance find1(ESSourceInstance ess2) {
+				return config1.essource(ess2.name());
+			}
+
+			boolean has2(ESSourceInstance ess1) {
+				return config2.essource(ess1.name()) != null;
+			}
+
+			Comparison compare(ESSourceInstance ess1, ESSourceInstance ess2) {
+				return compareInstances(ess1, ess2);
+			}
+		}, essources, true);
 	}
 
 	/** compare all ESModules and store all non-identical comparisons */
 	public void compareESModules() {
-		// ESModules
-		Iterator<ESModuleInstance> itESM2 = config2.esmoduleIterator();
-		while (itESM2.hasNext()) {
-			ESModuleInstance esm2 = itESM2.next();
-			ESModuleInstance esm1 = config1.esmodule(esm2.name());
-			Comparison c = compareInstances(esm1, esm2);
-			if (!c.isIdentical())
-				esmodules.add(c);
-		}
-		Iterator<ESModuleInstance> itESM1 = config1.esmoduleIterator();
-		while (itESM1.hasNext()) {
-			ESModuleInstance esm1 = itESM1.next();
-			if (config2.esmodule(esm1.name()) == null)
-				esmodules.add(compareInstances(esm1, null));
-		}
+		compareAll(new Category<ESModuleInstance>() {
+			Iterator<ESModuleInstance> iterator1() {
+				return config1.esmoduleIterator();
+			}
+
+			Iterator<ESModuleInstance> iterator2() {
+				return config2.esmoduleIterator();
+			}
+
+			ESModuleInstance find1(ESModuleInstance esm2) {
+				return config1.esmodule(esm2.name());
+			}
+
+			boolean has2(ESModuleInstance esm1) {
+				return config2.esmodule(esm1.name()) != null;
+			}
+
+			Comparison compare(ESModuleInstance esm1, ESModuleInstance esm2) {
+				return compareInstances(esm1, esm2);
+			}
+		}, esmodules, true);
 	}
 
 	/** compare all Services and store all non-identical comparisons */
 	public void compareServices() {
-		// Services
-		Iterator<ServiceInstance> itSvc2 = config2.serviceIterator();
-		while (itSvc2.hasNext()) {
-			ServiceInstance svc2 = itSvc2.next();
-			ServiceInstance svc1 = config1.service(svc2.name());
-			Comparison c = compareInstances(svc1, svc2);
-			if (!c.isIdentical())
-				services.add(c);
-		}
-		Iterator<ServiceInstance> itSvc1 = config1.serviceIterator();
-		while (itSvc1.hasNext()) {
-			ServiceInstance svc1 = itSvc1.next();
-			if (config2.service(svc1.name()) == null)
-				services.add(compareInstances(svc1, null));
-		}
+		compareAll(new Category<ServiceInstance>() {
+			Iterator<ServiceInstance> iterator1() {
+				return config1.serviceIterator();
+			}
+
+			Iterator<ServiceInstance> iterator2() {
+				return config2.serviceIterator();
+			}
+
+			ServiceInstance find1(ServiceInstance svc2) {
+				return config1.service(svc2.name());
+			}
+
+			boolean has2(ServiceInstance svc1) {
+				return config2.service(svc1.name()) != null;
+			}
+
+			Comparison compare(ServiceInstance svc1, ServiceInstance svc2) {
+				return compareInstances(svc1, svc2);
+			}
+		}, services, true);
 	}
 
 	/** compare all Modules and store all non-identical comparisons */
 	public void compareModules() {
-		// Modules
-		Iterator<ModuleInstance> itMod2 = config2.moduleIterator();
-		while (itMod2.hasNext()) {
-			ModuleInstance mod2 = itMod2.next();
-			ModuleInstance mod1 = config1.module(mod2.name());
-			Comparison c = compareInstances(mod1, mod2);
-			if (!c.isIdentical())
-				modules.add(c);
-		}
-		Iterator<ModuleInstance> itMod1 = config1.moduleIterator();
-		while (itMod1.hasNext()) {
-			ModuleInstance mod1 = itMod1.next();
-			if (config2.module(mod1.name()) == null)
-				modules.add(compareInstances(mod1, null));
-		}
+		compareAll(new Category<ModuleInstance>() {
+			Iterator<ModuleInstance> iterator1() {
+				return config1.moduleIterator();
+			}
+
+			Iterator<ModuleInstance> iterator2() {
+				return config2.moduleIterator();
+			}
+
+			ModuleInstance find1(ModuleInstance mod2) {
+				return config1.module(mod2.name());
+			}
+
+			boolean has2(ModuleInstance mod1) {
+				return config2.module(mod1.name()) != null;
+			}
+
+			Comparison compare(ModuleInstance mod1, ModuleInstance mod2) {
+				return compareInstances(mod1, mod2);
+			}
+		}, modules, true);
 	}
 
 	/** compare all Output Modules and store all non-identical comparisons */
 	public void compareOutputModules() {
-		// Outputs
-		Iterator<OutputModule> itOut2 = config2.outputIterator();
-		while (itOut2.hasNext()) {
-			OutputModule out2 = itOut2.next();
-			OutputModule out1 = config1.output(out2.name());
-			Comparison c = compareOutputModules(out1, out2);
-			if (!c.isIdentical())
-				outputs.add(c);
-		}
-		Iterator<OutputModule> itOut1 = config1.outputIterator();
-		while (itOut1.hasNext()) {
-			OutputModule out1 = itOut1.next();
-			if (config2.output(out1.name()) == null)
-				outputs.add(compareOutputModules(out1, null));
-		}
+		compareAll(new Category<OutputModule>() {
+			Iterator<OutputModule> iterator1() {
+				return config1.outputIterator();
+			}
+
+			Iterator<OutputModule> iterator2() {
+				return config2.outputIterator();
+			}
+
+			OutputModule find1(OutputModule out2) {
+				return config1.output(out2.name());
+			}
+
+			boolean has2(OutputModule out1) {
+				return config2.output(out1.name()) != null;
+			}
+
+			Comparison compare(OutputModule out1, OutputModule out2) {
+				return compareOutputModules(out1, out2);
+			}
+		}, outputs, false);
 	}
 
 	/** compare all Sequences and store all non-identical comparisons */
 	public void compareSequences() {
-		// Sequences
-		Iterator<Sequence> itSeq2 = config2.sequenceIterator();
-		while (itSeq2.hasNext()) {
-			Sequence seq2 = itSeq2.next();
-			Sequence seq1 = config1.sequence(seq2.name());
-			Comparison c = compareContainers(seq1, seq2);
-			if (!c.isIdentical())
-				sequences.add(c);
-		}
-		Iterator<Sequence> itSeq1 = config1.sequenceIterator();
-		while (itSeq1.hasNext()) {
-			Sequence seq1 = itSeq1.next();
-			if (config2.sequence(seq1.name()) == null)
-				sequences.add(compareContainers(seq1, null));
-		}
+		compareAll(new Category<Sequence>() {
+			Iterator<Sequence> iterator1() {
+				return config1.sequenceIterator();
+			}
+
+			Iterator<Sequence> iterator2() {
+				return config2.sequenceIterator();
+			}
+
+			Sequence find1(Sequence seq2) {
+				return config1.sequence(seq2.name());
+			}
+
+			boolean has2(Sequence seq1) {
+				return config2.sequence(seq1.name()) != null;
+			}
+
+			Comparison compare(Sequence seq1, Sequence seq2) {
+				return compareContainers(seq1, seq2);
+			}
+		}, sequences, false);
 	}
 
 	/**
@@ -646,79 +654,102 @@ public class Diff {
 	 * extra differences in the previous analysis of DeepImport feature.
 	 */
 	public void compareSequencesIgnoreStreams() {
-		// Sequences
-		Iterator<Sequence> itSeq2 = config2.sequenceIterator();
-		while (itSeq2.hasNext()) {
-			Sequence seq2 = itSeq2.next();
-			Sequence seq1 = config1.sequence(seq2.name());
-			Comparison c = compareContainersIgnoreStreams(seq1, seq2);
-			if (!c.isIdentical())
-				sequences.add(c);
-		}
-		Iterator<Sequence> itSeq1 = config1.sequenceIterator();
-		while (itSeq1.hasNext()) {
-			Sequence seq1 = itSeq1.next();
-			if (config2.sequence(seq1.name()) == null)
-				sequences.add(compareContainersIgnoreStreams(seq1, null));
-		}
+		compareAll(new Category<Sequence>() {
+			Iterator<Sequence> iterator1() {
+				return config1.sequenceIterator();
+			}
+
+			Iterator<Sequence> iterator2() {
+				return config2.sequenceIterator();
+			}
+
+			Sequence find1(Sequence seq2) {
+				return config1.sequence(seq2.name());
+			}
+
+			boolean has2(Sequence seq1) {
+				return config2.sequence(seq1.name()) != null;
+			}
+
+			Comparison compare(Sequence seq1, Sequence seq2) {
+				return compareContainersIgnoreStreams(seq1, seq2);
+			}
+		}, sequences, false);
 	}
 
 	/** compare all EventContents sets and store all non-identical comparisons */
 	public void compareEventContents() {
-		// EventContents
-		Iterator<EventContent> itEventContent2 = config2.contentIterator();
-		while (itEventContent2.hasNext()) {
-			EventContent ec2 = itEventContent2.next();
-			EventContent ec1 = config1.content(ec2.name());
-			Comparison c = compareEventContents(ec1, ec2);
-			if (!c.isIdentical())
-				contents.add(c);
-		}
-		Iterator<EventContent> itEventContent1 = config1.contentIterator();
-		while (itEventContent1.hasNext()) {
-			EventContent ec1 = itEventContent1.next();
-			if (config2.content(ec1.name()) == null)
-				contents.add(compareEventContents(ec1, null));
-		}
+		compareAll(new Category<EventContent>() {
+			Iterator<EventContent> iterator1() {
+				return config1.contentIterator();
+			}
+
+			Iterator<EventContent> iterator2() {
+				return config2.contentIterator();
+			}
+
+			EventContent find1(EventContent ec2) {
+				return config1.content(ec2.name());
+			}
+
+			boolean has2(EventContent ec1) {
+				return config2.content(ec1.name()) != null;
+			}
+
+			Comparison compare(EventContent ec1, EventContent ec2) {
+				return compareEventContents(ec1, ec2);
+			}
+		}, contents, false);
 	}
 
 	/** compare all Streams sets and store all non-identical comparisons */
 	public void compareStreams() {
-		// Streams
-		Iterator<Stream> itStream2 = config2.streamIterator();
-		while (itStream2.hasNext()) {
-			Stream s2 = itStream2.next();
-			Stream s1 = config1.stream(s2.name());
-			Comparison c = compareStreams(s1, s2);
-			if (!c.isIdentical())
-				streams.add(c);
-		}
-		Iterator<Stream> itStream1 = config1.streamIterator();
-		while (itStream1.hasNext()) {
-			Stream s1 = itStream1.next();
-			if (config2.stream(s1.name()) == null)
-				streams.add(compareStreams(s1, null));
-		}
+		compareAll(new Category<Stream>() {
+			Iterator<Stream> iterator1() {
+				return config1.streamIterator();
+			}
+
+			Iterator<Stream> iterator2() {
+				return config2.streamIterator();
+			}
+
+			Stream find1(Stream s2) {
+				return config1.stream(s2.name());
+			}
+
+			boolean has2(Stream s1) {
+				return config2.stream(s1.name()) != null;
+			}
+
+			Comparison compare(Stream s1, Stream s2) {
+				return compareStreams(s1, s2);
+			}
+		}, streams, false);
 	}
 
 	/** compare all Datasets sets and store all non-identical comparisons */
 	public void compareDatasets() {
-		// Datasets
-		Iterator<PrimaryDataset> itDataset2 = config2.datasetIterator();
-		while (itDataset2.hasNext()) {
-			PrimaryDataset dataset2 = itDataset2.next();
-			PrimaryDataset dataset1 = config1.dataset(dataset2.name());
-			Comparison c = compareDatasets(dataset1, dataset2);
-			if (!c.isIdentical())
-				datasets.add(c);
-		}
-		Iterator<PrimaryDataset> itDataset1 = config1.datasetIterator();
-		while (itDataset1.hasNext()) {
-			PrimaryDataset dataset1 = itDataset1.next();
-			if (config2.dataset(dataset1.name()) == null)
-				datasets.add(compareDatasets(dataset1, null));
-		}
+		compareAll(new Category<PrimaryDataset>() {
+			Iterator<PrimaryDataset> iterator1() {
+				return config1.datasetIterator();
+			}
+
+			Iterator<PrimaryDataset> iterator2() {
+				return config2.datasetIterator();
+			}
+
+			PrimaryDataset find1(PrimaryDataset dataset2) {
+				return config1.dataset(dataset2.name());
+			}
+
+			boolean has2(PrimaryDataset dataset1) {
+				return config2.dataset(dataset1.name()) != null;
+			}
 
+			Comparison compare(PrimaryDataset dataset1, PrimaryDataset dataset2) {
+				return compareDatasets(dataset1, dataset2);
+			}
+		}, datasets, false);
 	}
 
 	/** check if there are any differences at all */
@@ -987,8 +1018,11 @@ public class Diff {
 
 		Comparison result = new InstanceComparison(i1, i2);
 
+		if (hashPruning && i1 != null && i2 != null && hashOf1(i1) == ContentHash.of(i2))
+			return result;
+
 		if (!result.isAdded() && !result.isRemoved()) {
-			Comparison paramComparisons[] = compareParameterLists(i1.parameterIterator(), i2.parameterIterator());
+			Comparison paramComparisons[] = compareParameterLists(i1, i2.parameterIterator());
 			for (Comparison c : paramComparisons)
 				if (!c.isIdentical())
 					result.addComparison(c);
@@ -1011,8 +1045,11 @@ public class Diff {
 	public Comparison compareOutputModules(OutputModule om1, OutputModule om2) {
 		Comparison result = new OutputModuleComparison(om1, om2);
 
+		if (hashPruning && om1 != null && om2 != null && hashOf1(om1) == ContentHash.of(om2))
+			return result;
+
 		if (!result.isAdded() && !result.isRemoved()) {
-			Comparison paramComparisons[] = compareParameterLists(om1.parameterIterator(), om2.parameterIterator());
+			Comparison paramComparisons[] = compareParameterLists(om1, om2.parameterIterator());
 			for (Comparison c : paramComparisons)
 				if (!c.isIdentical())
 					result.addComparison(c);
@@ -1026,8 +1063,11 @@ public class Diff {
 		// avoid checking the Streams using the flag TRUE.
 		Comparison result = new OutputModuleComparison(om1, om2, ignoreStreams);
 
+		if (hashPruning && om1 != null && om2 != null && hashOf1(om1) == ContentHash.of(om2))
+			return result;
+
 		if (!result.isAdded() && !result.isRemoved()) {
-			Comparison paramComparisons[] = compareParameterLists(om1.parameterIterator(), om2.parameterIterator());
+			Comparison paramComparisons[] = compareParameterLists(om1, om2.parameterIterator());
 			for (Comparison c : paramComparisons)
 				if (!c.isIdentical())
 					result.addComparison(c);
@@ -1069,6 +1109,9 @@ public class Diff {
 
 		Comparison result = new ContainerComparison(rc1, rc2);
 
+		if (hashPruning && rc1 != null && rc2 != null && hashOf1(rc1) == ContentHash.of(rc2))
+			return result;
+
 		if (!result.isAdded() && !result.isRemoved()) {
 			Iterator<Reference> itRef2 = rc2.entryIterator();
 			while (itRef2.hasNext()) {
@@ -1119,9 +1162,9 @@ public class Diff {
 					OutputModule om = (OutputModule) parent1;
 					result.addComparison(new OutputModuleComparison(om, null));
 				}
-
-				containerMap.put(rc1.name() + "::" + rc2.name(), result);
 			}
+
+			containerMap.put(rc1.name() + "::" + rc2.name(), result);
 		}
 
 		return result;
@@ -1141,6 +1184,9 @@ public class Diff {
 
 		Comparison result = new ContainerComparison(rc1, rc2);
 
+		if (hashPruning && rc1 != null && rc2 != null && hashOf1(rc1) == ContentHash.of(rc2))
+			return result;
+
 		if (!result.isAdded() && !result.isRemoved()) {
 			Iterator<Reference> itRef2 = rc2.entryIterator();
 			while (itRef2.hasNext()) {
@@ -1194,9 +1240,9 @@ public class Diff {
 					result.addComparison(new OutputModuleComparison(om, null, true)); // avoid checking the Streams
 																						// using the flag TRUE.
 				}
-
-				containerMap.put(rc1.name() + "::" + rc2.name(), result);
 			}
+
+			containerMap.put(rc1.name() + "::" + rc2.name(), result);
 		}
 
 		return result;
@@ -1400,6 +1446,100 @@ public class Diff {
 	// private member functions
 	//
 
+	/**
+	 * compare all components of a category, store the non-identical comparisons
+	 * in 'result'; split them among threads only if 'concurrent'
+	 */
+	private <T> void compareAll(Category<T> category, ArrayList<Comparison> result, boolean concurrent) {
+		// pairs in the sequential order: all components of config2, then the removed ones
+		ArrayList<T> first = new ArrayList<T>();
+		ArrayList<T> second = new ArrayList<T>();
+		Iterator<T> it2 = category.iterator2();
+		while (it2.hasNext()) {
+			T c2 = it2.next();
+			first.add(category.find1(c2));
+			second.add(c2);
+		}
+		Iterator<T> it1 = category.iterator1();
+		while (it1.hasNext()) {
+			T c1 = it1.next();
+			if (!category.has2(c1)) {
+				first.add(c1);
+				second.add(null);
+			}
+		}
+
+		Comparison[] comparisons = new Comparison[first.size()];
+		if (parallelism <= 1 || !concurrent || comparisons.length <= chunkSize) {
+			for (int i = 0; i < comparisons.length; i++)
+				comparisons[i] = category.compare(first.get(i), second.get(i));
+		} else {
+			invoke(new CompareTask<T>(category, first, second, comparisons, 0, comparisons.length));
+		}
+
+		for (Comparison c : comparisons)
+			if (!c.isIdentical())
+				result.add(c);
+	}
+
+	/** run a task on the pool of this parallelism, or within it if already there */
+	private void invoke(ForkJoinTask<?> task) {
+		ForkJoinPool pool = getPool(parallelism);
+		if (ForkJoinTask.getPool() == pool)
+			task.invoke();
+		else
+			pool.invoke(task);
+	}
+
+	/** the pool of the parallel comparisons with 'parallelism' threads */
+	private static synchronized ForkJoinPool getPool(int parallelism) {
+		ForkJoinPool pool = pools.get(parallelism);
+		if (pool == null) {
+			pool = new ForkJoinPool(parallelism);
+			pools.put(parallelism, pool);
+		}
+		return pool;
+	}
+
+	/** content hash of a component of config1, from the baseline if indexed */
+	private int hashOf1(Instance i1) {
+		return (baseline != null) ? baseline.hashOf(i1) : ContentHash.of(i1);
+	}
+
+	/** content hash of an output module of config1 */
+	private int hashOf1(OutputModule om1) {
+		return (baseline != null) ? baseline.hashOf(om1) : ContentHash.of(om1);
+	}
+
+	/** content hash of a path or sequence of config1 */
+	private int hashOf1(ReferenceContainer rc1) {
+		return (baseline != null) ? baseline.hashOf(rc1) : ContentHash.of(rc1);
+	}
+
+	/** compare the parameters of a container of config1 to a list of parameters */
+	private Comparison[] compareParameterLists(ParameterContainer c1, Iterator<Parameter> it2) {
+		if (baseline == null)
+			return compareParameterLists(c1.parameterIterator(), it2);
+
+		// the baseline's map is shared: record the matched parameters instead of removing them
+		ArrayList<Comparison> result = new ArrayList<Comparison>();
+		HashMap<String, Parameter> map = baseline.parameterMap(c1);
+		HashSet<String> matched = new HashSet<String>();
+		while (it2.hasNext()) {
+			Parameter p2 = it2.next();
+			String key = parameterKey(p2);
+			Parameter p1 = matched.add(key) ? map.get(key) : null;
+			Comparison c = compareParameters(p1, p2);
+			if (!c.isIdentical())
+				result.add(c);
+		}
+		for (Map.Entry<String, Parameter> e : map.entrySet())
+			if (!matched.contains(e.getKey()))
+				result.add(compareParameters(e.getValue(), null));
+
+		return result.toArray(new Comparison[result.size()]);
+	}
+
 	/** compare two lists of parameters */
 	private Comparison[] compareParameterLists(Iterator<Parameter> it1, Iterator<Parameter> it2) {
 		ArrayList<Comparison> result = new ArrayList<Comparison>();
@@ -1407,12 +1547,12 @@ public class Diff {
 		HashMap<String, Parameter> map = new HashMap<String, Parameter>();
 		while (it1.hasNext()) {
 			Parameter p = it1.next();
-			map.put(p.type() + "::" + p.fullName(), p);
+			map.put(parameterKey(p), p);
 		}
 
 		while (it2.hasNext()) {
 			Parameter p2 = it2.next();
-			Parameter p1 = map.remove(p2.type() + "::" + p2.fullName());
+			Parameter p1 = map.remove(parameterKey(p2));
 			Comparison c = compareParameters(p1, p2);
 			if (!c.isIdentical())
 				result.add(c);
@@ -1454,6 +1594,11 @@ public class Diff {
 	// static member functions
 	//
 
+	/** key matching parameters of the two configurations */
+	static String parameterKey(Parameter p) {
+		return p.type() + "::" + p.fullName();
+	}
+
 	/** get the database instance */
 	public static ConfDB getDatabase() {
 		return database;
@@ -1503,6 +1648,8 @@ public class Diff {
 	public static void main(String[] args) {
 		String configs = "";
 		String search = "";
+		boolean prune = false;
+		int parallel = 1;
 		String dbType = "oracle";
 		String dbHost = "cmsr1-v.cern.ch";
 		String dbPort = "10121";
@@ -1518,6 +1665,11 @@ public class Diff {
 			} else if (arg.equals("--search")) {
 				iarg++;
 				search = args[iarg];
+			} else if (arg.equals("--prune")) {
+				prune = true;
+			} else if (arg.equals("--parallel")) {
+				iarg++;
+				parallel = Integer.parseInt(args[iarg]);
 			} else if (arg.equals("-t")) {
 				iarg++;
 				dbType = args[iarg];
@@ -1588,6 +1740,8 @@ public class Diff {
 		}
 
 		Diff diff = new Diff(config1, config2);
+		diff.setHashPruning(prune);
+		diff.setParallelism(parallel);
 		if (search.length() > 0)
 			diff.compare(search);
 		else
@@ -1601,4 +1755,71 @@ public class Diff {
 		}
 	}
 
+	//
+	// nested classes
+	//
+
+	/** the components of one category (paths, modules, ...) of both configurations */
+	private abstract class Category<T> {
+		/** components of config1 */
+		abstract Iterator<T> iterator1();
+
+		/** components of config2 */
+		abstract Iterator<T> iterator2();
+
+		/** component of config1 with the name of a component of config2, null if none */
+		abstract T find1(T component2);
+
+		/** check if config2 has a component with the name of a component of config1 */
+		abstract boolean has2(T component1);
+
+		/** compare two components, either may be null */
+		abstract Comparison compare(T component1, T component2);
+	}
+
+	/** compare the pairs [begin,end) of a category into comparisons[] */
+	private static class CompareTask<T> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Category<T> category;
+		private final ArrayList<T> first;
+		private final ArrayList<T> second;
+		private final Comparison[] comparisons;
+		private final int begin;
+		private final int end;
+
+		CompareTask(Category<T> category, ArrayList<T> first, ArrayList<T> second, Comparison[] comparisons,
+				int begin, int end) {
+			this.category = category;
+			this.first = first;
+			this.second = second;
+			this.comparisons = comparisons;
+			this.begin = begin;
+			this.end = end;
+		}
+
+		protected void compute() {
+			if (end - begin <= chunkSize) {
+				for (int i = begin; i < end; i++)
+					comparisons[i] = category.compare(first.get(i), second.get(i));
+				return;
+			}
+			int middle = (begin + end) >>> 1;
+			invokeAll(new CompareTask<T>(category, first, second, comparisons, begin, middle),
+					new CompareTask<T>(category, first, second, comparisons, middle, end));
+		}
+	}
+
+	/** compare all components of one category */
+	private class CategoryTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int category;
+
+		CategoryTask(int category) {
+			this.category = category;
+		}
+
+		protected void compute() {
+			compareCategory(category);
+		}
+	}
 }
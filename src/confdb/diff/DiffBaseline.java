@@ -0,0 +1,97 @@
+package confdb.diff;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import confdb.data.*;
+
+/**
+ * DiffBaseline
+ * ------------
+ *
+ * Index of a reference configuration which is compared to many others, see
+ * BatchDiff: the parameter map of each instance / output module and the
+ * content hashes of the reference's components are built on first use and
+ * shared by all Diffs created for this baseline, possibly concurrently. The
+ * reference must not be modified while the baseline is in use.
+ */
+public class DiffBaseline {
+	//
+	// member data
+	//
+
+	/** the reference configuration */
+	private final IConfiguration reference;
+
+	/** parameters of each container, by Diff.parameterKey() */
+	private final ConcurrentHashMap<ParameterContainer, HashMap<String, Parameter>> parameterMaps = new ConcurrentHashMap<ParameterContainer, HashMap<String, Parameter>>();
+
+	/** content hash of each instance, output module, path and sequence */
+	private final ConcurrentHashMap<Object, Integer> hashes = new ConcurrentHashMap<Object, Integer>();
+
+	//
+	// construction
+	//
+
+	/** standard constructor */
+	public DiffBaseline(IConfiguration reference) {
+		this.reference = reference;
+	}
+
+	//
+	// member functions
+	//
+
+	/** the reference configuration */
+	public IConfiguration reference() {
+		return reference;
+	}
+
+	/** parameters of a container by Diff.parameterKey(), not to be modified */
+	HashMap<String, Parameter> parameterMap(ParameterContainer container) {
+		HashMap<String, Parameter> map = parameterMaps.get(container);
+		if (map == null) {
+			map = new HashMap<String, Parameter>();
+			Iterator<Parameter> itP = container.parameterIterator();
+			while (itP.hasNext()) {
+				Parameter p = itP.next();
+				map.put(Diff.parameterKey(p), p);
+			}
+			HashMap<String, Parameter> other = parameterMaps.putIfAbsent(container, map);
+			if (other != null)
+				map = other;
+		}
+		return map;
+	}
+
+	/** content hash of an instance */
+	int hashOf(Instance instance) {
+		Integer hash = hashes.get(instance);
+		if (hash == null) {
+			hash = ContentHash.of(instance);
+			hashes.put(instance, hash);
+		}
+		return hash;
+	}
+
+	/** content hash of an output module */
+	int hashOf(OutputModule output) {
+		Integer hash = hashes.get(output);
+		if (hash == null) {
+			hash = ContentHash.of(output);
+			hashes.put(output, hash);
+		}
+		return hash;
+	}
+
+	/** content hash of a path or sequence */
+	int hashOf(ReferenceContainer container) {
+		Integer hash = hashes.get(container);
+		if (hash == null) {
+			hash = ContentHash.of(container);
+			hashes.put(container, hash);
+		}
+		return hash;
+	}
+}
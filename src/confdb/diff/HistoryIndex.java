@@ -0,0 +1,410 @@
+package confdb.diff;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import confdb.data.*;
+import confdb.db.*;
+
+/**
+ * HistoryIndex
+ * ------------
+ *
+ * Change history of the modules (and other instances) of a configuration
+ * across its versions. Each version is loaded once, directly from the
+ * database (not through the ConfCache, which it would flood), and only the content hashes (see ContentHash) of the modules and
+ * parameters which changed with respect to the previous version are kept:
+ * "in which versions did X change" is then answered from the index alone.
+ * The index can be saved to a local file and updated with the versions
+ * added since.
+ *
+ * Components are identified by their kind and name, e.g. "Module:hltFilter"
+ * or "ESSource:GlobalTag" (modules and output modules share the kind
+ * "Module", like their labels), parameters by the key of their component and
+ * their full name, e.g. "Module:hltFilter/thresholds::minPt".
+ */
+public class HistoryIndex {
+	//
+	// member data
+	//
+
+	/** format version of the index files */
+	private static final int fileFormat = 2;
+
+	/** full name of the configuration */
+	private String configName;
+
+	/** modules and parameters, indexed by their ids */
+	private ArrayList<String> keys = new ArrayList<String>();
+
+	/** module / parameter -> id */
+	private HashMap<String, Integer> keyIds = new HashMap<String, Integer>();
+
+	/** indexed versions, oldest first */
+	private ArrayList<ConfigVersion> versions = new ArrayList<ConfigVersion>();
+
+	/**
+	 * changes of each version: key ids in ascending order, followed by the new
+	 * hashes (0 if removed) in the same order
+	 */
+	private ArrayList<int[]> changes = new ArrayList<int[]>();
+
+	/** module hashes of the last indexed version, null if not restored yet */
+	private HashMap<String, Integer> moduleHashes = null;
+
+	/** parameter hashes of each module of the last indexed version */
+	private HashMap<String, HashMap<String, Integer>> parameterHashes = null;
+
+	//
+	// construction
+	//
+
+	/** standard constructor */
+	public HistoryIndex(String configName) {
+		this.configName = configName;
+	}
+
+	/** index all versions of a configuration */
+	public static HistoryIndex build(ConfigInfo info, ConfDB database) throws DiffException {
+		HistoryIndex result = new HistoryIndex(info.fullName());
+		result.update(info, database);
+		return result;
+	}
+
+	/** read an index saved before */
+	public static HistoryIndex load(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+		try {
+			if (in.readInt() != fileFormat)
+				throw new IOException("HistoryIndex::load(): unknown format of " + file);
+			HistoryIndex result = new HistoryIndex(readString(in));
+			int keyCount = in.readInt();
+			for (int i = 0; i < keyCount; i++)
+				result.keyId(readString(in));
+			int versionCount = in.readInt();
+			for (int i = 0; i < versionCount; i++) {
+				int dbId = in.readInt();
+				int version = in.readInt();
+				result.versions.add(new ConfigVersion(dbId, version, readString(in), readString(in),
+						readString(in), readString(in), readString(in)));
+				int[] versionChanges = new int[in.readInt()];
+				for (int j = 0; j < versionChanges.length; j++)
+					versionChanges[j] = in.readInt();
+				result.changes.add(versionChanges);
+			}
+			return result;
+		} finally {
+			in.close();
+		}
+	}
+
+	//
+	// member functions
+	//
+
+	/** full name of the configuration */
+	public String configName() {
+		return configName;
+	}
+
+	/** number of indexed versions */
+	public int versionCount() {
+		return versions.size();
+	}
+
+	/** the i-th indexed version, oldest first */
+	public ConfigVersion version(int i) {
+		return versions.get(i);
+	}
+
+	/** versions in which a module was added, modified or removed */
+	public List<ConfigVersion> changesOf(String moduleName) {
+		return changesOfComponent("Module", moduleName);
+	}
+
+	/** versions in which a parameter of a module was added, modified or removed */
+	public List<ConfigVersion> changesOf(String moduleName, String parameterName) {
+		return changesOfComponent("Module", moduleName, parameterName);
+	}
+
+	/**
+	 * versions in which a component of a kind ("EDSource", "ESSource",
+	 * "ESModule", "Service" or "Module") was added, modified or removed
+	 */
+	public List<ConfigVersion> changesOfComponent(String kind, String name) {
+		return changesOfKey(componentKey(kind, name));
+	}
+
+	/** versions in which a parameter of a component was added, modified or removed */
+	public List<ConfigVersion> changesOfComponent(String kind, String name, String parameterName) {
+		return changesOfKey(componentKey(kind, name) + "/" + parameterName);
+	}
+
+	/** index the versions of the configuration added since the last update */
+	public void update(ConfigInfo info, ConfDB database) throws DiffException {
+		ArrayList<ConfigVersion> newVersions = new ArrayList<ConfigVersion>();
+		int lastVersion = versions.isEmpty() ? -1 : versions.get(versions.size() - 1).version();
+		for (int i = 0; i < info.versionCount(); i++)
+			if (info.version(i).version() > lastVersion)
+				newVersions.add(info.version(i));
+		Collections.sort(newVersions, new Comparator<ConfigVersion>() {
+			public int compare(ConfigVersion v1, ConfigVersion v2) {
+				return Integer.compare(v1.version(), v2.version());
+			}
+		});
+		if (newVersions.isEmpty())
+			return;
+
+		restoreHashes();
+		for (ConfigVersion version : newVersions) {
+			IConfiguration config = null;
+			try {
+				config = database.loadConfiguration(version.dbId());
+			} catch (DatabaseException e) {
+				String errMsg = "HistoryIndex::update(version=" + version.version() + ") failed: " + e.getMessage();
+				throw new DiffException(errMsg, e);
+			}
+			addVersion(version, config);
+		}
+	}
+
+	/** save the index, replacing the file only once complete */
+	public void save(File file) throws IOException {
+		File tmpFile = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(
+				new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile))));
+		try {
+			out.writeInt(fileFormat);
+			writeString(out, configName);
+			out.writeInt(keys.size());
+			for (String key : keys)
+				writeString(out, key);
+			out.writeInt(versions.size());
+			for (int i = 0; i < versions.size(); i++) {
+				ConfigVersion version = versions.get(i);
+				out.writeInt(version.dbId());
+				out.writeInt(version.version());
+				writeString(out, version.created());
+				writeString(out, version.creator());
+				writeString(out, version.releaseTag());
+				writeString(out, version.processName());
+				writeString(out, version.comment());
+				int[] versionChanges = changes.get(i);
+				out.writeInt(versionChanges.length);
+				for (int c : versionChanges)
+					out.writeInt(c);
+			}
+		} catch (IOException e) {
+			out.close();
+			tmpFile.delete();
+			throw e;
+		}
+		out.close();
+		if (!tmpFile.renameTo(file)) {
+			file.delete();
+			if (!tmpFile.renameTo(file))
+				throw new IOException("HistoryIndex::save(): can't rename " + tmpFile);
+		}
+	}
+
+	//
+	// private member functions
+	//
+
+	/** versions in which a module or parameter changed */
+	private List<ConfigVersion> changesOfKey(String key) {
+		ArrayList<ConfigVersion> result = new ArrayList<ConfigVersion>();
+		Integer keyId = keyIds.get(key);
+		if (keyId == null)
+			return result;
+		for (int i = 0; i < versions.size(); i++) {
+			int[] versionChanges = changes.get(i);
+			if (Arrays.binarySearch(versionChanges, 0, versionChanges.length / 2, keyId) >= 0)
+				result.add(versions.get(i));
+		}
+		return result;
+	}
+
+	/** record the changes of a version with respect to the last one */
+	private void addVersion(ConfigVersion version, IConfiguration config) {
+		HashMap<Integer, Integer> versionChanges = new HashMap<Integer, Integer>();
+		HashMap<String, Integer> oldModuleHashes = moduleHashes;
+		moduleHashes = new HashMap<String, Integer>();
+
+		ArrayList<ParameterContainer> containers = new ArrayList<ParameterContainer>();
+		addAll(containers, config.edsourceIterator());
+		addAll(containers, config.essourceIterator());
+		addAll(containers, config.esmoduleIterator());
+		addAll(containers, config.serviceIterator());
+		addAll(containers, config.moduleIterator());
+		addAll(containers, config.outputIterator());
+
+		for (ParameterContainer container : containers) {
+			String name = componentKey(kindOf(container), (container instanceof Instance) ? ((Instance) container).name()
+					: ((OutputModule) container).name());
+			int hash = (container instanceof Instance) ? ContentHash.of((Instance) container)
+					: ContentHash.of((OutputModule) container);
+			moduleHashes.put(name, hash);
+			Integer oldHash = oldModuleHashes.remove(name);
+			if (oldHash != null && oldHash.intValue() == hash)
+				continue;
+
+			// the module is new or changed: find the parameters which changed
+			versionChanges.put(keyId(name), hash);
+			HashMap<String, Integer> oldParameters = parameterHashes.remove(name);
+			if (oldParameters == null)
+				oldParameters = new HashMap<String, Integer>();
+			HashMap<String, Integer> parameters = new HashMap<String, Integer>();
+			Iterator<Parameter> itP = container.parameterIterator();
+			while (itP.hasNext())
+				addParameter(parameters, itP.next());
+			for (Map.Entry<String, Integer> e : parameters.entrySet()) {
+				Integer oldParameterHash = oldParameters.remove(e.getKey());
+				if (oldParameterHash == null || !oldParameterHash.equals(e.getValue()))
+					versionChanges.put(keyId(name + "/" + e.getKey()), e.getValue());
+			}
+			for (String parameterName : oldParameters.keySet())
+				versionChanges.put(keyId(name + "/" + parameterName), 0);
+			parameterHashes.put(name, parameters);
+		}
+
+		// the remaining modules were removed, with all their parameters
+		for (String name : oldModuleHashes.keySet()) {
+			versionChanges.put(keyId(name), 0);
+			HashMap<String, Integer> oldParameters = parameterHashes.remove(name);
+			if (oldParameters != null)
+				for (String parameterName : oldParameters.keySet())
+					versionChanges.put(keyId(name + "/" + parameterName), 0);
+		}
+
+		Integer[] changedIds = versionChanges.keySet().toArray(new Integer[versionChanges.size()]);
+		Arrays.sort(changedIds);
+		int[] packed = new int[2 * changedIds.length];
+		for (int i = 0; i < changedIds.length; i++) {
+			packed[i] = changedIds[i];
+			packed[changedIds.length + i] = versionChanges.get(changedIds[i]);
+		}
+		versions.add(version);
+		changes.add(packed);
+	}
+
+	/** replay the recorded changes to get the hashes of the last indexed version */
+	private void restoreHashes() {
+		if (moduleHashes != null)
+			return;
+		moduleHashes = new HashMap<String, Integer>();
+		parameterHashes = new HashMap<String, HashMap<String, Integer>>();
+		for (int[] versionChanges : changes) {
+			int count = versionChanges.length / 2;
+			for (int i = 0; i < count; i++) {
+				String key = keys.get(versionChanges[i]);
+				int hash = versionChanges[count + i];
+				int slash = key.indexOf('/');
+				if (slash < 0) {
+					if (hash != 0)
+						moduleHashes.put(key, hash);
+					else
+						moduleHashes.remove(key);
+					continue;
+				}
+				String name = key.substring(0, slash);
+				HashMap<String, Integer> parameters = parameterHashes.get(name);
+				if (parameters == null) {
+					parameters = new HashMap<String, Integer>();
+					parameterHashes.put(name, parameters);
+				}
+				if (hash != 0)
+					parameters.put(key.substring(slash + 1), hash);
+				else
+					parameters.remove(key.substring(slash + 1));
+			}
+		}
+	}
+
+	/** record the hash of a parameter and, recursively, of its children */
+	private static void addParameter(HashMap<String, Integer> parameters, Parameter p) {
+		parameters.put(p.fullName(), ContentHash.of(p));
+		if (p instanceof VPSetParameter) {
+			VPSetParameter vpset = (VPSetParameter) p;
+			for (int i = 0; i < vpset.parameterSetCount(); i++)
+				addParameter(parameters, vpset.parameterSet(i));
+		} else if (p instanceof PSetParameter) {
+			Iterator<Parameter> itP = ((PSetParameter) p).parameterIterator();
+			while (itP.hasNext())
+				addParameter(parameters, itP.next());
+		}
+	}
+
+	/** kind of a component, output modules are modules */
+	private static String kindOf(ParameterContainer container) {
+		if (container instanceof EDSourceInstance)
+			return "EDSource";
+		if (container instanceof ESSourceInstance)
+			return "ESSource";
+		if (container instanceof ESModuleInstance)
+			return "ESModule";
+		if (container instanceof ServiceInstance)
+			return "Service";
+		return "Module";
+	}
+
+	/** key of a component */
+	private static String componentKey(String kind, String name) {
+		return kind + ":" + name;
+	}
+
+	/** write a string of any length, or null */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/** read a string written by writeString() */
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/** add the components of an iterator to a list */
+	private static void addAll(ArrayList<ParameterContainer> containers, Iterator<? extends ParameterContainer> it) {
+		while (it.hasNext())
+			containers.add(it.next());
+	}
+
+	/** id of a module or parameter, assigned on first use */
+	private int keyId(String key) {
+		Integer id = keyIds.get(key);
+		if (id == null) {
+			id = keys.size();
+			keys.add(key);
+			keyIds.put(key, id);
+		}
+		return id;
+	}
+}
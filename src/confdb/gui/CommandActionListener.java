@@ -43,6 +43,8 @@ public class CommandActionListener implements ActionListener
 
     private static final String cmdTrack            = "Track InputTags";
     private static final String cmdEnableClone      = "Enable Path Deep Cloning";
+    private static final String cmdLazyLoad         = "Load Parameters on Demand";
+    private static final String cmdReuse            = "Reuse Identical Elements on Save";
     
     private static final String cmdConnectToDB      = "Connect to DB";
     private static final String cmdDisconnectFromDB = "Disconnect from DB";
@@ -89,6 +91,8 @@ public class CommandActionListener implements ActionListener
 	
 	if (command.equals(cmdTrack))            app.setOptionTrackInputTags(source.isSelected());
 	if (command.equals(cmdEnableClone))      app.setEnablePathCloning(source.isSelected());
+	if (command.equals(cmdLazyLoad))         app.setOptionLazyLoad(source.isSelected());
+	if (command.equals(cmdReuse))            app.setOptionReuseIdenticalElements(source.isSelected());
 
 	if (command.equals(cmdConnectToDB))      app.connectToDatabase();
 	if (command.equals(cmdDisconnectFromDB)) app.disconnectFromDatabase();
@@ -1186,6 +1186,16 @@ public class ConfDbGUI {
 
 	}
 
+	/** set option 'Load Parameters on Demand', for configurations opened from now on */
+	public void setOptionLazyLoad(boolean lazyLoad) {
+		database.setLazyLoad(lazyLoad);
+	}
+
+	/** set option 'Reuse Identical Elements', for saves and exports */
+	public void setOptionReuseIdenticalElements(boolean reuse) {
+		database.setReuseIdenticalElements(reuse);
+	}
+
 	/** Set option 'Enable path cloning' */
 	public void setEnablePathCloning(boolean enableCloning) {
 
@@ -1277,6 +1287,7 @@ public class ConfDbGUI {
 
 		if (dialog.validChoice()) {
 			ConfDB targetDB = dialog.targetDB();
+			targetDB.setReuseIdenticalElements(database.isReuseIdenticalElements());
 			String targetName = dialog.targetName();
 			Directory targetDir = dialog.targetDir();
 
@@ -357,9 +357,35 @@ public class ConfigurationTreeModel extends AbstractTreeModel {
 
 	/** indicate if a node is a leaf node */
 	public boolean isLeaf(Object node) {
+		// don't load deferred module parameters just to draw a node
+		if (displayParameters && isParameterLoadPending(node))
+			return false;
+		if (displayParameters && node instanceof ReferenceContainer)
+			return ((ReferenceContainer) node).entryCount() == 0;
 		return (getChildCount(node) == 0);
 	}
 
+	/** check wether the parameters shown below a node are not loaded yet */
+	private boolean isParameterLoadPending(Object node) {
+		if (node instanceof ParameterContainer)
+			return ((ParameterContainer) node).isParameterLoadPending();
+		if (node instanceof ModuleReference)
+			return ((ModuleInstance) ((ModuleReference) node).parent()).isParameterLoadPending();
+		return false;
+	}
+
+	/** load the deferred parameters of the modules of an expanded path/sequence at once */
+	private void prefetchParameters(ReferenceContainer container) {
+		ArrayList<ModuleInstance> modules = new ArrayList<ModuleInstance>();
+		for (int i = 0; i < container.entryCount(); i++) {
+			Reference entry = container.entry(i);
+			if (entry instanceof ModuleReference && isParameterLoadPending(entry))
+				modules.add((ModuleInstance) entry.parent());
+		}
+		if (!modules.isEmpty())
+			ParameterContainer.loadParameters(modules);
+	}
+
 	/** number of child nodes */
 	public int getChildCount(Object node) {
 		if (node.equals(config)) {
@@ -414,6 +440,7 @@ public class ConfigurationTreeModel extends AbstractTreeModel {
 			return dataset.pathCount();
 		} else if (node instanceof ReferenceContainer) {
 			ReferenceContainer refContainer = (ReferenceContainer) node;
+			prefetchParameters(refContainer);
 			return refContainer.entryCount();
 		} else if (node instanceof ModuleReference) {
 			ModuleReference reference = (ModuleReference) node;
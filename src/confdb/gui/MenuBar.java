@@ -47,6 +47,8 @@ public class MenuBar {
 	/** menu bar item names: options */
 	private static final String optionsMenuTrack = "Track InputTags";
 	private static final String optionsMenuEnablePathCloning = "Enable Path Deep Cloning";
+	private static final String optionsMenuLazyLoad = "Load Parameters on Demand";
+	private static final String optionsMenuReuse = "Reuse Identical Elements on Save";
 
 	/** menu bar item names: dbMenu */
 	private static final String dbMenuConnectToDB = "Connect to DB";
@@ -82,6 +84,8 @@ public class MenuBar {
 
 	private JCheckBoxMenuItem optionsMenuTrackItem = null;
 	private JCheckBoxMenuItem optionsMenuEnablePathCloningItem = null;
+	private JCheckBoxMenuItem optionsMenuLazyLoadItem = null;
+	private JCheckBoxMenuItem optionsMenuReuseItem = null;
 
 	private JMenuItem dbMenuConnectItem = null;
 	private JMenuItem dbMenuDisconnectItem = null;
@@ -290,6 +294,14 @@ public class MenuBar {
 		optionsMenuEnablePathCloningItem = new JCheckBoxMenuItem(optionsMenuEnablePathCloning);
 		optionsMenuEnablePathCloningItem.addActionListener(listener);
 		optionsMenu.add(optionsMenuEnablePathCloningItem);
+		// Load module parameters on first access (experimental).
+		optionsMenuLazyLoadItem = new JCheckBoxMenuItem(optionsMenuLazyLoad);
+		optionsMenuLazyLoadItem.addActionListener(listener);
+		optionsMenu.add(optionsMenuLazyLoadItem);
+		// Share the stored modules and paths of identical content on save / export.
+		optionsMenuReuseItem = new JCheckBoxMenuItem(optionsMenuReuse);
+		optionsMenuReuseItem.addActionListener(listener);
+		optionsMenu.add(optionsMenuReuseItem);
 
 		JMenu dbMenu = new JMenu("Database");
 		dbMenu.setMnemonic(KeyEvent.VK_D);